@@ -0,0 +1,184 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                K e r n e l s B e n c h m a r k                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.bench;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphFactory;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.image.Anchored.Anchor;
+import org.audiveris.omr.image.ChamferDistance;
+import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.image.Template;
+import org.audiveris.omr.image.TemplateFactory;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
+import ij.process.ByteProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code KernelsBenchmark} gathers micro-benchmarks on the low-level image kernels
+ * the early steps spend most of their time in.
+ * <p>
+ * Each benchmark works on the same sample image, loaded and pre-processed once per trial.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KernelsBenchmark
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Abscissa and ordinate step between two template evaluations. */
+    private static final int TEMPLATE_STEP = 3;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Name of sample image, within examples folder. */
+    @Param({"chula.png"})
+    public String image;
+
+    /** Template point size. */
+    @Param({"64"})
+    public int pointSize;
+
+    /** Gray source. */
+    private ByteProcessor gray;
+
+    /** Binary source. */
+    private ByteProcessor binary;
+
+    /** Vertical runs of binary source. */
+    private RunTable verticalTable;
+
+    /** Distances to foreground. */
+    private DistanceTable distances;
+
+    /** Head template. */
+    private Template template;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        gray = Samples.loadGray(image);
+        binary = Samples.binarize(gray);
+        verticalTable = new RunTableFactory(Orientation.VERTICAL).createTable(binary);
+        distances = new ChamferDistance.Short().computeToFore(binary);
+        template = TemplateFactory.getInstance().getCatalog(pointSize).getTemplate(
+                Shape.NOTEHEAD_BLACK);
+    }
+
+    //----------------//
+    // adaptiveFilter //
+    //----------------//
+    @Benchmark
+    public ByteProcessor adaptiveFilter ()
+    {
+        return Samples.binarize(gray);
+    }
+
+    //-------------//
+    // buildGlyphs //
+    //-------------//
+    @Benchmark
+    public List<Glyph> buildGlyphs ()
+    {
+        return GlyphFactory.buildGlyphs(verticalTable, new Point(0, 0));
+    }
+
+    //-----------------//
+    // chamferDistance //
+    //-----------------//
+    @Benchmark
+    public DistanceTable chamferDistance ()
+    {
+        return new ChamferDistance.Short().computeToFore(binary);
+    }
+
+    //-----------------------//
+    // createHorizontalTable //
+    //-----------------------//
+    @Benchmark
+    public RunTable createHorizontalTable ()
+    {
+        return new RunTableFactory(Orientation.HORIZONTAL).createTable(binary);
+    }
+
+    //---------------------//
+    // createVerticalTable //
+    //---------------------//
+    @Benchmark
+    public RunTable createVerticalTable ()
+    {
+        return new RunTableFactory(Orientation.VERTICAL).createTable(binary);
+    }
+
+    //------------------//
+    // evaluateTemplate //
+    //------------------//
+    /**
+     * Evaluate the head template on a regular grid of locations over the whole image.
+     *
+     * @return the sum of evaluations
+     */
+    @Benchmark
+    public double evaluateTemplate ()
+    {
+        final int width = distances.getWidth();
+        final int height = distances.getHeight();
+        double sum = 0;
+
+        for (int y = 0; y < height; y += TEMPLATE_STEP) {
+            for (int x = 0; x < width; x += TEMPLATE_STEP) {
+                sum += template.evaluate(x, y, Anchor.CENTER, distances);
+            }
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,150 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                         S a m p l e s                                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.bench;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.image.VerticalFilter;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.util.OmrExecutors;
+
+import ij.process.ByteProcessor;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code Samples} gives the benchmarks access to the sample images bundled with the
+ * distribution (in {@code data/examples} folder) and to a minimal OMR environment.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class Samples
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Coefficient for mean pixel value, as in default adaptive binarization. */
+    private static final double MEAN_COEFF = 0.7;
+
+    /** Coefficient for pixel standard deviation, as in default adaptive binarization. */
+    private static final double STD_DEV_COEFF = 0.9;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Not meant to be instantiated.
+     */
+    private Samples ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // binarize //
+    //----------//
+    /**
+     * Binarize a gray buffer, using default adaptive filter.
+     *
+     * @param gray the gray buffer
+     * @return the binary buffer (foreground pixels at 0, background at 255)
+     */
+    public static ByteProcessor binarize (ByteProcessor gray)
+    {
+        return new VerticalFilter(gray, MEAN_COEFF, STD_DEV_COEFF).filteredImage();
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    /**
+     * Report the path to the named sample image.
+     *
+     * @param name image file name, within examples folder
+     * @return the sample path
+     * @throws IOException if sample does not exist
+     */
+    public static Path getPath (String name)
+            throws IOException
+    {
+        Path path = Paths.get("data", "examples", name);
+
+        if (!Files.exists(path)) {
+            path = WellKnowns.EXAMPLES_FOLDER.resolve(name);
+        }
+
+        if (!Files.exists(path)) {
+            throw new IOException("No sample image " + name);
+        }
+
+        return path;
+    }
+
+    //------------//
+    // initialize //
+    //------------//
+    /**
+     * Set up a batch OMR environment, as done by Main in batch mode.
+     */
+    public static void initialize ()
+    {
+        OmrExecutors.restart();
+        OMR.engine = BookManager.getInstance();
+    }
+
+    //----------//
+    // loadGray //
+    //----------//
+    /**
+     * Load the named sample image as a gray buffer.
+     *
+     * @param name image file name, within examples folder
+     * @return the gray buffer
+     * @throws IOException if image could not be read
+     */
+    public static ByteProcessor loadGray (String name)
+            throws IOException
+    {
+        BufferedImage img = ImageIO.read(getPath(name).toFile());
+
+        if (img == null) {
+            throw new IOException("Unreadable sample image " + name);
+        }
+
+        if (img.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            BufferedImage gray = new BufferedImage(
+                    img.getWidth(),
+                    img.getHeight(),
+                    BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(img, 0, 0, null);
+            g.dispose();
+            img = gray;
+        }
+
+        return new ByteProcessor(img);
+    }
+}
@@ -0,0 +1,198 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S i g B e n c h m a r k                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.bench;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.inter.HeadInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.HeadStemRelation;
+import org.audiveris.omr.step.Step;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code SigBenchmark} measures the typical queries run on the symbol interpretation
+ * graphs of a fully transcribed sample sheet.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SigBenchmark
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Side of the square windows used for area queries, in pixels. */
+    private static final int WINDOW = 100;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Name of sample image, within examples folder. */
+    @Param({"chula.png"})
+    public String image;
+
+    /** The processed book. */
+    private Book book;
+
+    /** The SIG of each system. */
+    private final List<SIGraph> sigs = new ArrayList<SIGraph>();
+
+    /** The query windows of each system, parallel to sigs. */
+    private final List<List<Rectangle>> windows = new ArrayList<List<Rectangle>>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        Samples.initialize();
+        book = OMR.engine.loadInput(Samples.getPath(image));
+        book.createStubs(null);
+
+        if (!book.reachBookStep(Step.last(), false, null)) {
+            throw new IllegalStateException("Could not transcribe " + image);
+        }
+
+        final Sheet sheet = book.getStubs().get(0).getSheet();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            sigs.add(system.getSig());
+
+            final Rectangle bounds = system.getBounds();
+            final List<Rectangle> list = new ArrayList<Rectangle>();
+
+            for (int y = bounds.y; y < (bounds.y + bounds.height); y += WINDOW) {
+                for (int x = bounds.x; x < (bounds.x + bounds.width); x += WINDOW) {
+                    list.add(new Rectangle(x, y, WINDOW, WINDOW));
+                }
+            }
+
+            windows.add(list);
+        }
+    }
+
+    //----------//
+    // tearDown //
+    //----------//
+    @TearDown
+    public void tearDown ()
+    {
+        book.close();
+    }
+
+    //-----------------//
+    // containedInters //
+    //-----------------//
+    @Benchmark
+    public int containedInters ()
+    {
+        int count = 0;
+
+        for (int i = 0; i < sigs.size(); i++) {
+            final SIGraph sig = sigs.get(i);
+
+            for (Rectangle window : windows.get(i)) {
+                count += sig.containedInters(window).size();
+            }
+        }
+
+        return count;
+    }
+
+    //-------------------//
+    // intersectedInters //
+    //-------------------//
+    @Benchmark
+    public int intersectedInters ()
+    {
+        int count = 0;
+
+        for (int i = 0; i < sigs.size(); i++) {
+            final SIGraph sig = sigs.get(i);
+
+            for (Rectangle window : windows.get(i)) {
+                count += sig.intersectedInters(window).size();
+            }
+        }
+
+        return count;
+    }
+
+    //---------------//
+    // intersByClass //
+    //---------------//
+    @Benchmark
+    public int intersByClass ()
+    {
+        int count = 0;
+
+        for (SIGraph sig : sigs) {
+            count += sig.inters(HeadInter.class).size();
+        }
+
+        return count;
+    }
+
+    //-----------//
+    // relations //
+    //-----------//
+    @Benchmark
+    public int relations ()
+    {
+        int count = 0;
+
+        for (SIGraph sig : sigs) {
+            for (Inter head : sig.inters(HeadInter.class)) {
+                count += sig.getRelations(head, HeadStemRelation.class).size();
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,132 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  S t e p s B e n c h m a r k                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.bench;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.step.Step;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code StepsBenchmark} measures every transcription step, from LOAD to PAGE, on
+ * bundled sample images.
+ * <p>
+ * Each invocation processes one step on a fresh book brought to the preceding step beforehand,
+ * so that only the step at hand is measured.
+ * Allocation per step is reported when run with JMH "gc" profiler (which the Gradle
+ * {@code jmh} task does by default), see the {@code gc.alloc.rate.norm} figure.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StepsBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Name of sample image, within examples folder. */
+    @Param({"chula.png", "allegretto.png"})
+    public String image;
+
+    /** Step to measure. */
+    @Param({
+        "LOAD", "BINARY", "SCALE", "GRID", "HEADERS", "STEM_SEEDS", "BEAMS", "LEDGERS", "HEADS",
+        "STEMS", "REDUCTION", "CUE_BEAMS", "TEXTS", "MEASURES", "CHORDS", "CURVES", "SYMBOLS",
+        "LINKS", "RHYTHMS", "PAGE"
+    })
+    public Step step;
+
+    /** Book being processed by current invocation. */
+    private Book book;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // prepare //
+    //---------//
+    /**
+     * Bring a fresh book up to the step that precedes the measured one.
+     *
+     * @throws IOException if sample image cannot be found
+     */
+    @Setup(Level.Invocation)
+    public void prepare ()
+            throws IOException
+    {
+        book = OMR.engine.loadInput(Samples.getPath(image));
+        book.createStubs(null);
+
+        if (step != Step.first()) {
+            final Step previous = Step.values()[step.ordinal() - 1];
+
+            if (!book.reachBookStep(previous, false, null)) {
+                throw new IllegalStateException("Could not reach " + previous + " on " + image);
+            }
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    @TearDown(Level.Invocation)
+    public void release ()
+    {
+        book.close();
+        book = null;
+    }
+
+    //-------//
+    // setUp //
+    //-------//
+    @Setup(Level.Trial)
+    public void setUp ()
+    {
+        Samples.initialize();
+    }
+
+    //-------------//
+    // processStep //
+    //-------------//
+    @Benchmark
+    public boolean processStep ()
+    {
+        return book.reachBookStep(step, false, null);
+    }
+}
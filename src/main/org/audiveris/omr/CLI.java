@@ -24,6 +24,7 @@ package org.audiveris.omr;
 import org.audiveris.omr.classifier.SampleRepository;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookJournal;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.RunClass;
@@ -697,7 +698,18 @@ public class CLI
         @Override
         protected Book loadBook (Path path)
         {
-            return OMR.engine.loadInput(path);
+            final Book book = OMR.engine.loadInput(path);
+
+            // In batch, resume an interrupted processing of this input?
+            if ((OMR.gui == null) && !params.force && BookJournal.canResume(book)) {
+                final Path bookPath = BookManager.getDefaultSavePath(book);
+                logger.info("Resuming from {}", bookPath);
+                book.close();
+
+                return OMR.engine.loadBook(bookPath);
+            }
+
+            return book;
         }
     }
 
@@ -722,7 +734,9 @@ public class CLI
         protected void processBook (Book book)
         {
             final Path folder = BookManager.getDefaultBookFolder(book);
+            BookJournal journal = null;
             boolean cancelled = false;
+            boolean completed = false;
 
             try {
                 if (!Files.exists(folder)) {
@@ -752,6 +766,9 @@ public class CLI
                 if (OMR.gui != null) {
                     Integer focus = (sheetIds != null) ? sheetIds.first() : null;
                     book.createStubsTabs(focus); // Tabs are now accessible
+                } else if (BookJournal.isEnabled()) {
+                    journal = BookJournal.open(book);
+                    book.setJournal(journal);
                 }
 
                 // Specific step to reach on all sheets in the book?
@@ -759,7 +776,7 @@ public class CLI
                     boolean ok = book.reachBookStep(params.step, params.force, sheetIds);
 
                     if (!ok) {
-                        return;
+                        return; // Journal is kept for a later resumption
                     }
                 }
 
@@ -813,6 +830,8 @@ public class CLI
                         logger.info("No need to save {}", book);
                     }
                 }
+
+                completed = true;
             } catch (ProcessingCancellationException pce) {
                 logger.warn("Cancelled " + book);
                 cancelled = true;
@@ -830,6 +849,16 @@ public class CLI
                         book.store(BookManager.getDefaultSavePath(book), false);
                     }
 
+                    if (journal != null) {
+                        book.setJournal(null);
+
+                        if (completed) {
+                            journal.delete(); // Nothing left to resume
+                        } else {
+                            journal.close();
+                        }
+                    }
+
                     book.close();
                 }
 
@@ -26,11 +26,15 @@ import org.audiveris.omr.classifier.SampleRepository;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantManager;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.GlyphIndex;
+import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.text.tesseract.TesseractOCR;
 import org.audiveris.omr.ui.MainGui;
 import org.audiveris.omr.ui.symbol.MusicFont;
+import org.audiveris.omr.util.JaxbContexts;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.jdesktop.application.Application;
@@ -153,6 +157,10 @@ public class Main
 
             // Run the required tasks, if any (and remember if at least one task failed)
             boolean failure = runBatchTasks();
+            JaxbContexts.printStatistics();
+            GlyphIndex.printStatistics();
+            OmrExecutors.printStatistics();
+            Metrics.dump();
 
             // At this point all tasks have completed (except timeout...)
             // So shutdown gracefully the executors
@@ -237,6 +245,19 @@ public class Main
     {
         // (re) Open the executor services
         OmrExecutors.restart();
+
+        // Make head templates available in background
+        OmrExecutors.getCachedLowExecutor().submit(
+                new Callable<Void>()
+        {
+            @Override
+            public Void call ()
+            {
+                TemplateFactory.getInstance().preload();
+
+                return null;
+            }
+        });
     }
 
     //----------//
@@ -178,16 +178,18 @@ public abstract class AbstractClassifier<M extends Object>
         StopWatch watch = new StopWatch("getRawDataSet");
         watch.start("allocate doubles");
 
-        final double[][] inputs = new double[samples.size()][];
         final double[][] desiredOutputs = new double[samples.size()][];
         int ig = 0;
 
+        watch.start("sample features");
+
+        final FeatureCache featureCache = FeatureCache.getInstance(descriptor);
+        final double[][] inputs = featureCache.getFeatures(samples);
+        featureCache.store();
+
         watch.start("browse samples");
 
         for (Sample sample : samples) {
-            double[] ins = descriptor.getFeatures(sample, sample.getInterline());
-            inputs[ig] = ins;
-
             double[] des = new double[SHAPE_COUNT];
             Arrays.fill(des, 0);
             des[sample.getShape().getPhysicalShape().ordinal()] = 1;
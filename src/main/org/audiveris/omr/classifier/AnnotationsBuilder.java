@@ -22,8 +22,11 @@
 package org.audiveris.omr.classifier;
 
 import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.Staff;
@@ -62,6 +65,10 @@ import org.audiveris.omr.sig.inter.WordInter;
 import org.audiveris.omr.sig.relation.ChordArticulationRelation;
 import org.audiveris.omr.sig.relation.HeadStemRelation;
 import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.IndentingXMLStreamWriter;
+import org.audiveris.omr.util.JaxbContexts;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omrdataset.api.OmrShape;
 import org.audiveris.omrdataset.api.SheetAnnotations;
 import org.audiveris.omrdataset.api.SheetAnnotations.SheetInfo;
@@ -72,20 +79,40 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Class {@code AnnotationsBuilder} processes a sheet to build the symbols Annotations
  * for an OMR DataSet.
+ * <p>
+ * Systems are annotated in parallel (if so desired) and the resulting symbols are streamed out,
+ * system after system in sheet order, as soon as each system is completed.
+ * The output file is structured exactly as a marshalled {@link SheetAnnotations} instance.
  *
  * @author Hervé Bitteur
  */
@@ -93,6 +120,8 @@ public class AnnotationsBuilder
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(AnnotationsBuilder.class);
 
     /** Inter excluded classes. */
@@ -127,7 +156,7 @@ public class AnnotationsBuilder
     /** Target path for sheet annotations file. */
     private final Path path;
 
-    /** The annotations structure being built. */
+    /** The annotations header. (symbols are streamed out system per system) */
     private final SheetAnnotations annotations = new SheetAnnotations();
 
     //~ Constructors -------------------------------------------------------------------------------
@@ -145,15 +174,22 @@ public class AnnotationsBuilder
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //--------------//
+    // processSheet //
+    //--------------//
     /**
      * Process the sheet to generate the corresponding annotations.
      *
-     * @throws IOException   for any IO error
-     * @throws JAXBException for any JAXB error
+     * @return the number of symbols written
+     * @throws IOException        for any IO error
+     * @throws JAXBException      for any JAXB error
+     * @throws XMLStreamException for any XML writing error
      */
-    public void processSheet ()
-            throws IOException, JAXBException
+    public int processSheet ()
+            throws IOException, JAXBException, XMLStreamException
     {
+        final long startTime = System.currentTimeMillis();
+
         // Global informations
         annotations.setVersion("1.0");
         annotations.setComplete(false);
@@ -163,14 +199,82 @@ public class AnnotationsBuilder
                         sheet.getId() + Annotations.SHEET_IMAGE_SUFFIX,
                         new Dimension(sheet.getWidth(), sheet.getHeight())));
 
-        // Populate system by system
-        for (SystemInfo system : sheet.getSystems()) {
-            new SystemAnnotator(system).processSystem();
+        if (!Files.exists(path.getParent())) {
+            Files.createDirectories(path.getParent());
+        }
+
+        final JAXBContext jaxbContext = JaxbContexts.getContext(SheetAnnotations.class);
+        final Marshaller marshaller = JaxbContexts.borrowMarshaller(jaxbContext);
+        final long marshalStart = System.nanoTime();
+
+        // Symbols are streamed to a temporary file, moved to target path only when complete
+        final Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        List<Future<List<SymbolInfo>>> futures = Collections.emptyList();
+        boolean ok = false;
+        int count = 0;
+
+        try {
+            try (OutputStream os = new BufferedOutputStream(
+                    Files.newOutputStream(
+                            tmpPath,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.WRITE))) {
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+                final XMLStreamWriter writer = new IndentingXMLStreamWriter(
+                        XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8"));
+                writeHeader(writer, marshaller);
+
+                // Populate system by system, writing each system as soon as it is available
+                futures = launchSystems();
+
+                for (Future<List<SymbolInfo>> future : futures) {
+                    for (SymbolInfo symbol : future.get()) {
+                        marshal(writer, marshaller, "Symbol", SymbolInfo.class, symbol);
+                        count++;
+                    }
+
+                    writer.flush();
+                }
+
+                writer.writeEndElement(); // Annotations
+                writer.writeEndDocument();
+                writer.flush();
+            }
+
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+            ok = true;
+        } catch (InterruptedException ex) {
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error annotating systems of " + sheet.getId(), ex.getCause());
+        } finally {
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, false);
+            JaxbContexts.release(jaxbContext, marshaller);
+            JaxbContexts.recordMarshalTime(jaxbContext, System.nanoTime() - marshalStart);
+
+            if (!ok) {
+                // Stop the systems still running, and leave no partial file
+                for (Future<List<SymbolInfo>> future : futures) {
+                    future.cancel(true);
+                }
+
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete {} {}", tmpPath, ex.toString());
+                }
+            }
         }
 
-        // Marshall the result
-        annotations.marshall(path);
-        logger.info("Sheet annotated as {}", path);
+        logger.info(
+                "Sheet annotated as {}, {} symbols in {} ms",
+                path,
+                count,
+                System.currentTimeMillis() - startTime);
+
+        return count;
     }
 
     /**
@@ -190,7 +294,124 @@ public class AnnotationsBuilder
         return false;
     }
 
+    //---------------//
+    // launchSystems //
+    //---------------//
+    /**
+     * Launch the annotation of every system in sheet, in parallel if so desired.
+     *
+     * @return the system results, in sheet order
+     */
+    private List<Future<List<SymbolInfo>>> launchSystems ()
+    {
+        final List<SystemInfo> systems = sheet.getSystems();
+        final boolean parallel = constants.parallelSystems.isSet()
+                                 && (OmrExecutors.defaultParallelism.getValue() == true)
+                                 && (systems.size() > 1);
+        final List<Future<List<SymbolInfo>>> futures = new ArrayList<Future<List<SymbolInfo>>>();
+
+        for (final SystemInfo system : systems) {
+            final Callable<List<SymbolInfo>> task = new Callable<List<SymbolInfo>>()
+            {
+                @Override
+                public List<SymbolInfo> call ()
+                        throws Exception
+                {
+                    if (!parallel) {
+                        return new SystemAnnotator(system).processSystem();
+                    }
+
+                    // Run on a separate thread, we have to set/unset log
+                    try {
+                        LogUtil.start(sheet.getStub());
+
+                        return new SystemAnnotator(system).processSystem();
+                    } finally {
+                        LogUtil.stopStub();
+                    }
+                }
+            };
+
+            if (parallel) {
+                futures.add(OmrExecutors.getHighExecutor().submit(task));
+            } else {
+                futures.add(new SystemResult(task));
+            }
+        }
+
+        return futures;
+    }
+
+    //---------//
+    // marshal //
+    //---------//
+    /**
+     * Marshal the provided value as a fragment element.
+     *
+     * @param writer     the output writer
+     * @param marshaller the fragment marshaller
+     * @param name       element name
+     * @param type       declared type
+     * @param value      value to marshal, perhaps null
+     * @throws JAXBException if marshalling failed
+     */
+    private static <T> void marshal (XMLStreamWriter writer,
+                                     Marshaller marshaller,
+                                     String name,
+                                     Class<T> type,
+                                     T value)
+            throws JAXBException
+    {
+        if (value != null) {
+            marshaller.marshal(new JAXBElement<T>(new QName(name), type, value), writer);
+        }
+    }
+
+    //-------------//
+    // writeHeader //
+    //-------------//
+    /**
+     * Write the document start, with the root attributes and the sheet informations.
+     *
+     * @param writer     the output writer
+     * @param marshaller the fragment marshaller
+     * @throws XMLStreamException if writing failed
+     * @throws JAXBException      if marshalling failed
+     */
+    private void writeHeader (XMLStreamWriter writer,
+                              Marshaller marshaller)
+            throws XMLStreamException, JAXBException
+    {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("Annotations");
+        writer.writeAttribute("version", annotations.getVersion());
+
+        if (annotations.isComplete()) {
+            writer.writeAttribute("complete", "true");
+        }
+
+        writer.writeStartElement("Source");
+        writer.writeCharacters(annotations.getSource());
+        writer.writeEndElement();
+
+        marshal(writer, marshaller, "Page", SheetInfo.class, annotations.getSheetInfo());
+        writer.flush();
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean parallelSystems = new Constant.Boolean(
+                true,
+                "Should we annotate the systems of a sheet in parallel?");
+    }
+
     //-----------------//
     // SystemAnnotator //
     //-----------------//
@@ -210,6 +431,9 @@ public class AnnotationsBuilder
         /** All system note heads, sorted by abscissa. */
         private List<Inter> allHeads;
 
+        /** Symbols exported for this system. */
+        private final List<SymbolInfo> symbols = new ArrayList<SymbolInfo>();
+
         //~ Constructors ---------------------------------------------------------------------------
         public SystemAnnotator (SystemInfo system)
         {
@@ -246,7 +470,7 @@ public class AnnotationsBuilder
             if (items.size() == 1) {
                 // Isolated barline
                 OmrShape oShape = OmrShapeMapping.SHAPE_TO_OMRSHAPE.get(bar.getShape());
-                annotations.addSymbol(
+                symbols.add(
                         new SymbolInfo(oShape, interline, bar.getId(), null, bar.getBounds()));
             } else {
                 List<SymbolInfo> inners = new ArrayList<SymbolInfo>();
@@ -270,7 +494,7 @@ public class AnnotationsBuilder
                     outer.addInnerSymbol(inner);
                 }
 
-                annotations.addSymbol(outer);
+                symbols.add(outer);
             }
         }
 
@@ -363,7 +587,7 @@ public class AnnotationsBuilder
             }
 
             final int interline = staff.getSpecificInterline();
-            annotations.addSymbol(
+            symbols.add(
                     new SymbolInfo(omrShape, interline, inter.getId(), null, interBounds));
         }
 
@@ -404,12 +628,12 @@ public class AnnotationsBuilder
                     outer.addInnerSymbol(inner);
                 }
 
-                annotations.addSymbol(outer);
+                symbols.add(outer);
             } else {
                 logger.info("{} is not a predefined time combo.", pair);
 
                 for (SymbolInfo inner : inners) {
-                    annotations.addSymbol(inner);
+                    symbols.add(inner);
                 }
             }
         }
@@ -596,8 +820,10 @@ public class AnnotationsBuilder
 
         /**
          * Process the system at hand.
+         *
+         * @return the symbols exported for this system
          */
-        private void processSystem ()
+        private List<SymbolInfo> processSystem ()
         {
             allHeads = sig.inters(ShapeSet.Heads);
             Collections.sort(allHeads, Inters.byAbscissa);
@@ -605,6 +831,35 @@ public class AnnotationsBuilder
             for (Inter inter : sig.vertexSet()) {
                 exportInter(inter);
             }
+
+            return symbols;
+        }
+    }
+
+    //--------------//
+    // SystemResult //
+    //--------------//
+    /**
+     * Sequential result of a system annotation, computed lazily on the calling thread.
+     */
+    private static class SystemResult
+            extends FutureTask<List<SymbolInfo>>
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public SystemResult (Callable<List<SymbolInfo>> task)
+        {
+            super(task);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public List<SymbolInfo> get ()
+                throws InterruptedException, ExecutionException
+        {
+            run(); // No-op if already run
+
+            return super.get();
         }
     }
 }
@@ -31,6 +31,7 @@ import org.audiveris.omr.math.PoorManAlgebra.DataSet;
 import org.audiveris.omr.math.PoorManAlgebra.INDArray;
 import org.audiveris.omr.math.PoorManAlgebra.Nd4j;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.StopWatch;
 
 //import org.nd4j.linalg.api.ndarray.INDArray;
@@ -53,7 +54,6 @@ import java.util.Collections;
 import java.util.List;
 
 import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -167,7 +167,10 @@ public class BasicClassifier
     public Evaluation[] getNaturalEvaluations (Glyph glyph,
                                                int interline)
     {
-        double[] ins = descriptor.getFeatures(glyph, interline);
+        // Samples features may already be cached
+        double[] ins = ((glyph instanceof Sample) && (interline == ((Sample) glyph).getInterline()))
+                ? FeatureCache.getInstance(descriptor).getFeatures((Sample) glyph)
+                : descriptor.getFeatures(glyph, interline);
         final INDArray features = Nd4j.create(ins);
         normalize(features);
 
@@ -359,8 +362,7 @@ public class BasicClassifier
     protected Norms loadNorms (Path root)
             throws Exception
     {
-        final JAXBContext jaxbContext = JAXBContext.newInstance(MyVector.class);
-        final Unmarshaller um = jaxbContext.createUnmarshaller();
+        final JAXBContext jaxbContext = JaxbContexts.getContext(MyVector.class);
 
         INDArray means = null;
         INDArray stds = null;
@@ -370,7 +372,7 @@ public class BasicClassifier
         if (meansEntry != null) {
             InputStream is = Files.newInputStream(meansEntry); // READ by default
             BufferedInputStream bis = new BufferedInputStream(is);
-            MyVector vector = (MyVector) um.unmarshal(bis);
+            MyVector vector = (MyVector) Jaxb.unmarshal(bis, jaxbContext);
             means = Nd4j.create(vector.data);
             logger.debug("means:{}", means);
             bis.close();
@@ -381,7 +383,7 @@ public class BasicClassifier
         if (stdsEntry != null) {
             InputStream is = Files.newInputStream(stdsEntry); // READ by default
             BufferedInputStream bis = new BufferedInputStream(is);
-            MyVector vector = (MyVector) um.unmarshal(bis);
+            MyVector vector = (MyVector) Jaxb.unmarshal(bis, jaxbContext);
             stds = Nd4j.create(vector.data);
             logger.debug("stds:{}", stds);
             bis.close();
@@ -425,7 +427,7 @@ public class BasicClassifier
     protected void storeNorms (Path root)
             throws Exception
     {
-        final JAXBContext jaxbContext = JAXBContext.newInstance(MyVector.class);
+        final JAXBContext jaxbContext = JaxbContexts.getContext(MyVector.class);
 
         {
             Path means = root.resolve(MEANS_XML_ENTRY_NAME);
@@ -0,0 +1,408 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    F e a t u r e C a c h e                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Class {@code FeatureCache} keeps the feature vectors computed by a glyph descriptor on
+ * samples, and persists them in a binary file next to the global samples repository.
+ * <p>
+ * A sample is identified by a 64-bit fingerprint of its content (runs and interline) rather than
+ * by its id, since sample ids are unique only within their sample sheet and since the features
+ * depend only on the sample content.
+ * <p>
+ * The file is named after the descriptor and starts with a signature made of program version,
+ * descriptor name, feature vector length and ART extractor choice, so that a cache written by a
+ * different version or with a different extractor is simply discarded.
+ *
+ * @author Hervé Bitteur
+ */
+public class FeatureCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(FeatureCache.class);
+
+    /** Format version of cache file. */
+    private static final int CACHE_VERSION = 1;
+
+    /** Suffix for cache file name, after descriptor name. */
+    private static final String FILE_SUFFIX = "-features.bin";
+
+    /** Caches, per descriptor name. */
+    private static final Map<String, FeatureCache> caches = new HashMap<String, FeatureCache>();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The descriptor which computes the features. */
+    private final GlyphDescriptor descriptor;
+
+    /** Path to cache file. */
+    private final Path path;
+
+    /** Feature vectors, per sample fingerprint. */
+    private final ConcurrentMap<Long, double[]> vectors = new ConcurrentHashMap<Long, double[]>();
+
+    /** Have vectors been added since last load or store?. */
+    private volatile boolean modified;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code FeatureCache} object.
+     *
+     * @param descriptor the related descriptor
+     * @param path       path to cache file
+     */
+    private FeatureCache (GlyphDescriptor descriptor,
+                          Path path)
+    {
+        this.descriptor = descriptor;
+        this.path = path;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getFeatures //
+    //-------------//
+    /**
+     * Report the features of the provided sample, computing them if not yet cached.
+     *
+     * @param sample the sample to describe
+     * @return (a copy of) the sample features
+     */
+    public double[] getFeatures (Sample sample)
+    {
+        if (!constants.useFeatureCache.isSet()) {
+            return descriptor.getFeatures(sample, sample.getInterline());
+        }
+
+        final Long key = fingerprint(sample);
+        double[] features = vectors.get(key);
+
+        if (features == null) {
+            features = descriptor.getFeatures(sample, sample.getInterline());
+            vectors.put(key, features.clone());
+            modified = true;
+
+            return features;
+        }
+
+        return features.clone();
+    }
+
+    //-------------//
+    // getFeatures //
+    //-------------//
+    /**
+     * Report the features of all the provided samples, the missing ones being computed
+     * in parallel.
+     *
+     * @param samples the samples to describe
+     * @return the samples features, in samples order
+     */
+    public double[][] getFeatures (Collection<Sample> samples)
+    {
+        final List<Sample> list = new ArrayList<Sample>(samples);
+        final double[][] features = new double[list.size()][];
+        final List<Integer> misses = new ArrayList<Integer>();
+
+        if (constants.useFeatureCache.isSet()) {
+            for (int i = 0; i < features.length; i++) {
+                final double[] vector = vectors.get(fingerprint(list.get(i)));
+
+                if (vector != null) {
+                    features[i] = vector.clone();
+                } else {
+                    misses.add(i);
+                }
+            }
+
+            logger.debug(
+                    "Feature cache hits: {}/{}",
+                    features.length - misses.size(),
+                    features.length);
+        } else {
+            for (int i = 0; i < features.length; i++) {
+                misses.add(i);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return features;
+        }
+
+        // Compute missing features, one chunk per task
+        final int chunkCount = Math.min(misses.size(), 4 * OmrExecutors.getNumberOfCpus());
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+        for (int c = 0; c < chunkCount; c++) {
+            final int chunk = c;
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                        throws Exception
+                {
+                    for (int m = chunk; m < misses.size(); m += chunkCount) {
+                        final int i = misses.get(m);
+                        final Sample sample = list.get(i);
+                        features[i] = getFeatures(sample);
+                    }
+
+                    return null;
+                }
+            });
+        }
+
+        try {
+            OmrExecutors.invokeAll(OmrExecutors.getHighExecutor(), tasks);
+        } catch (InterruptedException ex) {
+            throw new ProcessingCancellationException(ex);
+        }
+
+        return features;
+    }
+
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the cache related to the provided descriptor, loading it from disk if needed.
+     *
+     * @param descriptor the glyph descriptor
+     * @return the related cache
+     */
+    public static synchronized FeatureCache getInstance (GlyphDescriptor descriptor)
+    {
+        FeatureCache cache = caches.get(descriptor.getName());
+
+        if (cache == null) {
+            final Path path = WellKnowns.TRAIN_FOLDER.resolve(descriptor.getName() + FILE_SUFFIX);
+            cache = new FeatureCache(descriptor, path);
+
+            if (constants.useFeatureCache.isSet() && Files.exists(path)) {
+                cache.load();
+            }
+
+            caches.put(descriptor.getName(), cache);
+        }
+
+        return cache;
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Write the cache to disk, if it has been modified.
+     */
+    public synchronized void store ()
+    {
+        if (!modified || !constants.useFeatureCache.isSet()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            // Write to a temporary file, then move it to target in one shot
+            final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                final int length = descriptor.length();
+                final Map<Long, double[]> copy = new HashMap<Long, double[]>(vectors);
+                out.writeInt(CACHE_VERSION);
+                out.writeUTF(getSignature());
+                out.writeInt(copy.size());
+
+                for (Map.Entry<Long, double[]> entry : copy.entrySet()) {
+                    out.writeLong(entry.getKey());
+
+                    final double[] vector = entry.getValue();
+
+                    for (int i = 0; i < length; i++) {
+                        out.writeDouble(vector[i]);
+                    }
+                }
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+            logger.info("{} feature vectors written to {}", vectors.size(), path);
+        } catch (IOException ex) {
+            logger.warn("Error writing feature cache {} {}", path, ex.toString());
+        }
+    }
+
+    //----------//
+    // storeAll //
+    //----------//
+    /**
+     * Write to disk every modified cache.
+     */
+    public static synchronized void storeAll ()
+    {
+        for (FeatureCache cache : caches.values()) {
+            cache.store();
+        }
+    }
+
+    //-------------//
+    // fingerprint //
+    //-------------//
+    /**
+     * Compute a 64-bit fingerprint (FNV-1a) of sample content.
+     *
+     * @param sample the sample at hand
+     * @return the sample fingerprint
+     */
+    static long fingerprint (Sample sample)
+    {
+        final RunTable table = sample.getRunTable();
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, sample.getInterline());
+        hash = mix(hash, table.getOrientation().ordinal());
+        hash = mix(hash, table.getWidth());
+        hash = mix(hash, table.getHeight());
+
+        for (int p = 0, iBreak = table.getSize(); p < iBreak; p++) {
+            hash = mix(hash, -1); // Sequence separator
+
+            for (Iterator<Run> it = table.iterator(p); it.hasNext();) {
+                final Run run = it.next();
+                hash = mix(hash, run.getStart());
+                hash = mix(hash, run.getLength());
+            }
+        }
+
+        return hash;
+    }
+
+    //--------------//
+    // getSignature //
+    //--------------//
+    /**
+     * Report the signature of a cache file content: program version, descriptor and
+     * ART extractor (ART moments computed from runs may slightly differ from those computed
+     * from pixels).
+     */
+    private String getSignature ()
+    {
+        return WellKnowns.TOOL_REF + "/" + descriptor.getName() + "/" + descriptor.length() + "/"
+               + (RunTable.useRunArtExtractor() ? "runART" : "basicART");
+    }
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Read the feature vectors from cache file.
+     */
+    private void load ()
+    {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if ((in.readInt() != CACHE_VERSION) || !getSignature().equals(in.readUTF())) {
+                logger.info("Obsolete feature cache {}", path);
+
+                return;
+            }
+
+            final int length = descriptor.length();
+
+            for (int n = in.readInt(); n > 0; n--) {
+                final long key = in.readLong();
+                final double[] vector = new double[length];
+
+                for (int i = 0; i < length; i++) {
+                    vector[i] = in.readDouble();
+                }
+
+                vectors.put(key, vector);
+            }
+
+            logger.info("{} feature vectors read from {}", vectors.size(), path);
+        } catch (IOException ex) {
+            logger.warn("Error reading feature cache {} {}", path, ex.toString());
+            vectors.clear();
+        }
+    }
+
+    //-----//
+    // mix //
+    //-----//
+    private static long mix (long hash,
+                             int value)
+    {
+        for (int i = 0; i < 4; i++) {
+            hash ^= ((value >>> (8 * i)) & 0xFF);
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useFeatureCache = new Constant.Boolean(
+                true,
+                "Should we keep sample features in a cache file next to samples repository?");
+    }
+}
@@ -40,6 +40,7 @@ import org.audiveris.omr.ui.OmrGui;
 import org.audiveris.omr.ui.symbol.ShapeSymbol;
 import org.audiveris.omr.ui.symbol.Symbols;
 import org.audiveris.omr.util.FileUtil;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.ZipFileSystem;
 
@@ -62,12 +63,16 @@ import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -1598,11 +1603,16 @@ public class SampleRepository
     //-------------//
     /**
      * Unmarshal the repository concrete samples.
+     * <p>
+     * The sample sheets entries are first listed, then unmarshalled in parallel, and finally
+     * registered in their listing order.
      */
     private void loadSamples (final Path root,
                               final LoadListener loadListener)
     {
         try {
+            // Retrieve all sample sheet entries
+            final Map<Path, Descriptor> entries = new LinkedHashMap<Path, Descriptor>();
             Files.walkFileTree(
                     root,
                     new SimpleFileVisitor<Path>()
@@ -1617,39 +1627,78 @@ public class SampleRepository
                     if (fileName.equals(SampleSheet.SAMPLES_FILE_NAME)) {
                         Path folder = file.getParent().getFileName();
                         Descriptor desc = sheetContainer.getDescriptor(folder.toString());
-                        SampleSheet sampleSheet = null;
 
                         if (desc == null) {
                             logger.warn(
                                     "Samples entry {} not declared in {} is ignored.",
                                     folder,
                                     SheetContainer.CONTAINER_ENTRY_NAME);
+
+                            if (loadListener != null) {
+                                loadListener.loadedSheet(null);
+                            }
+                        } else if (isSymbols(desc.getName())) {
+                            logger.info("Skipping symbols entry");
                         } else {
-                            boolean isSymbol = isSymbols(desc.getName());
+                            entries.put(file, desc);
+                        }
+                    }
 
-                            if (isSymbol) {
-                                logger.info("Skipping symbols entry");
+                    return FileVisitResult.CONTINUE;
+                }
+            });
 
-                                return FileVisitResult.CONTINUE;
-                            }
+            // Unmarshal sample sheets
+            final List<Callable<SampleSheet>> tasks = new ArrayList<Callable<SampleSheet>>();
 
-                            sampleSheet = SampleSheet.unmarshal(file, desc);
-                            nameMap.put(desc.getName(), sampleSheet);
+            for (Entry<Path, Descriptor> entry : entries.entrySet()) {
+                final Path file = entry.getKey();
+                final Descriptor desc = entry.getValue();
+                tasks.add(
+                        new Callable<SampleSheet>()
+                {
+                    @Override
+                    public SampleSheet call ()
+                            throws Exception
+                    {
+                        final SampleSheet sampleSheet = SampleSheet.unmarshal(file, desc);
 
-                            for (Sample sample : sampleSheet.getAllSamples()) {
-                                sample.setSymbol(isSymbol);
-                                sampleMap.put(sample, sampleSheet);
+                        if (loadListener != null) {
+                            synchronized (loadListener) {
+                                loadListener.loadedSheet(sampleSheet);
                             }
                         }
 
-                        if (loadListener != null) {
-                            loadListener.loadedSheet(sampleSheet);
-                        }
+                        return sampleSheet;
                     }
+                });
+            }
 
-                    return FileVisitResult.CONTINUE;
+            final List<SampleSheet> sampleSheets = new ArrayList<SampleSheet>();
+
+            if (constants.parallelLoading.isSet() && (tasks.size() > 1)) {
+                for (Future<SampleSheet> future : OmrExecutors.invokeAll(
+                        OmrExecutors.getHighExecutor(),
+                        tasks)) {
+                    sampleSheets.add(future.get());
                 }
-            });
+            } else {
+                for (Callable<SampleSheet> task : tasks) {
+                    sampleSheets.add(task.call());
+                }
+            }
+
+            // Register sample sheets
+            for (SampleSheet sampleSheet : sampleSheets) {
+                if (sampleSheet != null) {
+                    nameMap.put(sampleSheet.getDescriptor().getName(), sampleSheet);
+
+                    for (Sample sample : sampleSheet.getAllSamples()) {
+                        sample.setSymbol(false);
+                        sampleMap.put(sample, sampleSheet);
+                    }
+                }
+            }
         } catch (Throwable ex) {
             logger.warn("Error loading " + samplesFile + " " + ex, ex);
         }
@@ -1814,6 +1863,10 @@ public class SampleRepository
         private final Constant.Boolean useTribes = new Constant.Boolean(
                 false,
                 "Should we support tribes?");
+
+        private final Constant.Boolean parallelLoading = new Constant.Boolean(
+                true,
+                "Should we unmarshal sample sheets in parallel?");
     }
 
     //------------------------//
@@ -27,6 +27,7 @@ import com.jgoodies.forms.layout.FormLayout;
 
 import org.audiveris.omr.classifier.Classifier;
 import org.audiveris.omr.classifier.Evaluation;
+import org.audiveris.omr.classifier.FeatureCache;
 import org.audiveris.omr.classifier.Sample;
 import org.audiveris.omr.classifier.SampleSource;
 import org.audiveris.omr.classifier.ui.Trainer.Task;
@@ -322,6 +323,8 @@ public class ValidationPanel
             progressBar.setValue(++index); // Update progress bar
         }
 
+        FeatureCache.storeAll(); // Keep features computed on samples, if any
+
         int total = samples.size();
         int allPositives = positives + weakPositives.size();
         double accuracy = allPositives / (double) total;
@@ -29,6 +29,7 @@ import org.audiveris.omr.math.LineUtil;
 import org.audiveris.omr.math.PointsCollector;
 import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.MomentSums;
 import org.audiveris.omr.run.Orientation;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.run.Run;
@@ -100,6 +101,9 @@ public class BasicGlyph
     /** Computed geometric Moments. */
     protected GeometricMoments geoMoments;
 
+    /** Raw moment sums. */
+    protected MomentSums momentSums;
+
     /** Mass center coordinates. */
     protected Point centroid;
 
@@ -266,7 +270,7 @@ public class BasicGlyph
     public Point getCentroid ()
     {
         if (centroid == null) {
-            centroid = runTable.computeCentroid(left, top);
+            centroid = getMomentSums().getCentroid();
         }
 
         return centroid;
@@ -276,7 +280,7 @@ public class BasicGlyph
     public GeometricMoments getGeometricMoments (int interline)
     {
         if (geoMoments == null) {
-            geoMoments = runTable.computeGeometricMoments(left, top, interline);
+            geoMoments = new GeometricMoments(getMomentSums(), interline);
         }
 
         return geoMoments;
@@ -334,6 +338,16 @@ public class BasicGlyph
         return basicLine.getMeanDistance();
     }
 
+    @Override
+    public MomentSums getMomentSums ()
+    {
+        if (momentSums == null) {
+            momentSums = runTable.computeMomentSums(left, top);
+        }
+
+        return momentSums;
+    }
+
     @Override
     public RunTable getRunTable ()
     {
@@ -570,6 +584,19 @@ public class BasicGlyph
         return sb.toString();
     }
 
+    //---------------//
+    // setMomentSums //
+    //---------------//
+    /**
+     * Assign the raw moment sums, when they are known without visiting the glyph pixels.
+     *
+     * @param momentSums the glyph raw moment sums
+     */
+    void setMomentSums (MomentSums momentSums)
+    {
+        this.momentSums = momentSums;
+    }
+
     //-----------//
     // checkLine //
     //-----------//
@@ -26,6 +26,7 @@ import ij.process.ByteProcessor;
 import org.audiveris.omr.image.Table;
 import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.MomentSums;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sig.inter.Inter;
 
@@ -94,6 +95,13 @@ public interface Glyph
      */
     GeometricMoments getGeometricMoments (int interline);
 
+    /**
+     * Report the glyph raw moment sums, which are additive over disjoint glyphs.
+     *
+     * @return the glyph raw moment sums
+     */
+    MomentSums getMomentSums ();
+
     /**
      * Report the containing glyph index
      *
@@ -24,6 +24,7 @@ package org.audiveris.omr.glyph;
 import ij.process.ByteProcessor;
 
 import org.audiveris.omr.glyph.GlyphGroup;
+import org.audiveris.omr.moments.MomentSums;
 import org.audiveris.omr.run.MarkedRun;
 
 import static org.audiveris.omr.run.Orientation.VERTICAL;
@@ -127,8 +128,20 @@ public class GlyphFactory
         }
 
         final RunTable runTable = new RunTableFactory(VERTICAL).createTable(buffer);
+        final BasicGlyph compound = new BasicGlyph(box.x, box.y, runTable);
 
-        return new BasicGlyph(box.x, box.y, runTable);
+        // Raw moment sums are additive over disjoint parts
+        final MomentSums sums = new MomentSums(box.x, box.y);
+
+        for (Glyph part : parts) {
+            sums.include(part.getMomentSums());
+        }
+
+        if (sums.getMass() == runTable.getWeight()) {
+            compound.setMomentSums(sums); // Otherwise, some parts overlap
+        }
+
+        return compound;
     }
 
     //-------------//
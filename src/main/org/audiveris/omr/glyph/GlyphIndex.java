@@ -49,6 +49,7 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.SwingUtilities;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -57,6 +58,12 @@ import javax.xml.bind.annotation.XmlRootElement;
 
 /**
  * Class {@code GlyphIndex} implements an index of (weak references to) Glyph instances.
+ * <p>
+ * It also acts as an intern table of <i>original</i> glyphs: a glyph equal to an already
+ * registered one (same location, same runs) is not registered again, the original instance is
+ * returned instead.
+ * This table is keyed by a hash on glyph content and is updated without any global lock, so
+ * that systems processed in parallel do not serialize on glyph registration.
  *
  * @author Hervé Bitteur
  */
@@ -72,6 +79,15 @@ public class GlyphIndex
     private static final Logger logger = LoggerFactory.getLogger(
             GlyphIndex.class);
 
+    /** Count of calls to registerOriginal(), all indices included. */
+    private static final AtomicLong lookupCount = new AtomicLong();
+
+    /** Count of lookups resolved by an existing original. */
+    private static final AtomicLong hitCount = new AtomicLong();
+
+    /** Count of retries due to concurrent updates of the same hash chain. */
+    private static final AtomicLong retryCount = new AtomicLong();
+
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -88,8 +104,11 @@ public class GlyphIndex
     /** Underlying index to weak glyphs. */
     private final WeakGlyphIndex weakIndex = new WeakGlyphIndex();
 
-    /** Collection of original glyph instances, non sorted. */
-    private final ConcurrentHashMap<WeakGlyph, WeakGlyph> originals = new ConcurrentHashMap<WeakGlyph, WeakGlyph>();
+    /**
+     * Original glyph instances, per content hash.
+     * Each chain array is never modified in place, but replaced as a whole.
+     */
+    private final ConcurrentHashMap<Integer, WeakGlyph[]> originals = new ConcurrentHashMap<Integer, WeakGlyph[]>();
 
     /** Selection service, if any. */
     private EntityService<Glyph> glyphService;
@@ -177,6 +196,12 @@ public class GlyphIndex
         return weakIndex.getLastId();
     }
 
+    @Override
+    public int getModCount ()
+    {
+        return weakIndex.getModCount();
+    }
+
     //---------//
     // getName //
     //---------//
@@ -278,6 +303,26 @@ public class GlyphIndex
         return new SkippingIterator(weakIndex.iterator());
     }
 
+    //-----------------//
+    // printStatistics //
+    //-----------------//
+    /**
+     * Print out the counters of original glyphs lookups, if so desired.
+     */
+    public static void printStatistics ()
+    {
+        if (constants.printStatistics.isSet()) {
+            final long lookups = lookupCount.get();
+            final long hits = hitCount.get();
+            logger.info(
+                    "Original glyphs lookups: {}, reused: {} ({}%), retries: {}",
+                    lookups,
+                    hits,
+                    (lookups != 0) ? ((100 * hits) / lookups) : 0,
+                    retryCount.get());
+        }
+    }
+
     //---------//
     // publish //
     //---------//
@@ -327,24 +372,49 @@ public class GlyphIndex
     /**
      * Check whether the provided glyph is really a new one and assign it an ID.
      * If so the glyph is returned, otherwise the original glyph is returned.
+     * <p>
+     * This method is thread-safe without locking: a new glyph is given its ID <b>before</b> being
+     * published in the originals table, so that any original returned to a concurrent caller is
+     * already registered.
+     * If a concurrent thread has published an equal glyph in the meantime, this glyph is
+     * withdrawn from the index and the concurrent one is returned.
      *
      * @param glyph the glyph to check
      * @return the original one if any, otherwise this glyph
      */
-    public synchronized Glyph registerOriginal (Glyph glyph)
+    public Glyph registerOriginal (Glyph glyph)
     {
-        WeakGlyph weak = new WeakGlyph(glyph);
-        WeakGlyph orgWeak = originals.putIfAbsent(weak, weak);
-        Glyph orgGlyph = (orgWeak != null) ? orgWeak.get() : null;
+        lookupCount.incrementAndGet();
 
-        if (orgGlyph == null) {
-            privateRegister(glyph);
+        final Integer key = contentHash(glyph);
+        final boolean isNew = glyph.getId() == 0;
+        WeakGlyph weak = null;
 
-            return glyph;
-        } else {
-            logger.debug("Reuse original {}", orgGlyph);
+        while (true) {
+            final WeakGlyph[] chain = originals.get(key);
+            final Glyph orgGlyph = lookup(chain, glyph);
+
+            if (orgGlyph != null) {
+                if (isNew && (weak != null) && (orgGlyph != glyph)) {
+                    // We lost the race against an equal glyph, withdraw the entry we created
+                    weakIndex.remove(weak);
+                }
+
+                hitCount.incrementAndGet();
+                logger.debug("Reuse original {}", orgGlyph);
+
+                return orgGlyph;
+            }
+
+            if (weak == null) {
+                weak = isNew ? privateRegister(glyph) : new WeakGlyph(glyph);
+            }
+
+            if (addOriginal(key, chain, weak)) {
+                return glyph;
+            }
 
-            return orgGlyph;
+            retryCount.incrementAndGet(); // Chain modified concurrently, let's retry
         }
     }
 
@@ -378,7 +448,13 @@ public class GlyphIndex
         for (Glyph glyph : glyphs) {
             WeakGlyph weak = new WeakGlyph(glyph);
             weakIndex.insert(weak);
-            originals.putIfAbsent(weak, weak);
+
+            final Integer key = contentHash(glyph);
+            WeakGlyph[] chain;
+
+            do {
+                chain = originals.get(key);
+            } while ((lookup(chain, glyph) == null) && !addOriginal(key, chain, weak));
         }
     }
 
@@ -401,6 +477,88 @@ public class GlyphIndex
         weakIndex.setLastId(lastId);
     }
 
+    //-------------//
+    // addOriginal //
+    //-------------//
+    /**
+     * Try to replace the provided chain by a new chain that includes the provided weak
+     * original, purged of the references whose glyph has been collected.
+     *
+     * @param key   content hash
+     * @param chain the chain as read, perhaps null
+     * @param weak  the new weak original
+     * @return true if successful, false if chain was concurrently modified
+     */
+    private boolean addOriginal (Integer key,
+                                 WeakGlyph[] chain,
+                                 WeakGlyph weak)
+    {
+        final List<WeakGlyph> list = new ArrayList<WeakGlyph>();
+
+        if (chain != null) {
+            for (WeakGlyph w : chain) {
+                if (w.get() != null) {
+                    list.add(w);
+                }
+            }
+        }
+
+        list.add(weak);
+
+        final WeakGlyph[] newChain = list.toArray(new WeakGlyph[list.size()]);
+
+        if (chain == null) {
+            return originals.putIfAbsent(key, newChain) == null;
+        } else {
+            return originals.replace(key, chain, newChain);
+        }
+    }
+
+    //-------------//
+    // contentHash //
+    //-------------//
+    /**
+     * Compute a hash on glyph location and runs, consistent with glyph equality.
+     *
+     * @param glyph the glyph to hash
+     * @return the content hash
+     */
+    private static int contentHash (Glyph glyph)
+    {
+        int hash = 5;
+        hash = (79 * hash) + glyph.getLeft();
+        hash = (79 * hash) + glyph.getTop();
+        hash = (79 * hash) + glyph.getRunTable().contentHashCode();
+
+        return hash;
+    }
+
+    //--------//
+    // lookup //
+    //--------//
+    /**
+     * Look for an original glyph equal to the provided one in the provided chain.
+     *
+     * @param chain the chain of weak originals, perhaps null
+     * @param glyph the glyph to look for
+     * @return the original found, or null
+     */
+    private static Glyph lookup (WeakGlyph[] chain,
+                                 Glyph glyph)
+    {
+        if (chain != null) {
+            for (WeakGlyph weak : chain) {
+                final Glyph orgGlyph = weak.get();
+
+                if ((orgGlyph != null) && orgGlyph.equals(glyph)) {
+                    return orgGlyph;
+                }
+            }
+        }
+
+        return null;
+    }
+
     //-----------------//
     // privateRegister //
     //-----------------//
@@ -408,23 +566,19 @@ public class GlyphIndex
      * NOTA: This method is meant to be called <b>ONLY</b> from
      * {@link #registerOriginal(omr.glyph.Glyph)} in this class.
      *
-     * @param glyph the glyph to register in glyphIndex
-     * @return the glyph ID
+     * @param glyph the (not yet registered) glyph to register in glyphIndex
+     * @return the weak reference registered in index
      */
-    private int privateRegister (Glyph glyph)
+    private WeakGlyph privateRegister (Glyph glyph)
     {
-        int id = glyph.getId();
-
-        if (id == 0) {
-            WeakGlyph weak = new WeakGlyph(glyph);
+        WeakGlyph weak = new WeakGlyph(glyph);
 
-            // Register in index
-            id = weakIndex.register(weak);
+        // Register in index
+        weakIndex.register(weak);
 
-            glyph.setIndex(this);
-        }
+        glyph.setIndex(this);
 
-        return id;
+        return weak;
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
@@ -439,6 +593,10 @@ public class GlyphIndex
         private final Constant.String vipGlyphs = new Constant.String(
                 "",
                 "(Debug) Comma-separated values of VIP glyphs IDs");
+
+        private final Constant.Boolean printStatistics = new Constant.Boolean(
+                false,
+                "Should we print out original glyphs statistics at end of batch?");
     }
 
     //----------------//
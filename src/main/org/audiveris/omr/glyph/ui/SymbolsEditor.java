@@ -43,6 +43,7 @@ import org.audiveris.omr.sheet.rhythm.Slot;
 import org.audiveris.omr.sheet.ui.PixelBoard;
 import org.audiveris.omr.sheet.ui.SelectionPainter;
 import org.audiveris.omr.sheet.ui.SheetGradedPainter;
+import org.audiveris.omr.sheet.ui.SheetPainter;
 import org.audiveris.omr.sheet.ui.SheetResultPainter;
 import org.audiveris.omr.sheet.ui.SheetTab;
 import org.audiveris.omr.sig.SIGraph;
@@ -66,6 +67,7 @@ import org.audiveris.omr.ui.selection.MouseMovement;
 import static org.audiveris.omr.ui.selection.SelectionHint.*;
 import org.audiveris.omr.ui.util.UIUtil;
 import org.audiveris.omr.ui.view.ScrollView;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.Navigable;
 
 import org.slf4j.Logger;
@@ -324,6 +326,7 @@ public class SymbolsEditor
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
+        view.discardTiles();
         view.repaint();
     }
 
@@ -336,6 +339,7 @@ public class SymbolsEditor
      */
     public void refresh ()
     {
+        view.discardTiles();
         view.repaint();
     }
 
@@ -399,6 +403,26 @@ public class SymbolsEditor
         /** Current vector. */
         private RelationVector vector;
 
+        /** Cached rendering of input layer. */
+        private final TileCache inputTiles = new TileCache(sheet)
+        {
+            @Override
+            protected void paintLayer (Graphics2D g)
+            {
+                renderInput(g);
+            }
+        };
+
+        /** Cached rendering of output layer. */
+        private final TileCache outputTiles = new TileCache(sheet)
+        {
+            @Override
+            protected void paintLayer (Graphics2D g)
+            {
+                renderOutput(g);
+            }
+        };
+
         //~ Constructors ---------------------------------------------------------------------------
         private MyView (GlyphIndex glyphIndex)
         {
@@ -474,6 +498,18 @@ public class SymbolsEditor
             }
         }
 
+        //--------------//
+        // discardTiles //
+        //--------------//
+        /**
+         * Discard the cached renderings, since some displayed data has changed.
+         */
+        public void discardTiles ()
+        {
+            inputTiles.invalidate();
+            outputTiles.invalidate();
+        }
+
         //-----------//
         // highLight //
         //-----------//
@@ -595,35 +631,13 @@ public class SymbolsEditor
             }
 
             if (viewParams.isInputPainting()) {
-                // Sections
-                final boolean drawBorders = viewParams.getSelectionMode() == SelectionMode.MODE_SECTION;
-                final Stroke oldStroke = (drawBorders) ? UIUtil.setAbsoluteStroke(g, 1f) : null;
+                long stamp = SheetPainter.getContentStamp(sheet);
 
                 for (Lag lag : lags) {
-                    // Render all sections, using H/V assigned colors
-                    for (Section section : lag.getEntities()) {
-                        section.render(g, drawBorders, null);
-                    }
+                    stamp += lag.getModCount();
                 }
 
-                if (oldStroke != null) {
-                    g.setStroke(oldStroke);
-                }
-
-                // Inters (with graded colors)
-                new SheetGradedPainter(sheet, g).process();
-
-                // Display staff line splines?
-                if (ViewParameters.getInstance().isStaffLinePainting()) {
-                    g.setColor(Color.LIGHT_GRAY);
-                    UIUtil.setAbsoluteStroke(g, 1f);
-
-                    for (SystemInfo system : sheet.getSystems()) {
-                        for (Staff staff : system.getStaves()) {
-                            staff.render(g);
-                        }
-                    }
-                }
+                inputTiles.render(g, stamp);
             }
 
             if (viewParams.isOutputPainting()) {
@@ -632,10 +646,7 @@ public class SymbolsEditor
 
                 boolean mixed = viewParams.isInputPainting();
                 g.setColor(mixed ? Colors.MUSIC_SYMBOLS : Colors.MUSIC_ALONE);
-
-                final boolean coloredVoices = mixed ? false : viewParams.isVoicePainting();
-                final boolean annots = viewParams.isAnnotationPainting();
-                new SheetResultPainter(sheet, g, coloredVoices, false, annots).process();
+                outputTiles.render(g, SheetPainter.getContentStamp(sheet));
             }
 
             g.setColor(oldColor);
@@ -717,6 +728,63 @@ public class SymbolsEditor
             }
         }
 
+        //-------------//
+        // renderInput //
+        //-------------//
+        /**
+         * Render the input layer: sections, graded inters and perhaps staff lines.
+         *
+         * @param g graphics context
+         */
+        private void renderInput (Graphics2D g)
+        {
+            // Sections
+            final boolean drawBorders = viewParams.getSelectionMode() == SelectionMode.MODE_SECTION;
+            final Stroke oldStroke = (drawBorders) ? UIUtil.setAbsoluteStroke(g, 1f) : null;
+
+            for (Lag lag : lags) {
+                // Render all sections, using H/V assigned colors
+                for (Section section : lag.getEntities()) {
+                    section.render(g, drawBorders, null);
+                }
+            }
+
+            if (oldStroke != null) {
+                g.setStroke(oldStroke);
+            }
+
+            // Inters (with graded colors)
+            new SheetGradedPainter(sheet, g).process();
+
+            // Display staff line splines?
+            if (ViewParameters.getInstance().isStaffLinePainting()) {
+                g.setColor(Color.LIGHT_GRAY);
+                UIUtil.setAbsoluteStroke(g, 1f);
+
+                for (SystemInfo system : sheet.getSystems()) {
+                    for (Staff staff : system.getStaves()) {
+                        staff.render(g);
+                    }
+                }
+            }
+        }
+
+        //--------------//
+        // renderOutput //
+        //--------------//
+        /**
+         * Render the output layer: inters with opaque colors.
+         *
+         * @param g graphics context
+         */
+        private void renderOutput (Graphics2D g)
+        {
+            final boolean mixed = viewParams.isInputPainting();
+            final boolean coloredVoices = mixed ? false : viewParams.isVoicePainting();
+            final boolean annots = viewParams.isAnnotationPainting();
+            new SheetResultPainter(sheet, g, coloredVoices, false, annots).process();
+        }
+
         //---------------//
         // showPagePopup //
         //---------------//
@@ -21,9 +21,22 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
 import ij.process.ByteProcessor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.awt.image.Kernel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code GaussianGrayFilter} allows to run a Gaussian filter on an input image,
@@ -31,19 +44,40 @@ import java.awt.image.Kernel;
  * <p>
  * This implementation is derived from Jerry Huxtable more general filter but limited to
  * BufferedImage class.
+ * <p>
+ * The separable kernel is applied in two convolve-and-transpose passes, working directly on the
+ * pixel arrays of input and output processors.
+ * Each pass processes image rows in parallel stripes.
+ * Kernel weights can be used in fixed-point integer arithmetic (16-bit fraction, weights summing
+ * exactly to 1) rather than floating-point.
+ * This is disabled by default, since results may then differ slightly from floating-point ones.
  *
  * @author Hervé Bitteur
  */
 public class GaussianGrayFilter
         extends AbstractGrayFilter
 {
-    //~ Instance fields ----------------------------------------------------------------------------
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
 
+    private static final Logger logger = LoggerFactory.getLogger(GaussianGrayFilter.class);
+
+    /** Number of fraction bits for fixed-point weights. */
+    private static final int FRACTION_BITS = 16;
+
+    //~ Instance fields ----------------------------------------------------------------------------
     /** Radius of the kernel. */
     private final float radius;
 
-    /** The kernel to apply. */
-    private final Kernel kernel;
+    /** Kernel weights, as floats. */
+    private final float[] weights;
+
+    /** Kernel weights, as fixed-point integers. */
+    private final int[] fixedWeights;
+
+    /** Use of fixed-point weights. */
+    private boolean fixedPoint = constants.fixedPoint.isSet();
 
     //~ Constructors -------------------------------------------------------------------------------
     /**
@@ -62,7 +96,8 @@ public class GaussianGrayFilter
     public GaussianGrayFilter (float radius)
     {
         this.radius = radius;
-        kernel = makeKernel(radius);
+        weights = makeKernel(radius).getKernelData(null);
+        fixedWeights = makeFixedWeights(weights);
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -75,29 +110,11 @@ public class GaussianGrayFilter
     {
         final int width = input.getWidth();
         final int height = input.getHeight();
-        final byte[] inPixels = new byte[width * height];
-        final byte[] outPixels = new byte[width * height];
+        final byte[] transposed = new byte[width * height];
 
-        // Read pixels
-        for (int y = 0; y < height; y++) {
-            final int offset = y * width;
-
-            for (int x = 0; x < width; x++) {
-                inPixels[offset + x] = (byte) input.get(x, y);
-            }
-        }
-
-        convolveAndTranspose(inPixels, outPixels, width, height);
-        convolveAndTranspose(outPixels, inPixels, height, width);
-
-        // Write pixels
-        for (int y = 0; y < height; y++) {
-            final int offset = y * width;
-
-            for (int x = 0; x < width; x++) {
-                output.set(x, y, inPixels[offset + x] & 0xff);
-            }
-        }
+        // Output is written only by second pass, so input and output may be the same
+        convolveAndTranspose((byte[]) input.getPixels(), transposed, width, height);
+        convolveAndTranspose(transposed, (byte[]) output.getPixels(), height, width);
     }
 
     //-----------//
@@ -180,44 +197,195 @@ public class GaussianGrayFilter
     //----------------------//
     // convolveAndTranspose //
     //----------------------//
-    private void convolveAndTranspose (byte[] inPixels,
-                                       byte[] outPixels,
-                                       int width,
-                                       int height)
+    /**
+     * Convolve each row of input with the kernel, and write the result transposed.
+     *
+     * @param inPixels  input pixels (width x height)
+     * @param outPixels output pixels (height x width)
+     * @param width     input width
+     * @param height    input height
+     */
+    private void convolveAndTranspose (final byte[] inPixels,
+                                       final byte[] outPixels,
+                                       final int width,
+                                       final int height)
     {
-        float[] matrix = kernel.getKernelData(null);
-        int cols = kernel.getWidth();
-        int cols2 = cols / 2;
+        final int stripeHeight = Math.max(1, constants.stripeHeight.getValue());
 
-        for (int y = 0; y < height; y++) {
-            int index = y;
-            int ioffset = y * width;
+        if ((height <= stripeHeight) || !OmrExecutors.defaultParallelism.getValue()) {
+            convolveRows(inPixels, outPixels, width, height, 0, height);
+
+            return;
+        }
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+            for (int y = 0; y < height; y += stripeHeight) {
+                final int yStart = y;
+                final int yStop = Math.min(height, y + stripeHeight);
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        convolveRows(inPixels, outPixels, width, height, yStart, yStop);
+
+                        return null;
+                    }
+                });
+            }
+
+            final List<Future<Void>> futures = OmrExecutors.invokeAll(
+                    OmrExecutors.getHighExecutor(),
+                    tasks);
+
+            for (Future<Void> future : futures) {
+                future.get(); // To propagate any exception raised by a stripe
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("GaussianGrayFilter got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            // Rethrow the original exception, as sequential processing would do
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    //--------------//
+    // convolveRows //
+    //--------------//
+    /**
+     * Process the provided range of input rows.
+     * Each row is first copied into a line buffer padded with replicated border pixels,
+     * so that the inner loop needs no bound check.
+     */
+    private void convolveRows (byte[] inPixels,
+                               byte[] outPixels,
+                               int width,
+                               int height,
+                               int yStart,
+                               int yStop)
+    {
+        final int cols = weights.length;
+        final int cols2 = cols / 2;
+        final boolean fixed = fixedPoint;
+        final int[] line = new int[width + (2 * cols2)];
+
+        for (int y = yStart; y < yStop; y++) {
+            final int ioffset = y * width;
+
+            for (int i = 0; i < line.length; i++) {
+                int ix = i - cols2;
 
-            for (int x = 0; x < width; x++) {
-                float p = 0;
-                int moffset = cols2;
+                if (ix < 0) {
+                    ix = 0;
+                } else if (ix >= width) {
+                    ix = width - 1;
+                }
 
-                for (int col = -cols2; col <= cols2; col++) {
-                    float f = matrix[moffset + col];
+                line[i] = inPixels[ioffset + ix] & 0xff;
+            }
 
-                    if (f != 0) {
-                        int ix = x + col;
+            int index = y;
 
-                        if (ix < 0) {
-                            ix = 0;
-                        } else if (ix >= width) {
-                            ix = width - 1;
-                        }
+            if (fixed) {
+                final int half = 1 << (FRACTION_BITS - 1);
 
-                        int pix = inPixels[ioffset + ix] & 0xff;
-                        p += (f * pix);
+                for (int x = 0; x < width; x++) {
+                    int p = half;
+
+                    for (int col = 0; col < cols; col++) {
+                        p += (fixedWeights[col] * line[x + col]);
                     }
+
+                    // Weights are non-negative and sum to 1, hence no clamping is needed
+                    outPixels[index] = (byte) (p >>> FRACTION_BITS);
+                    index += height;
                 }
+            } else {
+                for (int x = 0; x < width; x++) {
+                    float p = 0;
+
+                    for (int col = 0; col < cols; col++) {
+                        p += (weights[col] * line[x + col]);
+                    }
 
-                int ip = clamp((int) (p + 0.5));
-                outPixels[index] = (byte) ip;
-                index += height;
+                    outPixels[index] = (byte) clamp((int) (p + 0.5));
+                    index += height;
+                }
             }
         }
     }
+
+    //------------------//
+    // makeFixedWeights //
+    //------------------//
+    /**
+     * Convert float weights to fixed-point weights.
+     * Rounding residue is put on the central weight, so that weights sum exactly to 1.
+     *
+     * @param matrix the normalized float weights
+     * @return the fixed-point weights
+     */
+    private static int[] makeFixedWeights (float[] matrix)
+    {
+        final int one = 1 << FRACTION_BITS;
+        final int[] fixed = new int[matrix.length];
+        int total = 0;
+
+        for (int i = 0; i < matrix.length; i++) {
+            fixed[i] = Math.round(matrix[i] * one);
+            total += fixed[i];
+        }
+
+        fixed[matrix.length / 2] += (one - total);
+
+        return fixed;
+    }
+
+    //---------------//
+    // setFixedPoint //
+    //---------------//
+    /**
+     * Force the use of fixed-point (or floating-point) weights, regardless of the
+     * fixedPoint constant.
+     *
+     * @param fixedPoint true for fixed-point weights
+     */
+    void setFixedPoint (boolean fixedPoint)
+    {
+        this.fixedPoint = fixedPoint;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean fixedPoint = new Constant.Boolean(
+                false,
+                "Should we use fixed-point integer arithmetic for Gaussian convolution?");
+
+        private final Constant.Integer stripeHeight = new Constant.Integer(
+                "Pixels",
+                128,
+                "Number of image rows processed by a single task");
+    }
 }
@@ -21,21 +21,48 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
 import ij.process.ByteProcessor;
 
-import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code MedianGrayFilter} allows to run a median filter on an input image,
  * assumed to contain only gray values [0..255].
+ * <p>
+ * The window is a square of side 2*radius+1 centered on the current pixel.
+ * At image boundaries, the radius is reduced so that the window does not use pixels outside the
+ * image.
+ * <p>
+ * Implementation is based on a sliding histogram (T.S. Huang's algorithm): along a row, going from
+ * one pixel to the next only requires to remove the leftmost window column and to add a new
+ * rightmost column, while the median value is updated incrementally.
+ * Pixels close to image boundaries, whose window is reduced, are processed one by one.
+ * Image rows are processed in parallel stripes.
  *
  * @author Hervé Bitteur
  */
 public class MedianGrayFilter
         extends AbstractGrayFilter
 {
-    //~ Instance fields ----------------------------------------------------------------------------
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(MedianGrayFilter.class);
 
+    //~ Instance fields ----------------------------------------------------------------------------
     /** Desired radius for the filter. */
     private final int radius;
 
@@ -60,53 +87,235 @@ public class MedianGrayFilter
     {
         final int width = input.getWidth();
         final int height = input.getHeight();
-        final int[] histogram = new int[256];
-        Arrays.fill(histogram, 0);
+        final byte[] src = (byte[]) input.getPixels();
+        final byte[] dst = (byte[]) output.getPixels();
+        final int stripeHeight = Math.max(1, constants.stripeHeight.getValue());
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // To address specific behavior at image boundaries,
-                // reduce radius to not use pixels outside the image.
-                int rad = radius;
+        if ((height <= stripeHeight) || !OmrExecutors.defaultParallelism.getValue()) {
+            filterRows(src, dst, width, height, 0, height);
 
-                if ((x - rad) < 0) {
-                    rad = x;
-                }
+            return;
+        }
 
-                if ((y - rad) < 0) {
-                    rad = y;
-                }
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+            for (int y = 0; y < height; y += stripeHeight) {
+                final int yStart = y;
+                final int yStop = Math.min(height, y + stripeHeight);
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        filterRows(src, dst, width, height, yStart, yStop);
+
+                        return null;
+                    }
+                });
+            }
+
+            final List<Future<Void>> futures = OmrExecutors.invokeAll(
+                    OmrExecutors.getHighExecutor(),
+                    tasks);
+
+            for (Future<Void> future : futures) {
+                future.get(); // To propagate any exception raised by a stripe
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("MedianGrayFilter got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            // Rethrow the original exception, as sequential processing would do
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    //-------------//
+    // filterPixel //
+    //-------------//
+    /**
+     * Process a pixel close to image boundaries, with its specific reduced radius.
+     */
+    private void filterPixel (byte[] src,
+                              byte[] dst,
+                              int width,
+                              int height,
+                              int x,
+                              int y,
+                              int[] histogram)
+    {
+        // To address specific behavior at image boundaries,
+        // reduce radius to not use pixels outside the image.
+        int rad = radius;
+
+        if ((x - rad) < 0) {
+            rad = x;
+        }
+
+        if ((y - rad) < 0) {
+            rad = y;
+        }
+
+        if ((x + rad) >= width) {
+            rad = width - 1 - x;
+        }
+
+        if ((y + rad) >= height) {
+            rad = height - 1 - y;
+        }
+
+        for (int i = 0; i < 256; i++) {
+            histogram[i] = 0;
+        }
+
+        for (int j = y - rad; j <= (y + rad); j++) {
+            final int offset = j * width;
+
+            for (int i = x - rad; i <= (x + rad); i++) {
+                histogram[src[offset + i] & 0xFF]++;
+            }
+        }
+
+        // Pick up the median value
+        final int side = (2 * rad) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
+        int median = 255;
+        int sum = 0;
+
+        while (sum < medianCount) {
+            sum += histogram[median];
+            median--;
+        }
+
+        dst[(y * width) + x] = (byte) (median + 1);
+    }
 
-                if ((x + rad) >= width) {
-                    rad = width - 1 - x;
+    //------------//
+    // filterRows //
+    //------------//
+    /**
+     * Process the pixels of the provided range of rows.
+     *
+     * @param src    input pixels
+     * @param dst    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param yStart first row
+     * @param yStop  row past the last one
+     */
+    private void filterRows (byte[] src,
+                             byte[] dst,
+                             int width,
+                             int height,
+                             int yStart,
+                             int yStop)
+    {
+        final int[] histogram = new int[256];
+        final int side = (2 * radius) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
+
+        for (int y = yStart; y < yStop; y++) {
+            if ((y < radius) || (y >= (height - radius)) || (width < side)) {
+                // Whole row is close to image boundaries
+                for (int x = 0; x < width; x++) {
+                    filterPixel(src, dst, width, height, x, y, histogram);
                 }
 
-                if ((y + rad) >= height) {
-                    rad = height - 1 - y;
+                continue;
+            }
+
+            // Left and right pixels are close to image boundaries
+            for (int x = 0; x < radius; x++) {
+                filterPixel(src, dst, width, height, x, y, histogram);
+                filterPixel(src, dst, width, height, width - 1 - x, y, histogram);
+            }
+
+            // Inner pixels, with full window, using a sliding histogram
+            final int yMin = y - radius;
+            final int yMax = y + radius;
+
+            for (int i = 0; i < 256; i++) {
+                histogram[i] = 0;
+            }
+
+            for (int j = yMin; j <= yMax; j++) {
+                final int offset = j * width;
+
+                for (int i = 0; i < side; i++) {
+                    histogram[src[offset + i] & 0xFF]++;
                 }
+            }
+
+            // Median is the highest value m such that count(values >= m) >= medianCount
+            int median = 255;
+            int above = histogram[255]; // Count of values >= median
+
+            while (above < medianCount) {
+                above += histogram[--median];
+            }
 
-                Arrays.fill(histogram, 0); // Brute force!
+            final int rowOffset = y * width;
+            dst[rowOffset + radius] = (byte) median;
 
-                for (int i = x - rad; i <= (x + rad); i++) {
-                    for (int j = y - rad; j <= (y + rad); j++) {
-                        int val = input.get(i, j);
-                        histogram[val]++;
+            for (int x = radius + 1, xMax = width - radius; x < xMax; x++) {
+                final int xOut = x - radius - 1; // Column leaving the window
+                final int xIn = x + radius; // Column entering the window
+
+                for (int j = yMin; j <= yMax; j++) {
+                    final int offset = j * width;
+                    final int vOut = src[offset + xOut] & 0xFF;
+                    final int vIn = src[offset + xIn] & 0xFF;
+                    histogram[vOut]--;
+                    histogram[vIn]++;
+
+                    if (vOut >= median) {
+                        above--;
+                    }
+
+                    if (vIn >= median) {
+                        above++;
                     }
                 }
 
-                // Pick up the median value
-                final int side = (2 * rad) + 1;
-                final int medianCount = ((side * side) + 1) / 2;
-                int median = 255;
-                int sum = 0;
+                // Update median
+                while (above < medianCount) {
+                    above += histogram[--median];
+                }
 
-                while (sum < medianCount) {
-                    sum += histogram[median];
-                    median--;
+                while ((above - histogram[median]) >= medianCount) {
+                    above -= histogram[median++];
                 }
 
-                output.set(x, y, median + 1);
+                dst[rowOffset + x] = (byte) median;
             }
         }
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer stripeHeight = new Constant.Integer(
+                "Rows",
+                128,
+                "Number of image rows processed by a single task");
+    }
 }
@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
 import ij.process.ByteProcessor;
 
 import org.slf4j.Logger;
@@ -28,6 +31,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Class {@code MorphoProcessor}
+ * <p>
+ * When the structuring element allows it (flat element made of contiguous rows), dilation,
+ * erosion, closing and opening are delegated to the fast {@link SeparableMorphology} engine.
  *
  * @author ?
  */
@@ -36,6 +42,8 @@ public class MorphoProcessor
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(MorphoProcessor.class);
 
     private static final int ORIG = 0;
@@ -69,6 +77,9 @@ public class MorphoProcessor
 
     int height;
 
+    /** Fast engine, if applicable to the structuring element. */
+    private final SeparableMorphology engine;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new instance of MorphoProcessor.
@@ -76,6 +87,18 @@ public class MorphoProcessor
      * @param se the structuring element for processing
      */
     public MorphoProcessor (StructureElement se)
+    {
+        this(se, true);
+    }
+
+    /**
+     * Creates a new instance of MorphoProcessor.
+     *
+     * @param se   the structuring element for processing
+     * @param fast false to always use the generic implementation
+     */
+    MorphoProcessor (StructureElement se,
+                     boolean fast)
     {
         this.se = se;
         width = se.getWidth();
@@ -88,6 +111,7 @@ public class MorphoProcessor
         pg = se.getVect();
         pg_plus = plus_se.getVect();
         pg_minus = minus_se.getVect();
+        engine = fast ? SeparableMorphology.create(pg) : null;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -103,6 +127,15 @@ public class MorphoProcessor
      * */
     public void close (ByteProcessor ip)
     {
+        if (useEngine()) {
+            byte[] pixels = (byte[]) ip.getPixels();
+            byte[] tmp = new byte[pixels.length];
+            engine.dilate(pixels, tmp, ip.getWidth(), ip.getHeight());
+            engine.erode(tmp, pixels, ip.getWidth(), ip.getHeight());
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int w = this.width; //se.getWidth();
@@ -162,6 +195,13 @@ public class MorphoProcessor
      */
     public void dilate (ByteProcessor ip)
     {
+        if (useEngine()) {
+            byte[] pixels = (byte[]) ip.getPixels();
+            engine.dilate(pixels.clone(), pixels, ip.getWidth(), ip.getHeight());
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int max = 32768; //,k=0,x=0,y=0;
@@ -198,6 +238,13 @@ public class MorphoProcessor
      */
     public void erode (ByteProcessor ip)
     {
+        if (useEngine()) {
+            byte[] pixels = (byte[]) ip.getPixels();
+            engine.erode(pixels.clone(), pixels, ip.getWidth(), ip.getHeight());
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int min = -32767; //,k=0,x=0,y=0;
@@ -324,6 +371,15 @@ public class MorphoProcessor
      */
     public void open (ByteProcessor ip)
     {
+        if (useEngine()) {
+            byte[] pixels = (byte[]) ip.getPixels();
+            byte[] tmp = new byte[pixels.length];
+            engine.erode(pixels, tmp, ip.getWidth(), ip.getHeight());
+            engine.dilate(tmp, pixels, ip.getWidth(), ip.getHeight());
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int min = -32767; //,k=0,x=0,y=0;
@@ -375,6 +431,9 @@ public class MorphoProcessor
         System.arraycopy(newpix2, 0, pixels, 0, pixels.length);
     }
 
+    //-----------//
+    // getMinMax //
+    //-----------//
     private int[] getMinMax (int index,
                              int width,
                              int height,
@@ -440,4 +499,31 @@ public class MorphoProcessor
 
         return wnd;
     }
+
+    //-----------//
+    // useEngine //
+    //-----------//
+    /**
+     * Tell whether the fast engine can be used.
+     *
+     * @return true if fast engine is applicable and enabled
+     */
+    private boolean useEngine ()
+    {
+        return (engine != null) && constants.fastMorphology.isSet();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean fastMorphology = new Constant.Boolean(
+                true,
+                "Should we use the fast separable engine when applicable?");
+    }
 }
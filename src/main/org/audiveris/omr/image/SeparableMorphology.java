@@ -0,0 +1,553 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             S e p a r a b l e M o r p h o l o g y                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code SeparableMorphology} is a fast engine for gray-level dilation and
+ * erosion with a flat structuring element whose rows are contiguous segments (such as line,
+ * rectangle, diamond or disk elements).
+ * <p>
+ * The structuring element is decomposed into horizontal segments, one per element row.
+ * A running maximum (or minimum) along an image row, for a segment of any length, is computed in
+ * constant time per pixel using van Herk / Gil-Werman algorithm.
+ * <ul>
+ * <li>For a rectangle element (including horizontal and vertical lines), processing is fully
+ * separable: a pass on image rows, followed by a pass on image columns.</li>
+ * <li>For other elements (disk for example), each output row is the maximum (or minimum) of the
+ * running results of the image rows it covers, each with its own segment.
+ * This is an exact decomposition, not an approximation.</li>
+ * </ul>
+ * Results are identical to those of {@link MorphoProcessor} generic implementation: pixels outside
+ * the image are ignored.
+ * Inner loops use scratch buffers allocated once per task, and rows (or columns) are processed in
+ * parallel stripes.
+ * <p>
+ * Erosion is computed as the dual of dilation, by working on inverted gray values.
+ *
+ * @author Hervé Bitteur
+ */
+class SeparableMorphology
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(SeparableMorphology.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Minimum element row offset. */
+    private final int dyMin;
+
+    /** Segment starting column offset, per element row (index: dy - dyMin). */
+    private final int[] xMins;
+
+    /** Segment stopping column offset, per element row (index: dy - dyMin). */
+    private final int[] xMaxs;
+
+    /** Is there a segment, per element row (index: dy - dyMin). */
+    private final boolean[] present;
+
+    /** Maximum segment length. */
+    private final int maxLength;
+
+    /** True if element is a rectangle (same segment for all its rows). */
+    private final boolean rectangle;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private SeparableMorphology (int dyMin,
+                                 int[] xMins,
+                                 int[] xMaxs,
+                                 boolean[] present)
+    {
+        this.dyMin = dyMin;
+        this.xMins = xMins;
+        this.xMaxs = xMaxs;
+        this.present = present;
+
+        boolean rect = true;
+        int maxLg = 0;
+
+        for (int i = 0; i < present.length; i++) {
+            if (!present[i] || (xMins[i] != xMins[0]) || (xMaxs[i] != xMaxs[0])) {
+                rect = false;
+            }
+
+            if (present[i]) {
+                maxLg = Math.max(maxLg, xMaxs[i] - xMins[i] + 1);
+            }
+        }
+
+        rectangle = rect;
+        maxLength = maxLg;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // create //
+    //--------//
+    /**
+     * Try to build an engine for the provided element vectors.
+     *
+     * @param pg element vectors, as provided by {@link StructureElement#getVect()}: each vector is
+     *           {dy, dx, value, ...}
+     * @return the engine, or null if element is not flat or has a non-contiguous row
+     */
+    public static SeparableMorphology create (int[][] pg)
+    {
+        if (pg.length == 0) {
+            return null;
+        }
+
+        int dyMin = Integer.MAX_VALUE;
+        int dyMax = Integer.MIN_VALUE;
+
+        for (int[] v : pg) {
+            if (v[2] != 255) {
+                return null; // Not a flat element
+            }
+
+            dyMin = Math.min(dyMin, v[0]);
+            dyMax = Math.max(dyMax, v[0]);
+        }
+
+        final int rows = dyMax - dyMin + 1;
+        final int[] xMins = new int[rows];
+        final int[] xMaxs = new int[rows];
+        final int[] counts = new int[rows];
+        final boolean[] present = new boolean[rows];
+
+        for (int[] v : pg) {
+            final int i = v[0] - dyMin;
+
+            if (!present[i]) {
+                present[i] = true;
+                xMins[i] = v[1];
+                xMaxs[i] = v[1];
+            } else {
+                xMins[i] = Math.min(xMins[i], v[1]);
+                xMaxs[i] = Math.max(xMaxs[i], v[1]);
+            }
+
+            counts[i]++;
+        }
+
+        // Check each row is a contiguous segment (with no duplicated vector)
+        for (int i = 0; i < rows; i++) {
+            if (present[i] && (counts[i] != (xMaxs[i] - xMins[i] + 1))) {
+                return null;
+            }
+        }
+
+        return new SeparableMorphology(dyMin, xMins, xMaxs, present);
+    }
+
+    //--------//
+    // dilate //
+    //--------//
+    /**
+     * Gray-level dilation.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels (distinct from source)
+     * @param width  image width
+     * @param height image height
+     */
+    public void dilate (byte[] src,
+                        byte[] dst,
+                        int width,
+                        int height)
+    {
+        process(src, dst, width, height, false);
+    }
+
+    //-------//
+    // erode //
+    //-------//
+    /**
+     * Gray-level erosion.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels (distinct from source)
+     * @param width  image width
+     * @param height image height
+     */
+    public void erode (byte[] src,
+                       byte[] dst,
+                       int width,
+                       int height)
+    {
+        process(src, dst, width, height, true);
+    }
+
+    //-----------//
+    // columnMax //
+    //-----------//
+    /**
+     * Vertical pass, for a rectangle element.
+     */
+    private void columnMax (byte[] src,
+                            byte[] dst,
+                            int width,
+                            int height,
+                            int xStart,
+                            int xStop,
+                            boolean invert)
+    {
+        final int dyMax = (dyMin + present.length) - 1;
+        final Scratch s = new Scratch(height, present.length);
+
+        for (int x = xStart; x < xStop; x++) {
+            for (int y = 0; y < height; y++) {
+                s.line[y] = src[(y * width) + x] & 0xFF;
+            }
+
+            runningMax(s, height, dyMin, dyMax);
+
+            for (int y = 0; y < height; y++) {
+                final int v = s.out[y];
+                dst[(y * width) + x] = (byte) (invert ? (255 - v) : v);
+            }
+        }
+    }
+
+    //---------//
+    // process //
+    //---------//
+    private void process (final byte[] src,
+                          final byte[] dst,
+                          final int width,
+                          final int height,
+                          final boolean invert)
+    {
+        if (rectangle) {
+            // Separable: pass on rows into tmp buffer, then pass on columns
+            final byte[] tmp = new byte[src.length];
+            final int xMin = xMins[0];
+            final int xMax = xMaxs[0];
+
+            runStripes(
+                    height,
+                    new Stripe()
+            {
+                @Override
+                public void process (int start,
+                                     int stop)
+                {
+                    rowMax(src, tmp, width, start, stop, xMin, xMax, invert);
+                }
+            });
+
+            runStripes(
+                    width,
+                    new Stripe()
+            {
+                @Override
+                public void process (int start,
+                                     int stop)
+                {
+                    columnMax(tmp, dst, width, height, start, stop, invert);
+                }
+            });
+        } else {
+            runStripes(
+                    height,
+                    new Stripe()
+            {
+                @Override
+                public void process (int start,
+                                     int stop)
+                {
+                    segmentsMax(src, dst, width, height, start, stop, invert);
+                }
+            });
+        }
+    }
+
+    //--------//
+    // rowMax //
+    //--------//
+    /**
+     * Horizontal pass, for a rectangle element.
+     * Output is left in max space (that is, inverted for erosion).
+     */
+    private void rowMax (byte[] src,
+                         byte[] dst,
+                         int width,
+                         int yStart,
+                         int yStop,
+                         int xMin,
+                         int xMax,
+                         boolean invert)
+    {
+        final Scratch s = new Scratch(width, maxLength);
+
+        for (int y = yStart; y < yStop; y++) {
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                final int v = src[offset + x] & 0xFF;
+                s.line[x] = invert ? (255 - v) : v;
+            }
+
+            runningMax(s, width, xMin, xMax);
+
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = (byte) s.out[x];
+            }
+        }
+    }
+
+    //------------//
+    // runStripes //
+    //------------//
+    /**
+     * Process the range [0..count[ by stripes, in parallel if possible.
+     */
+    private void runStripes (int count,
+                             final Stripe stripe)
+    {
+        final int size = Math.max(1, constants.stripeSize.getValue());
+
+        if ((count <= size) || !OmrExecutors.defaultParallelism.getValue()) {
+            stripe.process(0, count);
+
+            return;
+        }
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+            for (int i = 0; i < count; i += size) {
+                final int start = i;
+                final int stop = Math.min(count, i + size);
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        stripe.process(start, stop);
+
+                        return null;
+                    }
+                });
+            }
+
+            final List<Future<Void>> futures = OmrExecutors.invokeAll(
+                    OmrExecutors.getHighExecutor(),
+                    tasks);
+
+            for (Future<Void> future : futures) {
+                future.get(); // To propagate any exception raised by a stripe
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("SeparableMorphology got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            // Rethrow the original exception, as sequential processing would do
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    //------------//
+    // runningMax //
+    //------------//
+    /**
+     * Van Herk / Gil-Werman running maximum on scratch line, for window [i+a, i+b].
+     * Values outside line are ignored (padded with 0).
+     *
+     * @param s scratch buffers, with input in s.line and output in s.out
+     * @param n line length
+     * @param a window start offset
+     * @param b window stop offset
+     */
+    private static void runningMax (Scratch s,
+                                    int n,
+                                    int a,
+                                    int b)
+    {
+        final int lg = b - a + 1;
+        final int m = (n + lg) - 1;
+        final int[] line = s.line;
+        final int[] g = s.g;
+        final int[] h = s.h;
+
+        // Forward block maximum
+        for (int t = 0; t < m; t++) {
+            final int i = t + a;
+            final int v = ((i >= 0) && (i < n)) ? line[i] : 0;
+            g[t] = (((t % lg) == 0) || (v > g[t - 1])) ? v : g[t - 1];
+            h[t] = v;
+        }
+
+        // Backward block maximum
+        for (int t = m - 2; t >= 0; t--) {
+            if (((t + 1) % lg) != 0) {
+                if (h[t + 1] > h[t]) {
+                    h[t] = h[t + 1];
+                }
+            }
+        }
+
+        final int[] out = s.out;
+
+        for (int i = 0; i < n; i++) {
+            final int v1 = h[i];
+            final int v2 = g[(i + lg) - 1];
+            out[i] = (v1 > v2) ? v1 : v2;
+        }
+    }
+
+    //-------------//
+    // segmentsMax //
+    //-------------//
+    /**
+     * General case, for each output row, combine the running results of covered rows.
+     */
+    private void segmentsMax (byte[] src,
+                              byte[] dst,
+                              int width,
+                              int height,
+                              int yStart,
+                              int yStop,
+                              boolean invert)
+    {
+        final Scratch s = new Scratch(width, maxLength);
+        final int[] acc = new int[width];
+
+        for (int y = yStart; y < yStop; y++) {
+            for (int x = 0; x < width; x++) {
+                acc[x] = 0;
+            }
+
+            for (int i = 0; i < present.length; i++) {
+                final int j = y + dyMin + i;
+
+                if (!present[i] || (j < 0) || (j >= height)) {
+                    continue;
+                }
+
+                final int offset = j * width;
+
+                for (int x = 0; x < width; x++) {
+                    final int v = src[offset + x] & 0xFF;
+                    s.line[x] = invert ? (255 - v) : v;
+                }
+
+                runningMax(s, width, xMins[i], xMaxs[i]);
+
+                for (int x = 0; x < width; x++) {
+                    if (s.out[x] > acc[x]) {
+                        acc[x] = s.out[x];
+                    }
+                }
+            }
+
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = (byte) (invert ? (255 - acc[x]) : acc[x]);
+            }
+        }
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //--------//
+    // Stripe //
+    //--------//
+    private static interface Stripe
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        void process (int start,
+                      int stop);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer stripeSize = new Constant.Integer(
+                "Lines",
+                128,
+                "Number of image rows (or columns) processed by a single task");
+    }
+
+    //---------//
+    // Scratch //
+    //---------//
+    /**
+     * Buffers for one line processing, allocated once per task.
+     */
+    private static class Scratch
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int[] line;
+
+        final int[] out;
+
+        final int[] g;
+
+        final int[] h;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Scratch (int n,
+                        int maxLength)
+        {
+            line = new int[n];
+            out = new int[n];
+            g = new int[n + maxLength];
+            h = new int[n + maxLength];
+        }
+    }
+}
@@ -120,6 +120,21 @@ public class ShapeDescriptor
         template = createTemplate(shape, pointSize);
     }
 
+    /**
+     * Creates a ShapeDescriptor object around an existing template.
+     *
+     * @param template the template, as read from cache
+     */
+    ShapeDescriptor (Template template)
+    {
+        this.shape = template.getShape();
+        this.pointSize = template.getPointSize();
+        this.template = template;
+
+        width = template.getWidth();
+        height = template.getHeight();
+    }
+
     //~ Methods ------------------------------------------------------------------------------------
     //------//
     // main //
@@ -225,6 +240,21 @@ public class ShapeDescriptor
         return shape;
     }
 
+    //--------------//
+    // getSignature //
+    //--------------//
+    /**
+     * Report a signature of the parameters that impact template construction, so that
+     * templates built with other parameters can be detected.
+     *
+     * @return the parameters signature
+     */
+    static String getSignature ()
+    {
+        return "stemDx:" + constants.stemDx.getValue() + ",stemDy:" + constants.stemDy.getValue()
+               + ",smallRatio:" + Template.smallRatio;
+    }
+
     //-------------------//
     // getSymbolBoundsAt //
     //-------------------//
@@ -354,7 +384,7 @@ public class ShapeDescriptor
     //---------//
     // getCode //
     //---------//
-    private static int getCode (Shape shape)
+    static int getCode (Shape shape)
     {
         switch (shape) {
         case NOTEHEAD_BLACK:
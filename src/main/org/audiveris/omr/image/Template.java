@@ -47,8 +47,10 @@ import java.awt.Rectangle;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -93,8 +95,14 @@ public class Template
     /** Underlying symbol. */
     private final TemplateSymbol symbol;
 
-    /** Collection of key points defined for this template. */
-    private final List<PixelDistance> keyPoints;
+    /** Key points abscissae. */
+    private final short[] keyXs;
+
+    /** Key points ordinates. */
+    private final short[] keyYs;
+
+    /** Key points expected distances. */
+    private final short[] keyDs;
 
     /** Template width. (perhaps larger than the symbol width) */
     private final int width;
@@ -135,10 +143,46 @@ public class Template
         this.shape = shape;
         this.pointSize = pointSize;
         this.symbol = symbol;
-        this.keyPoints = new ArrayList<PixelDistance>(keyPoints);
         this.width = width;
         this.height = height;
         this.symbolBounds = symbolBounds;
+
+        // Key points are kept in compact primitive form
+        final int count = keyPoints.size();
+        keyXs = new short[count];
+        keyYs = new short[count];
+        keyDs = new short[count];
+
+        for (int i = 0; i < count; i++) {
+            final PixelDistance pix = keyPoints.get(i);
+            keyXs[i] = (short) pix.x;
+            keyYs[i] = (short) pix.y;
+            keyDs[i] = (short) Math.rint(pix.d);
+        }
+    }
+
+    /**
+     * Creates a Template object with its key points in primitive form, as read from cache.
+     */
+    private Template (Shape shape,
+                      int pointSize,
+                      TemplateSymbol symbol,
+                      int width,
+                      int height,
+                      short[] keyXs,
+                      short[] keyYs,
+                      short[] keyDs,
+                      Rectangle symbolBounds)
+    {
+        this.shape = shape;
+        this.pointSize = pointSize;
+        this.symbol = symbol;
+        this.width = width;
+        this.height = height;
+        this.keyXs = keyXs;
+        this.keyYs = keyYs;
+        this.keyDs = keyDs;
+        this.symbolBounds = symbolBounds;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -179,7 +223,7 @@ public class Template
         g.drawImage(src, at, null);
 
         // Draw distances
-        for (PixelDistance pix : keyPoints) {
+        for (PixelDistance pix : getKeyPoints()) {
             int d = (int) Math.rint(pix.d);
 
             if (d != 0) {
@@ -268,8 +312,8 @@ public class Template
             }
         }
 
-        for (PixelDistance pix : keyPoints) {
-            vals[pix.x][pix.y] = (int) Math.rint(pix.d);
+        for (int i = 0; i < keyXs.length; i++) {
+            vals[keyXs[i]][keyYs[i]] = keyDs[i];
         }
 
         System.out.println("Template " + shape + ":");
@@ -326,9 +370,9 @@ public class Template
         double weights = 0; // Sum of weights
         double total = 0; // Sum of weighted distances
 
-        for (PixelDistance pix : keyPoints) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0; i < keyXs.length; i++) {
+            int nx = ul.x + keyXs[i];
+            int ny = ul.y + keyYs[i];
 
             // Ignore tested point if located out of image
             if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
@@ -336,11 +380,12 @@ public class Template
 
                 // Ignore neutralized locations in distance table
                 if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
-                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
-                    // pix.d == 0 for expected foreground, 0 distance
-                    // pix.d > 0 for expected background, expected distance to nearest foreground
-                    double weight = (pix.d == 0) ? foreWeight : ((pix.d > 0) ? backWeight : holeWeight);
-                    double expected = (pix.d == 0) ? 0 : 1;
+                    // d < 0 for expected hole, expected negative distance to nearest foreground
+                    // d == 0 for expected foreground, 0 distance
+                    // d > 0 for expected background, expected distance to nearest foreground
+                    final int d = keyDs[i];
+                    double weight = (d == 0) ? foreWeight : ((d > 0) ? backWeight : holeWeight);
+                    double expected = (d == 0) ? 0 : 1;
                     double actual = (actualDist == 0) ? 0 : 1;
                     double dist = Math.abs(actual - expected);
 
@@ -383,9 +428,9 @@ public class Template
         int expectedHoles = 0; // Expected number of white pixels in hole
         int actualHoles = 0; // Actual number of white pixels in hole
 
-        for (PixelDistance pix : keyPoints) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0; i < keyXs.length; i++) {
+            int nx = ul.x + keyXs[i];
+            int ny = ul.y + keyYs[i];
 
             // Ignore tested point if located out of image
             if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
@@ -393,8 +438,8 @@ public class Template
 
                 // Ignore neutralized locations in distance table
                 if (actualDist != ChamferDistance.VALUE_UNKNOWN) {
-                    // pix.d < 0 for expected hole, expected negative distance to nearest foreground
-                    if (pix.d < 0) {
+                    // d < 0 for expected hole, expected negative distance to nearest foreground
+                    if (keyDs[i] < 0) {
                         expectedHoles++;
 
                         if (actualDist != 0) {
@@ -458,20 +503,20 @@ public class Template
         final int imgHeight = image.getHeight();
         final List<Point> fores = new ArrayList<Point>();
 
-        for (PixelDistance pix : keyPoints) {
-            if (pix.d != 0) {
+        for (int i = 0; i < keyXs.length; i++) {
+            if (keyDs[i] != 0) {
                 continue;
             }
 
-            int nx = box.x + pix.x;
-            int ny = box.y + pix.y;
+            int nx = box.x + keyXs[i];
+            int ny = box.y + keyYs[i];
 
             if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
                 // Check if we have some image foreground there
                 int val = image.get(nx, ny);
 
                 if (val == 0) {
-                    fores.add(new Point(pix.x, pix.y));
+                    fores.add(new Point(keyXs[i], keyYs[i]));
                 }
             }
         }
@@ -554,11 +599,21 @@ public class Template
     // getKeyPoints //
     //--------------//
     /**
-     * @return the keyPoints
+     * Report the template key points.
+     * <p>
+     * Key points are kept internally in primitive form, this method allocates the list.
+     *
+     * @return a new list of key points
      */
     public List<PixelDistance> getKeyPoints ()
     {
-        return Collections.unmodifiableList(keyPoints);
+        final List<PixelDistance> list = new ArrayList<PixelDistance>(keyXs.length);
+
+        for (int i = 0; i < keyXs.length; i++) {
+            list.add(new PixelDistance(keyXs[i], keyYs[i], keyDs[i]));
+        }
+
+        return list;
     }
 
     //-----------//
@@ -699,6 +754,62 @@ public class Template
         return constants.reallyBadDistance.getValue();
     }
 
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a template, as written by {@link #write(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the template read
+     * @throws IOException if read failed
+     */
+    static Template read (DataInput in)
+            throws IOException
+    {
+        final Shape shape = Shape.valueOf(in.readUTF());
+        final int pointSize = in.readInt();
+        final int width = in.readInt();
+        final int height = in.readInt();
+        final Rectangle symbolBounds = new Rectangle(
+                in.readInt(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt());
+
+        final Map<Anchor, Point> offsets = new EnumMap<Anchor, Point>(Anchor.class);
+
+        for (int i = in.readInt(); i > 0; i--) {
+            offsets.put(Anchor.valueOf(in.readUTF()), new Point(in.readInt(), in.readInt()));
+        }
+
+        final int count = in.readInt();
+        final short[] xs = new short[count];
+        final short[] ys = new short[count];
+        final short[] ds = new short[count];
+
+        for (int i = 0; i < count; i++) {
+            xs[i] = in.readShort();
+            ys[i] = in.readShort();
+            ds[i] = in.readShort();
+        }
+
+        final TemplateSymbol symbol = new TemplateSymbol(shape, ShapeDescriptor.getCode(shape));
+        final Template template = new Template(
+                shape,
+                pointSize,
+                symbol,
+                width,
+                height,
+                xs,
+                ys,
+                ds,
+                symbolBounds);
+        template.offsets.putAll(offsets);
+
+        return template;
+    }
+
     //----------//
     // toString //
     //----------//
@@ -720,13 +831,51 @@ public class Template
                     ",").append(entry.getValue().y).append(")");
         }
 
-        sb.append(" keyPoints:").append(keyPoints.size());
+        sb.append(" keyPoints:").append(keyXs.length);
 
         sb.append("}");
 
         return sb.toString();
     }
 
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write this template in compact binary form.
+     *
+     * @param out the output to write to
+     * @throws IOException if write failed
+     */
+    void write (DataOutput out)
+            throws IOException
+    {
+        out.writeUTF(shape.name());
+        out.writeInt(pointSize);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(symbolBounds.x);
+        out.writeInt(symbolBounds.y);
+        out.writeInt(symbolBounds.width);
+        out.writeInt(symbolBounds.height);
+
+        out.writeInt(offsets.size());
+
+        for (Entry<Anchor, Point> entry : offsets.entrySet()) {
+            out.writeUTF(entry.getKey().name());
+            out.writeInt(entry.getValue().x);
+            out.writeInt(entry.getValue().y);
+        }
+
+        out.writeInt(keyXs.length);
+
+        for (int i = 0; i < keyXs.length; i++) {
+            out.writeShort(keyXs[i]);
+            out.writeShort(keyYs[i]);
+            out.writeShort(keyDs[i]);
+        }
+    }
+
     //-----------//
     // upperLeft //
     //-----------//
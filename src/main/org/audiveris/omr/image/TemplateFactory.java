@@ -21,19 +21,47 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.ui.symbol.MusicFont;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.EnumMap;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * Class {@code TemplateFactory} builds needed instances of {@link Template} class
  * and keeps a catalog per desired point size and shape.
+ * <p>
+ * Catalogs are read-only once built, and thus shared by all sheets.
+ * A catalog is built at most once, even when requested concurrently.
+ * <p>
+ * Catalogs for the point sizes of a range of usual interline values can be precomputed at
+ * startup (see {@link #preload()}), and persisted to a cache file so that a later run just has to
+ * read them.
  *
  * @author Hervé Bitteur
  */
@@ -41,15 +69,20 @@ public class TemplateFactory
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(TemplateFactory.class);
 
     /** Singleton. */
     private static final TemplateFactory INSTANCE = new TemplateFactory();
 
+    /** Format version of cache file. */
+    private static final int CACHE_VERSION = 1;
+
     //~ Instance fields ----------------------------------------------------------------------------
     //
-    /** Catalog of all templates already allocated, mapped by point size. */
-    private final Map<Integer, Catalog> allSizes;
+    /** Catalog of all templates already allocated (or being allocated), mapped by point size. */
+    private final ConcurrentMap<Integer, FutureTask<Catalog>> allSizes;
 
     //~ Constructors -------------------------------------------------------------------------------
     /**
@@ -57,7 +90,7 @@ public class TemplateFactory
      */
     private TemplateFactory ()
     {
-        allSizes = new HashMap<Integer, Catalog>();
+        allSizes = new ConcurrentHashMap<Integer, FutureTask<Catalog>>();
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -78,21 +111,202 @@ public class TemplateFactory
      * @param pointSize provided point size
      * @return the catalog of all templates for the point size value
      */
-    public Catalog getCatalog (int pointSize)
+    public Catalog getCatalog (final int pointSize)
+    {
+        FutureTask<Catalog> task = allSizes.get(pointSize);
+
+        if (task == null) {
+            final FutureTask<Catalog> newTask = new FutureTask<Catalog>(
+                    new Callable<Catalog>()
+            {
+                @Override
+                public Catalog call ()
+                {
+                    return new Catalog(pointSize);
+                }
+            });
+
+            task = allSizes.putIfAbsent(pointSize, newTask);
+
+            if (task == null) {
+                task = newTask;
+                task.run(); // Build catalog in current thread
+            }
+        }
+
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            allSizes.remove(pointSize, task); // To allow a later attempt
+            throw new IllegalStateException("Error building templates for " + pointSize, ex);
+        }
+    }
+
+    //---------//
+    // preload //
+    //---------//
+    /**
+     * Make the catalogs available for the range of usual interline values.
+     * <p>
+     * Catalogs are read from cache file if possible, missing ones are built and the cache file
+     * is then (re)written.
+     */
+    public void preload ()
+    {
+        if (!constants.preloadTemplates.isSet()) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        final int minSize = headPointSize(constants.minInterline.getValue());
+        final int maxSize = headPointSize(constants.maxInterline.getValue());
+        final Path cachePath = constants.useCacheFile.isSet() ? getCachePath() : null;
+        int read = 0;
+        int built = 0;
+
+        if ((cachePath != null) && Files.exists(cachePath)) {
+            read = readCache(cachePath);
+        }
+
+        for (int size = minSize; size <= maxSize; size++) {
+            if (!allSizes.containsKey(size)) {
+                getCatalog(size);
+                built++;
+            }
+        }
+
+        if ((cachePath != null) && (built > 0)) {
+            writeCache(cachePath, minSize, maxSize);
+        }
+
+        logger.info(
+                "Templates for point sizes {}..{} preloaded in {} ms, read:{} built:{}",
+                minSize,
+                maxSize,
+                System.currentTimeMillis() - start,
+                read,
+                built);
+    }
+
+    //--------------//
+    // getCachePath //
+    //--------------//
+    private static Path getCachePath ()
+    {
+        return WellKnowns.TEMP_FOLDER.resolve(constants.cacheFileName.getValue());
+    }
+
+    //--------------//
+    // getSignature //
+    //--------------//
+    /**
+     * Report the signature of a cache file content: program version and template parameters.
+     */
+    private static String getSignature ()
+    {
+        return WellKnowns.TOOL_REF + "/" + ShapeDescriptor.getSignature();
+    }
+
+    //---------------//
+    // headPointSize //
+    //---------------//
+    /**
+     * Report the head point size used by default for a given interline.
+     */
+    private static int headPointSize (int interline)
+    {
+        return MusicFont.getPointSize((int) Math.rint(interline * MusicFont.getHeadRatio()));
+    }
+
+    //-----------//
+    // readCache //
+    //-----------//
+    /**
+     * Read catalogs from cache file.
+     *
+     * @param path cache file
+     * @return the number of catalogs read
+     */
+    private int readCache (Path path)
     {
-        Catalog catalog = allSizes.get(pointSize);
+        int count = 0;
 
-        if (catalog == null) {
-            synchronized (allSizes) {
-                catalog = allSizes.get(pointSize);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            if ((in.readInt() != CACHE_VERSION) || !getSignature().equals(in.readUTF())) {
+                logger.info("Obsolete templates cache {}", path);
 
-                if (catalog == null) {
-                    allSizes.put(pointSize, catalog = new Catalog(pointSize));
+                return 0;
+            }
+
+            for (int i = in.readInt(); i > 0; i--) {
+                final Catalog catalog = Catalog.read(in);
+                final FutureTask<Catalog> task = new FutureTask<Catalog>(
+                        new Callable<Catalog>()
+                {
+                    @Override
+                    public Catalog call ()
+                    {
+                        return catalog;
+                    }
+                });
+                task.run();
+
+                if (allSizes.putIfAbsent(catalog.pointSize, task) == null) {
+                    count++;
                 }
             }
+        } catch (Exception ex) {
+            logger.warn("Error reading templates cache {} {}", path, ex.toString());
         }
 
-        return catalog;
+        return count;
+    }
+
+    //------------//
+    // writeCache //
+    //------------//
+    /**
+     * Write the catalogs of the provided range of point sizes to cache file.
+     *
+     * @param path    cache file
+     * @param minSize minimum point size
+     * @param maxSize maximum point size
+     */
+    private void writeCache (Path path,
+                             int minSize,
+                             int maxSize)
+    {
+        final List<Catalog> catalogs = new ArrayList<Catalog>();
+
+        for (int size = minSize; size <= maxSize; size++) {
+            catalogs.add(getCatalog(size));
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            // Write to a temporary file, then move it to target in one shot
+            final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CACHE_VERSION);
+                out.writeUTF(getSignature());
+                out.writeInt(catalogs.size());
+
+                for (Catalog catalog : catalogs) {
+                    catalog.write(out);
+                }
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Templates cache written to {}", path);
+        } catch (IOException ex) {
+            logger.warn("Error writing templates cache {} {}", path, ex.toString());
+        }
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
@@ -120,6 +334,16 @@ public class TemplateFactory
             buildAllTemplates();
         }
 
+        /**
+         * Create a catalog with already built descriptors, as read from cache.
+         */
+        private Catalog (int pointSize,
+                         Map<Shape, ShapeDescriptor> descriptors)
+        {
+            this.pointSize = pointSize;
+            this.descriptors.putAll(descriptors);
+        }
+
         //~ Methods --------------------------------------------------------------------------------
         //---------------//
         // getDescriptor //
@@ -139,6 +363,38 @@ public class TemplateFactory
             return descriptor.getTemplate();
         }
 
+        //------//
+        // read //
+        //------//
+        static Catalog read (DataInput in)
+                throws IOException
+        {
+            final int pointSize = in.readInt();
+            final Map<Shape, ShapeDescriptor> map = new EnumMap<Shape, ShapeDescriptor>(
+                    Shape.class);
+
+            for (int i = in.readInt(); i > 0; i--) {
+                final Template template = Template.read(in);
+                map.put(template.getShape(), new ShapeDescriptor(template));
+            }
+
+            return new Catalog(pointSize, map);
+        }
+
+        //-------//
+        // write //
+        //-------//
+        void write (DataOutput out)
+                throws IOException
+        {
+            out.writeInt(pointSize);
+            out.writeInt(descriptors.size());
+
+            for (ShapeDescriptor descriptor : descriptors.values()) {
+                descriptor.getTemplate().write(out);
+            }
+        }
+
         //-------------------//
         // buildAllTemplates //
         //-------------------//
@@ -149,4 +405,35 @@ public class TemplateFactory
             }
         }
     }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean preloadTemplates = new Constant.Boolean(
+                true,
+                "Should we precompute templates for usual interline values at startup?");
+
+        private final Constant.Integer minInterline = new Constant.Integer(
+                "Pixels",
+                12,
+                "Minimum interline value for precomputed templates");
+
+        private final Constant.Integer maxInterline = new Constant.Integer(
+                "Pixels",
+                30,
+                "Maximum interline value for precomputed templates");
+
+        private final Constant.Boolean useCacheFile = new Constant.Boolean(
+                true,
+                "Should we persist precomputed templates in a cache file?");
+
+        private final Constant.String cacheFileName = new Constant.String(
+                "templates.cache",
+                "Name of templates cache file, within temp folder");
+    }
 }
@@ -32,11 +32,22 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class {@code BasicLag} is a basic implementation of {@link Lag} interface.
+ * <p>
+ * To speed up {@link #intersectedSections(Rectangle)}, sections are indexed in buckets of
+ * positions (ordinate for a horizontal lag, abscissa for a vertical lag), so that a query browses
+ * only the sections whose position range overlaps the rectangle.
+ * This position index is built lazily at query time, rebuilt after any section addition, and
+ * updated in place on section removal.
  *
  * @author Hervé Bitteur
  */
@@ -48,6 +59,9 @@ public class BasicLag
 
     private static final Logger logger = LoggerFactory.getLogger(BasicLag.class);
 
+    /** Log2 of the number of positions per bucket in position index. */
+    private static final int BUCKET_SHIFT = 5;
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Orientation of the lag. */
     private final Orientation orientation;
@@ -58,6 +72,12 @@ public class BasicLag
     /** Lag name. */
     private final String name;
 
+    /** Count of section additions, to detect a stale position index. */
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /** Sections index on position, lazily built. */
+    private PositionIndex positionIndex;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Constructor with specified orientation
@@ -136,13 +156,29 @@ public class BasicLag
         return runTable;
     }
 
+    //--------//
+    // insert //
+    //--------//
+    @Override
+    public void insert (Section section)
+    {
+        super.insert(section);
+        additions.incrementAndGet();
+    }
+
     //---------------------//
     // intersectedSections //
     //---------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the sections indexed in the buckets overlapped by rectangle are checked.
+     * As with a full scan, the sections found are ordered by ID.
+     */
     @Override
     public Set<Section> intersectedSections (Rectangle rect)
     {
-        return Sections.intersectedSections(rect, getEntities());
+        return getPositionIndex().intersectedSections(rect);
     }
 
     //------------//
@@ -158,6 +194,33 @@ public class BasicLag
         return orientation.isVertical();
     }
 
+    //----------//
+    // register //
+    //----------//
+    @Override
+    public int register (Section section)
+    {
+        final int id = super.register(section);
+        additions.incrementAndGet();
+
+        return id;
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    @Override
+    public void remove (Section section)
+    {
+        super.remove(section);
+
+        synchronized (this) {
+            if (positionIndex != null) {
+                positionIndex.remove(section);
+            }
+        }
+    }
+
     //----------------//
     // removeSections //
     //----------------//
@@ -189,6 +252,10 @@ public class BasicLag
     {
         super.reset(); // To clear sections & last ID
         runTable = null;
+
+        synchronized (this) {
+            positionIndex = null;
+        }
     }
 
     //---------//
@@ -220,4 +287,129 @@ public class BasicLag
 
         return sb.toString();
     }
+
+    //------------------//
+    // getPositionIndex //
+    //------------------//
+    /**
+     * Report the up-to-date position index, (re)building it if needed.
+     *
+     * @return the position index
+     */
+    private synchronized PositionIndex getPositionIndex ()
+    {
+        final int version = additions.get();
+
+        if ((positionIndex == null) || (positionIndex.version != version)) {
+            positionIndex = new PositionIndex(orientation, getEntities(), version);
+        }
+
+        return positionIndex;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //---------------//
+    // PositionIndex //
+    //---------------//
+    /**
+     * Sections, bucketed by position.
+     * A section is referenced in every bucket its position range overlaps.
+     * Within a bucket, sections are sorted by ID.
+     */
+    private static class PositionIndex
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Lag orientation. */
+        final Orientation orientation;
+
+        /** Value of lag additions count when this index was built. */
+        final int version;
+
+        /** Sections per bucket, a bucket covering 2**BUCKET_SHIFT consecutive positions. */
+        final ConcurrentHashMap<Integer, ConcurrentSkipListMap<Integer, Section>> buckets;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public PositionIndex (Orientation orientation,
+                              Collection<Section> sections,
+                              int version)
+        {
+            this.orientation = orientation;
+            this.version = version;
+            buckets = new ConcurrentHashMap<Integer, ConcurrentSkipListMap<Integer, Section>>();
+
+            for (Section section : sections) {
+                if (section.getRunCount() == 0) {
+                    continue; // Safer
+                }
+
+                final int bMax = section.getLastPos() >> BUCKET_SHIFT;
+
+                for (int b = section.getFirstPos() >> BUCKET_SHIFT; b <= bMax; b++) {
+                    ConcurrentSkipListMap<Integer, Section> bucket = buckets.get(b);
+
+                    if (bucket == null) {
+                        buckets.put(b, bucket = new ConcurrentSkipListMap<Integer, Section>());
+                    }
+
+                    bucket.put(section.getId(), section);
+                }
+            }
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the indexed sections that intersect the provided absolute rectangle.
+         *
+         * @param rect the absolute rectangle
+         * @return the intersected sections, ordered by ID
+         */
+        public Set<Section> intersectedSections (Rectangle rect)
+        {
+            final Set<Section> found = new LinkedHashSet<Section>();
+
+            if (rect.isEmpty()) {
+                return found;
+            }
+
+            final Rectangle oRect = orientation.oriented(rect);
+            final SortedMap<Integer, Section> hits = new TreeMap<Integer, Section>();
+            final int bMin = oRect.y >> BUCKET_SHIFT;
+            final int bMax = ((oRect.y + oRect.height) - 1) >> BUCKET_SHIFT;
+
+            for (int b = bMin; b <= bMax; b++) {
+                final ConcurrentSkipListMap<Integer, Section> bucket = buckets.get(b);
+
+                if (bucket != null) {
+                    for (Section section : bucket.values()) {
+                        if (!hits.containsKey(section.getId()) && section.intersects(rect)) {
+                            hits.put(section.getId(), section);
+                        }
+                    }
+                }
+            }
+
+            found.addAll(hits.values());
+
+            return found;
+        }
+
+        /**
+         * Remove the provided section from the index.
+         *
+         * @param section the section to remove
+         */
+        public void remove (Section section)
+        {
+            final int bMax = section.getLastPos() >> BUCKET_SHIFT;
+
+            for (int b = section.getFirstPos() >> BUCKET_SHIFT; b <= bMax; b++) {
+                final ConcurrentSkipListMap<Integer, Section> bucket = buckets.get(b);
+
+                if (bucket != null) {
+                    bucket.remove(section.getId());
+                }
+            }
+        }
+    }
 }
@@ -47,12 +47,14 @@ import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -62,6 +64,12 @@ import javax.xml.bind.annotation.adapters.XmlAdapter;
 
 /**
  * Class {@code BasicSection} is a basic implementation of {@link Section}.
+ * <p>
+ * Since sections exist by hundreds of thousands in the lags of a sheet, a section is kept compact:
+ * its runs are stored as pairs of primitive values in a single int array rather than as
+ * {@link Run} instances, and its derived geometry (bounds, centroid, polygon, line) is computed
+ * only when first needed.
+ * Run instances are provided on demand, they are just copies of section data.
  *
  * @author Hervé Bitteur
  */
@@ -76,6 +84,9 @@ public class BasicSection
     private static final Logger logger = LoggerFactory.getLogger(
             BasicSection.class);
 
+    /** Empty runs data. */
+    protected static final int[] NO_RUNS = new int[0];
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Position of first run */
     @XmlAttribute(name = "first-pos")
@@ -85,9 +96,19 @@ public class BasicSection
     @XmlAttribute(name = "orientation")
     protected Orientation orientation;
 
-    /** The collection of runs that make up the section */
+    /**
+     * The runs that make up the section, as (start, length) pairs.
+     * Run #i has its start at index 2*i and its length at index 2*i+1.
+     * Only the first 2*runCount cells are meaningful.
+     */
+    protected int[] runs = NO_RUNS;
+
+    /** Number of runs in section. */
+    protected int runCount;
+
+    /** Runs, only meant for JAXB (un)marshalling. */
     @XmlElement(name = "run")
-    protected final List<Run> runs = new ArrayList<Run>();
+    private List<Run> xmlRuns;
 
     /** Containing lag, if any. */
     protected Lag lag;
@@ -130,14 +151,16 @@ public class BasicSection
     {
         orientation = ds.getOrientation();
         firstPos = ds.getFirstPos();
-        runs.addAll(ds.getRuns());
+        runCount = ds.getRunCount();
+        runs = Arrays.copyOf(ds.runs, 2 * runCount); // Trimmed copy
         lag = ds.getLag();
-        orientedBounds = ds.getOrientedBounds();
-        centroid = ds.getCentroid();
         maxRunLength = ds.getMaxRunLength();
         weight = ds.getWeight();
-        polygon = ds.getPolygon();
-        orientedLine = ds.getOrientedLine();
+
+        // Reuse the small geometric items already computed, the others will be computed lazily
+        orientedBounds = ds.orientedBounds;
+        centroid = ds.centroid;
+        orientedLine = ds.orientedLine;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -169,7 +192,17 @@ public class BasicSection
     public boolean contains (int x,
                              int y)
     {
-        return getPolygon().contains(x, y);
+        final int pos = (orientation == HORIZONTAL) ? y : x;
+        final int i = pos - firstPos;
+
+        if ((i < 0) || (i >= runCount)) {
+            return false;
+        }
+
+        final int coord = (orientation == HORIZONTAL) ? x : y;
+        final int start = runs[2 * i];
+
+        return (coord >= start) && (coord < (start + runs[(2 * i) + 1]));
     }
 
     //----------//
@@ -196,14 +229,15 @@ public class BasicSection
             // Take all run pixels
             int pos = firstPos - 1;
 
-            for (Run run : runs) {
-                double coord = run.getStart() + (run.getLength() / 2d);
+            for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+                final int length = runs[i + 1];
+                double coord = runs[i] + (length / 2d);
                 pos++;
 
                 if (orientation == HORIZONTAL) {
-                    barycenter.include(run.getLength(), coord, pos);
+                    barycenter.include(length, coord, pos);
                 } else {
-                    barycenter.include(run.getLength(), pos, coord);
+                    barycenter.include(length, pos, coord);
                 }
             }
         } else {
@@ -211,10 +245,10 @@ public class BasicSection
 
             // Take only the pixels contained by the oriented roi
             int pos = firstPos - 1;
-            int posMax = Math.min(firstPos + runs.size(), oRoi.y + oRoi.height) - 1;
+            int posMax = Math.min(firstPos + runCount, oRoi.y + oRoi.height) - 1;
             int coordMax = (oRoi.x + oRoi.width) - 1;
 
-            for (Run run : runs) {
+            for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
                 pos++;
 
                 if (pos < oRoi.y) {
@@ -225,8 +259,8 @@ public class BasicSection
                     break;
                 }
 
-                final int roiStart = Math.max(run.getStart(), oRoi.x);
-                final int roiStop = Math.min(run.getStop(), coordMax);
+                final int roiStart = Math.max(runs[i], oRoi.x);
+                final int roiStop = Math.min((runs[i] + runs[i + 1]) - 1, coordMax);
 
                 for (int coord = roiStart; coord <= roiStop; coord++) {
                     if (orientation == HORIZONTAL) {
@@ -250,10 +284,10 @@ public class BasicSection
         if (roi == null) {
             int p = firstPos;
 
-            for (Run run : runs) {
-                final int start = run.getStart();
+            for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+                final int start = runs[i];
 
-                for (int ic = run.getLength() - 1; ic >= 0; ic--) {
+                for (int ic = runs[i + 1] - 1; ic >= 0; ic--) {
                     if (orientation == HORIZONTAL) {
                         collector.include(start + ic, p);
                     } else {
@@ -267,12 +301,12 @@ public class BasicSection
             // Take only the pixels contained by the absolute roi
             Rectangle oRoi = orientation.oriented(roi);
             final int pMin = oRoi.y;
-            final int pMax = -1 + Math.min(firstPos + runs.size(), oRoi.y + oRoi.height);
+            final int pMax = -1 + Math.min(firstPos + runCount, oRoi.y + oRoi.height);
             final int cMin = oRoi.x;
             final int cMax = (oRoi.x + oRoi.width) - 1;
             int p = firstPos - 1;
 
-            for (Run run : runs) {
+            for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
                 p++;
 
                 if (p < pMin) {
@@ -283,8 +317,8 @@ public class BasicSection
                     break;
                 }
 
-                final int roiStart = Math.max(run.getStart(), cMin);
-                final int roiStop = Math.min(run.getStop(), cMax);
+                final int roiStart = Math.max(runs[i], cMin);
+                final int roiStop = Math.min((runs[i] + runs[i + 1]) - 1, cMax);
                 final int length = roiStop - roiStart + 1;
 
                 if (length > 0) {
@@ -373,8 +407,8 @@ public class BasicSection
         if (isVertical()) {
             int x = getFirstPos() - offset.x;
 
-            for (Run run : runs) {
-                for (int y = run.getStart(); y <= run.getStop(); y++) {
+            for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+                for (int y = runs[i], yBreak = y + runs[i + 1]; y < yBreak; y++) {
                     buffer.set(x, y - offset.y, 0);
                 }
 
@@ -383,8 +417,8 @@ public class BasicSection
         } else {
             int y = getFirstPos() - offset.y;
 
-            for (Run run : runs) {
-                for (int x = run.getStart(); x <= run.getStop(); x++) {
+            for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+                for (int x = runs[i], xBreak = x + runs[i + 1]; x < xBreak; x++) {
                     buffer.set(x - offset.x, y, 0);
                 }
 
@@ -480,7 +514,7 @@ public class BasicSection
     @Override
     public Rectangle getBounds ()
     {
-        return getPolygon().getBounds(); // This is always a fresh copy of rectangle
+        return orientation.absolute(getOrientedBounds()); // This is always a fresh rectangle
     }
 
     //-------------//
@@ -489,6 +523,10 @@ public class BasicSection
     @Override
     public Point getCentroid ()
     {
+        if (centroid == null) {
+            centroid = computeCentroid();
+        }
+
         return centroid;
     }
 
@@ -501,10 +539,10 @@ public class BasicSection
         Point2D.Double orientedPoint = new Point2D.Double(0, 0);
         int y = firstPos;
 
-        for (Run run : runs) {
-            final int length = run.getLength();
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            final int length = runs[i + 1];
             orientedPoint.y += (length * (2 * y));
-            orientedPoint.x += (length * ((2 * run.getStart()) + length));
+            orientedPoint.x += (length * ((2 * runs[i]) + length));
             y++;
         }
 
@@ -532,7 +570,7 @@ public class BasicSection
     @Override
     public Run getFirstRun ()
     {
-        return runs.get(0);
+        return new Run(runs[0], runs[1]);
     }
 
     //--------//
@@ -559,7 +597,9 @@ public class BasicSection
     @Override
     public Run getLastRun ()
     {
-        return runs.get(runs.size() - 1);
+        final int i = 2 * (runCount - 1);
+
+        return new Run(runs[i], runs[i + 1]);
     }
 
     //-----------//
@@ -626,6 +666,10 @@ public class BasicSection
     @Override
     public Rectangle getOrientedBounds ()
     {
+        if (orientedBounds == null) {
+            orientedBounds = computeOrientedBounds();
+        }
+
         return orientedBounds;
     }
 
@@ -635,6 +679,10 @@ public class BasicSection
     @Override
     public Line getOrientedLine ()
     {
+        if ((orientedLine == null) && (getWeight() > 1)) {
+            orientedLine = computeOrientedLine();
+        }
+
         return orientedLine;
     }
 
@@ -653,6 +701,10 @@ public class BasicSection
     @Override
     public Polygon getPolygon ()
     {
+        if (polygon == null) {
+            polygon = computePolygon();
+        }
+
         return polygon;
     }
 
@@ -684,7 +736,7 @@ public class BasicSection
     @Override
     public int getRunCount ()
     {
-        return runs.size();
+        return runCount;
     }
 
     //---------//
@@ -693,7 +745,24 @@ public class BasicSection
     @Override
     public List<Run> getRuns ()
     {
-        return Collections.unmodifiableList(runs);
+        return new AbstractList<Run>()
+        {
+            @Override
+            public Run get (int index)
+            {
+                if ((index < 0) || (index >= runCount)) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + runCount);
+                }
+
+                return new Run(runs[2 * index], runs[(2 * index) + 1]);
+            }
+
+            @Override
+            public int size ()
+            {
+                return runCount;
+            }
+        };
     }
 
     //---------------//
@@ -768,11 +837,11 @@ public class BasicSection
     {
         int pos = getFirstPos();
 
-        for (Run run : runs) {
-            final int start = run.getStart();
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            final int start = runs[i];
+            final int length = runs[i + 1];
             final Rectangle runBox = (orientation == HORIZONTAL)
-                    ? new Rectangle(start, pos, run.getLength(), 1)
-                    : new Rectangle(pos, start, 1, run.getLength());
+                    ? new Rectangle(start, pos, length, 1) : new Rectangle(pos, start, 1, length);
 
             if (shape.intersects(runBox)) {
                 return true;
@@ -863,6 +932,7 @@ public class BasicSection
             if (g instanceof Graphics2D) {
                 Graphics2D g2 = (Graphics2D) g;
                 final Stroke oldStroke = UIUtil.setAbsoluteStroke(g2, 1f);
+                getPolygon();
                 g.setColor(Color.white);
                 g.fillPolygon(polygon.xpoints, polygon.ypoints, polygon.npoints);
                 g.setColor(Color.black);
@@ -910,11 +980,11 @@ public class BasicSection
 
         int pos = getFirstPos();
 
-        for (Run run : runs) {
-            final int start = run.getStart();
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            final int start = runs[i];
+            final int length = runs[i + 1];
             final Rectangle r1 = (orientation == HORIZONTAL)
-                    ? new Rectangle(start, pos, run.getLength(), 1)
-                    : new Rectangle(pos, start, 1, run.getLength());
+                    ? new Rectangle(start, pos, length, 1) : new Rectangle(pos, start, 1, length);
 
             if (thatFatBox.intersects(r1)) {
                 // Check contact between this run and one of that runs
@@ -953,8 +1023,12 @@ public class BasicSection
 
         firstPos += dp;
 
-        for (Run run : runs) {
-            run.translate(dc);
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            runs[i] += dc;
+        }
+
+        if (orientedBounds != null) {
+            orientedBounds.translate(dc, dp);
         }
 
         if (centroid != null) {
@@ -970,6 +1044,48 @@ public class BasicSection
         }
     }
 
+    //-----------------//
+    // computeCentroid //
+    //-----------------//
+    protected Point computeCentroid ()
+    {
+        Point orientedPoint = new Point(0, 0);
+        int y = firstPos;
+
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            final int length = runs[i + 1];
+            orientedPoint.y += (length * (2 * y));
+            orientedPoint.x += (length * ((2 * runs[i]) + length));
+            y++;
+        }
+
+        orientedPoint.x /= (2 * getWeight());
+        orientedPoint.y /= (2 * getWeight());
+
+        return orientation.absolute(orientedPoint);
+    }
+
+    //-----------------------//
+    // computeOrientedBounds //
+    //-----------------------//
+    /**
+     * Compute the oriented bounds directly from the runs.
+     *
+     * @return the oriented bounding rectangle
+     */
+    protected Rectangle computeOrientedBounds ()
+    {
+        int cMin = Integer.MAX_VALUE;
+        int cMax = Integer.MIN_VALUE;
+
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            cMin = Math.min(cMin, runs[i]);
+            cMax = Math.max(cMax, runs[i] + runs[i + 1]);
+        }
+
+        return new Rectangle(cMin, firstPos, cMax - cMin, runCount);
+    }
+
     //---------------------//
     // computeOrientedLine //
     //---------------------//
@@ -980,10 +1096,8 @@ public class BasicSection
 
         int y = getFirstPos();
 
-        for (Run run : runs) {
-            int stop = run.getStop();
-
-            for (int x = run.getStart(); x <= stop; x++) {
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            for (int x = runs[i], xBreak = x + runs[i + 1]; x < xBreak; x++) {
                 oLine.includePoint(x, y);
             }
 
@@ -993,6 +1107,35 @@ public class BasicSection
         return oLine;
     }
 
+    //----------------//
+    // computePolygon //
+    //----------------//
+    /**
+     * Compute the arrays of points needed to draw the section runs.
+     * This is an absolute definition.
+     *
+     * @return the created polygon that represents the section geometry
+     */
+    protected Polygon computePolygon ()
+    {
+        final int maxNb = 1 + (4 * getRunCount()); // Upper value
+        final int[] xx = new int[maxNb];
+        final int[] yy = new int[maxNb];
+        int idx = 0; // Current filling index in xx & yy arrays
+
+        if (isVertical()) {
+            idx = populatePolygon(yy, xx, idx, 1);
+            idx = populatePolygon(yy, xx, idx, -1);
+        } else {
+            idx = populatePolygon(xx, yy, idx, 1);
+            idx = populatePolygon(xx, yy, idx, -1);
+        }
+
+        Polygon poly = new Polygon(xx, yy, idx);
+
+        return poly;
+    }
+
     //-----------//
     // internals //
     //-----------//
@@ -1002,6 +1145,121 @@ public class BasicSection
         return orientation.isVertical() ? "V" : "H";
     }
 
+    //-----------------//
+    // populatePolygon //
+    //-----------------//
+    /**
+     * Compute the arrays of points needed to draw the section runs
+     *
+     * @param xpoints to receive abscissae
+     * @param ypoints to receive coordinates
+     * @param dir     direction for browsing runs
+     * @param index   first index available in arrays
+     * @return last index value
+     */
+    protected int populatePolygon (int[] xpoints,
+                                   int[] ypoints,
+                                   int index,
+                                   int dir)
+    {
+        // Precise delimitating points
+        int runNb = getRunCount();
+        int iStart = (dir > 0) ? 0 : (runNb - 1);
+        int iBreak = (dir > 0) ? runNb : (-1);
+        int y = (dir > 0) ? getFirstPos() : (getFirstPos() + runNb);
+        int xPrev = -1;
+
+        for (int i = iStart; i != iBreak; i += dir) {
+            // +----------------------------+
+            // +--+-------------------------+
+            //    +----------------------+--+
+            //    +----------------------+
+            //
+            // Order of the 4 angle points for a run is
+            // Vertical lag:    Horizontal lag:
+            //     1 2              1 4
+            //     4 3              2 3
+            int x = (dir > 0) ? runs[2 * i] : (runs[2 * i] + runs[(2 * i) + 1]);
+
+            if (x != xPrev) {
+                if (xPrev != -1) {
+                    // Insert last vertex
+                    xpoints[index] = xPrev;
+                    ypoints[index] = y;
+                    index++;
+                }
+
+                // Insert new vertex
+                xpoints[index] = x;
+                ypoints[index] = y;
+                index++;
+                xPrev = x;
+            }
+
+            y += dir;
+        }
+
+        // Complete the sequence, with a new vertex
+        xpoints[index] = xPrev;
+        ypoints[index] = y;
+        index++;
+
+        if (dir < 0) {
+            // Finish with starting point
+            xpoints[index] = runs[0];
+            ypoints[index] = getFirstPos();
+            index++;
+        }
+
+        return index;
+    }
+
+    //----------------//
+    // afterUnmarshal //
+    //----------------//
+    /**
+     * Populate the compact runs from the unmarshalled ones.
+     */
+    @SuppressWarnings("unused")
+    private void afterUnmarshal (Unmarshaller um,
+                                 Object parent)
+    {
+        if (xmlRuns != null) {
+            runCount = xmlRuns.size();
+            runs = new int[2 * runCount];
+            weight = 0;
+            maxRunLength = 0;
+
+            for (int i = 0; i < runCount; i++) {
+                final Run run = xmlRuns.get(i);
+                runs[2 * i] = run.getStart();
+                runs[(2 * i) + 1] = run.getLength();
+                weight += run.getLength();
+                maxRunLength = Math.max(maxRunLength, run.getLength());
+            }
+
+            xmlRuns = null;
+        }
+    }
+
+    //--------------//
+    // afterMarshal //
+    //--------------//
+    @SuppressWarnings("unused")
+    private void afterMarshal (Marshaller m)
+    {
+        xmlRuns = null;
+    }
+
+    //---------------//
+    // beforeMarshal //
+    //---------------//
+    @SuppressWarnings("unused")
+    private void beforeMarshal (Marshaller m)
+    {
+        xmlRuns = new ArrayList<Run>(getRuns());
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -21,7 +21,6 @@
 // </editor-fold>
 package org.audiveris.omr.lag;
 
-import org.audiveris.omr.math.Line;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.run.Run;
 
@@ -29,8 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
-import java.awt.Polygon;
-import java.awt.Rectangle;
+import java.util.Arrays;
 
 /**
  * Class {@code DynamicSection} is a section that can evolve by adding runs or
@@ -69,65 +67,16 @@ public class DynamicSection
      */
     public void append (Run run)
     {
-        run = new Run(run);
-        runs.add(run);
+        ensureCapacity(runCount + 1);
+
+        final int i = 2 * runCount++;
+        runs[i] = run.getStart();
+        runs[i + 1] = run.getLength();
         addRun(run);
 
         logger.debug("Appended {} to {}", run, this);
     }
 
-    //-------------//
-    // getCentroid //
-    //-------------//
-    @Override
-    public Point getCentroid ()
-    {
-        if (centroid == null) {
-            centroid = computeCentroid();
-        }
-
-        return centroid;
-    }
-
-    //-------------------//
-    // getOrientedBounds //
-    //-------------------//
-    @Override
-    public Rectangle getOrientedBounds ()
-    {
-        if (orientedBounds == null) {
-            orientedBounds = orientation.oriented(getBounds());
-        }
-
-        return orientedBounds;
-    }
-
-    //-----------------//
-    // getOrientedLine //
-    //-----------------//
-    @Override
-    public Line getOrientedLine ()
-    {
-        if ((orientedLine == null) && (getWeight() > 1)) {
-            orientedLine = computeOrientedLine();
-        }
-
-        return orientedLine;
-    }
-
-    //------------//
-    // getPolygon //
-    //------------//
-    @Override
-    public Polygon getPolygon ()
-    {
-        if (polygon == null) {
-            polygon = computePolygon();
-        }
-
-        return polygon;
-    }
-
     //-----------//
     // getWeight //
     //-----------//
@@ -151,11 +100,14 @@ public class DynamicSection
      */
     public void prepend (Run run)
     {
-        run = new Run(run);
         logger.debug("Prepending {} to {}", run, this);
 
+        ensureCapacity(runCount + 1);
+        System.arraycopy(runs, 0, runs, 2, 2 * runCount++);
+        runs[0] = run.getStart();
+        runs[1] = run.getLength();
+
         firstPos--;
-        runs.add(0, run);
         addRun(run);
 
         logger.debug("Prepended {}", this);
@@ -193,8 +145,8 @@ public class DynamicSection
         // Apply the needed modifications
         firstPos += dp;
 
-        for (Run run : runs) {
-            run.translate(dc);
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            runs[i] += dc;
         }
 
         // Force update
@@ -215,28 +167,7 @@ public class DynamicSection
         invalidateCache();
 
         // Compute contribution of this run
-        computeRunContribution(run);
-    }
-
-    //-----------------//
-    // computeCentroid //
-    //-----------------//
-    protected Point computeCentroid ()
-    {
-        Point orientedPoint = new Point(0, 0);
-        int y = firstPos;
-
-        for (Run run : runs) {
-            final int length = run.getLength();
-            orientedPoint.y += (length * (2 * y));
-            orientedPoint.x += (length * ((2 * run.getStart()) + length));
-            y++;
-        }
-
-        orientedPoint.x /= (2 * getWeight());
-        orientedPoint.y /= (2 * getWeight());
-
-        return orientation.absolute(orientedPoint);
+        computeRunContribution(run.getLength());
     }
 
     //-------------------//
@@ -249,8 +180,8 @@ public class DynamicSection
         maxRunLength = 0;
 
         // maxRunLength
-        for (Run run : runs) {
-            computeRunContribution(run);
+        for (int i = 0, iBreak = 2 * runCount; i < iBreak; i += 2) {
+            computeRunContribution(runs[i + 1]);
         }
 
         // Invalidate cached data
@@ -264,41 +195,11 @@ public class DynamicSection
                 weight);
     }
 
-    //----------------//
-    // computePolygon //
-    //----------------//
-    /**
-     * Compute the arrays of points needed to draw the section runs.
-     * This is an absolute definition.
-     *
-     * @return the created polygon that represents the section geometry
-     */
-    protected Polygon computePolygon ()
-    {
-        final int maxNb = 1 + (4 * getRunCount()); // Upper value
-        final int[] xx = new int[maxNb];
-        final int[] yy = new int[maxNb];
-        int idx = 0; // Current filling index in xx & yy arrays
-
-        if (isVertical()) {
-            idx = populatePolygon(yy, xx, idx, 1);
-            idx = populatePolygon(yy, xx, idx, -1);
-        } else {
-            idx = populatePolygon(xx, yy, idx, 1);
-            idx = populatePolygon(xx, yy, idx, -1);
-        }
-
-        Polygon poly = new Polygon(xx, yy, idx);
-
-        return poly;
-    }
-
     //------------------------//
     // computeRunContribution //
     //------------------------//
-    protected void computeRunContribution (Run run)
+    protected void computeRunContribution (int length)
     {
-        final int length = run.getLength();
         weight += length;
         maxRunLength = Math.max(maxRunLength, length);
     }
@@ -314,74 +215,18 @@ public class DynamicSection
         orientedLine = null;
     }
 
-    //-----------------//
-    // populatePolygon //
-    //-----------------//
+    //----------------//
+    // ensureCapacity //
+    //----------------//
     /**
-     * Compute the arrays of points needed to draw the section runs
+     * Make sure the runs array can hold the provided number of runs.
      *
-     * @param xpoints to receive abscissae
-     * @param ypoints to receive coordinates
-     * @param dir     direction for browsing runs
-     * @param index   first index available in arrays
-     * @return last index value
+     * @param count the number of runs to hold
      */
-    protected int populatePolygon (int[] xpoints,
-                                   int[] ypoints,
-                                   int index,
-                                   int dir)
+    private void ensureCapacity (int count)
     {
-        // Precise delimitating points
-        int runNb = getRunCount();
-        int iStart = (dir > 0) ? 0 : (runNb - 1);
-        int iBreak = (dir > 0) ? runNb : (-1);
-        int y = (dir > 0) ? getFirstPos() : (getFirstPos() + runNb);
-        int xPrev = -1;
-
-        for (int i = iStart; i != iBreak; i += dir) {
-            Run run = runs.get(i);
-
-            // +----------------------------+
-            // +--+-------------------------+
-            //    +----------------------+--+
-            //    +----------------------+
-            //
-            // Order of the 4 angle points for a run is
-            // Vertical lag:    Horizontal lag:
-            //     1 2              1 4
-            //     4 3              2 3
-            int x = (dir > 0) ? run.getStart() : (run.getStop() + 1);
-
-            if (x != xPrev) {
-                if (xPrev != -1) {
-                    // Insert last vertex
-                    xpoints[index] = xPrev;
-                    ypoints[index] = y;
-                    index++;
-                }
-
-                // Insert new vertex
-                xpoints[index] = x;
-                ypoints[index] = y;
-                index++;
-                xPrev = x;
-            }
-
-            y += dir;
+        if (runs.length < (2 * count)) {
+            runs = Arrays.copyOf(runs, Math.max(2 * count, 2 * runs.length));
         }
-
-        // Complete the sequence, with a new vertex
-        xpoints[index] = xPrev;
-        ypoints[index] = y;
-        index++;
-
-        if (dir < 0) {
-            // Finish with starting point
-            xpoints[index] = runs.get(0).getStart();
-            ypoints[index] = getFirstPos();
-            index++;
-        }
-
-        return index;
     }
 }
@@ -23,6 +23,7 @@ package org.audiveris.omr.math;
 
 import org.audiveris.omr.classifier.TrainingMonitor;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,7 +35,6 @@ import java.util.Objects;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -69,9 +69,6 @@ public class NeuralNetwork
     private static final Logger logger = LoggerFactory.getLogger(
             NeuralNetwork.class);
 
-    /** Un/marshalling context for use with JAXB */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     /** Size of input layer. */
@@ -625,8 +622,7 @@ public class NeuralNetwork
     public static NeuralNetwork unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
-        NeuralNetwork nn = (NeuralNetwork) um.unmarshal(in);
+        NeuralNetwork nn = (NeuralNetwork) Jaxb.unmarshal(in, getJaxbContext());
         logger.debug("Network unmarshalled");
 
         return nn;
@@ -692,12 +688,7 @@ public class NeuralNetwork
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(NeuralNetwork.class);
-        }
-
-        return jaxbContext;
+        return JaxbContexts.getContext(NeuralNetwork.class);
     }
 
     //------------//
@@ -215,30 +215,76 @@ public class GeometricMoments
         k[11] = n01; // yBar
 
         if (useHuCoefficients) {
-            // Orthogonals moments (Hu set)
-            // (Invariant to translation / scaling / rotation)
-            int i = 12;
-            k[i++] = n20 + n02;
-            //
-            k[i++] = ((n20 - n02) * (n20 - n02)) + (4 * n11 * n11);
-            //
-            k[i++] = ((n30 - (3 * n12)) * (n30 - (3 * n12)))
-                     + ((n03 - (3 * n21)) * (n03 - (3 * n21)));
-            //
-            k[i++] = ((n30 + n12) * (n30 + n12)) + ((n03 + n21) * (n03 + n21));
-            //
-            k[i++] = ((n30 - (3 * n12)) * (n30 + n12) * (((n30 + n12) * (n30 + n12))
-                                                         - (3 * (n21 + n03) * (n21 + n03))))
-                     + ((n03 - (3 * n21)) * (n03 + n21) * (((n03 + n21) * (n03 + n21))
-                                                           - (3 * (n12 + n30) * (n12 + n30))));
-            //
-            k[i++] = ((n20 - n02) * (((n30 + n12) * (n30 + n12)) - ((n03 + n21) * (n03 + n21))))
-                     + (4 * n11 * (n30 + n12) * (n03 + n21));
-            //
-            k[i++] = (((3 * n21) - n03) * (n30 + n12) * (((n30 + n12) * (n30 + n12))
-                                                         - (3 * (n21 + n03) * (n21 + n03))))
-                     - (((3 * n12) - n30) * (n03 + n21) * (((n03 + n21) * (n03 + n21))
-                                                           - (3 * (n12 + n30) * (n12 + n30))));
+            setHuCoefficients(n20, n11, n02, n30, n21, n12, n03);
+        }
+    }
+
+    //------------------//
+    // GeometricMoments //
+    //------------------//
+    /**
+     * Compute the moments out of raw moment sums, all values being normalized by the
+     * provided unit value.
+     * <p>
+     * This gives the same values as the point-based constructor, without any pixel access.
+     *
+     * @param sums the raw moment sums (not empty)
+     * @param unit the length (number of pixels) of normalizing unit
+     */
+    public GeometricMoments (MomentSums sums,
+                             int unit)
+    {
+        // Safety check
+        if (unit == 0) {
+            throw new IllegalArgumentException("Zero-valued unit");
+        }
+
+        if (sums.m == 0) {
+            throw new IllegalArgumentException("Empty moment sums");
+        }
+
+        // Total weight
+        final double w = sums.m; // For p+q == 0
+        final double w2 = w * w; // For p+q == 2
+        final double w3 = Math.sqrt(w * w * w * w * w); // For p+q == 3
+
+        // Mean u & v, relative to sums reference
+        final double u = sums.su / w;
+        final double v = sums.sv / w;
+
+        // Central moments, from raw sums
+        double n20 = sums.suu - (w * u * u);
+        double n11 = sums.suv - (w * u * v);
+        double n02 = sums.svv - (w * v * v);
+        double n30 = sums.suuu - (3 * u * sums.suu) + (2 * w * u * u * u);
+        double n21 = (sums.suuv - (2 * u * sums.suv) - (v * sums.suu)) + (2 * w * u * u * v);
+        double n12 = (sums.suvv - (2 * v * sums.suv) - (u * sums.svv)) + (2 * w * u * v * v);
+        double n03 = sums.svvv - (3 * v * sums.svv) + (2 * w * v * v * v);
+
+        // Normalize
+        n11 /= w2;
+        n20 /= w2;
+        n02 /= w2;
+        n12 /= w3;
+        n21 /= w3;
+        n30 /= w3;
+        n03 /= w3;
+
+        k[0] = w / (unit * unit); // Unit-based Weight
+        k[1] = (double) (sums.xMax - sums.xMin + 1) / unit; // Unit-based Width
+        k[2] = (double) (sums.yMax - sums.yMin + 1) / unit; // Unit-based Height
+        k[3] = n20;
+        k[4] = n11;
+        k[5] = n02;
+        k[6] = n30;
+        k[7] = n21;
+        k[8] = n12;
+        k[9] = n03;
+        k[10] = sums.getXBar();
+        k[11] = sums.getYBar();
+
+        if (useHuCoefficients) {
+            setHuCoefficients(n20, n11, n02, n30, n21, n12, n03);
         }
     }
 
@@ -388,4 +434,44 @@ public class GeometricMoments
 
         return sb.toString();
     }
+
+    //-------------------//
+    // setHuCoefficients //
+    //-------------------//
+    /**
+     * Compute the orthogonal Hu coefficients from normalized central moments.
+     */
+    private void setHuCoefficients (double n20,
+                                    double n11,
+                                    double n02,
+                                    double n30,
+                                    double n21,
+                                    double n12,
+                                    double n03)
+    {
+        // Orthogonals moments (Hu set)
+        // (Invariant to translation / scaling / rotation)
+        int i = 12;
+        k[i++] = n20 + n02;
+        //
+        k[i++] = ((n20 - n02) * (n20 - n02)) + (4 * n11 * n11);
+        //
+        k[i++] = ((n30 - (3 * n12)) * (n30 - (3 * n12)))
+                 + ((n03 - (3 * n21)) * (n03 - (3 * n21)));
+        //
+        k[i++] = ((n30 + n12) * (n30 + n12)) + ((n03 + n21) * (n03 + n21));
+        //
+        k[i++] = ((n30 - (3 * n12)) * (n30 + n12) * (((n30 + n12) * (n30 + n12))
+                                                     - (3 * (n21 + n03) * (n21 + n03))))
+                 + ((n03 - (3 * n21)) * (n03 + n21) * (((n03 + n21) * (n03 + n21))
+                                                       - (3 * (n12 + n30) * (n12 + n30))));
+        //
+        k[i++] = ((n20 - n02) * (((n30 + n12) * (n30 + n12)) - ((n03 + n21) * (n03 + n21))))
+                 + (4 * n11 * (n30 + n12) * (n03 + n21));
+        //
+        k[i++] = (((3 * n21) - n03) * (n30 + n12) * (((n30 + n12) * (n30 + n12))
+                                                     - (3 * (n21 + n03) * (n21 + n03))))
+                 - (((3 * n12) - n30) * (n03 + n21) * (((n03 + n21) * (n03 + n21))
+                                                       - (3 * (n12 + n30) * (n12 + n30))));
+    }
 }
@@ -0,0 +1,318 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      M o m e n t S u m s                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import java.awt.Point;
+
+/**
+ * Class {@code MomentSums} accumulates the raw geometric moment sums of a set of pixels,
+ * up to order 3, with coordinates taken relative to a reference point.
+ * <p>
+ * Raw sums are additive over disjoint sets of pixels: the sums of a compound can thus be derived
+ * from the sums of its parts, via {@link #include(MomentSums)}, without going through the compound
+ * pixels.
+ * Sums are kept as exact integers, the reference point being typically the top left corner of
+ * the entity at hand to keep values small.
+ * <p>
+ * Mass-normalized central moments are then derived by {@link GeometricMoments}.
+ *
+ * @author Hervé Bitteur
+ */
+public class MomentSums
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Abscissa of reference point. */
+    private final int x0;
+
+    /** Ordinate of reference point. */
+    private final int y0;
+
+    /** Number of pixels. */
+    long m;
+
+    // Raw sums, with u = x - x0 and v = y - y0
+    long su;
+
+    long sv;
+
+    long suu;
+
+    long suv;
+
+    long svv;
+
+    long suuu;
+
+    long suuv;
+
+    long suvv;
+
+    long svvv;
+
+    // Absolute bounds
+    int xMin = Integer.MAX_VALUE;
+
+    int xMax = Integer.MIN_VALUE;
+
+    int yMin = Integer.MAX_VALUE;
+
+    int yMax = Integer.MIN_VALUE;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates an empty {@code MomentSums} object.
+     *
+     * @param x0 absolute abscissa of reference point
+     * @param y0 absolute ordinate of reference point
+     */
+    public MomentSums (int x0,
+                       int y0)
+    {
+        this.x0 = x0;
+        this.y0 = y0;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getCentroid //
+    //-------------//
+    /**
+     * Report the (rounded) mass center.
+     *
+     * @return the absolute centroid, or null if no pixel has been included
+     */
+    public Point getCentroid ()
+    {
+        if (m == 0) {
+            return null;
+        }
+
+        return new Point(
+                (int) Math.rint(x0 + ((double) su / m)),
+                (int) Math.rint(y0 + ((double) sv / m)));
+    }
+
+    //---------//
+    // getMass //
+    //---------//
+    /**
+     * Report the number of pixels included so far.
+     *
+     * @return the mass
+     */
+    public long getMass ()
+    {
+        return m;
+    }
+
+    //---------//
+    // getXBar //
+    //---------//
+    /**
+     * Report the precise abscissa of mass center.
+     *
+     * @return absolute abscissa of mass center
+     */
+    public double getXBar ()
+    {
+        return x0 + ((double) su / m);
+    }
+
+    //---------//
+    // getYBar //
+    //---------//
+    /**
+     * Report the precise ordinate of mass center.
+     *
+     * @return absolute ordinate of mass center
+     */
+    public double getYBar ()
+    {
+        return y0 + ((double) sv / m);
+    }
+
+    //---------//
+    // include //
+    //---------//
+    /**
+     * Include the sums of another, disjoint, set of pixels.
+     *
+     * @param that the sums to include, perhaps with a different reference point
+     */
+    public void include (MomentSums that)
+    {
+        if (that.m == 0) {
+            return;
+        }
+
+        // Translation from that reference to this reference
+        final long dx = that.x0 - x0;
+        final long dy = that.y0 - y0;
+        final long n = that.m;
+
+        // Order 3
+        suuu += that.suuu + (3 * dx * that.suu) + (3 * dx * dx * that.su) + (n * dx * dx * dx);
+        svvv += that.svvv + (3 * dy * that.svv) + (3 * dy * dy * that.sv) + (n * dy * dy * dy);
+        suuv += that.suuv + (dy * that.suu) + (2 * dx * that.suv) + (2 * dx * dy * that.su)
+                + (dx * dx * that.sv) + (n * dx * dx * dy);
+        suvv += that.suvv + (dx * that.svv) + (2 * dy * that.suv) + (2 * dx * dy * that.sv)
+                + (dy * dy * that.su) + (n * dx * dy * dy);
+
+        // Order 2
+        suu += that.suu + (2 * dx * that.su) + (n * dx * dx);
+        svv += that.svv + (2 * dy * that.sv) + (n * dy * dy);
+        suv += that.suv + (dy * that.su) + (dx * that.sv) + (n * dx * dy);
+
+        // Order 1 & 0
+        su += that.su + (n * dx);
+        sv += that.sv + (n * dy);
+        m += n;
+
+        xMin = Math.min(xMin, that.xMin);
+        xMax = Math.max(xMax, that.xMax);
+        yMin = Math.min(yMin, that.yMin);
+        yMax = Math.max(yMax, that.yMax);
+    }
+
+    //---------------//
+    // includeColumn //
+    //---------------//
+    /**
+     * Include a vertical segment of pixels.
+     *
+     * @param x      absolute abscissa of segment
+     * @param y      absolute ordinate of segment first pixel
+     * @param length number of pixels in segment
+     */
+    public void includeColumn (int x,
+                               int y,
+                               int length)
+    {
+        final long u = x - x0;
+        final long a = y - y0;
+        final long b = (a + length) - 1;
+        final long n = length;
+        final long s1 = p1(b) - p1(a - 1);
+        final long s2 = p2(b) - p2(a - 1);
+        final long s3 = p3(b) - p3(a - 1);
+
+        m += n;
+        su += n * u;
+        sv += s1;
+        suu += n * u * u;
+        suv += u * s1;
+        svv += s2;
+        suuu += n * u * u * u;
+        suuv += u * u * s1;
+        suvv += u * s2;
+        svvv += s3;
+
+        xMin = Math.min(xMin, x);
+        xMax = Math.max(xMax, x);
+        yMin = Math.min(yMin, y);
+        yMax = Math.max(yMax, (y + length) - 1);
+    }
+
+    //------------//
+    // includeRow //
+    //------------//
+    /**
+     * Include a horizontal segment of pixels.
+     *
+     * @param x      absolute abscissa of segment first pixel
+     * @param y      absolute ordinate of segment
+     * @param length number of pixels in segment
+     */
+    public void includeRow (int x,
+                            int y,
+                            int length)
+    {
+        final long v = y - y0;
+        final long a = x - x0;
+        final long b = (a + length) - 1;
+        final long n = length;
+        final long s1 = p1(b) - p1(a - 1);
+        final long s2 = p2(b) - p2(a - 1);
+        final long s3 = p3(b) - p3(a - 1);
+
+        m += n;
+        su += s1;
+        sv += n * v;
+        suu += s2;
+        suv += v * s1;
+        svv += n * v * v;
+        suuu += s3;
+        suuv += v * s2;
+        suvv += v * v * s1;
+        svvv += n * v * v * v;
+
+        xMin = Math.min(xMin, x);
+        xMax = Math.max(xMax, (x + length) - 1);
+        yMin = Math.min(yMin, y);
+        yMax = Math.max(yMax, y);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append("{");
+        sb.append("ref:(").append(x0).append(",").append(y0).append(")");
+        sb.append(" m:").append(m);
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    //----//
+    // p1 //
+    //----//
+    /** Sum of i, for i in [0..n] (a polynomial also valid for negative n). */
+    private static long p1 (long n)
+    {
+        return (n * (n + 1)) / 2;
+    }
+
+    //----//
+    // p2 //
+    //----//
+    /** Sum of i^2, for i in [0..n] (a polynomial also valid for negative n). */
+    private static long p2 (long n)
+    {
+        return (n * (n + 1) * ((2 * n) + 1)) / 6;
+    }
+
+    //----//
+    // p3 //
+    //----//
+    /** Sum of i^3, for i in [0..n] (a polynomial also valid for negative n). */
+    private static long p3 (long n)
+    {
+        final long p1 = p1(n);
+
+        return p1 * p1;
+    }
+}
@@ -0,0 +1,429 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 R u n A R T E x t r a c t o r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import static org.audiveris.omr.moments.ARTMoments.*;
+import org.audiveris.omr.util.StopWatch;
+
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+/**
+ * Class {@code RunARTExtractor} extracts ART Moments directly from a set of runs,
+ * without expanding them into individual foreground points.
+ * <p>
+ * All basis function values are kept in one flat array, interleaved per LUT location, so that
+ * the whole set of {@code ANGULAR x RADIAL} real and imaginary values for a location are read
+ * contiguously.
+ * Next to each value, the array holds the integral of the (linearly interpolated) basis function
+ * along the LUT row, from the row beginning up to that location.
+ * <p>
+ * A run being a segment along a LUT row, two strategies are used:
+ * <ul>
+ * <li>When the image radius is not larger than the LUT radius, each run pixel lands in a LUT cell
+ * of its own, and the pixel values are bilinearly interpolated as {@link BasicARTExtractor} does,
+ * though with the row weights computed once per run.</li>
+ * <li>Otherwise, several pixels share the same LUT cell, and the sum over the run pixels is
+ * approximated by the integral of the basis function over the run extent, computed in constant
+ * time from the row prefix integrals.</li>
+ * </ul>
+ * Resulting moments are the same as those of {@link BasicARTExtractor}, within float precision
+ * in the former case and within a small tolerance in the latter.
+ * <p>
+ * Runs are provided as (position, start, length) triplets, where position is the index of the run
+ * sequence and start the coordinate along the sequence.
+ * The very same call works for horizontal and for vertical runs, since swapping abscissa and
+ * ordinate does not modify ART moments modules.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunARTExtractor
+        implements MomentsExtractor<ARTMoments>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    /** LUT radius. */
+    private static final int LUT_RADIUS = 50;
+
+    /** LUT size, to cover [-LUT_RADIUS .. +LUT_RADIUS]. */
+    private static final int LUT_SIZE = 1 + (2 * LUT_RADIUS);
+
+    /** Maximum LUT index. */
+    private static final int LUT_MAX = LUT_SIZE - 1;
+
+    /** Number of basis values per LUT location: real and imaginary for each (p,r) pair. */
+    private static final int BASIS = 2 * ANGULAR * RADIAL;
+
+    /** Number of floats per LUT location: value and row integral for each basis. */
+    private static final int STRIDE = 2 * BASIS;
+
+    /**
+     * Flat LUT, indexed by ((ly * LUT_SIZE) + lx) * STRIDE + (2 * k) for basis value
+     * and one more for row integral, where k = 2 * (p * RADIAL + r) for real part and one more for
+     * imaginary part.
+     */
+    private static final float[] lut = new float[LUT_SIZE * LUT_SIZE * STRIDE];
+
+    static {
+        initLUT();
+    }
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The target descriptor. */
+    private ARTMoments descriptor;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunARTExtractor} object.
+     */
+    public RunARTExtractor ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // extract //
+    //---------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each point is processed as a run of length 1.
+     */
+    @Override
+    public void extract (int[] xx,
+                         int[] yy,
+                         int mass)
+    {
+        if ((xx == null) || (yy == null)) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " cannot process a null array");
+        }
+
+        if ((mass <= 0) || (mass > xx.length) || (mass > yy.length)) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " on inconsistent input");
+        }
+
+        final int[] lengths = new int[mass];
+        Arrays.fill(lengths, 1);
+        extractRuns(yy, xx, lengths, mass);
+    }
+
+    //-------------//
+    // extractRuns //
+    //-------------//
+    /**
+     * Extract ART moments from the provided runs and save them into the target descriptor.
+     *
+     * @param ps      for each run, the position (index) of its sequence
+     * @param starts  for each run, the coordinate of its first pixel along the sequence
+     * @param lengths for each run, its length (number of pixels)
+     * @param count   the number of runs
+     */
+    public void extractRuns (int[] ps,
+                             int[] starts,
+                             int[] lengths,
+                             int count)
+    {
+        // Check arguments
+        if ((ps == null) || (starts == null) || (lengths == null)) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " cannot process a null array");
+        }
+
+        if ((count <= 0) || (count > ps.length) || (count > starts.length)
+            || (count > lengths.length)) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " on inconsistent input");
+        }
+
+        if (descriptor == null) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " has no target descriptor");
+        }
+
+        // Mass and center of mass
+        long mass = 0;
+        double mp = 0;
+        double mc = 0;
+
+        for (int i = 0; i < count; i++) {
+            final int len = lengths[i];
+            mass += len;
+            mp += (double) len * ps[i];
+            mc += len * (starts[i] + ((len - 1) / 2.0));
+        }
+
+        if (mass <= 0) {
+            throw new IllegalArgumentException(
+                    getClass().getSimpleName() + " on inconsistent input");
+        }
+
+        final double cp = mp / mass;
+        final double cc = mc / mass;
+
+        // Radius around center of mass
+        double dpMax = Double.MIN_VALUE;
+        double dcMax = Double.MIN_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            dpMax = Math.max(dpMax, Math.abs(ps[i] - cp));
+            dcMax = Math.max(dcMax, Math.abs(starts[i] - cc));
+            dcMax = Math.max(dcMax, Math.abs((starts[i] + lengths[i]) - 1 - cc));
+        }
+
+        final double radius = Math.hypot(dpMax, dcMax);
+        final double scale = LUT_RADIUS / radius; // LUT units per pixel
+
+        // Summation of basis functions
+        final double[] coeffs = new double[BASIS];
+
+        if (scale >= 1) {
+            for (int i = 0; i < count; i++) {
+                sumPixels(ps[i], starts[i], lengths[i], cp, cc, scale, coeffs);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                sumRun(ps[i], starts[i], lengths[i], cp, cc, scale, coeffs);
+            }
+        }
+
+        // Save to descriptor
+        for (int p = 0; p < ANGULAR; p++) {
+            for (int r = 0; r < RADIAL; r++) {
+                final int k = 2 * ((p * RADIAL) + r);
+                final double real = coeffs[k] / mass;
+                final double imag = -coeffs[k + 1] / mass;
+                descriptor.setMoment(p, r, Math.hypot(imag, real));
+            }
+        }
+    }
+
+    //-------------//
+    // reconstruct //
+    //-------------//
+    @Override
+    public void reconstruct (WritableRaster raster)
+    {
+        // Not supported, just like BasicARTExtractor
+    }
+
+    //---------------//
+    // setDescriptor //
+    //---------------//
+    @Override
+    public void setDescriptor (ARTMoments descriptor)
+    {
+        this.descriptor = descriptor;
+    }
+
+    //----------//
+    // integral //
+    //----------//
+    /**
+     * Report the integral of basis k along LUT row, from row start to provided abscissa.
+     *
+     * @param row LUT offset of row start
+     * @param u   LUT abscissa, within [0 .. LUT_MAX]
+     * @param k   basis index
+     * @return the integral value
+     */
+    private static double integral (int row,
+                                    double u,
+                                    int k)
+    {
+        final int x = (int) u;
+        final int i = row + (x * STRIDE) + (2 * k);
+
+        if (x == LUT_MAX) {
+            return lut[i + 1];
+        }
+
+        final double t = u - x;
+        final double v = lut[i];
+        final double v1 = lut[i + STRIDE];
+
+        return lut[i + 1] + (t * v) + ((t * t * (v1 - v)) / 2);
+    }
+
+    //---------//
+    // initLUT //
+    //---------//
+    /**
+     * Compute, once for all, the lookup table values and row integrals.
+     */
+    private static void initLUT ()
+    {
+        StopWatch watch = new StopWatch("RunARTExtractor");
+        watch.start("initLUT");
+
+        final double[] cosAngle = new double[ANGULAR];
+        final double[] sinAngle = new double[ANGULAR];
+        final double[] cosRad = new double[RADIAL];
+
+        for (int y = 0; y < LUT_SIZE; y++) {
+            final double ty = (y - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+
+            for (int x = 0; x < LUT_SIZE; x++) {
+                final double tx = (x - LUT_RADIUS) / (double) LUT_RADIUS; // [-1..+1]
+                final double rad = Math.hypot(tx, ty); // [0..sqrt(2)]
+
+                if (rad < 1) {
+                    // We are within unit circle (otherwise values are left to 0)
+                    final double angle = Math.atan2(ty, tx);
+
+                    for (int p = 0; p < ANGULAR; p++) {
+                        cosAngle[p] = Math.cos(angle * p);
+                        sinAngle[p] = Math.sin(angle * p);
+                    }
+
+                    for (int r = 0; r < RADIAL; r++) {
+                        cosRad[r] = Math.cos(rad * Math.PI * r);
+                    }
+
+                    final int base = ((y * LUT_SIZE) + x) * STRIDE;
+
+                    for (int p = 0; p < ANGULAR; p++) {
+                        for (int r = 0; r < RADIAL; r++) {
+                            final int i = base + (4 * ((p * RADIAL) + r));
+                            lut[i] = (float) (cosRad[r] * cosAngle[p]);
+                            lut[i + 2] = (float) (cosRad[r] * sinAngle[p]);
+                        }
+                    }
+                }
+            }
+
+            // Prefix integrals along this row (trapezoids of linear interpolation)
+            final int row = y * LUT_SIZE * STRIDE;
+
+            for (int k = 0; k < BASIS; k++) {
+                double sum = 0;
+                int i = row + (2 * k);
+
+                for (int x = 1; x < LUT_SIZE; x++) {
+                    sum += (lut[i] + lut[i + STRIDE]) / 2;
+                    i += STRIDE;
+                    lut[i + 1] = (float) sum;
+                }
+            }
+        }
+
+        if (constants.printWatch.isSet()) {
+            watch.print();
+        }
+    }
+
+    //-----------//
+    // sumPixels //
+    //-----------//
+    /**
+     * Add the basis values of every pixel of a run, using bilinear interpolation.
+     */
+    private static void sumPixels (int pos,
+                                   int start,
+                                   int length,
+                                   double cp,
+                                   double cc,
+                                   double scale,
+                                   double[] coeffs)
+    {
+        // Row weights, common to all run pixels
+        final double ly = ((pos - cp) * scale) + LUT_RADIUS;
+        final int y = (int) ly;
+        final double iy = ly - y;
+        final int row = y * LUT_SIZE * STRIDE;
+        final int nextRow = (y == LUT_MAX) ? row : (row + (LUT_SIZE * STRIDE));
+
+        for (int c = start, cBreak = start + length; c < cBreak; c++) {
+            final double lx = ((c - cc) * scale) + LUT_RADIUS;
+            final int x = (int) lx;
+            final double ix = lx - x;
+            final int dx = (x == LUT_MAX) ? 0 : STRIDE;
+            final int i0 = row + (x * STRIDE);
+            final int i1 = nextRow + (x * STRIDE);
+
+            for (int k = 0, j = 0; k < BASIS; k++, j += 2) {
+                final double v0 = lut[i0 + j];
+                final double v1 = lut[i1 + j];
+                final double vx0 = v0 + (ix * (lut[i0 + dx + j] - v0));
+                final double vx1 = v1 + (ix * (lut[i1 + dx + j] - v1));
+                coeffs[k] += vx0 + (iy * (vx1 - vx0));
+            }
+        }
+    }
+
+    //--------//
+    // sumRun //
+    //--------//
+    /**
+     * Add the basis values of a whole run, using the row prefix integrals.
+     * <p>
+     * Each pixel is considered as covering [-0.5 .. +0.5] around its center.
+     */
+    private static void sumRun (int pos,
+                                int start,
+                                int length,
+                                double cp,
+                                double cc,
+                                double scale,
+                                double[] coeffs)
+    {
+        final double ly = ((pos - cp) * scale) + LUT_RADIUS;
+        final int y = (int) ly;
+        final double iy = ly - y;
+        final int row = y * LUT_SIZE * STRIDE;
+        final int nextRow = (y == LUT_MAX) ? row : (row + (LUT_SIZE * STRIDE));
+
+        final double u0 = Math.max(0, ((start - 0.5 - cc) * scale) + LUT_RADIUS);
+        final double u1 = Math.min(LUT_MAX, ((start + length - 0.5 - cc) * scale) + LUT_RADIUS);
+
+        if (u1 <= u0) {
+            return;
+        }
+
+        final double pixelsPerUnit = 1 / scale;
+
+        for (int k = 0; k < BASIS; k++) {
+            final double s0 = integral(row, u1, k) - integral(row, u0, k);
+            final double s1 = integral(nextRow, u1, k) - integral(nextRow, u0, k);
+            coeffs[k] += pixelsPerUnit * (s0 + (iy * (s1 - s0)));
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean printWatch = new Constant.Boolean(
+                false,
+                "Should we print out the stop watch?");
+    }
+}
@@ -27,6 +27,8 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.ui.util.AbstractMenuListener;
 import org.audiveris.omr.ui.util.SeparableMenu;
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.param.Param;
 
 import org.slf4j.Logger;
@@ -43,8 +45,6 @@ import javax.swing.Action;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.event.MenuEvent;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElementRef;
@@ -239,9 +239,9 @@ public class PluginsManager
 
         if (Files.exists(pluginsPath)) {
             try {
-                JAXBContext jaxbContext = JAXBContext.newInstance(PluginsHolder.class);
-                Unmarshaller um = jaxbContext.createUnmarshaller();
-                PluginsHolder pluginsHolder = (PluginsHolder) um.unmarshal(pluginsPath.toFile());
+                PluginsHolder pluginsHolder = (PluginsHolder) Jaxb.unmarshal(
+                        pluginsPath,
+                        JaxbContexts.getContext(PluginsHolder.class));
 
                 for (Plugin plugin : pluginsHolder.list) {
                     plugin.check();
@@ -0,0 +1,175 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     O f f H e a p R u n s                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Class {@code OffHeapRuns} stores the RLE sequences of a {@link RunTable} outside of the
+ * Java heap, in one contiguous buffer of int values, with an index of sequence offsets.
+ * <p>
+ * The buffer is either a direct buffer or a buffer mapped on a temporary file, in which case the
+ * operating system is free to page the runs out of memory while they are not used.
+ * In both cases, memory is released when this instance gets garbage collected.
+ * <p>
+ * Content is immutable: to be modified, a table must first get its sequences back on heap.
+ *
+ * @author Hervé Bitteur
+ */
+final class OffHeapRuns
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapRuns.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** All RLE values, sequence after sequence. */
+    private final IntBuffer data;
+
+    /** Offset in data of each sequence, plus a final offset for data end. */
+    private final int[] offsets;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code OffHeapRuns} object, with a copy of the provided RLE arrays.
+     *
+     * @param rles   the RLE array of each sequence, null for an empty sequence
+     * @param mapped true for a buffer mapped on a temporary file, false for a direct buffer
+     * @throws IOException if temporary file could not be mapped
+     */
+    OffHeapRuns (int[][] rles,
+                 boolean mapped)
+            throws IOException
+    {
+        offsets = new int[rles.length + 1];
+
+        for (int i = 0; i < rles.length; i++) {
+            offsets[i + 1] = offsets[i] + ((rles[i] != null) ? rles[i].length : 0);
+        }
+
+        final int byteCount = 4 * offsets[rles.length];
+        final ByteBuffer buffer;
+
+        if (mapped && (byteCount > 0)) {
+            final Path file = Files.createTempFile("runs-", ".bin");
+
+            // Mapping remains valid once the channel is closed (and the file deleted)
+            try (FileChannel channel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE)) {
+                buffer = channel.map(MapMode.READ_WRITE, 0, byteCount);
+            }
+
+            logger.debug("Mapped {} bytes on {}", byteCount, file);
+        } else {
+            buffer = ByteBuffer.allocateDirect(byteCount);
+        }
+
+        data = buffer.order(ByteOrder.nativeOrder()).asIntBuffer();
+
+        for (int[] rle : rles) {
+            if (rle != null) {
+                data.put(rle);
+            }
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report a value of a sequence.
+     *
+     * @param index index of sequence in table
+     * @param i     index of value within sequence
+     * @return the RLE value
+     */
+    int get (int index,
+             int i)
+    {
+        return data.get(offsets[index] + i);
+    }
+
+    //--------------//
+    // getByteCount //
+    //--------------//
+    /**
+     * Report the number of bytes held outside of heap.
+     *
+     * @return size of data buffer, in bytes
+     */
+    long getByteCount ()
+    {
+        return 4L * offsets[offsets.length - 1];
+    }
+
+    //-----------//
+    // getLength //
+    //-----------//
+    /**
+     * Report the number of values in a sequence.
+     *
+     * @param index index of sequence in table
+     * @return the sequence length, 0 for an empty sequence
+     */
+    int getLength (int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    //--------//
+    // getRle //
+    //--------//
+    /**
+     * Report an on-heap copy of a sequence.
+     *
+     * @param index index of sequence in table
+     * @return a copy of the RLE array, null for an empty sequence
+     */
+    int[] getRle (int index)
+    {
+        final int length = getLength(index);
+
+        if (length == 0) {
+            return null;
+        }
+
+        final int[] rle = new int[length];
+        final IntBuffer view = data.duplicate(); // To keep data position intact
+        view.position(offsets[index]);
+        view.get(rle);
+
+        return rle;
+    }
+}
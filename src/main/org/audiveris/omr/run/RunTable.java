@@ -23,6 +23,8 @@ package org.audiveris.omr.run;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.image.PixelSource.BACKGROUND;
 import org.audiveris.omr.image.Table;
@@ -31,8 +33,12 @@ import org.audiveris.omr.moments.ARTMoments;
 import org.audiveris.omr.moments.BasicARTExtractor;
 import org.audiveris.omr.moments.BasicARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.MomentSums;
+import org.audiveris.omr.moments.RunARTExtractor;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.Predicate;
 
 import org.slf4j.Logger;
@@ -54,7 +60,6 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -88,6 +93,11 @@ import javax.xml.bind.annotation.XmlValue;
  * [FBFBF] (perhaps 0BFBF)
  * etc...
  * </pre>
+ * <p>
+ * A large table, once built, can be moved off heap via {@link #moveOffHeap(boolean)}: its
+ * sequences are then kept in one contiguous buffer outside of the Java heap, and still read
+ * through the same methods (iteration, {@link #getRunAt(int, int)}, rendering, etc.).
+ * Any modification of the table brings its sequences back on heap beforehand.
  *
  * @author Hervé Bitteur
  */
@@ -98,11 +108,11 @@ public class RunTable
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(
             RunTable.class);
 
-    private static JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -130,6 +140,9 @@ public class RunTable
     /** Cached total weight. */
     private Integer weight;
 
+    /** Sequences kept off heap, if any. When set, all items in 'sequences' array are null. */
+    private volatile OffHeapRuns offHeap;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new RunTable object.
@@ -204,6 +217,7 @@ public class RunTable
         }
 
         weight = null; // Invalidate chached data
+        ensureOnHeap();
 
         // Look for background where foreground run is to take place
         // ...F(B)F... -> ...F(B1FB2)F...
@@ -315,16 +329,39 @@ public class RunTable
     public ARTMoments computeArtMoments (int left,
                                          int top)
     {
-        // Retrieve glyph foreground points
-        final PointsCollector collector = new PointsCollector(null, getWeight());
-        cumulate(collector, new Point(left, top));
-
         ///ARTMoments artMoments = new QuantizedARTMoments();
         ARTMoments artMoments = new BasicARTMoments();
 
-        BasicARTExtractor extractor = new BasicARTExtractor();
-        extractor.setDescriptor(artMoments);
-        extractor.extract(collector.getXValues(), collector.getYValues(), collector.getSize());
+        if (constants.useRunArtExtractor.isSet()) {
+            // Work directly on runs (ART modules don't depend on orientation)
+            final int count = getTotalRunCount();
+            final int[] ps = new int[count];
+            final int[] starts = new int[count];
+            final int[] lengths = new int[count];
+            int i = 0;
+
+            for (int p = 0, iBreak = getSize(); p < iBreak; p++) {
+                for (Iterator<Run> it = iterator(p); it.hasNext();) {
+                    final Run run = it.next();
+                    ps[i] = p;
+                    starts[i] = run.getStart();
+                    lengths[i] = run.getLength();
+                    i++;
+                }
+            }
+
+            RunARTExtractor extractor = new RunARTExtractor();
+            extractor.setDescriptor(artMoments);
+            extractor.extractRuns(ps, starts, lengths, count);
+        } else {
+            // Retrieve glyph foreground points
+            final PointsCollector collector = new PointsCollector(null, getWeight());
+            cumulate(collector, new Point(left, top));
+
+            BasicARTExtractor extractor = new BasicARTExtractor();
+            extractor.setDescriptor(artMoments);
+            extractor.extract(collector.getXValues(), collector.getYValues(), collector.getSize());
+        }
 
         return artMoments;
     }
@@ -335,27 +372,7 @@ public class RunTable
     public Point computeCentroid (int left,
                                   int top)
     {
-        // Retrieve glyph foreground points
-        getWeight(); // Make sure weight has been computed
-
-        if (weight == 0) {
-            return null;
-        }
-
-        final PointsCollector collector = new PointsCollector(null, weight);
-        cumulate(collector, new Point(left, top));
-
-        int[] xx = collector.getXValues();
-        int[] yy = collector.getYValues();
-        double x = 0;
-        double y = 0;
-
-        for (int i = weight - 1; i >= 0; i--) {
-            x += xx[i];
-            y += yy[i];
-        }
-
-        return new Point((int) Math.rint(x / weight), (int) Math.rint(y / weight));
+        return computeMomentSums(left, top).getCentroid();
     }
 
     //-------------------------//
@@ -373,16 +390,39 @@ public class RunTable
                                                      int top,
                                                      int interline)
     {
-        // Retrieve glyph foreground points
-        final PointsCollector collector = new PointsCollector(null, getWeight());
-        cumulate(collector, new Point(left, top));
-
-        // Then compute the geometric moments with this collector
-        return new GeometricMoments(
-                collector.getXValues(),
-                collector.getYValues(),
-                collector.getSize(),
-                interline);
+        return new GeometricMoments(computeMomentSums(left, top), interline);
+    }
+
+    //-------------------//
+    // computeMomentSums //
+    //-------------------//
+    /**
+     * Compute the raw moment sums for this runTable, with (left, top) as reference point.
+     * <p>
+     * Sums are computed per run, without visiting the individual pixels.
+     *
+     * @param left abscissa of topLeft corner
+     * @param top  ordinate of topLeft corner
+     * @return the raw moment sums
+     */
+    public MomentSums computeMomentSums (int left,
+                                         int top)
+    {
+        final MomentSums sums = new MomentSums(left, top);
+
+        for (int p = 0, iBreak = getSize(); p < iBreak; p++) {
+            for (Iterator<Run> it = iterator(p); it.hasNext();) {
+                final Run run = it.next();
+
+                if (orientation == HORIZONTAL) {
+                    sums.includeRow(left + run.getStart(), top + p, run.getLength());
+                } else {
+                    sums.includeColumn(left + p, top + run.getStart(), run.getLength());
+                }
+            }
+        }
+
+        return sums;
     }
 
     //----------//
@@ -399,6 +439,29 @@ public class RunTable
         return null != getRunAt(relPoint.x, relPoint.y);
     }
 
+    //-----------------//
+    // contentHashCode //
+    //-----------------//
+    /**
+     * Report a hash code computed on the whole table content.
+     * <p>
+     * Unlike {@link #hashCode()} which is based only on dimension and weight, this value
+     * discriminates tables of the same size and weight, at the cost of one pass over the runs.
+     * It is consistent with {@link #equals(Object)}.
+     *
+     * @return the content-based hash code
+     */
+    public int contentHashCode ()
+    {
+        int hash = 1; // As in Arrays.hashCode(sequences)
+
+        for (int i = 0; i < sequences.length; i++) {
+            hash = (31 * hash) + Objects.hashCode(getSequence(i));
+        }
+
+        return (83 * hashCode()) + hash;
+    }
+
     //------//
     // copy //
     //------//
@@ -412,7 +475,7 @@ public class RunTable
         RunTable clone = new RunTable(orientation, width, height);
 
         for (int i = 0; i < sequences.length; i++) {
-            RunSequence seq = sequences[i];
+            RunSequence seq = getSequence(i);
 
             if (seq != null) {
                 int[] rle = new int[seq.rle.length];
@@ -546,7 +609,7 @@ public class RunTable
         System.out.println(toString());
 
         for (int i = 0; i < sequences.length; i++) {
-            final RunSequence seq = sequences[i];
+            final RunSequence seq = getSequence(i);
             System.out.printf("%4d:%s%n", i, (seq != null) ? seq.toString() : "null");
         }
     }
@@ -583,7 +646,17 @@ public class RunTable
             return false;
         }
 
-        return Arrays.deepEquals(this.sequences, other.sequences);
+        if ((this.offHeap == null) && (other.offHeap == null)) {
+            return Arrays.deepEquals(this.sequences, other.sequences);
+        }
+
+        for (int i = 0; i < sequences.length; i++) {
+            if (!Objects.equals(this.getSequence(i), other.getSequence(i))) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     //-----------//
@@ -919,7 +992,9 @@ public class RunTable
     {
         int total = 0;
 
-        for (RunSequence seq : sequences) {
+        for (int i = 0; i < sequences.length; i++) {
+            final RunSequence seq = getSequence(i);
+
             if (seq != null) {
                 total += seq.size();
             }
@@ -960,13 +1035,9 @@ public class RunTable
 
         try {
             InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
-
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(RunTable.class);
-            }
-
-            Unmarshaller um = jaxbContext.createUnmarshaller();
-            RunTable runTable = (RunTable) um.unmarshal(is);
+            RunTable runTable = (RunTable) Jaxb.unmarshal(
+                    is,
+                    JaxbContexts.getContext(RunTable.class));
             is.close();
             logger.debug("Unmarshalled {}", runTable);
 
@@ -1122,6 +1193,19 @@ public class RunTable
         return false;
     }
 
+    //-----------//
+    // isOffHeap //
+    //-----------//
+    /**
+     * Report whether the sequences of this table are currently kept off heap.
+     *
+     * @return true if off heap
+     */
+    public boolean isOffHeap ()
+    {
+        return offHeap != null;
+    }
+
     //-----------------//
     // isSequenceEmpty //
     //-----------------//
@@ -1133,7 +1217,20 @@ public class RunTable
      */
     public boolean isSequenceEmpty (int index)
     {
-        return sequences[index] == null;
+        final OffHeapRuns runs = offHeap;
+
+        if (runs != null) {
+            return runs.getLength(index) == 0;
+        }
+
+        if (sequences[index] != null) {
+            return false;
+        }
+
+        // Table may have just been moved off heap
+        final OffHeapRuns moved = offHeap;
+
+        return (moved == null) || (moved.getLength(index) == 0);
     }
 
     //----------//
@@ -1150,6 +1247,47 @@ public class RunTable
         return new Itr(index);
     }
 
+    //-------------//
+    // moveOffHeap //
+    //-------------//
+    /**
+     * Move the sequences of this table out of the Java heap, into one contiguous buffer.
+     * <p>
+     * This is meant for large tables which are no longer modified, such as the BINARY or NO_STAFF
+     * tables of a sheet.
+     * If the off heap buffer cannot be allocated, the table is simply left on heap.
+     * <p>
+     * Off heap buffer is published before on heap sequences are released, so a concurrent reader
+     * which finds a null sequence re-checks the off heap buffer.
+     *
+     * @param mapped true for a buffer mapped on a temporary file, false for a direct buffer
+     */
+    public synchronized void moveOffHeap (boolean mapped)
+    {
+        if (offHeap != null) {
+            return;
+        }
+
+        final int[][] rles = new int[sequences.length][];
+
+        for (int i = 0; i < sequences.length; i++) {
+            final RunSequence seq = sequences[i];
+
+            if ((seq != null) && (seq.rle != null) && (seq.rle.length > 0)) {
+                rles[i] = seq.rle;
+            }
+        }
+
+        try {
+            offHeap = new OffHeapRuns(rles, mapped);
+            Arrays.fill(sequences, null);
+            logger.debug("{} moved off heap, {} bytes", this, offHeap.getByteCount());
+        } catch (Throwable ex) {
+            // Including OutOfMemoryError when direct memory is exhausted
+            logger.warn("Could not move {} off heap {}", this, ex.toString());
+        }
+    }
+
     //--------------------//
     // persistentHashCode //
     //--------------------//
@@ -1379,6 +1517,7 @@ public class RunTable
     public void setSequence (int index,
                              List<? extends Run> list)
     {
+        ensureOnHeap();
         sequences[index] = encode(list);
     }
 
@@ -1497,6 +1636,19 @@ public class RunTable
         return newTable;
     }
 
+    //--------------------//
+    // useRunArtExtractor //
+    //--------------------//
+    /**
+     * Report whether ART moments are extracted directly from runs.
+     *
+     * @return true if so
+     */
+    public static boolean useRunArtExtractor ()
+    {
+        return constants.useRunArtExtractor.isSet();
+    }
+
     //-------//
     // write //
     //-------//
@@ -1585,11 +1737,25 @@ public class RunTable
      * (package private) Report the sequence of runs at a given index
      *
      * @param index the desired index
-     * @return the MODIFIABLE sequence of runs
+     * @return the MODIFIABLE sequence of runs, just a copy if table is off heap
      */
     final RunSequence getSequence (int index)
     {
-        return sequences[index];
+        final OffHeapRuns runs = offHeap;
+
+        if (runs != null) {
+            final int[] rle = runs.getRle(index);
+
+            return (rle != null) ? new RunSequence(rle) : null;
+        }
+
+        final RunSequence seq = sequences[index];
+
+        if ((seq == null) && (offHeap != null)) {
+            return getSequence(index); // Table has just been moved off heap
+        }
+
+        return seq;
     }
 
     //-------------//
@@ -1604,6 +1770,7 @@ public class RunTable
     final void setSequence (int index,
                             RunSequence seq)
     {
+        ensureOnHeap();
         sequences[index] = seq;
     }
 
@@ -1617,6 +1784,12 @@ public class RunTable
     @SuppressWarnings("unused")
     private void afterMarshal (Marshaller m)
     {
+        if (offHeap != null) {
+            Arrays.fill(sequences, null); // Release the temporary copies
+
+            return;
+        }
+
         for (int i = 0, iBreak = sequences.length; i < iBreak; i++) {
             RunSequence seq = sequences[i];
 
@@ -1646,20 +1819,53 @@ public class RunTable
     /**
      * Called immediately before the marshalling of this object begins.
      * We replace any null RunSequence by an empty RunSequence (to be properly marshalled).
+     * If table is off heap, temporary copies of its sequences are used.
      */
     @SuppressWarnings("unused")
     private void beforeMarshal (Marshaller m)
     {
         for (int i = 0, iBreak = sequences.length; i < iBreak; i++) {
-            RunSequence seq = sequences[i];
+            RunSequence seq = (offHeap != null) ? getSequence(i) : sequences[i];
+
+            sequences[i] = (seq != null) ? seq : new RunSequence(new int[0]);
+        }
+    }
+
+    //--------------//
+    // ensureOnHeap //
+    //--------------//
+    /**
+     * Make sure the table sequences are on heap, since table is about to be modified.
+     */
+    private synchronized void ensureOnHeap ()
+    {
+        final OffHeapRuns runs = offHeap;
 
-            if (seq == null) {
-                sequences[i] = new RunSequence(new int[0]);
+        if (runs != null) {
+            for (int i = 0; i < sequences.length; i++) {
+                final int[] rle = runs.getRle(i);
+                sequences[i] = (rle != null) ? new RunSequence(rle) : null;
             }
+
+            offHeap = null;
+            logger.debug("{} back on heap", this);
         }
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useRunArtExtractor = new Constant.Boolean(
+                true,
+                "Should we extract ART moments directly from runs?");
+    }
+
     //-------------//
     // RunSequence //
     //-------------//
@@ -1743,6 +1949,8 @@ public class RunTable
      * Iterator implementation optimized for RLE.
      * <p>
      * The iterator returns only foreground runs.
+     * It reads the sequence either on heap or off heap, according to table state at iterator
+     * creation.
      */
     private class Itr
             implements Iterator<Run>
@@ -1765,26 +1973,44 @@ public class RunTable
          */
         private final Run run = new Run(-1, -1);
 
+        /** Off heap sequences, if any. */
+        private OffHeapRuns runs;
+
+        /** On heap RLE array, if any. */
+        private int[] rle;
+
+        /** Number of RLE values in sequence. */
+        private int length;
+
         //~ Constructors ---------------------------------------------------------------------------
         public Itr (int index)
         {
             this.index = index;
+            runs = offHeap;
 
-            // Check the case of an initial background run
-            final RunSequence seq = sequences[index];
+            RunSequence seq = null;
 
-            if (seq != null) {
-                final int[] rle = seq.rle;
+            if (runs == null) {
+                seq = sequences[index];
 
-                if ((rle != null) && (rle.length > 0)) {
-                    if (rle[cursor] == 0) {
-                        if (rle.length > 1) {
-                            loc = rle[1];
-                        }
+                if (seq == null) {
+                    runs = offHeap; // Table may have just been moved off heap
+                }
+            }
 
-                        cursor += 2;
-                    }
+            if (runs != null) {
+                length = runs.getLength(index);
+            } else {
+                setRle((seq != null) ? seq.rle : null);
+            }
+
+            // Check the case of an initial background run
+            if ((length > 0) && (value(cursor) == 0)) {
+                if (length > 1) {
+                    loc = value(1);
                 }
+
+                cursor += 2;
             }
         }
 
@@ -1797,19 +2023,7 @@ public class RunTable
         @Override
         public final boolean hasNext ()
         {
-            final RunSequence seq = sequences[index];
-
-            if (seq == null) {
-                return false;
-            }
-
-            final int[] rle = seq.rle;
-
-            if (rle == null) {
-                return false;
-            }
-
-            return cursor < rle.length;
+            return cursor < length;
         }
 
         /**
@@ -1825,13 +2039,11 @@ public class RunTable
                 throw new NoSuchElementException();
             }
 
-            final int[] rle = sequences[index].rle;
-
             // ...v.. cursor before next()
             // ...FBF
             // .....^ cursor after next()
             int foreLoc = loc;
-            int foreLg = rle[cursor++] & 0xFFFF;
+            int foreLg = value(cursor++) & 0xFFFF;
 
             // Update the (modifiable) run structure
             run.setStart(foreLoc);
@@ -1839,8 +2051,8 @@ public class RunTable
 
             loc += foreLg;
 
-            if (cursor < rle.length) {
-                int backLg = rle[cursor] & 0xFFFF;
+            if (cursor < length) {
+                int backLg = value(cursor) & 0xFFFF;
                 loc += backLg;
             }
 
@@ -1852,13 +2064,19 @@ public class RunTable
         @Override
         public void remove ()
         {
-            final int[] rle = sequences[index].rle;
+            if (runs != null) {
+                ensureOnHeap();
+                runs = null;
+                setRle(sequences[index].rle);
+            }
+
             int c = cursor - 2;
 
             if (c == 0) {
                 if (c == (rle.length - 1)) {
                     // F -> null
                     sequences[index] = null;
+                    setRle(null);
                 } else {
                     // (FB)F... -> 0(B')F...
                     rle[1] = rle[0] + rle[1];
@@ -1879,12 +2097,25 @@ public class RunTable
 
                 if ((newRle.length == 1) && (newRle[0] == 0)) {
                     sequences[index] = null;
+                    setRle(null);
                 } else {
                     sequences[index] = new RunSequence(newRle);
+                    setRle(newRle);
                 }
 
                 cursor = c;
             }
         }
+
+        private void setRle (int[] rle)
+        {
+            this.rle = rle;
+            length = (rle != null) ? rle.length : 0;
+        }
+
+        private int value (int i)
+        {
+            return (runs != null) ? runs.get(index, i) : rle[i];
+        }
     }
 }
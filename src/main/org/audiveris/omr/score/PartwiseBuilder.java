@@ -185,11 +185,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -267,6 +269,15 @@ public class PartwiseBuilder
     /** Factory for ProxyMusic entities. */
     private final ObjectFactory factory = new ObjectFactory();
 
+    /** Sink for streamed output, null when building the whole ScorePartwise tree. */
+    private Sink sink;
+
+    /** Summary of flushed measures, per part (streaming only). */
+    private final Map<ScorePartwise.Part, ScorePartwise.Part.Measure> memos = new HashMap<ScorePartwise.Part, ScorePartwise.Part.Measure>();
+
+    /** First failure of sink, if any (streaming only). */
+    private Exception sinkError;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a new PartwiseBuilder object, on a related score instance.
@@ -308,6 +319,43 @@ public class PartwiseBuilder
         return builder.scorePartwise;
     }
 
+    //--------//
+    // stream //
+    //--------//
+    /**
+     * Visit the whole score tree and feed the provided sink measure by measure, without
+     * ever holding the whole ScorePartwise tree in memory.
+     * <p>
+     * Pages are processed in the same order as by {@link #build(Score)}, each sheet being thus
+     * loaded only once, and the measures of each system in each part are handed to the sink as
+     * soon as the system is completed.
+     * Only a summary of the flushed measures (current key and clefs) is retained, to keep key and
+     * clef continuity.
+     * Score header, which depends on all pages, is handed to the sink at the end.
+     *
+     * @param score the score to export (cannot be null)
+     * @param sink  the sink to feed (cannot be null)
+     * @throws Exception if something goes wrong, notably in the sink
+     */
+    public static void stream (Score score,
+                               Sink sink)
+            throws Exception
+    {
+        Objects.requireNonNull(score, "Trying to export a null score");
+        Objects.requireNonNull(sink, "Trying to export a score to a null sink");
+
+        final PartwiseBuilder builder = new PartwiseBuilder(score);
+        builder.sink = sink;
+
+        builder.processScore();
+
+        if (builder.sinkError != null) {
+            throw builder.sinkError;
+        }
+
+        sink.header(builder.scorePartwise);
+    }
+
     //---------//
     // preload //
     //---------//
@@ -556,6 +604,69 @@ public class PartwiseBuilder
         return pmPart;
     }
 
+    //---------------//
+    // flushMeasures //
+    //---------------//
+    /**
+     * Hand all measures built so far in current part to the sink, and replace them by a
+     * summary measure which only retains the current key and the current clef of each staff.
+     * <p>
+     * The summary is never handed to the sink, it is just meant for {@link #getCurrentKey()}
+     * and {@link #isNewClef(Clef)} which browse previous measures backwards, and is built by the
+     * very same browsing.
+     */
+    private void flushMeasures ()
+    {
+        final ScorePartwise.Part pmPart = current.pmPart;
+        final List<ScorePartwise.Part.Measure> measures = pmPart.getMeasure();
+        final ScorePartwise.Part.Measure pmMemo = memos.get(pmPart);
+
+        // Summary
+        final Attributes attributes = factory.createAttributes();
+        final Key key = getCurrentKey();
+
+        if (key != null) {
+            attributes.getKey().add(key);
+        }
+
+        final Set<BigInteger> numbers = new LinkedHashSet<BigInteger>();
+
+        for (ScorePartwise.Part.Measure pmMeasure : measures) {
+            for (Object obj : pmMeasure.getNoteOrBackupOrForward()) {
+                if (obj instanceof Attributes) {
+                    for (Clef clef : ((Attributes) obj).getClef()) {
+                        numbers.add(clef.getNumber());
+                    }
+                }
+            }
+        }
+
+        for (BigInteger number : numbers) {
+            attributes.getClef().add(getCurrentClef(number));
+        }
+
+        try {
+            for (ScorePartwise.Part.Measure pmMeasure : measures) {
+                if (pmMeasure != pmMemo) {
+                    sink.measure(pmPart, pmMeasure);
+                }
+            }
+        } catch (Exception ex) {
+            if (sinkError == null) {
+                sinkError = ex;
+            }
+
+            throw new IllegalStateException("Streaming failed", ex);
+        }
+
+        measures.clear();
+
+        final ScorePartwise.Part.Measure summary = factory.createScorePartwisePartMeasure();
+        summary.getNoteOrBackupOrForward().add(attributes);
+        measures.add(summary);
+        memos.put(pmPart, summary);
+    }
+
     //------------------//
     // getArticulations //
     //------------------//
@@ -626,6 +737,47 @@ public class PartwiseBuilder
         return null;
     }
 
+    //----------------//
+    // getCurrentClef //
+    //----------------//
+    /**
+     * Report the latest clef on the provided staff, within current part.
+     *
+     * @param number the staff number within part (perhaps null)
+     * @return the latest clef found, or null
+     */
+    private Clef getCurrentClef (BigInteger number)
+    {
+        // Browse the  current list of measures backwards
+        List<ScorePartwise.Part.Measure> measures = current.pmPart.getMeasure();
+
+        for (ListIterator<ScorePartwise.Part.Measure> mit = measures.listIterator(measures.size());
+                mit.hasPrevious();) {
+            ScorePartwise.Part.Measure pmMeasure = mit.previous();
+
+            // Look backwards in measure items, checking staff
+            List<Object> items = pmMeasure.getNoteOrBackupOrForward();
+
+            for (ListIterator<Object> it = items.listIterator(items.size()); it.hasPrevious();) {
+                Object obj = it.previous();
+
+                if (obj instanceof Attributes) {
+                    Attributes attributes = (Attributes) obj;
+
+                    // Check for clef on proper staff
+                    for (Clef clef : attributes.getClef()) {
+                        // Check proper staff (in case of multi-staff part)
+                        if (Objects.equals(clef.getNumber(), number)) {
+                            return clef;
+                        }
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
     //---------------//
     // getCurrentKey //
     //---------------//
@@ -852,35 +1004,14 @@ public class PartwiseBuilder
      */
     private boolean isNewClef (Clef newClef)
     {
-        // Browse the  current list of measures backwards
-        List<ScorePartwise.Part.Measure> measures = current.pmPart.getMeasure();
-
-        for (ListIterator<ScorePartwise.Part.Measure> mit = measures.listIterator(measures.size());
-                mit.hasPrevious();) {
-            ScorePartwise.Part.Measure pmMeasure = mit.previous();
-
-            // Look backwards in measure items, checking staff
-            List<Object> items = pmMeasure.getNoteOrBackupOrForward();
-
-            for (ListIterator<Object> it = items.listIterator(items.size()); it.hasPrevious();) {
-                Object obj = it.previous();
-
-                if (obj instanceof Attributes) {
-                    Attributes attributes = (Attributes) obj;
+        final Clef clef = getCurrentClef(newClef.getNumber());
 
-                    // Check for clef on proper staff
-                    for (Clef clef : attributes.getClef()) {
-                        // Check proper staff (in case of multi-staff part)
-                        if (Objects.equals(clef.getNumber(), newClef.getNumber())) {
-                            // Same staff, so check whether the clef is the same
-                            return !areEqual(clef, newClef);
-                        }
-                    }
-                }
-            }
+        if (clef == null) {
+            return true; // Since no previous clef was found for the same staff
         }
 
-        return true; // Since no previous clef was found for the same staff
+        // Same staff, so check whether the clef is the same
+        return !areEqual(clef, newClef);
     }
 
     //----------------//
@@ -1477,22 +1608,15 @@ public class PartwiseBuilder
     private void processLogicalPart (LogicalPart logicalPart,
                                      ScorePartwise.Part pmPart)
     {
-        logger.debug("Processing {} for {}", logicalPart, current.page.getSheet());
-
-        current.logicalPart = logicalPart;
-        current.pmPart = pmPart;
-        current.keys.clear();
-
-        // Delegate to children the filling of measures
-        logger.debug("Populating {}", logicalPart);
-        isFirst.system = true;
-
-        // Reset slur numbers
-        slurNumbers.clear();
+        startLogicalPart(logicalPart, pmPart);
 
         // Process all systems in page
         for (SystemInfo system : current.page.getSystems()) {
             processSystem(system);
+
+            if (sink != null) {
+                flushMeasures();
+            }
         }
     }
 
@@ -2456,6 +2580,16 @@ public class PartwiseBuilder
         }
     }
 
+    //------------------//
+    // processSentences //
+    //------------------//
+    private void processSentences (SystemInfo system)
+    {
+        for (Inter inter : system.getSig().inters(SentenceInter.class)) {
+            processSentence((SentenceInter) inter);
+        }
+    }
+
     //-------------//
     // processSlur //
     //-------------//
@@ -2532,27 +2666,15 @@ public class PartwiseBuilder
     {
         logger.debug("Processing {}", stub);
 
-        final Integer sheetPageId = score.getSheetPageId(stub.getNumber());
+        final Page page = startPage(stub);
 
         // This should never occur if processStub() is called only on score relevant stubs
-        if (sheetPageId == null) {
+        if (page == null) {
             return;
         }
 
-        final Sheet sheet = stub.getSheet();
-        final Page page = sheet.getPages().get(sheetPageId - 1);
-
         source.encodePage(page, scorePartwise);
 
-        current.page = page;
-        current.scale = page.getSheet().getScale();
-        page.resetDurationDivisor();
-
-        isFirst.page = score.isFirst(page);
-        isFirst.system = true;
-        isFirst.measure = true;
-        isFirst.part = true;
-
         for (Entry<LogicalPart, ScorePartwise.Part> entry : partMap.entrySet()) {
             processLogicalPart(entry.getKey(), entry.getValue());
             isFirst.part = false;
@@ -2608,9 +2730,7 @@ public class PartwiseBuilder
 
             // Sentences in system
             if (isFirst.part) {
-                for (Inter inter : system.getSig().inters(SentenceInter.class)) {
-                    processSentence((SentenceInter) inter);
-                }
+                processSentences(system);
             }
 
             // If we have exported a measure, we are no longer in the first system
@@ -2811,6 +2931,58 @@ public class PartwiseBuilder
         }
     }
 
+    //------------------//
+    // startLogicalPart //
+    //------------------//
+    private void startLogicalPart (LogicalPart logicalPart,
+                                   ScorePartwise.Part pmPart)
+    {
+        logger.debug("Processing {} for {}", logicalPart, current.page.getSheet());
+
+        current.logicalPart = logicalPart;
+        current.pmPart = pmPart;
+        current.keys.clear();
+
+        // Delegate to children the filling of measures
+        logger.debug("Populating {}", logicalPart);
+        isFirst.system = true;
+
+        // Reset slur numbers
+        slurNumbers.clear();
+    }
+
+    //-----------//
+    // startPage //
+    //-----------//
+    /**
+     * Set the current context on the page that the provided stub contributes to score.
+     *
+     * @param stub the sheet stub at hand
+     * @return the related page, or null if stub is not relevant for the score
+     */
+    private Page startPage (SheetStub stub)
+    {
+        final Integer sheetPageId = score.getSheetPageId(stub.getNumber());
+
+        if (sheetPageId == null) {
+            return null;
+        }
+
+        final Sheet sheet = stub.getSheet();
+        final Page page = sheet.getPages().get(sheetPageId - 1);
+
+        current.page = page;
+        current.scale = page.getSheet().getScale();
+        page.resetDurationDivisor();
+
+        isFirst.page = score.isFirst(page);
+        isFirst.system = true;
+        isFirst.measure = true;
+        isFirst.part = true;
+
+        return page;
+    }
+
     //----------//
     // toTenths //
     //----------//
@@ -2845,6 +3017,45 @@ public class PartwiseBuilder
         return toTenths(staffTopY - point.getY());
     }
 
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //------//
+    // Sink //
+    //------//
+    /**
+     * Interface {@code Sink} receives the score material as it gets built in streaming
+     * mode.
+     * <p>
+     * Measures are handed over page by page, that is part after part within each page.
+     * So, the measures of a given part arrive in order, interleaved with those of other parts.
+     * The score header is handed over at the end, since it is gathered from all pages.
+     */
+    public static interface Sink
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Hand over the score header, that is everything but the measures.
+         * This is the last call, once all measures have been handed over.
+         *
+         * @param scorePartwise the score root, with part-list populated and no measure
+         * @throws Exception if something goes wrong
+         */
+        void header (ScorePartwise scorePartwise)
+                throws Exception;
+
+        /**
+         * Hand over a completed measure of a part.
+         * The measure is not referenced by the builder anymore.
+         *
+         * @param pmPart    the containing part
+         * @param pmMeasure the measure to write
+         * @throws Exception if something goes wrong
+         */
+        void measure (ScorePartwise.Part pmPart,
+                      ScorePartwise.Part.Measure pmMeasure)
+                throws Exception;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
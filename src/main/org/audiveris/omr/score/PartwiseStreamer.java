@@ -0,0 +1,434 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                P a r t w i s e S t r e a m e r                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.omr.util.IndentingXMLStreamWriter;
+
+import org.audiveris.proxymusic.Credit;
+import org.audiveris.proxymusic.Defaults;
+import org.audiveris.proxymusic.Identification;
+import org.audiveris.proxymusic.PartList;
+import org.audiveris.proxymusic.ScorePart;
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.Work;
+import org.audiveris.proxymusic.util.Marshalling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Class {@code PartwiseStreamer} writes a score as a MusicXML partwise document,
+ * incrementally, using StAX.
+ * <p>
+ * Rather than marshalling a complete {@link ScorePartwise} tree, it is fed by
+ * {@link PartwiseBuilder#stream(Score, PartwiseBuilder.Sink)} and marshals every header element
+ * and every measure as a separate JAXB fragment.
+ * Peak memory is thus bounded by the material of one system in one part.
+ * <p>
+ * Since measures arrive page by page while MusicXML partwise output is part by part, the measures
+ * of each part are spooled into a temporary file, and all part files are copied to output after
+ * the score header.
+ *
+ * @author Hervé Bitteur
+ */
+public class PartwiseStreamer
+        implements PartwiseBuilder.Sink
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(PartwiseStreamer.class);
+
+    /** MusicXML partwise DOCTYPE, with version to be inserted. */
+    private static final String DOCTYPE = "<!DOCTYPE score-partwise PUBLIC"
+                                          + " \"-//Recordare//DTD MusicXML %s Partwise//EN\""
+                                          + " \"http://www.musicxml.org/dtds/partwise.dtd\">";
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Output stream. */
+    private final OutputStream os;
+
+    /** Output writer, with indentation. */
+    private final XMLStreamWriter writer;
+
+    /** Spooled measures, per part. */
+    private final Map<ScorePartwise.Part, Spool> spools = new LinkedHashMap<ScorePartwise.Part, Spool>();
+
+    /** Should we inject ProxyMusic signature?. */
+    private final boolean signed;
+
+    /** Fragment marshaller. */
+    private final Marshaller marshaller;
+
+    /** Fragment unmarshaller, to read back the annotated header. */
+    private final Unmarshaller unmarshaller;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code PartwiseStreamer} object.
+     *
+     * @param os     the output stream to write to (not closed by this class)
+     * @param signed should we inject ProxyMusic signature?
+     * @throws JAXBException      if JAXB context could not be obtained
+     * @throws XMLStreamException if writer could not be created
+     */
+    public PartwiseStreamer (OutputStream os,
+                             boolean signed)
+            throws JAXBException, XMLStreamException
+    {
+        this.os = os;
+        this.signed = signed;
+
+        writer = new IndentingXMLStreamWriter(
+                XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8"));
+
+        marshaller = Marshalling.getContext(ScorePartwise.class).createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        unmarshaller = Marshalling.getContext(ScorePartwise.class).createUnmarshaller();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // stream //
+    //--------//
+    /**
+     * Stream the provided score as MusicXML to the output stream.
+     *
+     * @param score  the score to export
+     * @param os     the output stream to write to (not closed by this method)
+     * @param signed should we inject ProxyMusic signature?
+     * @throws Exception if something goes wrong
+     */
+    public static void stream (Score score,
+                               OutputStream os,
+                               boolean signed)
+            throws Exception
+    {
+        final PartwiseStreamer streamer = new PartwiseStreamer(os, signed);
+        boolean ok = false;
+
+        try {
+            PartwiseBuilder.stream(score, streamer);
+            ok = true;
+        } finally {
+            streamer.finish(ok);
+        }
+
+        os.flush();
+    }
+
+    //--------//
+    // finish //
+    //--------//
+    /**
+     * Close the score-partwise document if so desired, then release all resources.
+     * The underlying output stream is left open.
+     *
+     * @param complete true to close the document, false to just release resources
+     * @throws XMLStreamException if writing failed
+     */
+    public void finish (boolean complete)
+            throws XMLStreamException
+    {
+        try {
+            if (complete) {
+                writer.writeEndElement(); // score-partwise
+                writer.writeEndDocument();
+                writer.flush();
+            }
+        } finally {
+            try {
+                writer.close();
+            } finally {
+                for (Spool spool : spools.values()) {
+                    spool.delete();
+                }
+
+                spools.clear();
+            }
+        }
+    }
+
+    //--------//
+    // header //
+    //--------//
+    @Override
+    public void header (ScorePartwise scorePartwise)
+            throws Exception
+    {
+        annotate(scorePartwise);
+
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeDTD(String.format(DOCTYPE, scorePartwise.getVersion()));
+        writer.writeStartElement("score-partwise");
+        writer.writeAttribute("version", scorePartwise.getVersion());
+
+        // Same element order as in MusicXML schema
+        marshal("work", Work.class, scorePartwise.getWork());
+        writeText("movement-number", scorePartwise.getMovementNumber());
+        writeText("movement-title", scorePartwise.getMovementTitle());
+        marshal("identification", Identification.class, scorePartwise.getIdentification());
+        marshal("defaults", Defaults.class, scorePartwise.getDefaults());
+
+        for (Credit credit : scorePartwise.getCredit()) {
+            marshal("credit", Credit.class, credit);
+        }
+
+        marshal("part-list", PartList.class, scorePartwise.getPartList());
+
+        // Parts
+        for (ScorePartwise.Part pmPart : scorePartwise.getPart()) {
+            final Spool spool = spools.get(pmPart);
+
+            if (spool != null) {
+                writer.flush();
+                spool.copyTo(os);
+            } else {
+                writer.writeEmptyElement("part");
+                writer.writeAttribute("id", getId(pmPart));
+            }
+        }
+
+        writer.flush();
+    }
+
+    //---------//
+    // measure //
+    //---------//
+    @Override
+    public void measure (ScorePartwise.Part pmPart,
+                         ScorePartwise.Part.Measure pmMeasure)
+            throws Exception
+    {
+        Spool spool = spools.get(pmPart);
+
+        if (spool == null) {
+            spool = new Spool(getId(pmPart));
+            spools.put(pmPart, spool);
+        }
+
+        marshal(spool.writer, "measure", ScorePartwise.Part.Measure.class, pmMeasure);
+    }
+
+    //----------//
+    // annotate //
+    //----------//
+    /**
+     * Complete score header with version, encoding date and signature, exactly as the
+     * ProxyMusic marshalling does on a whole tree.
+     * <p>
+     * Rather than duplicating this logic, the header (which contains no measure) is marshalled by
+     * ProxyMusic to a DOM document, from which version and identification are read back.
+     *
+     * @param scorePartwise the score header
+     * @throws Exception if marshalling failed
+     */
+    private void annotate (ScorePartwise scorePartwise)
+            throws Exception
+    {
+        final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .newDocument();
+        Marshalling.marshal(scorePartwise, doc, signed);
+
+        final Element root = doc.getDocumentElement();
+        scorePartwise.setVersion(root.getAttribute("version"));
+
+        for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if ("identification".equals(node.getNodeName())) {
+                scorePartwise.setIdentification(
+                        unmarshaller.unmarshal(node, Identification.class).getValue());
+            }
+        }
+    }
+
+    //-------//
+    // getId //
+    //-------//
+    private static String getId (ScorePartwise.Part pmPart)
+    {
+        return ((ScorePart) pmPart.getId()).getId();
+    }
+
+    //---------//
+    // marshal //
+    //---------//
+    /**
+     * Marshal the provided value as a fragment element to the main output.
+     *
+     * @param name  element name
+     * @param type  declared type
+     * @param value value to marshal, perhaps null
+     * @throws JAXBException if marshalling failed
+     */
+    private <T> void marshal (String name,
+                              Class<T> type,
+                              T value)
+            throws JAXBException
+    {
+        marshal(writer, name, type, value);
+    }
+
+    //---------//
+    // marshal //
+    //---------//
+    /**
+     * Marshal the provided value as a fragment element to the provided writer.
+     *
+     * @param out   the writer to use
+     * @param name  element name
+     * @param type  declared type
+     * @param value value to marshal, perhaps null
+     * @throws JAXBException if marshalling failed
+     */
+    private <T> void marshal (XMLStreamWriter out,
+                              String name,
+                              Class<T> type,
+                              T value)
+            throws JAXBException
+    {
+        if (value != null) {
+            marshaller.marshal(new JAXBElement<T>(new QName(name), type, value), out);
+        }
+    }
+
+    //-----------//
+    // writeText //
+    //-----------//
+    private void writeText (String name,
+                            String text)
+            throws XMLStreamException
+    {
+        if (text != null) {
+            writer.writeStartElement(name);
+            writer.writeCharacters(text);
+            writer.writeEndElement();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Spool //
+    //-------//
+    /**
+     * Temporary file which gathers the whole part element of one part.
+     */
+    private static class Spool
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Temporary file. */
+        private final Path path;
+
+        /** Stream on file. */
+        private final OutputStream out;
+
+        /** Writer on stream, indented as a child of score-partwise. */
+        private final XMLStreamWriter writer;
+
+        /** Is the part element still open?. */
+        private boolean open = true;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        /**
+         * Create the spool file for a part, and start its part element.
+         *
+         * @param id part id
+         */
+        Spool (String id)
+                throws IOException, XMLStreamException
+        {
+            path = Files.createTempFile("part-" + id + "-", ".xml");
+            out = Files.newOutputStream(path);
+            writer = new IndentingXMLStreamWriter(
+                    XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8"),
+                    "  ",
+                    1);
+            writer.writeStartElement("part");
+            writer.writeAttribute("id", id);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Close the part element and copy the whole file to provided output.
+         */
+        void copyTo (OutputStream os)
+                throws IOException, XMLStreamException
+        {
+            close();
+            Files.copy(path, os);
+        }
+
+        /**
+         * Release the file.
+         */
+        void delete ()
+        {
+            try {
+                close();
+            } catch (Exception ex) {
+                logger.warn("Error closing {}", path, ex);
+            }
+
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ex) {
+                logger.warn("Could not delete {}", path, ex);
+            }
+        }
+
+        private void close ()
+                throws IOException, XMLStreamException
+        {
+            if (open) {
+                open = false;
+
+                try {
+                    writer.writeEndElement(); // part
+                    writer.flush();
+                    writer.close();
+                } finally {
+                    out.close();
+                }
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@
 package org.audiveris.omr.score;
 
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.proxymusic.ScorePartwise;
 import org.audiveris.proxymusic.mxl.Mxl;
 import org.audiveris.proxymusic.mxl.RootFile;
@@ -47,6 +49,8 @@ public class ScoreExporter
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(ScoreExporter.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -110,11 +114,34 @@ public class ScoreExporter
                         String scoreName,
                         boolean compressed)
             throws Exception
+    {
+        export(os, signed, scoreName, compressed, isStreaming());
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Export the score to an output stream, with explicit choice of streaming.
+     *
+     * @param os         the output stream where XML data is written (cannot be null)
+     * @param signed     should we inject ProxyMusic signature?
+     * @param scoreName  (for compressed only) simple score name, without extension
+     * @param compressed true for compressed output
+     * @param streaming  true to stream measure by measure, false to marshal a whole tree
+     * @throws Exception if something goes wrong
+     */
+    void export (OutputStream os,
+                 boolean signed,
+                 String scoreName,
+                 boolean compressed,
+                 boolean streaming)
+            throws Exception
     {
         Objects.requireNonNull(os, "Trying to export a score to a null output stream");
 
-        // Build the ScorePartwise proxy
-        ScorePartwise scorePartwise = PartwiseBuilder.build(score);
+        // Build the ScorePartwise proxy, unless we stream it
+        ScorePartwise scorePartwise = streaming ? null : PartwiseBuilder.build(score);
 
         // Marshal the proxy
         if (compressed) {
@@ -127,10 +154,21 @@ public class ScoreExporter
 
             mof.addEntry(
                     new RootFile(scoreName + OMR.SCORE_EXTENSION, RootFile.MUSICXML_MEDIA_TYPE));
-            Marshalling.marshal(scorePartwise, zos, signed, 2);
+
+            if (streaming) {
+                PartwiseStreamer.stream(score, zos, signed);
+            } else {
+                Marshalling.marshal(scorePartwise, zos, signed, 2);
+            }
+
             mof.close();
         } else {
-            Marshalling.marshal(scorePartwise, os, signed, 2);
+            if (streaming) {
+                PartwiseStreamer.stream(score, os, signed);
+            } else {
+                Marshalling.marshal(scorePartwise, os, signed, 2);
+            }
+
             os.close();
         }
     }
@@ -160,4 +198,32 @@ public class ScoreExporter
         // Marshal the proxy
         Marshalling.marshal(scorePartwise, node, signed);
     }
+
+    //-------------//
+    // isStreaming //
+    //-------------//
+    /**
+     * Report whether MusicXML export is streamed measure by measure, rather than
+     * marshalled from a complete ScorePartwise tree.
+     *
+     * @return true for streamed export
+     */
+    public static boolean isStreaming ()
+    {
+        return constants.streamingExport.isSet();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean streamingExport = new Constant.Boolean(
+                false,
+                "Should we stream MusicXML export measure by measure?");
+    }
 }
@@ -24,6 +24,8 @@ package org.audiveris.omr.sheet;
 import org.audiveris.omr.WellKnowns;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.UriUtil;
 
 import org.slf4j.Logger;
@@ -38,9 +40,7 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -130,10 +130,10 @@ public class AliasPatterns
                     URL url = uri.toURL();
 
                     // Retrieve the raw strings
-                    JAXBContext jaxbContext = JAXBContext.newInstance(Strings.class);
                     InputStream input = url.openStream();
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-                    Strings strings = (Strings) um.unmarshal(input);
+                    Strings strings = (Strings) Jaxb.unmarshal(
+                            input,
+                            JaxbContexts.getContext(Strings.class));
                     input.close();
 
                     List<String> stringList = strings.list;
@@ -51,7 +51,7 @@ import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.text.Language;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
-import org.audiveris.omr.util.Memory;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.ZipFileSystem;
@@ -73,7 +73,9 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
@@ -89,7 +91,6 @@ import javax.swing.SwingUtilities;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -115,9 +116,6 @@ public class BasicBook
     private static final Logger logger = LoggerFactory.getLogger(
             Book.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -205,6 +203,9 @@ public class BasicBook
     /** Book-level sample repository. */
     private SampleRepository repository;
 
+    /** Journal of batch processing, if any. */
+    private volatile BookJournal journal;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a Book with a path to an input images file.
@@ -267,21 +268,44 @@ public class BasicBook
             final Path path = bookFolder.resolve(getRadix() + BOOK_ANNOTATIONS_SUFFIX);
             root = ZipFileSystem.create(path);
 
-            for (SheetStub stub : getValidStubs()) {
-                try {
-                    LogUtil.start(stub);
+            final Path folder = root;
+            final List<SheetStub> validStubs = getValidStubs();
+            final long startTime = System.currentTimeMillis();
 
-                    final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
-                    final Sheet sheet = stub.getSheet();
-                    sheet.annotate(sheetFolder);
-                } catch (Exception ex) {
-                    logger.warn("Error annotating {} {}", stub, ex.toString(), ex);
-                } finally {
-                    LogUtil.stopStub();
+            if ((validStubs.size() > 1)
+                && constants.annotateStubsInParallel.isSet()
+                && (OmrExecutors.defaultParallelism.getValue() == true)) {
+                // Annotate all stubs in parallel, each sheet being written to its own zip entries
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (final SheetStub stub : validStubs) {
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                        {
+                            annotateStub(stub, folder);
+
+                            return null;
+                        }
+                    });
+                }
+
+                OmrExecutors.invokeAll(OmrExecutors.getLowExecutor(), tasks);
+            } else {
+                for (SheetStub stub : validStubs) {
+                    annotateStub(stub, folder);
                 }
             }
 
-            logger.info("Book annotated as {}", path);
+            final long dur = System.currentTimeMillis() - startTime;
+            logger.info(
+                    "Book annotated as {}, {} sheets in {} ms ({} sheets/min)",
+                    path,
+                    validStubs.size(),
+                    dur,
+                    String.format("%.1f", (60_000.0 * validStubs.size()) / Math.max(1, dur)));
         } catch (Exception ex) {
             logger.warn("Error annotating book {} {}", this, ex.toString(), ex);
         } finally {
@@ -302,6 +326,11 @@ public class BasicBook
     {
         setClosing(true);
 
+        // Release any sheet material loaded in advance
+        for (SheetStub stub : new ArrayList<SheetStub>(stubs)) {
+            stub.discardPrefetch();
+        }
+
         // Close contained stubs/sheets
         if (OMR.gui != null) {
             SwingUtilities.invokeLater(
@@ -337,9 +366,6 @@ public class BasicBook
         // Remove from OMR instances
         OMR.engine.removeBook(this);
 
-        // Time for some cleanup...
-        Memory.gc();
-
         logger.debug("Book closed.");
     }
 
@@ -414,8 +440,7 @@ public class BasicBook
             Path internalsPath = rootPath.resolve(Book.BOOK_INTERNALS);
             InputStream is = Files.newInputStream(internalsPath, StandardOpenOption.READ);
 
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-            book = (BasicBook) um.unmarshal(is);
+            book = (BasicBook) Jaxb.unmarshal(is, getJaxbContext());
             book.getLock().lock();
             LogUtil.start(book);
 
@@ -747,6 +772,15 @@ public class BasicBook
         return path;
     }
 
+    //------------//
+    // getJournal //
+    //------------//
+    @Override
+    public BookJournal getJournal ()
+    {
+        return journal;
+    }
+
     //---------//
     // getLock //
     //---------//
@@ -1152,8 +1186,9 @@ public class BasicBook
                     }
 
                     try {
-                        List<Future<Boolean>> futures = OmrExecutors.getCachedLowExecutor()
-                                .invokeAll(tasks);
+                        List<Future<Boolean>> futures = OmrExecutors.invokeAll(
+                                OmrExecutors.getCachedLowExecutor(),
+                                tasks);
 
                         for (Future<Boolean> future : futures) {
                             try {
@@ -1173,24 +1208,39 @@ public class BasicBook
                     }
                 } else {
                     // Process one stub after the other
-                    for (SheetStub stub : concernedStubs) {
-                        LogUtil.start(stub);
+                    try {
+                        for (int i = 0; i < concernedStubs.size(); i++) {
+                            final SheetStub stub = concernedStubs.get(i);
+                            LogUtil.start(stub);
+
+                            // In batch, load next sheet structure while this one is being processed
+                            if ((OMR.gui == null)
+                                && constants.prefetchNextSheet.isSet()
+                                && (i + 1 < concernedStubs.size())) {
+                                concernedStubs.get(i + 1).prefetchSheet();
+                            }
 
-                        try {
-                            if (stub.reachStep(target, force)) {
-                                if (OMR.gui == null) {
-                                    stub.swapSheet(); // Save sheet & global book info to disk
+                            try {
+                                if (stub.reachStep(target, force)) {
+                                    if (OMR.gui == null) {
+                                        stub.swapSheet(); // Save sheet & global book info to disk
+                                    }
+                                } else {
+                                    someFailure = true;
                                 }
-                            } else {
+                            } catch (Exception ex) {
+                                // Exception (such as timeout) raised on stub
+                                // Let processing continue for the other stubs
+                                logger.warn("Error processing stub");
                                 someFailure = true;
+                            } finally {
+                                LogUtil.stopStub();
                             }
-                        } catch (Exception ex) {
-                            // Exception (such as timeout) raised on stub
-                            // Let processing continue for the other stubs
-                            logger.warn("Error processing stub");
-                            someFailure = true;
-                        } finally {
-                            LogUtil.stopStub();
+                        }
+                    } finally {
+                        // Don't keep sheets prefetched for a stopped processing
+                        for (SheetStub stub : concernedStubs) {
+                            stub.discardPrefetch();
                         }
                     }
                 }
@@ -1327,6 +1377,15 @@ public class BasicBook
         this.exportPathSansExt = exportPathSansExt;
     }
 
+    //------------//
+    // setJournal //
+    //------------//
+    @Override
+    public void setJournal (BookJournal journal)
+    {
+        this.journal = journal;
+    }
+
     //-------------//
     // setModified //
     //-------------//
@@ -1379,7 +1438,10 @@ public class BasicBook
     public void store (Path bookPath,
                        boolean withBackup)
     {
-        Memory.gc(); // Launch garbage collection, to save on weak glyph references ...
+        // Sheets swapped in background must be in book file before it gets copied
+        for (SheetStub stub : new ArrayList<SheetStub>(stubs)) {
+            stub.awaitSwap();
+        }
 
         boolean diskWritten = false; // Has disk actually been written?
 
@@ -1394,6 +1456,9 @@ public class BasicBook
 
         Path root = null; // Root of the zip file system
 
+        // Sheets actually written, with their latest step, to be checkpointed in journal
+        final Map<Integer, Step> stored = new LinkedHashMap<Integer, Step>();
+
         try {
             getLock().lock();
             checkRadixChange(bookPath);
@@ -1416,9 +1481,19 @@ public class BasicBook
                 // Contained sheets
                 for (SheetStub stub : stubs) {
                     if (stub.isModified()) {
-                        final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
-                        stub.getSheet().store(sheetFolder, null);
-                        diskWritten = true;
+                        final Sheet sheet = storableSheet(stub);
+
+                        if (sheet != null) {
+                            final Path sheetFolder = root.resolve(
+                                    INTERNALS_RADIX + stub.getNumber());
+                            final Step latestStep = stub.getLatestStep();
+                            sheet.store(sheetFolder, null);
+                            diskWritten = true;
+
+                            if (!stub.isModified()) {
+                                stored.put(stub.getNumber(), latestStep);
+                            }
+                        }
                     }
                 }
 
@@ -1441,19 +1516,41 @@ public class BasicBook
                     final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
 
                     // By default, copy existing sheet files
+                    // (A stub left to its background store gets only its modified files
+                    // rewritten into the new book file, the others must come from the old one)
                     if (Files.exists(oldSheetFolder)) {
                         FileUtil.copyTree(oldSheetFolder, sheetFolder);
                     }
 
                     // Update modified sheet files
                     if (stub.isModified()) {
-                        stub.getSheet().store(sheetFolder, oldSheetFolder);
+                        final Sheet sheet = storableSheet(stub);
+
+                        if (sheet != null) {
+                            final Step latestStep = stub.getLatestStep();
+                            sheet.store(sheetFolder, oldSheetFolder);
+
+                            if (!stub.isModified()) {
+                                stored.put(stub.getNumber(), latestStep);
+                            }
+                        }
                     }
                 }
 
                 oldRoot.getFileSystem().close(); // Close old book file
             }
 
+            // Sheet data actually reaches the disk when book file gets closed
+            root.getFileSystem().close();
+            root = null;
+
+            // Now journal can't be behind the sheets stored (a resumed batch would re-run steps)
+            if (journal != null) {
+                for (Map.Entry<Integer, Step> entry : stored.entrySet()) {
+                    journal.checkpointed(entry.getKey(), entry.getValue());
+                }
+            }
+
             this.bookPath = bookPath;
 
             BookManager.getInstance().getBookHistory().add(bookPath); // Insert in history
@@ -1661,6 +1758,31 @@ public class BasicBook
         }
     }
 
+    //--------------//
+    // annotateStub //
+    //--------------//
+    /**
+     * Write the annotations of one sheet into its own folder.
+     *
+     * @param stub the sheet stub to annotate
+     * @param root the root folder of book annotations
+     */
+    private void annotateStub (SheetStub stub,
+                               Path root)
+    {
+        try {
+            LogUtil.start(stub);
+
+            final Path sheetFolder = root.resolve(INTERNALS_RADIX + stub.getNumber());
+            final Sheet sheet = stub.getSheet();
+            sheet.annotate(sheetFolder);
+        } catch (Exception ex) {
+            logger.warn("Error annotating {} {}", stub, ex.toString(), ex);
+        } finally {
+            LogUtil.stopStub();
+        }
+    }
+
     //-----------------------//
     // areVersionsCompatible //
     //-----------------------//
@@ -1838,12 +1960,7 @@ public class BasicBook
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(BasicBook.class, RunTable.class);
-        }
-
-        return jaxbContext;
+        return JaxbContexts.getContext(BasicBook.class, RunTable.class);
     }
 
     //--------------//
@@ -2106,6 +2223,32 @@ public class BasicBook
         return impacted;
     }
 
+    //---------------//
+    // storableSheet //
+    //---------------//
+    /**
+     * Report the sheet instance of provided modified stub that can be stored while book lock
+     * is held.
+     * <p>
+     * Sheet is read once, via {@link SheetStub#peekSheet()}, since {@link SheetStub#getSheet()}
+     * may wait for a background store which itself needs the book lock.
+     * A stub with no sheet in memory has been swapped, its background store will write the sheet
+     * into the current book file once the lock gets released.
+     *
+     * @param stub the modified stub
+     * @return the sheet to store, or null if stub is left to its background store
+     */
+    private static Sheet storableSheet (SheetStub stub)
+    {
+        final Sheet sheet = stub.peekSheet();
+
+        if (sheet == null) {
+            logger.debug("{} left to its background store", stub);
+        }
+
+        return sheet;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -2147,6 +2290,14 @@ public class BasicBook
                 false,
                 "Should we process all stubs of a book in parallel? (beware of many stubs)");
 
+        private final Constant.Boolean annotateStubsInParallel = new Constant.Boolean(
+                false,
+                "Should we annotate all stubs of a book in parallel? (beware of many stubs)");
+
+        private final Constant.Boolean prefetchNextSheet = new Constant.Boolean(
+                true,
+                "Should we load next sheet structure in background during batch processing?");
+
         private final Constant.Boolean checkBookVersion = new Constant.Boolean(
                 true,
                 "Should we check version of loaded book files?");
@@ -66,6 +66,7 @@ import org.audiveris.omr.ui.util.WeakItemRenderer;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.Navigable;
 
 import org.slf4j.Logger;
@@ -73,6 +74,8 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -83,8 +86,10 @@ import java.nio.file.Paths;
 import static java.nio.file.StandardOpenOption.CREATE;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -93,7 +98,6 @@ import javax.imageio.ImageIO;
 import javax.swing.SwingUtilities;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -135,9 +139,6 @@ public class BasicSheet
         LocationEvent.class, PixelEvent.class
     };
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -387,6 +388,39 @@ public class BasicSheet
         }
     }
 
+    //---------//
+    // capture //
+    //---------//
+    /**
+     * Marshal the sheet material to memory, rather than to the book file.
+     * <p>
+     * This is the in-memory counterpart of {@link #store(Path, Path)}: the modified picture
+     * tables and the sheet structure are captured as bytes, so that the sheet instance can be
+     * released before the bytes get actually written.
+     * Modified flags are left unchanged, it is up to the caller to reset them once the bytes are
+     * safely written.
+     *
+     * @return the sheet entries (file name within sheet folder, then bytes), in writing order
+     * @throws Exception if marshalling failed
+     */
+    public Map<String, byte[]> capture ()
+            throws Exception
+    {
+        final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+
+        // Picture internals, if any
+        if (picture != null) {
+            picture.capture(entries);
+        }
+
+        // Sheet structure (sheet#n.xml)
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Jaxb.marshal(this, baos, getJaxbContext());
+        entries.put(getSheetFileName(stub.getNumber()), baos.toByteArray());
+
+        return entries;
+    }
+
     //------------------//
     // createBinaryView //
     //------------------//
@@ -820,15 +854,43 @@ public class BasicSheet
     public static BasicSheet unmarshal (InputStream in)
             throws JAXBException
     {
-        Unmarshaller um = getJaxbContext().createUnmarshaller();
-
-        ///um.setListener(new Jaxb.UnmarshalLogger());
-        BasicSheet sheet = (BasicSheet) um.unmarshal(in);
+        BasicSheet sheet = (BasicSheet) Jaxb.unmarshal(in, getJaxbContext());
         logger.debug("Sheet unmarshalled");
 
         return sheet;
     }
 
+    //---------//
+    // restore //
+    //---------//
+    /**
+     * Rebuild a sheet instance from its captured material.
+     * <p>
+     * This is the reverse of {@link #capture()}, meant for captured bytes that could not be
+     * written to the book file: the captured tables are restored as modified, the other tables are
+     * still those of the book file.
+     *
+     * @param stub    the related stub
+     * @param entries the captured entries (file name within sheet folder, then bytes)
+     * @return the rebuilt sheet, ready to use
+     * @throws JAXBException if unmarshalling failed
+     */
+    public static BasicSheet restore (SheetStub stub,
+                                      Map<String, byte[]> entries)
+            throws JAXBException
+    {
+        final byte[] bytes = entries.get(getSheetFileName(stub.getNumber()));
+        final BasicSheet sheet = unmarshal(new ByteArrayInputStream(bytes));
+
+        if (sheet.picture != null) {
+            sheet.picture.restore(entries);
+        }
+
+        sheet.afterReload(stub);
+
+        return sheet;
+    }
+
     //---------------//
     // getSheetDelta //
     //---------------//
@@ -1112,12 +1174,7 @@ public class BasicSheet
     private static JAXBContext getJaxbContext ()
             throws JAXBException
     {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(BasicSheet.class);
-        }
-
-        return jaxbContext;
+        return JaxbContexts.getContext(BasicSheet.class);
     }
 
     //------------------------//
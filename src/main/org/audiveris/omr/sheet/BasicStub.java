@@ -41,7 +41,6 @@ import org.audiveris.omr.step.StepException;
 import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.ui.Colors;
 import org.audiveris.omr.util.Jaxb;
-import org.audiveris.omr.util.Memory;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
@@ -53,18 +52,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.image.BufferedImage;
-import java.io.InputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -96,6 +101,9 @@ public class BasicStub
     private static final Logger logger = LoggerFactory.getLogger(
             BasicStub.class);
 
+    /** Bytes of swapped sheets captured but not yet written, across all stubs. */
+    private static final AtomicLong pendingBytes = new AtomicLong();
+
     //~ Instance fields ----------------------------------------------------------------------------
     //
     // Persistent data
@@ -147,6 +155,15 @@ public class BasicStub
     /** Full sheet material, if any. */
     private volatile BasicSheet sheet;
 
+    /** Sheet material being loaded in background, if any. */
+    private volatile Future<BasicSheet> prefetched;
+
+    /** Background storing of swapped sheet material, if any. */
+    private final AtomicReference<Future<Void>> pendingSwap = new AtomicReference<Future<Void>>();
+
+    /** Captured entries of swapped sheet whose background storing failed, if any. */
+    private volatile Map<String, byte[]> unsaved;
+
     /** The step being performed on the sheet. */
     private volatile Step currentStep;
 
@@ -189,6 +206,35 @@ public class BasicStub
         pageRefs.add(pageRef);
     }
 
+    //-----------//
+    // awaitSwap //
+    //-----------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the background storing failed, the swapped sheet is rebuilt from its captured bytes
+     * (with its modifications) and given back to this stub, so that nothing is lost.
+     */
+    @Override
+    public void awaitSwap ()
+    {
+        final Future<Void> pending = pendingSwap.get();
+
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException ex) {
+                throw new ProcessingCancellationException(ex);
+            } catch (ExecutionException ex) {
+                logger.warn("{} background store failed {}", this, ex.getCause().toString());
+                restoreUnsaved();
+            }
+
+            // Don't clear a more recent swap
+            pendingSwap.compareAndSet(pending, null);
+        }
+    }
+
     //---------------//
     // clearPageRefs //
     //---------------//
@@ -207,6 +253,8 @@ public class BasicStub
     @Override
     public void close ()
     {
+        discardPrefetch();
+
         // If no stub is left, force book closing
         if (!book.isClosing()) {
             if (!book.getStubs().isEmpty()) {
@@ -249,6 +297,20 @@ public class BasicStub
         }
     }
 
+    //-----------------//
+    // discardPrefetch //
+    //-----------------//
+    @Override
+    public void discardPrefetch ()
+    {
+        final Future<BasicSheet> pending = prefetched;
+        prefetched = null;
+
+        if (pending != null) {
+            pending.cancel(true);
+        }
+    }
+
     //------//
     // done //
     //------//
@@ -438,6 +500,9 @@ public class BasicStub
     {
         if (sheet == null) {
             synchronized (this) {
+                // A failed background store may give the sheet instance back
+                awaitSwap();
+
                 // We have to recheck sheet, which may have just been allocated
                 if (sheet == null) {
                     if (SwingUtilities.isEventDispatchThread()) {
@@ -457,31 +522,35 @@ public class BasicStub
                         StopWatch watch = new StopWatch("Load Sheet " + this);
 
                         try {
-                            Path sheetFile = null;
-                            watch.start("unmarshal");
-
-                            // Open the book file system
-                            try {
-                                book.getLock().lock();
-                                sheetFile = book.openSheetFolder(number).resolve(
-                                        BasicSheet.getSheetFileName(number));
-
-                                InputStream is = Files.newInputStream(
-                                        sheetFile,
-                                        StandardOpenOption.READ);
-                                sheet = BasicSheet.unmarshal(is);
-
-                                // Close the stream as well as the book file system
-                                is.close();
-                                sheetFile.getFileSystem().close();
-                            } finally {
-                                book.getLock().unlock();
+                            BasicSheet loaded = null;
+                            final Future<BasicSheet> pending = prefetched;
+                            prefetched = null;
+
+                            if (pending != null) {
+                                watch.start("prefetched");
+
+                                try {
+                                    loaded = pending.get();
+                                } catch (Exception ex) {
+                                    logger.info("Prefetch failed for {} {}", this, ex.toString());
+                                }
                             }
 
+                            if (loaded == null) {
+                                // Only the reading of sheet bytes is done under book lock
+                                watch.start("read");
+
+                                final byte[] bytes = readSheetBytes();
+                                watch.start("unmarshal");
+                                loaded = BasicSheet.unmarshal(new ByteArrayInputStream(bytes));
+                            }
+
+                            sheet = loaded;
+
                             // Complete sheet reload
                             watch.start("afterReload");
                             sheet.afterReload(this);
-                            logger.info("Loaded {}", sheetFile);
+                            logger.info("Loaded {}", BasicSheet.getSheetFileName(number));
                         } catch (Exception ex) {
                             logger.warn("Error in loading sheet structure " + ex, ex);
                             logger.info("Trying to restart from binary");
@@ -633,6 +702,38 @@ public class BasicStub
         return ok;
     }
 
+    //-----------//
+    // peekSheet //
+    //-----------//
+    @Override
+    public BasicSheet peekSheet ()
+    {
+        return sheet;
+    }
+
+    //---------------//
+    // prefetchSheet //
+    //---------------//
+    @Override
+    public void prefetchSheet ()
+    {
+        if ((sheet != null) || (prefetched != null) || !isDone(Step.LOAD) || !isValid()) {
+            return;
+        }
+
+        logger.debug("Prefetching {}", this);
+        prefetched = OmrExecutors.getCachedLowExecutor().submit(
+                new Callable<BasicSheet>()
+        {
+            @Override
+            public BasicSheet call ()
+                    throws Exception
+            {
+                return BasicSheet.unmarshal(new ByteArrayInputStream(readSheetBytes()));
+            }
+        });
+    }
+
     //-------//
     // reset //
     //-------//
@@ -695,6 +796,20 @@ public class BasicStub
         }
     }
 
+    //----------//
+    // rollBack //
+    //----------//
+    @Override
+    public void rollBack (Step step)
+    {
+        if (step == null) {
+            doReset();
+        } else {
+            doneSteps.retainAll(EnumSet.range(Step.first(), step));
+            setModified(true);
+        }
+    }
+
     //----------------//
     // setCurrentStep //
     //----------------//
@@ -724,6 +839,8 @@ public class BasicStub
     public void storeSheet ()
             throws Exception
     {
+        awaitSwap();
+
         if (modified) {
             book.getLock().lock();
 
@@ -736,6 +853,12 @@ public class BasicStub
                 Path sheetFolder = root.resolve(INTERNALS_RADIX + getNumber());
                 sheet.store(sheetFolder, null);
                 root.getFileSystem().close();
+
+                final BookJournal journal = book.getJournal();
+
+                if (journal != null) {
+                    journal.checkpointed(number, getLatestStep());
+                }
             } finally {
                 book.getLock().unlock();
             }
@@ -750,14 +873,18 @@ public class BasicStub
     {
         try {
             if (isModified()) {
-                logger.info("{} storing", this);
-                storeSheet();
+                if ((sheet != null) && constants.asyncSwap.isSet()) {
+                    storeSheetInBackground();
+                } else {
+                    logger.info("{} storing", this);
+                    storeSheet();
+                }
             }
 
             if (sheet != null) {
                 logger.info("{} disposed", sheet);
                 sheet = null;
-                Memory.gc(); // Trigger a garbage collection...
+                discardPrefetch(); // Any prefetched material predates this swap
             }
 
             if (OMR.gui != null) {
@@ -887,9 +1014,19 @@ public class BasicStub
             future.get(timeout, TimeUnit.SECONDS);
 
             // At end of each step, save sheet to disk?
-            if ((OMR.gui == null) && Main.saveSheetOnEveryStep()) {
-                logger.debug("calling storeSheet");
-                storeSheet();
+            if (OMR.gui == null) {
+                final BookJournal journal = book.getJournal();
+
+                if (journal != null) {
+                    // Journaled batch: just periodic checkpoints
+                    if (journal.isCheckpointDue(number)) {
+                        logger.debug("checkpoint storeSheet");
+                        storeSheet();
+                    }
+                } else if (Main.saveSheetOnEveryStep()) {
+                    logger.debug("calling storeSheet");
+                    storeSheet();
+                }
             }
         } catch (TimeoutException tex) {
             logger.warn("Timeout {} seconds for step {}", timeout, step, tex);
@@ -915,6 +1052,7 @@ public class BasicStub
         pageRefs.clear();
         invalid = false;
         sheet = null;
+        discardPrefetch();
 
         if (assembly != null) {
             assembly.reset();
@@ -977,6 +1115,211 @@ public class BasicStub
         }
     }
 
+    //----------------//
+    // readSheetBytes //
+    //----------------//
+    /**
+     * Read the raw sheet XML content from book file.
+     * <p>
+     * Book lock is held only while reading the bytes, unmarshalling can then be performed
+     * outside of the lock, and thus in parallel with other sheets.
+     *
+     * @return the sheet XML bytes
+     * @throws IOException if reading failed
+     */
+    byte[] readSheetBytes ()
+            throws IOException
+    {
+        awaitSwap(); // Book file must be up to date
+
+        book.getLock().lock();
+
+        try {
+            final Path sheetFile = book.openSheetFolder(number).resolve(
+                    BasicSheet.getSheetFileName(number));
+            final byte[] bytes = Files.readAllBytes(sheetFile);
+
+            // Close the book file system
+            sheetFile.getFileSystem().close();
+
+            return bytes;
+        } finally {
+            book.getLock().unlock();
+        }
+    }
+
+    //----------------//
+    // restoreUnsaved //
+    //----------------//
+    /**
+     * Give back to this stub the swapped sheet whose storing failed, if any, by rebuilding it
+     * from its captured bytes.
+     */
+    private synchronized void restoreUnsaved ()
+    {
+        final Map<String, byte[]> failed = unsaved;
+        unsaved = null;
+
+        if ((failed != null) && (sheet == null)) {
+            discardPrefetch(); // Book file is not up to date
+
+            try {
+                sheet = BasicSheet.restore(this, failed);
+                logger.warn("{} restored in memory, still to be stored", this);
+            } catch (Exception ex) {
+                logger.error("{} could not be restored, latest changes are lost {}", this, ex);
+            }
+        }
+    }
+
+    //--------------//
+    // storeEntries //
+    //--------------//
+    /**
+     * Submit the writing of captured sheet entries to the provided executor.
+     * <p>
+     * The modified flag of this stub is reset only once the entries are actually written.
+     * If writing fails, the captured entries are kept, for {@link #awaitSwap()} to rebuild the
+     * sheet from them.
+     * <p>
+     * When captured bytes waiting for the I/O executor exceed {@code maxPendingMegabytes}, the
+     * entries are written by the calling thread.
+     *
+     * @param executor the executor to write entries
+     * @param entries  the captured entries (file name within sheet folder, then bytes)
+     */
+    void storeEntries (ExecutorService executor,
+                       final Map<String, byte[]> entries)
+    {
+        awaitSwap(); // One pending store at most per stub
+
+        final Step latestStep = getLatestStep();
+        long size = 0;
+
+        for (byte[] bytes : entries.values()) {
+            size += bytes.length;
+        }
+
+        final long entriesSize = size;
+        final long pending = pendingBytes.addAndGet(entriesSize);
+        final long budget = constants.maxPendingMegabytes.getValue() * 1024L * 1024L;
+        final boolean overBudget = pending > budget;
+        logger.info(
+                "{} storing {} KB in {} ({} KB pending overall)",
+                this,
+                entriesSize / 1024,
+                overBudget ? "foreground" : "background",
+                pending / 1024);
+
+        final FutureTask<Void> task = new FutureTask<Void>(
+                new Callable<Void>()
+        {
+            @Override
+            public Void call ()
+                    throws Exception
+            {
+                try {
+                    writeSheetEntries(entries, latestStep);
+                    setModified(false);
+
+                    return null;
+                } catch (Exception ex) {
+                    logger.warn("Error storing {} {}", BasicStub.this, ex.toString(), ex);
+                    unsaved = entries;
+                    throw ex;
+                } finally {
+                    pendingBytes.addAndGet(-entriesSize);
+                }
+            }
+        });
+
+        pendingSwap.set(task);
+
+        if (overBudget) {
+            task.run(); // Back-pressure on captured bytes
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    //------------------------//
+    // storeSheetInBackground //
+    //------------------------//
+    /**
+     * Capture the sheet material as bytes, and hand them over to the I/O executor for
+     * actual writing into the book file.
+     * <p>
+     * The sheet instance is not referenced by the background task, so it can be released as soon
+     * as its bytes are captured.
+     * The caller can thus go on as soon as this method returns.
+     * When too many stores or bytes are pending, the calling thread writes by itself.
+     * If the I/O executor is no longer available, sheet is stored synchronously.
+     *
+     * @throws Exception if capture or synchronous storing failed
+     */
+    private void storeSheetInBackground ()
+            throws Exception
+    {
+        final ExecutorService executor;
+
+        try {
+            executor = OmrExecutors.getIoExecutor();
+        } catch (ProcessingCancellationException ex) {
+            logger.info("{} storing", this);
+            storeSheet();
+
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        final Map<String, byte[]> entries = sheet.capture();
+        logger.debug("{} captured in {} ms", this, System.currentTimeMillis() - start);
+        storeEntries(executor, entries);
+    }
+
+    //-------------------//
+    // writeSheetEntries //
+    //-------------------//
+    /**
+     * Write the captured sheet material into the book file, together with book info.
+     *
+     * @param entries    the captured sheet entries
+     * @param latestStep the latest step performed on sheet when captured
+     * @throws Exception if writing failed
+     */
+    private void writeSheetEntries (Map<String, byte[]> entries,
+                                    Step latestStep)
+            throws Exception
+    {
+        book.getLock().lock();
+
+        try {
+            final Path bookPath = BookManager.getDefaultSavePath(book);
+            final Path root = ZipFileSystem.open(bookPath);
+            book.storeBookInfo(root); // Book info (book.xml)
+
+            final Path sheetFolder = root.resolve(INTERNALS_RADIX + getNumber());
+            Files.createDirectories(sheetFolder);
+
+            for (Entry<String, byte[]> entry : entries.entrySet()) {
+                final Path path = sheetFolder.resolve(entry.getKey());
+                Files.deleteIfExists(path);
+                Files.write(path, entry.getValue());
+                logger.info("Stored {}", path);
+            }
+
+            root.getFileSystem().close();
+
+            final BookJournal journal = book.getJournal();
+
+            if (journal != null) {
+                journal.checkpointed(number, latestStep);
+            }
+        } finally {
+            book.getLock().unlock();
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -1013,6 +1356,15 @@ public class BasicStub
         private final Constant.Boolean printWatch = new Constant.Boolean(
                 false,
                 "Should we print out the stop watch for sheet loading");
+
+        private final Constant.Boolean asyncSwap = new Constant.Boolean(
+                true,
+                "Should we store swapped sheets in background?");
+
+        private final Constant.Integer maxPendingMegabytes = new Constant.Integer(
+                "MB",
+                64,
+                "Maximum captured sheet bytes waiting for background storing");
     }
 
     //-------------------//
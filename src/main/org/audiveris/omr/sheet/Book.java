@@ -72,6 +72,8 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
  * <li>{@link #isClosing}</li>
  * <li>{@link #setClosing}</li>
  * <li>{@link #getLock}</li>
+ * <li>{@link #getJournal}</li>
+ * <li>{@link #setJournal}</li>
  * </ul></dd>
  *
  * <dt>SheetStubs</dt>
@@ -235,6 +237,13 @@ public interface Book
      */
     Path getInputPath ();
 
+    /**
+     * Report the journal of batch processing, if any.
+     *
+     * @return the journal, or null
+     */
+    BookJournal getJournal ();
+
     /**
      * Report the lock that protects book project file.
      *
@@ -480,6 +489,13 @@ public interface Book
      */
     void setExportPathSansExt (Path exportPathSansExt);
 
+    /**
+     * Set the journal of batch processing.
+     *
+     * @param journal the journal, or null
+     */
+    void setJournal (BookJournal journal);
+
     /**
      * Set the modified flag.
      *
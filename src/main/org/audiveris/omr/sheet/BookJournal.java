@@ -0,0 +1,347 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     B o o k J o u r n a l                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class {@code BookJournal} is a lightweight journal of batch processing on a book, that
+ * allows a restarted batch to resume where a previous one stopped.
+ * <p>
+ * It is a small text file, kept next to the book file, to which one line is appended and flushed
+ * for each checkpoint, that is each time a sheet is actually stored into the book file.
+ * Steps completed since the latest checkpoint of a sheet are not recorded, since their results
+ * are lost anyway when processing is interrupted.
+ * <p>
+ * Rather than storing a sheet after every step, sheets are checkpointed at most every
+ * {@code checkpointPeriod} seconds and when they are swapped out.
+ * Since storing a sheet also writes the book info (with the steps done on <b>all</b> sheets),
+ * the book file may claim steps whose sheet data did not make it to disk. On resumption, each
+ * sheet is thus rolled back to its latest checkpoint, as recorded by the journal.
+ * <p>
+ * The journal is deleted when the batch processing of its book completes.
+ *
+ * @author Hervé Bitteur
+ */
+public class BookJournal
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(BookJournal.class);
+
+    /** Extension for journal files. */
+    public static final String JOURNAL_EXTENSION = ".journal";
+
+    /** Entry for a stored sheet. */
+    private static final String SAVED = "saved";
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Journal file. */
+    private final Path path;
+
+    /** Latest checkpointed step, per sheet number. A null value for no step at all. */
+    private final SortedMap<Integer, Step> checkpoints = new TreeMap<Integer, Step>();
+
+    /** Time of latest checkpoint, per sheet number. */
+    private final Map<Integer, Long> checkpointTimes = new HashMap<Integer, Long>();
+
+    /** Writer on journal file. */
+    private BufferedWriter writer;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code BookJournal} object.
+     *
+     * @param path journal file
+     */
+    private BookJournal (Path path)
+    {
+        this.path = path;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // canResume //
+    //-----------//
+    /**
+     * Report whether the provided (fresh) book can resume an interrupted batch processing,
+     * that is whether both its book file and its journal exist.
+     *
+     * @param book the book at hand
+     * @return true if processing can be resumed from book file
+     */
+    public static boolean canResume (Book book)
+    {
+        return isEnabled()
+               && Files.exists(getPath(book))
+               && Files.exists(BookManager.getDefaultSavePath(book));
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    /**
+     * Report the path to the journal of the provided book.
+     *
+     * @param book the provided book
+     * @return the journal path
+     */
+    public static Path getPath (Book book)
+    {
+        return BookManager.getDefaultBookFolder(book).resolve(
+                book.getRadix() + JOURNAL_EXTENSION);
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether batch processing is journaled.
+     *
+     * @return true if so
+     */
+    public static boolean isEnabled ()
+    {
+        return constants.useJournal.isSet();
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Open the journal of the provided book.
+     * <p>
+     * If a journal already exists, the stubs are rolled back to their latest checkpoint and the
+     * journal is compacted, otherwise a new journal is started from the current stubs status.
+     *
+     * @param book the book to process, with its stubs already created
+     * @return the journal, ready for appending
+     * @throws IOException if journal could not be read or written
+     */
+    public static BookJournal open (Book book)
+            throws IOException
+    {
+        final BookJournal journal = new BookJournal(getPath(book));
+        final boolean resuming = Files.exists(journal.path);
+
+        if (resuming) {
+            journal.read();
+        }
+
+        for (SheetStub stub : book.getStubs()) {
+            final int number = stub.getNumber();
+
+            if (resuming && journal.checkpoints.containsKey(number)) {
+                final Step step = journal.checkpoints.get(number);
+                final Step latest = stub.getLatestStep();
+
+                if ((latest != null) && ((step == null) || (latest.compareTo(step) > 0))) {
+                    logger.info("Sheet#{} rolled back from {} to {}", number, latest, step);
+                    stub.rollBack(step);
+                }
+            } else {
+                // Sheet data on disk is consistent with its latest step
+                journal.checkpoints.put(number, stub.getLatestStep());
+            }
+        }
+
+        if (resuming) {
+            logger.info("Resuming {} from journal {}", book, journal.path);
+        }
+
+        // Rewrite the journal with just the current checkpoints
+        journal.writer = Files.newBufferedWriter(journal.path, StandardCharsets.UTF_8);
+
+        for (Map.Entry<Integer, Step> entry : journal.checkpoints.entrySet()) {
+            journal.append(SAVED, entry.getKey(), entry.getValue());
+        }
+
+        return journal;
+    }
+
+    //--------------//
+    // checkpointed //
+    //--------------//
+    /**
+     * Record that the provided sheet has been stored on disk.
+     *
+     * @param number sheet number
+     * @param step   latest step done on sheet
+     */
+    public synchronized void checkpointed (int number,
+                                           Step step)
+    {
+        checkpoints.put(number, step);
+        checkpointTimes.put(number, System.currentTimeMillis());
+        append(SAVED, number, step);
+    }
+
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Close the journal, keeping its file for a later resumption.
+     */
+    public synchronized void close ()
+    {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                logger.warn("Error closing journal {}", path, ex);
+            }
+
+            writer = null;
+        }
+    }
+
+    //--------//
+    // delete //
+    //--------//
+    /**
+     * Close the journal and delete its file, since book processing has completed.
+     */
+    public synchronized void delete ()
+    {
+        close();
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            logger.warn("Could not delete journal {}", path, ex);
+        }
+    }
+
+    //-----------------//
+    // isCheckpointDue //
+    //-----------------//
+    /**
+     * Report whether it is time to store the provided sheet.
+     *
+     * @param number sheet number
+     * @return true if latest checkpoint of this sheet is too old
+     */
+    public synchronized boolean isCheckpointDue (int number)
+    {
+        final long now = System.currentTimeMillis();
+        final Long last = checkpointTimes.get(number);
+
+        if (last == null) {
+            // Just start counting
+            checkpointTimes.put(number, now);
+
+            return false;
+        }
+
+        return (now - last) >= (1000L * constants.checkpointPeriod.getValue());
+    }
+
+    //--------//
+    // append //
+    //--------//
+    private void append (String kind,
+                         int number,
+                         Step step)
+    {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.write(kind + " " + number + " " + ((step != null) ? step : "-"));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException ex) {
+            logger.warn("Error writing journal {}, journal disabled", path, ex);
+            close();
+        }
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read the checkpoints from journal file.
+     * A malformed line (typically the last one, truncated by a crash) is ignored.
+     */
+    private void read ()
+            throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                final String[] tokens = line.trim().split("\\s+");
+
+                if ((tokens.length != 3) || !SAVED.equals(tokens[0])) {
+                    continue;
+                }
+
+                try {
+                    final int number = Integer.parseInt(tokens[1]);
+                    final Step step = "-".equals(tokens[2]) ? null : Step.valueOf(tokens[2]);
+                    checkpoints.put(number, step);
+                } catch (IllegalArgumentException ex) {
+                    logger.debug("Ignored journal line {}", line);
+                }
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useJournal = new Constant.Boolean(
+                true,
+                "Should we journal batch processing, to resume an interrupted batch?");
+
+        private final Constant.Integer checkpointPeriod = new Constant.Integer(
+                "Seconds",
+                60,
+                "Minimum delay between two checkpoints of a sheet in journaled batch");
+    }
+}
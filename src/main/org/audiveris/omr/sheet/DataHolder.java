@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +32,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -113,16 +114,13 @@ public class DataHolder<T>
                 book.getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(classe);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-
                     // Open book file system
                     Path dataFile = book.openSheetFolder(sheet.getStub().getNumber())
                             .resolve(pathString);
                     logger.debug("path: {}", dataFile);
 
                     InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (T) um.unmarshal(is);
+                    data = (T) Jaxb.unmarshal(is, JaxbContexts.getContext(classe));
                     is.close();
                     logger.info("Loaded {}", dataFile);
                     dataFile.getFileSystem().close(); // Close book file system
@@ -43,6 +43,7 @@ import org.audiveris.omr.ui.selection.MouseMovement;
 import org.audiveris.omr.ui.selection.PixelEvent;
 import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.StopWatch;
 
@@ -58,16 +59,19 @@ import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.SampleModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.EnumMap;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.media.jai.JAI;
-import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -285,6 +289,33 @@ public class Picture
         return img;
     }
 
+    //---------//
+    // capture //
+    //---------//
+    /**
+     * Marshal the modified tables to memory, rather than to the book file.
+     * <p>
+     * This is the in-memory counterpart of {@link #store(Path, Path)}, with no old sheet folder.
+     * Tables modified flags are left unchanged.
+     *
+     * @param entries (output) the map to populate with table file names and bytes
+     * @throws Exception if marshalling failed
+     */
+    public void capture (Map<String, byte[]> entries)
+            throws Exception
+    {
+        for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
+            final RunTableHolder holder = entry.getValue();
+
+            if (holder.hasData() && holder.isModified()) {
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                final RunTable table = holder.getData(sheet.getStub());
+                Jaxb.marshal(table, baos, JaxbContexts.getContext(RunTable.class));
+                entries.put(entry.getKey() + ".xml", baos.toByteArray());
+            }
+        }
+    }
+
     // For debug only
     public void checkSources ()
     {
@@ -680,6 +711,20 @@ public class Picture
         }
     }
 
+    //-------------------//
+    // moveTablesOffHeap //
+    //-------------------//
+    /**
+     * Move the run tables already in memory off the Java heap, if so desired.
+     * This is meant for a sheet which is no longer being processed.
+     */
+    public void moveTablesOffHeap ()
+    {
+        for (RunTableHolder holder : tables.values()) {
+            holder.moveOffHeap();
+        }
+    }
+
     //---------//
     // onEvent //
     //---------//
@@ -740,6 +785,34 @@ public class Picture
         tables.remove(key);
     }
 
+    //---------//
+    // restore //
+    //---------//
+    /**
+     * Give back to the tables their captured content, if any.
+     * <p>
+     * This is the reverse of {@link #capture(Map)}: restored tables are flagged as modified,
+     * since their content has not reached the book file.
+     * Tables with no captured content are left to be loaded from the book file on demand.
+     *
+     * @param entries the captured entries (file name within sheet folder, then bytes)
+     * @throws JAXBException if unmarshalling failed
+     */
+    public void restore (Map<String, byte[]> entries)
+            throws JAXBException
+    {
+        for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
+            final byte[] bytes = entries.get(entry.getKey() + ".xml");
+
+            if (bytes != null) {
+                final RunTable table = (RunTable) Jaxb.unmarshal(
+                        new ByteArrayInputStream(bytes),
+                        JaxbContexts.getContext(RunTable.class));
+                entry.getValue().setData(table, true);
+            }
+        }
+    }
+
     //----------//
     // setTable //
     //----------//
@@ -792,7 +865,7 @@ public class Picture
                     Files.deleteIfExists(tablepath);
 
                     RunTable table = holder.getData(sheet.getStub());
-                    Jaxb.marshal(table, tablepath, JAXBContext.newInstance(RunTable.class));
+                    Jaxb.marshal(table, tablepath, JaxbContexts.getContext(RunTable.class));
                     holder.setModified(false);
                     logger.info("Stored {}", tablepath);
                 } catch (Exception ex) {
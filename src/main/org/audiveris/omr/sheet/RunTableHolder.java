@@ -21,8 +21,12 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sheet.Picture.TableKey;
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +36,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -41,6 +43,9 @@ import javax.xml.bind.annotation.XmlAttribute;
 /**
  * Class {@code RunTableHolder} holds the reference to a run table, at least the path
  * to its marshalled data on disk, and (on demand) the unmarshalled run table itself.
+ * <p>
+ * If so desired, the run table of an idle sheet is kept off the Java heap, see
+ * {@link #moveOffHeap()}.
  *
  * @author Hervé Bitteur
  */
@@ -49,12 +54,14 @@ public class RunTableHolder
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(
             RunTableHolder.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
     /** Direct access to data, if any. */
-    private RunTable data;
+    private volatile RunTable data;
 
     /** Path to data on disk. */
     @XmlAttribute(name = "path")
@@ -97,16 +104,15 @@ public class RunTableHolder
                 stub.getBook().getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(RunTable.class);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-
                     // Open book file system
                     Path dataFile = stub.getBook().openSheetFolder(stub.getNumber())
                             .resolve(pathString);
                     logger.debug("path: {}", dataFile);
 
                     InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (RunTable) um.unmarshal(is);
+                    data = (RunTable) Jaxb.unmarshal(
+                            is,
+                            JaxbContexts.getContext(RunTable.class));
                     is.close();
 
                     dataFile.getFileSystem().close(); // Close book file system
@@ -149,6 +155,20 @@ public class RunTableHolder
         setModified(modified);
     }
 
+    //-------------//
+    // moveOffHeap //
+    //-------------//
+    /**
+     * Move the handled data, if any, off the Java heap if so desired.
+     * <p>
+     * This is meant for the tables of an idle or swapped sheet, since reading an off heap table
+     * sequence by sequence implies copies.
+     */
+    public void moveOffHeap ()
+    {
+        moveOffHeap(data);
+    }
+
     //-------------//
     // setModified //
     //-------------//
@@ -156,4 +176,32 @@ public class RunTableHolder
     {
         modified = bool;
     }
+
+    //-------------//
+    // moveOffHeap //
+    //-------------//
+    private static void moveOffHeap (RunTable table)
+    {
+        if ((table != null) && constants.offHeapTables.isSet()) {
+            table.moveOffHeap(constants.mappedTables.isSet());
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean offHeapTables = new Constant.Boolean(
+                false,
+                "Should we keep picture run tables off the Java heap?");
+
+        private final Constant.Boolean mappedTables = new Constant.Boolean(
+                false,
+                "Should off heap run tables be mapped on temporary files?");
+    }
 }
@@ -49,6 +49,10 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
  * <li>{@link #hasSheet}</li>
  * <li>{@link #getSheet}</li>
  * <li>{@link #swapSheet}</li>
+ * <li>{@link #awaitSwap}</li>
+ * <li>{@link #peekSheet}</li>
+ * <li>{@link #prefetchSheet}</li>
+ * <li>{@link #discardPrefetch}</li>
  * <li>{@link #decideOnRemoval}</li>
  * <li>{@link #isModified}</li>
  * <li>{@link #setModified}</li>
@@ -76,6 +80,7 @@ import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
  * <dd><ul>
  * <li>{@link #reset}</li>
  * <li>{@link #resetToBinary}</li>
+ * <li>{@link #rollBack}</li>
  * <li>{@link #reachStep}</li>
  * <li>{@link #getCurrentStep}</li>
  * <li>{@link #getLatestStep}</li>
@@ -110,6 +115,12 @@ public interface SheetStub
      */
     void addPageRef (PageRef pageRef);
 
+    /**
+     * Wait until any background storing of swapped sheet material is completed.
+     * A failed storing is reported, and the swapped sheet material is kept in memory.
+     */
+    void awaitSwap ();
+
     /**
      * Empty the collection of page references.
      */
@@ -132,6 +143,12 @@ public interface SheetStub
                           boolean dummy)
             throws StepException;
 
+    /**
+     * Cancel any background loading started by {@link #prefetchSheet()},
+     * and release the prefetched sheet material if any.
+     */
+    void discardPrefetch ();
+
     /**
      * In non batch mode, report the related SheetAssembly for GUI
      *
@@ -271,6 +288,22 @@ public interface SheetStub
      */
     boolean isValid ();
 
+    /**
+     * Report the sheet material currently in memory, without ever loading it.
+     * <p>
+     * Unlike {@link #getSheet()}, this method never waits for a pending background store, hence
+     * it can safely be called while book lock is held.
+     *
+     * @return the sheet in memory, or null
+     */
+    Sheet peekSheet ();
+
+    /**
+     * Start loading the sheet material in background, if it is not in memory yet.
+     * A later call to {@link #getSheet()} will use the prefetched material.
+     */
+    void prefetchSheet ();
+
     /**
      * Make sure the provided step has been reached on this sheet stub.
      *
@@ -291,6 +324,14 @@ public interface SheetStub
      */
     void resetToBinary ();
 
+    /**
+     * Roll this stub back to the provided step, all later steps being no longer considered
+     * as done.
+     *
+     * @param step the step to roll back to, null for no step at all
+     */
+    void rollBack (Step step);
+
     /**
      * Set the modified flag.
      *
@@ -309,6 +350,7 @@ public interface SheetStub
     /**
      * Swap sheet material.
      * If modified and not discarded, sheet material will be stored before being disposed of.
+     * Storing may be performed in background, see {@link #awaitSwap}.
      */
     void swapSheet ();
 
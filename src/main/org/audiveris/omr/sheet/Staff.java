@@ -355,6 +355,8 @@ public class Staff
      */
     public void addBarline (BarlineInter barline)
     {
+        checkReloaded();
+
         barlines.add(barline);
         Collections.sort(barlines, Inters.byCenterAbscissa);
         retrieveSideBars();
@@ -372,6 +374,8 @@ public class Staff
     public void addLedger (LedgerInter ledger,
                            int index)
     {
+        checkReloaded();
+
         Objects.requireNonNull(ledger, "Cannot add a null ledger");
 
         List<LedgerInter> ledgerSet = ledgerMap.get(index);
@@ -411,6 +415,8 @@ public class Staff
      */
     public void addNote (AbstractNoteInter note)
     {
+        checkReloaded();
+
         if (notes == null) {
             notes = new LinkedHashSet<AbstractNoteInter>();
         }
@@ -582,6 +588,8 @@ public class Staff
      */
     public List<BarlineInter> getBarlines ()
     {
+        checkReloaded();
+
         return Collections.unmodifiableList(barlines);
     }
 
@@ -686,6 +694,8 @@ public class Staff
      */
     public IndexedLedger getClosestLedger (Point2D point)
     {
+        checkReloaded();
+
         IndexedLedger bestLedger = null;
         double top = getFirstLine().yAt(point.getX());
         double bottom = getLastLine().yAt(point.getX());
@@ -865,6 +875,8 @@ public class Staff
      */
     public int getHeadPointSize ()
     {
+        checkReloaded();
+
         return MusicFont.getHeadPointSize(system.getSheet().getScale(), specificInterline);
     }
 
@@ -876,6 +888,8 @@ public class Staff
      */
     public StaffHeader getHeader ()
     {
+        checkReloaded();
+
         return header;
     }
 
@@ -915,6 +929,8 @@ public class Staff
      */
     public int getHeight ()
     {
+        checkReloaded();
+
         return specificInterline * (lines.size() - 1);
     }
 
@@ -942,6 +958,8 @@ public class Staff
      */
     public int getIndexInPart ()
     {
+        checkReloaded();
+
         Part part = getPart();
         List<Staff> staves = part.getStaves();
 
@@ -1012,6 +1030,8 @@ public class Staff
      */
     public Integer getLedgerIndex (LedgerInter ledger)
     {
+        checkReloaded();
+
         for (Map.Entry<Integer, List<LedgerInter>> entry : ledgerMap.entrySet()) {
             if (entry.getValue().contains(ledger)) {
                 return entry.getKey();
@@ -1026,6 +1046,8 @@ public class Staff
     //--------------//
     public SortedMap<Integer, List<LedgerInter>> getLedgerMap ()
     {
+        checkReloaded();
+
         return ledgerMap;
     }
 
@@ -1040,6 +1062,8 @@ public class Staff
      */
     public List<LedgerInter> getLedgers (int lineIndex)
     {
+        checkReloaded();
+
         return ledgerMap.get(lineIndex);
     }
 
@@ -1153,6 +1177,8 @@ public class Staff
      */
     public NotePosition getNotePosition (Point2D point)
     {
+        checkReloaded();
+
         double pitch = pitchPositionOf(point);
         IndexedLedger bestLedger = null;
 
@@ -1181,6 +1207,8 @@ public class Staff
      */
     public Part getPart ()
     {
+        checkReloaded(); // Staff part is assigned when system parts get reloaded
+
         if (part == null) {
             // This should not occur
             for (Part p : system.getParts()) {
@@ -1204,6 +1232,8 @@ public class Staff
      */
     public BarlineInter getSideBarline (HorizontalSide side)
     {
+        checkReloaded();
+
         return sideBars.get(side);
     }
 
@@ -1218,6 +1248,8 @@ public class Staff
      */
     public int getSpecificInterline ()
     {
+        checkReloaded();
+
         return specificInterline;
     }
 
@@ -1229,6 +1261,8 @@ public class Staff
      */
     public List<StaffBarlineInter> getStaffBarlines ()
     {
+        checkReloaded();
+
         SIGraph sig = getSystem().getSig();
 
         if (sig == null) {
@@ -1397,6 +1431,8 @@ public class Staff
      */
     public boolean removeBarline (BarlineInter barline)
     {
+        checkReloaded();
+
         // Purge sideBars if needed
         for (Iterator<Entry<HorizontalSide, BarlineInter>> it = sideBars.entrySet().iterator();
                 it.hasNext();) {
@@ -1426,6 +1462,8 @@ public class Staff
      */
     public boolean removeLedger (LedgerInter ledger)
     {
+        checkReloaded();
+
         Objects.requireNonNull(ledger, "Cannot remove a null ledger");
 
         if (ledger.isVip()) {
@@ -1463,6 +1501,8 @@ public class Staff
      */
     public boolean removeNote (AbstractNoteInter note)
     {
+        checkReloaded();
+
         boolean result = false;
 
         if (notes != null) {
@@ -1526,6 +1566,8 @@ public class Staff
     //-----------//
     public Staff replicate ()
     {
+        checkReloaded();
+
         Staff replicate = new Staff(0, left, right, specificInterline, null);
 
         return replicate;
@@ -1568,6 +1610,8 @@ public class Staff
      */
     public void setBarlines (List<BarlineInter> barlines)
     {
+        checkReloaded();
+
         this.barlines = barlines;
         retrieveSideBars();
     }
@@ -1600,6 +1644,8 @@ public class Staff
      */
     public void setHeader (StaffHeader header)
     {
+        checkReloaded();
+
         this.header = header;
     }
 
@@ -1806,6 +1852,20 @@ public class Staff
         }
     }
 
+    //---------------//
+    // checkReloaded //
+    //---------------//
+    /**
+     * Make sure the containing system is fully reloaded, since this staff gets reloaded
+     * together with the system SIG.
+     */
+    private void checkReloaded ()
+    {
+        if (system != null) {
+            system.checkReloaded();
+        }
+    }
+
     //------------------//
     // retrieveSideBars //
     //------------------//
@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.BasicGlyph;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphGroup;
@@ -61,6 +63,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -91,6 +94,8 @@ public class SystemInfo
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(
             SystemInfo.class);
 
@@ -189,6 +194,12 @@ public class SystemInfo
     /** Width of the system. */
     private int width = -1;
 
+    /** Is system reload still to be completed?. */
+    private volatile boolean reloadPending;
+
+    /** Is system reload being completed? (to cope with reentrant calls). */
+    private boolean reloading;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a SystemInfo entity, to register the provided parameters.
@@ -246,6 +257,7 @@ public class SystemInfo
      */
     public void addPart (Part partInfo)
     {
+        checkReloaded();
         parts.add(partInfo);
     }
 
@@ -259,6 +271,7 @@ public class SystemInfo
      */
     public void addStack (MeasureStack stack)
     {
+        checkReloaded();
         stacks.add(stack);
     }
 
@@ -274,64 +287,55 @@ public class SystemInfo
     public void addStack (int index,
                           MeasureStack stack)
     {
+        checkReloaded();
         stacks.add(index, stack);
     }
 
     //-------------//
     // afterReload //
     //-------------//
+    /**
+     * Complete system reload.
+     * <p>
+     * Population of the SIG, then reload of staves, parts and stacks, are differed until this
+     * system is actually used (see {@link #checkReloaded()}), unless lazy loading is disabled.
+     * <p>
+     * Note that the sheet XML has already been entirely unmarshalled at this point: inters are
+     * referenced by IDREFs from staves, parts and stacks, hence their unmarshalling cannot be
+     * differed. Only the building of the graph and the linking of staves, parts and stacks are.
+     */
     public void afterReload ()
     {
-        try {
-            // Populate system sig
-            sig.afterReload(this);
-
-            // Process staves upfront, so that their notes have their staff assigned.
-            // Doing so, measure chords can determine which staves they belong to.
-            for (Staff staff : staves) {
-                staff.afterReload();
-            }
-
-            {
-                // Support for OldStaffBarline (in part left PartBarline and measures PartBarlines)
-                boolean upgraded = false;
-
-                for (Part part : parts) {
-                    final PartBarline lpb = part.getLeftPartBarline();
-
-                    if (lpb != null) {
-                        upgraded |= lpb.upgradeOldStuff();
-                    }
+        afterReload(constants.lazySigLoading.isSet());
+    }
 
-                    for (Measure measure : part.getMeasures()) {
-                        for (PartBarline pb : measure.getContainedPartBarlines()) {
-                            upgraded |= pb.upgradeOldStuff();
-                        }
+    //---------------//
+    // checkReloaded //
+    //---------------//
+    /**
+     * Make sure this system is fully reloaded, before any access to its SIG, to the
+     * reloaded data of its staves, or to its parts, part groups and stacks.
+     * <p>
+     * Completing a system may query the sheet-wide inter index, which in turn completes the other
+     * pending systems. To avoid any lock-order issue between systems, all the systems of a sheet
+     * complete their reload under one sheet-level lock: the sheet system manager.
+     */
+    public void checkReloaded ()
+    {
+        if (reloadPending) {
+            synchronized (sheet.getSystemManager()) {
+                if (reloadPending && !reloading) {
+                    reloading = true;
+
+                    try {
+                        logger.debug("{} completing reload", this);
+                        completeReload();
+                    } finally {
+                        reloading = false;
+                        reloadPending = false;
                     }
                 }
-
-                if (upgraded) {
-                    sheet.getStub().setModified(true);
-                }
-            }
-
-            for (Part part : parts) {
-                part.afterReload();
-            }
-
-            for (MeasureStack stack : stacks) {
-                stack.afterReload(this);
             }
-
-            for (Inter inter : sig.inters(SentenceInter.class)) {
-                SentenceInter sentence = (SentenceInter) inter;
-                sentence.assignStaff(this, sentence.getLocation());
-            }
-
-            // Listen to sig modifications
-            sig.addGraphListener(new SigListener());
-        } catch (Exception ex) {
-            logger.warn("Error in " + getClass() + " afterReload() " + ex, ex);
         }
     }
 
@@ -478,6 +482,8 @@ public class SystemInfo
      */
     public Part getFirstPart ()
     {
+        checkReloaded();
+
         for (Part part : parts) {
             if (!part.isDummy()) {
                 return part;
@@ -497,6 +503,8 @@ public class SystemInfo
      */
     public MeasureStack getFirstStack ()
     {
+        checkReloaded();
+
         if (stacks.isEmpty()) {
             return null;
         }
@@ -611,6 +619,8 @@ public class SystemInfo
      */
     public MeasureStack getLastStack ()
     {
+        checkReloaded();
+
         if (stacks.isEmpty()) {
             return null;
         }
@@ -771,6 +781,8 @@ public class SystemInfo
      */
     public Part getPartAtOrAbove (Point point)
     {
+        checkReloaded();
+
         Staff staff = getStaffAtOrAbove(point);
 
         if (staff == null) {
@@ -791,6 +803,8 @@ public class SystemInfo
      */
     public Part getPartById (int id)
     {
+        checkReloaded();
+
         for (Part part : parts) {
             if (part.getId() == id) {
                 return part;
@@ -812,6 +826,8 @@ public class SystemInfo
      */
     public List<PartGroup> getPartGroups ()
     {
+        checkReloaded();
+
         return partGroups;
     }
 
@@ -825,6 +841,8 @@ public class SystemInfo
      */
     public List<Part> getParts ()
     {
+        checkReloaded();
+
         return parts;
     }
 
@@ -839,6 +857,8 @@ public class SystemInfo
      */
     public Part getPhysicalPart (LogicalPart logicalPart)
     {
+        checkReloaded();
+
         for (Part part : parts) {
             if (part.getLogicalPart() == logicalPart) {
                 return part;
@@ -908,6 +928,8 @@ public class SystemInfo
      */
     public SIGraph getSig ()
     {
+        checkReloaded();
+
         return sig;
     }
 
@@ -935,6 +957,8 @@ public class SystemInfo
      */
     public MeasureStack getStackAt (Point2D point)
     {
+        checkReloaded();
+
         final Staff staff = getStavesAround(point).get(0);
         final double x = point.getX();
 
@@ -959,6 +983,8 @@ public class SystemInfo
      */
     public List<MeasureStack> getStacks ()
     {
+        checkReloaded();
+
         return Collections.unmodifiableList(stacks);
     }
 
@@ -1259,6 +1285,8 @@ public class SystemInfo
      */
     public void removeStack (MeasureStack stack)
     {
+        checkReloaded();
+
         for (Measure measure : stack.getMeasures()) {
             // Part O--- Measure
             measure.getPart().removeMeasure(measure);
@@ -1473,4 +1501,114 @@ public class SystemInfo
         this.sheet = sheet;
         this.page = page;
     }
+
+    //-------------//
+    // afterReload //
+    //-------------//
+    /**
+     * Complete system reload, now or on first use.
+     *
+     * @param lazy true to differ reload completion until this system is actually used
+     */
+    void afterReload (boolean lazy)
+    {
+        try {
+            if (lazy) {
+                // Inters reached via IDREFs will complete this system when asked for their sig
+                sig.prepareReload(this);
+                reloadPending = true;
+            } else {
+                completeReload();
+            }
+        } catch (Exception ex) {
+            logger.warn("Error in " + getClass() + " afterReload() " + ex, ex);
+        }
+    }
+
+    //---------------//
+    // beforeMarshal //
+    //---------------//
+    /**
+     * Called by JAXB just before marshalling, to make sure the SIG is populated.
+     */
+    @SuppressWarnings("unused")
+    private void beforeMarshal (Marshaller m)
+    {
+        checkReloaded();
+    }
+
+    //----------------//
+    // completeReload //
+    //----------------//
+    /**
+     * Populate the SIG and reload the staves, parts and measure stacks of this system.
+     */
+    private void completeReload ()
+    {
+        try {
+            // Populate system sig
+            sig.afterReload(this);
+
+            // Process staves upfront, so that their notes have their staff assigned.
+            // Doing so, measure chords can determine which staves they belong to.
+            for (Staff staff : staves) {
+                staff.afterReload();
+            }
+
+            {
+                // Support for OldStaffBarline (in part left PartBarline and measures PartBarlines)
+                boolean upgraded = false;
+
+                for (Part part : parts) {
+                    final PartBarline lpb = part.getLeftPartBarline();
+
+                    if (lpb != null) {
+                        upgraded |= lpb.upgradeOldStuff();
+                    }
+
+                    for (Measure measure : part.getMeasures()) {
+                        for (PartBarline pb : measure.getContainedPartBarlines()) {
+                            upgraded |= pb.upgradeOldStuff();
+                        }
+                    }
+                }
+
+                if (upgraded) {
+                    sheet.getStub().setModified(true);
+                }
+            }
+
+            for (Part part : parts) {
+                part.afterReload();
+            }
+
+            for (MeasureStack stack : stacks) {
+                stack.afterReload(this);
+            }
+
+            for (Inter inter : sig.inters(SentenceInter.class)) {
+                SentenceInter sentence = (SentenceInter) inter;
+                sentence.assignStaff(this, sentence.getLocation());
+            }
+
+            // Listen to sig modifications
+            sig.addGraphListener(new SigListener());
+        } catch (Exception ex) {
+            logger.warn("Error in " + getClass() + " completeReload() " + ex, ex);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean lazySigLoading = new Constant.Boolean(
+                true,
+                "Should we populate a reloaded system SIG only when it is first used?");
+    }
 }
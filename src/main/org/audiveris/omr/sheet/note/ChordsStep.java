@@ -21,20 +21,15 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.note;
 
-import org.audiveris.omr.sheet.Part;
-import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.beam.BeamGroup;
 import org.audiveris.omr.sheet.rhythm.Measure;
-import org.audiveris.omr.sheet.rhythm.MeasureStack;
-import org.audiveris.omr.sig.SIGraph;
 import org.audiveris.omr.sig.inter.AbstractBeamInter;
 import org.audiveris.omr.sig.inter.HeadInter;
-import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.StemInter;
 import org.audiveris.omr.sig.relation.BeamStemRelation;
 import org.audiveris.omr.sig.relation.HeadStemRelation;
-import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.sig.ui.DirtyRegions;
 import org.audiveris.omr.sig.ui.UITask;
 import org.audiveris.omr.sig.ui.UITaskList;
 import org.audiveris.omr.step.AbstractSystemStep;
@@ -43,7 +38,6 @@ import org.audiveris.omr.step.StepException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.awt.Point;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -123,37 +117,8 @@ public class ChordsStep
     {
         logger.debug("CHORDS impact {} {}", opKind, seq);
 
-        // Determine impacted measure
-        final SIGraph sig = seq.getSig();
-        Measure measure = null;
-
-        for (Inter inter : seq.getInters()) {
-            measure = getImpactedMeasure(inter);
-
-            if (measure != null) {
-                break;
-            }
-        }
-
-        if (measure == null) {
-            for (Relation rel : seq.getRelations()) {
-                if (sig.containsEdge(rel)) {
-                    measure = getImpactedMeasure(sig.getEdgeSource(rel));
-
-                    if (measure != null) {
-                        break;
-                    }
-
-                    measure = getImpactedMeasure(sig.getEdgeTarget(rel));
-
-                    if (measure != null) {
-                        break;
-                    }
-                }
-            }
-        }
-
-        if (measure != null) {
+        // Process just the impacted measures
+        for (Measure measure : DirtyRegions.of(seq).getMeasures()) {
             logger.debug("CHORDS impact on {}", measure);
             BeamGroup.populate(measure, false); // False for checkGroupSplit
         }
@@ -167,36 +132,4 @@ public class ChordsStep
     {
         return isImpactedBy(classe, impactingClasses);
     }
-
-    //--------------------//
-    // getImpactedMeasure //
-    //--------------------//
-    private Measure getImpactedMeasure (Inter inter)
-    {
-        if (inter == null) {
-            return null;
-        }
-
-        final SystemInfo system = inter.getSig().getSystem();
-        final Point center = inter.getCenter();
-
-        if (center == null) {
-            return null;
-        }
-
-        final MeasureStack stack = system.getStackAt(center);
-        final Staff staff = inter.getStaff();
-
-        if (staff != null) {
-            return stack.getMeasureAt(staff);
-        }
-
-        Part part = inter.getPart();
-
-        if (part != null) {
-            return stack.getMeasureAt(part);
-        }
-
-        return null;
-    }
 }
@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.rhythm;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.Histogram;
 import org.audiveris.omr.math.Rational;
 import org.audiveris.omr.score.Page;
@@ -32,14 +35,21 @@ import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.Inters;
 import org.audiveris.omr.sig.inter.RestChordInter;
 import org.audiveris.omr.sig.inter.TupletInter;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code PageRhythm} handles rhythm data on a sheet page.
@@ -63,9 +73,17 @@ import java.util.List;
  * Unfortunately, this took endless computations and led to no practical results.
  * So now we simply check the "time correctness" of each stack regarding its time slots and voices.
  * <p>
- * Processing is done system per system <b>sequentially</b> because of impact of potential
- * key-sig changes on the following systems. Hence, parallelism is NOT provided for this step.
- * Consistently, within a system, processing is done measure stack after measure stack.
+ * Processing is done in two phases, each made of a tuning pass on all measure stacks:
+ * <ol>
+ * <li>A fail-fast pass, which provides the voices material to guess the expected duration of each
+ * range.</li>
+ * <li>The final pass, where each stack is checked against the expected duration of its range.</li>
+ * </ol>
+ * Range and time signature reconciliation is performed <b>sequentially</b> between the two passes,
+ * because of impact of potential time-sig (and key-sig) changes on the following systems.
+ * <p>
+ * Within a pass, stacks of different systems are tuned in parallel, since each system has its own
+ * SIG. Within a system, processing is done measure stack after measure stack.
  * <p>
  * Time sig can be inferred from stacks actual content, but this is a chicken &amp; egg problem.
  * We check whether the page starts with a time-sig indication. If not, we'll need two passes, the
@@ -80,6 +98,8 @@ public class PageRhythm
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(PageRhythm.class);
 
     /** Adjustable rhythm classes. (FRAT: Flag, RestChord, AugmentationDot, Tuplet) */
@@ -221,6 +241,8 @@ public class PageRhythm
      */
     private void processRanges ()
     {
+        // Sequentially, assign the expected duration of each stack
+        final Map<MeasureStack, Rational> durations = new HashMap<MeasureStack, Rational>();
         final Iterator<Range> it = ranges.iterator();
         Range range = it.next(); // Current range
 
@@ -242,12 +264,7 @@ public class PageRhythm
                     }
                 }
 
-                try {
-                    logger.debug("\n--- Processing {} expDur: {} ---", stack, range.duration);
-                    new StackTuner(stack, false).process(range.duration);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
-                }
+                durations.put(stack, range.duration);
 
                 // End of range?
                 if (stack.getIdValue() == range.stopId) {
@@ -256,10 +273,10 @@ public class PageRhythm
                     }
                 }
             }
-
-            // Refine voices IDs (and thus display colors) across all measures of the system
-            Voices.refineSystem(system);
         }
+
+        // Then tune all stacks, using StackTuner 2nd pass
+        tuneStacks(false, durations);
     }
 
     //--------------------------//
@@ -348,47 +365,145 @@ public class PageRhythm
      */
     private void retrieveRangeDurations ()
     {
-        // Launch a raw processing to determine expected measure duration
-        // on the range of first system & stacks before first time signature
-        final Iterator<Range> it = ranges.iterator();
-        Range range = it.next(); // Current range
-
-        for (SystemInfo system : page.getSystems()) {
-            for (MeasureStack stack : system.getStacks()) {
-                try {
-                    logger.debug("\n--- Raw processing {} ---", stack);
-                    new StackTuner(stack, true).process(null);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
+        // Launch a raw processing of all stacks, to determine expected measure duration
+        tuneStacks(true, null);
+
+        // Then, range per range sequentially
+        for (Range range : ranges) {
+            // If range is governed by a manual time signature, use it!
+            if ((range.ts != null) && range.ts.isManual()) {
+                range.duration = range.ts.getTimeRational().getValue();
+            } else {
+                // Use CURRENT MATERIAL of voices to determine expected duration on this range
+                Rational guess = retrieveExpectedDuration(range);
+
+                if (guess != null) {
+                    range.duration = guess;
+                } else if (range.ts != null) {
+                    range.duration = range.ts.getTimeRational().getValue();
                 }
 
-                // End of range?
-                if (stack.getIdValue() == range.stopId) {
-                    // If range is governed by a manual time signature, use it!
-                    if ((range.ts != null) && range.ts.isManual()) {
-                        range.duration = range.ts.getTimeRational().getValue();
-                    } else {
-                        // Use CURRENT MATERIAL of voices to determine expected duration on this range
-                        Rational guess = retrieveExpectedDuration(range);
-
-                        if (guess != null) {
-                            range.duration = guess;
-                        } else if (range.ts != null) {
-                            range.duration = range.ts.getTimeRational().getValue();
+                logger.info("{} guess:{}", range, guess);
+            }
+        }
+    }
+
+    //------------//
+    // tuneStacks //
+    //------------//
+    /**
+     * Run a StackTuner pass on every stack of the page.
+     * <p>
+     * Stacks of the same system are processed in sequence (they share the system SIG), while
+     * systems are processed in parallel if so allowed.
+     * In the final pass, voices are then refined across each system.
+     *
+     * @param failFast  true for the raw pass, false for the final pass
+     * @param durations expected duration per stack, or null
+     */
+    private void tuneStacks (final boolean failFast,
+                             final Map<MeasureStack, Rational> durations)
+    {
+        final List<SystemInfo> systems = page.getSystems();
+        final boolean parallel = (systems.size() > 1) && constants.parallelTuning.isSet()
+                                 && OmrExecutors.defaultParallelism.getValue();
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+        for (final SystemInfo system : systems) {
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                        throws Exception
+                {
+                    try {
+                        if (parallel) {
+                            LogUtil.start(system.getSheet().getStub());
                         }
 
-                        logger.info("{} guess:{}", range, guess);
-                    }
+                        for (MeasureStack stack : system.getStacks()) {
+                            final Rational expected = (durations != null) ? durations.get(stack)
+                                    : null;
+
+                            try {
+                                logger.debug(
+                                        "\n--- {} processing {} expDur: {} ---",
+                                        failFast ? "Raw" : "Final",
+                                        stack,
+                                        expected);
+                                new StackTuner(stack, failFast).process(expected);
+                            } catch (Exception ex) {
+                                logger.warn("Error on stack " + stack + " " + ex, ex);
+                            }
+                        }
 
-                    if (it.hasNext()) {
-                        range = it.next();
+                        if (!failFast) {
+                            // Refine voices IDs (and thus display colors) across all system measures
+                            Voices.refineSystem(system);
+                        }
+                    } finally {
+                        if (parallel) {
+                            LogUtil.stopStub();
+                        }
                     }
+
+                    return null;
+                }
+            });
+        }
+
+        try {
+            if (parallel) {
+                final List<Future<Void>> futures = OmrExecutors.invokeAll(
+                        OmrExecutors.getLowExecutor(),
+                        tasks);
+
+                for (Future<Void> future : futures) {
+                    future.get(); // To propagate any exception raised by the task
                 }
+            } else {
+                for (Callable<Void> task : tasks) {
+                    task.call();
+                }
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("PageRhythm got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            // Rethrow the original exception, as sequential processing would do
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
         }
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean parallelTuning = new Constant.Boolean(
+                true,
+                "Should we tune the measure stacks of different systems in parallel?");
+    }
+
     //-------//
     // Range //
     //-------//
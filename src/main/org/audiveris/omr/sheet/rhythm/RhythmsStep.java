@@ -46,6 +46,7 @@ import org.audiveris.omr.sig.relation.BeamStemRelation;
 import org.audiveris.omr.sig.relation.HeadStemRelation;
 import org.audiveris.omr.sig.relation.Relation;
 import org.audiveris.omr.sig.ui.AdditionTask;
+import org.audiveris.omr.sig.ui.DirtyRegions;
 import org.audiveris.omr.sig.ui.InterTask;
 import org.audiveris.omr.sig.ui.RelationTask;
 import org.audiveris.omr.sig.ui.RemovalTask;
@@ -60,8 +61,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -159,6 +162,8 @@ public class RhythmsStep
 
         // First, determine what will be impacted
         final Impact impact = new Impact();
+        final List<UITask> stackTasks = new ArrayList<UITask>(); // Tasks impacting their stacks
+        final Set<MeasureStack> nextStacks = new LinkedHashSet<MeasureStack>();
 
         for (UITask task : seq.getTasks()) {
             if (task instanceof InterTask) {
@@ -171,17 +176,18 @@ public class RhythmsStep
                     impact.onPage = true;
                 } else if (isImpactedBy(classe, forStack)) {
                     // Reprocess just the stack
-                    Point center = inter.getCenter();
+                    stackTasks.add(task);
 
-                    if (center != null) {
-                        MeasureStack stack = system.getStackAt(center);
-                        impact.onStacks.add(stack);
+                    if (inter instanceof BarlineInter || inter instanceof StaffBarlineInter) {
+                        if ((task instanceof RemovalTask && (opKind == OpKind.UNDO))
+                            || (task instanceof AdditionTask && (opKind != OpKind.UNDO))) {
+                            // Add next stack as well
+                            Point center = inter.getCenter();
+                            MeasureStack stack = (center != null) ? system.getStackAt(center)
+                                    : null;
 
-                        if (inter instanceof BarlineInter || inter instanceof StaffBarlineInter) {
-                            if ((task instanceof RemovalTask && (opKind == OpKind.UNDO))
-                                || (task instanceof AdditionTask && (opKind != OpKind.UNDO))) {
-                                // Add next stack as well
-                                impact.onStacks.add(stack.getNextSibling());
+                            if ((stack != null) && (stack.getNextSibling() != null)) {
+                                nextStacks.add(stack.getNextSibling());
                             }
                         }
                     }
@@ -192,7 +198,7 @@ public class RhythmsStep
                 Class classe = stack.getClass();
 
                 if (isImpactedBy(classe, forStack)) {
-                    impact.onStacks.add(stack);
+                    stackTasks.add(task);
                 }
             } else if (task instanceof RelationTask) {
                 RelationTask relationTask = (RelationTask) task;
@@ -200,15 +206,17 @@ public class RhythmsStep
                 Class classe = relation.getClass();
 
                 if (isImpactedBy(classe, forStack)) {
-                    if (sig.containsEdge(relation)) {
-                        Inter source = sig.getEdgeSource(relation);
-                        MeasureStack stack = system.getStackAt(source.getCenter());
-                        impact.onStacks.add(stack);
-                    }
+                    stackTasks.add(task);
                 }
             }
         }
 
+        if (!impact.onPage && !stackTasks.isEmpty()) {
+            // Stacks dirtied by the impacting tasks
+            impact.onStacks.addAll(DirtyRegions.of(new UITaskList(stackTasks)).getStacks());
+            impact.onStacks.addAll(nextStacks);
+        }
+
         // Second, handle each rhythm impact
         if (impact.onPage) {
             new PageRhythm(page).process();
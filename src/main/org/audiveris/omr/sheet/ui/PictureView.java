@@ -33,6 +33,7 @@ import org.audiveris.omr.ui.selection.MouseMovement;
 import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.ui.view.RubberPanel;
 import org.audiveris.omr.ui.view.ScrollView;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.WeakPropertyChangeListener;
 
 import org.slf4j.Logger;
@@ -73,6 +74,18 @@ public class PictureView
     /** Pop-up page menu. */
     private final SheetPopupMenu pageMenu;
 
+    /** Binary table currently rendered, if any. */
+    private RunTable binaryTable;
+
+    /** Cached rendering of binary table. */
+    private final TileCache binaryTiles;
+
+    /** Are voices rendered in specific colors?. */
+    private boolean coloredVoices;
+
+    /** Cached rendering of recognized entities. */
+    private final TileCache resultTiles;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a new {@code PictureView} instance, dedicated to a sheet.
@@ -83,6 +96,30 @@ public class PictureView
     {
         this.sheet = sheet;
 
+        // Tiles are shared per sheet, the binary layer needs only one bit per pixel
+        binaryTiles = new TileCache(sheet, BufferedImage.TYPE_BYTE_BINARY)
+        {
+            @Override
+            protected void paintLayer (Graphics2D g)
+            {
+                binaryTable.render(g, new Point(0, 0));
+            }
+        };
+
+        resultTiles = new TileCache(sheet)
+        {
+            @Override
+            protected void paintLayer (Graphics2D g)
+            {
+                new SheetResultPainter(
+                        PictureView.this.sheet,
+                        g,
+                        coloredVoices,
+                        true,
+                        false).process();
+            }
+        };
+
         view = new MyView();
         view.setName("Picture-View");
         view.setPreferredSize(new Dimension(sheet.getWidth(), sheet.getHeight()));
@@ -108,6 +145,7 @@ public class PictureView
     @Override
     public void propertyChange (PropertyChangeEvent evt)
     {
+        resultTiles.invalidate();
         view.repaint();
     }
 
@@ -208,16 +246,26 @@ public class PictureView
                 if (initial != null) {
                     g.drawRenderedImage(initial, null);
                 } else if (table != null) {
-                    table.render(g, new Point(0, 0));
+                    if (table != binaryTable) {
+                        binaryTable = table;
+                        binaryTiles.invalidate();
+                    }
+
+                    binaryTiles.render(g, 0);
                 }
             }
 
             // Render the recognized score entities?
             if (output) {
                 final boolean mixed = input;
-                final boolean coloredVoices = mixed ? false : voice;
+                final boolean colored = mixed ? false : voice;
+
+                if (colored != coloredVoices) {
+                    coloredVoices = colored;
+                    resultTiles.invalidate(); // Same inters, painted in other colors
+                }
                 g.setColor(mixed ? Colors.MUSIC_PICTURE : Colors.MUSIC_ALONE);
-                new SheetResultPainter(sheet, g, coloredVoices, true, false).process();
+                resultTiles.render(g, SheetPainter.getContentStamp(sheet));
             }
 
             g.setColor(oldColor);
@@ -104,6 +104,23 @@ public abstract class SheetPainter
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //-----------------//
+    // getContentStamp //
+    //-----------------//
+    /**
+     * Report a stamp of the sheet content painted by sheet painters, based on the
+     * modification counts of inter and glyph indices.
+     * <p>
+     * Any change in stamp value indicates that a cached painting is no longer valid.
+     *
+     * @param sheet the sheet at hand
+     * @return the current content stamp
+     */
+    public static long getContentStamp (Sheet sheet)
+    {
+        return (long) sheet.getInterIndex().getModCount() + sheet.getGlyphIndex().getModCount();
+    }
+
     //---------//
     // process //
     //---------//
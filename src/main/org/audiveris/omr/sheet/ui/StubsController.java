@@ -34,6 +34,7 @@ import org.audiveris.omr.ui.Colors;
 import org.audiveris.omr.ui.ViewParameters;
 import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.ui.selection.StubEvent;
+import org.audiveris.omr.ui.view.TileCache;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.bushe.swing.event.EventSubscriber;
@@ -572,6 +573,13 @@ public class StubsController
             // Remove from tabs (keep map)
             stubsPane.remove(tabIndex);
 
+            // Release cached view tiles
+            final Sheet sheet = stub.peekSheet();
+
+            if (sheet != null) {
+                TileCache.evict(sheet);
+            }
+
             // Make sure the first sheet of a multipage score is OK
             // We need to modify the tab label for the book (new) first tab
             Book book = stub.getBook();
@@ -750,8 +758,9 @@ public class StubsController
         }
 
         final SheetStub stub = stubsMap.get(component);
+        final SheetStub previous = getSelectedStub();
 
-        if (stub == getSelectedStub()) {
+        if (stub == previous) {
             return;
         }
 
@@ -763,6 +772,10 @@ public class StubsController
 
             reDisplay(stub);
         }
+
+        if (previous != null) {
+            leaveStub(previous);
+        }
     }
 
     //-----------//
@@ -984,6 +997,32 @@ public class StubsController
                 index);
     }
 
+    //-----------//
+    // leaveStub //
+    //-----------//
+    /**
+     * The provided stub is no longer displayed.
+     * Its cached view tiles are released.
+     * Unless a step is being performed on it, its sheet is now idle and its run tables can leave
+     * the Java heap.
+     *
+     * @param stub the stub just deselected
+     */
+    private void leaveStub (SheetStub stub)
+    {
+        final Sheet sheet = stub.peekSheet(); // Never load a sheet just to release it
+
+        if (sheet == null) {
+            return;
+        }
+
+        TileCache.evict(sheet);
+
+        if ((stub.getCurrentStep() == null) && sheet.hasPicture()) {
+            sheet.getPicture().moveTablesOffHeap();
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
@@ -38,6 +38,8 @@ import org.audiveris.omr.util.IntUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.swing.SwingUtilities;
@@ -57,6 +59,10 @@ public class InterIndex
 
     private static final Logger logger = LoggerFactory.getLogger(InterIndex.class);
 
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Related sheet. */
+    private Sheet sheet;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new InterManager object.
@@ -66,6 +72,62 @@ public class InterIndex
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getEntities //
+    //-------------//
+    @Override
+    public Collection<Inter> getEntities ()
+    {
+        checkSystems();
+
+        return super.getEntities();
+    }
+
+    //-----------//
+    // getEntity //
+    //-----------//
+    @Override
+    public Inter getEntity (int id)
+    {
+        Inter inter = super.getEntity(id);
+
+        if ((inter == null) && (sheet != null)) {
+            // Complete pending systems, just until the entity gets indexed
+            for (SystemInfo system : sheet.getSystems()) {
+                system.checkReloaded();
+                inter = super.getEntity(id);
+
+                if (inter != null) {
+                    break;
+                }
+            }
+        }
+
+        return inter;
+    }
+
+    //------------//
+    // getIdAfter //
+    //------------//
+    @Override
+    public int getIdAfter (int id)
+    {
+        checkSystems();
+
+        return super.getIdAfter(id);
+    }
+
+    //-------------//
+    // getIdBefore //
+    //-------------//
+    @Override
+    public int getIdBefore (int id)
+    {
+        checkSystems();
+
+        return super.getIdBefore(id);
+    }
+
     //----------------//
     // initTransients //
     //----------------//
@@ -77,6 +139,8 @@ public class InterIndex
      */
     public final void initTransients (Sheet sheet)
     {
+        this.sheet = sheet;
+
         // Use sheet ID generator
         lastId = sheet.getPersistentIdGenerator();
 
@@ -116,6 +180,17 @@ public class InterIndex
         return "interIndex";
     }
 
+    //----------//
+    // iterator //
+    //----------//
+    @Override
+    public Iterator<Inter> iterator ()
+    {
+        checkSystems();
+
+        return super.iterator();
+    }
+
     //---------//
     // publish //
     //---------//
@@ -146,6 +221,24 @@ public class InterIndex
         }
     }
 
+    //--------------//
+    // checkSystems //
+    //--------------//
+    /**
+     * Make sure that the inters of every system are actually indexed.
+     * <p>
+     * The SIG of a reloaded system is populated (and its inters indexed) only when the system
+     * is first used, hence any sheet-wide query must first complete the pending systems.
+     */
+    private void checkSystems ()
+    {
+        if (sheet != null) {
+            for (SystemInfo system : sheet.getSystems()) {
+                system.getSig();
+            }
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
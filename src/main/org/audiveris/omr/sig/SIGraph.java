@@ -177,6 +177,21 @@ public class SIGraph
         }
     }
 
+    //---------------//
+    // checkReloaded //
+    //---------------//
+    /**
+     * Make sure this SIG, if prepared for a differed reload, is actually populated.
+     *
+     * @see #prepareReload(SystemInfo)
+     */
+    public void checkReloaded ()
+    {
+        if ((sigValue != null) && (system != null)) {
+            system.checkReloaded();
+        }
+    }
+
     //------------------------//
     // computeContextualGrade //
     //------------------------//
@@ -680,6 +695,24 @@ public class SIGraph
         }
     }
 
+    //---------------//
+    // prepareReload //
+    //---------------//
+    /**
+     * Prepare a differed SIG reload.
+     * <p>
+     * Each inter to come already points to this sig, so that an inter reached via an IDREF
+     * completes the system reload as soon as its sig is requested.
+     *
+     * @param system the system for this sig
+     */
+    public void prepareReload (SystemInfo system)
+    {
+        this.system = system;
+
+        sigValue.bindInters(this);
+    }
+
     //--------------//
     // getRelations //
     //--------------//
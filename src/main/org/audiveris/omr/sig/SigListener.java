@@ -62,6 +62,7 @@ public class SigListener
         //         e.getEdgeTarget());
         //
         e.getEdge().added(e);
+        setModified(e);
     }
 
     @Override
@@ -74,6 +75,7 @@ public class SigListener
         //         e.getEdgeTarget());
         //
         e.getEdge().removed(e);
+        setModified(e);
     }
 
     @Override
@@ -111,4 +113,17 @@ public class SigListener
         //                    e.getType());
         //        }
     }
+
+    /**
+     * Signal a relation modification to the sheet inter index, so that any cached
+     * rendering gets refreshed.
+     * (Inter additions and removals are directly recorded by the index)
+     *
+     * @param e the edge event
+     */
+    private void setModified (GraphEdgeChangeEvent<Inter, Relation> e)
+    {
+        final SIGraph sig = (SIGraph) e.getSource();
+        sig.getSystem().getSheet().getInterIndex().setModified();
+    }
 }
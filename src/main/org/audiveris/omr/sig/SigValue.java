@@ -121,7 +121,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -225,6 +227,18 @@ public class SigValue
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Let every inter point to the provided sig, before the sig gets actually populated.
+     *
+     * @param sig the (still empty) sig to be completed later
+     */
+    void bindInters (SIGraph sig)
+    {
+        for (Inter inter : inters) {
+            inter.setSig(sig);
+        }
+    }
+
     /**
      * Method to be called only when SigValue IDREFs have been fully unmarshalled,
      * to populate the target SIG.
@@ -240,16 +254,21 @@ public class SigValue
         // Populate inters
         sig.populateAllInters(inters);
 
+        // Relations are local to the sig, so there is no need to search the whole sheet index
+        // (which would force the population of all the other system sigs)
+        final Map<Integer, Inter> map = new HashMap<Integer, Inter>();
+
         for (Inter inter : sig.vertexSet()) {
             inter.setSig(sig);
             index.insert(inter);
+            map.put(inter.getId(), inter);
         }
 
         // Populate relations
         for (RelationValue rel : relations) {
             try {
-                Inter source = index.getEntity(rel.sourceId);
-                Inter target = index.getEntity(rel.targetId);
+                Inter source = map.get(rel.sourceId);
+                Inter target = map.get(rel.targetId);
                 sig.addEdge(source, target, rel.relation);
             } catch (Throwable ex) {
                 logger.error("Error unmarshalling relation " + rel + " ex:" + ex, ex);
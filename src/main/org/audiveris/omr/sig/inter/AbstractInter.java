@@ -663,6 +663,10 @@ public abstract class AbstractInter
     @Override
     public SIGraph getSig ()
     {
+        if (sig != null) {
+            sig.checkReloaded(); // Sig of a lazily reloaded system may not be populated yet
+        }
+
         return sig;
     }
 
@@ -492,7 +492,13 @@ public class SlurInter
     {
         Objects.requireNonNull(side, "No side provided for slur getExtension");
 
-        return (side == HorizontalSide.LEFT) ? leftExtension : rightExtension;
+        final SlurInter extension = (side == HorizontalSide.LEFT) ? leftExtension : rightExtension;
+
+        if (extension != null) {
+            extension.getSig(); // The other system may not be fully reloaded yet
+        }
+
+        return extension;
     }
 
     //---------//
@@ -0,0 +1,206 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    D i r t y R e g i o n s                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig.ui;
+
+import org.audiveris.omr.sheet.Part;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sheet.rhythm.Measure;
+import org.audiveris.omr.sheet.rhythm.MeasureStack;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.inter.Inter;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Class {@code DirtyRegions} records the sheet regions (systems, measure stacks and
+ * measures) dirtied by a sequence of UI tasks.
+ * <p>
+ * It allows an impacted step to re-process just these regions rather than the whole sheet
+ * or page.
+ * Since a step impact may modify the measure structure (stacks merged or split), regions are meant
+ * to be computed right before use, via {@link #of(UITaskList)}.
+ *
+ * @author Hervé Bitteur
+ */
+public class DirtyRegions
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Dirty systems. */
+    private final Set<SystemInfo> systems = new LinkedHashSet<SystemInfo>();
+
+    /** Dirty measure stacks. */
+    private final Set<MeasureStack> stacks = new LinkedHashSet<MeasureStack>();
+
+    /** Dirty measures. */
+    private final Set<Measure> measures = new LinkedHashSet<Measure>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private DirtyRegions ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----//
+    // of //
+    //----//
+    /**
+     * Compute the regions dirtied by the provided task sequence.
+     *
+     * @param seq the sequence of UI tasks
+     * @return the dirty regions
+     */
+    public static DirtyRegions of (UITaskList seq)
+    {
+        final DirtyRegions regions = new DirtyRegions();
+
+        for (UITask task : seq.getTasks()) {
+            final SIGraph sig = task.getSig();
+
+            if (sig == null) {
+                continue;
+            }
+
+            final SystemInfo system = sig.getSystem();
+            regions.systems.add(system);
+
+            if (task instanceof InterTask) {
+                regions.addInter(system, ((InterTask) task).getInter());
+            } else if (task instanceof RelationTask) {
+                RelationTask relationTask = (RelationTask) task;
+                regions.addInter(system, relationTask.getSource());
+                regions.addInter(system, relationTask.getTarget());
+            } else if (task instanceof StackTask) {
+                regions.stacks.add(((StackTask) task).getStack());
+            }
+        }
+
+        return regions;
+    }
+
+    //-------------//
+    // getMeasures //
+    //-------------//
+    /**
+     * Report the dirty measures.
+     *
+     * @return the measures, perhaps empty
+     */
+    public Set<Measure> getMeasures ()
+    {
+        return Collections.unmodifiableSet(measures);
+    }
+
+    //-----------//
+    // getStacks //
+    //-----------//
+    /**
+     * Report the dirty measure stacks.
+     *
+     * @return the stacks, perhaps empty
+     */
+    public Set<MeasureStack> getStacks ()
+    {
+        return Collections.unmodifiableSet(stacks);
+    }
+
+    //------------//
+    // getSystems //
+    //------------//
+    /**
+     * Report the dirty systems.
+     *
+     * @return the systems, perhaps empty
+     */
+    public Set<SystemInfo> getSystems ()
+    {
+        return Collections.unmodifiableSet(systems);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append("{");
+        sb.append("systems:").append(systems.size());
+        sb.append(" stacks:").append(stacks.size());
+        sb.append(" measures:").append(measures.size());
+        sb.append("}");
+
+        return sb.toString();
+    }
+
+    //----------//
+    // addInter //
+    //----------//
+    /**
+     * Record the stack and measure that contain the provided inter, if any.
+     *
+     * @param system the containing system
+     * @param inter  the inter dirtied, perhaps null
+     */
+    private void addInter (SystemInfo system,
+                           Inter inter)
+    {
+        if (inter == null) {
+            return;
+        }
+
+        final Point center = inter.getCenter();
+
+        if (center == null) {
+            return;
+        }
+
+        final MeasureStack stack = system.getStackAt(center);
+
+        if (stack == null) {
+            return;
+        }
+
+        stacks.add(stack);
+
+        Measure measure = null;
+        final Staff staff = inter.getStaff();
+
+        if (staff != null) {
+            measure = stack.getMeasureAt(staff);
+        } else {
+            final Part part = inter.getPart();
+
+            if (part != null) {
+                measure = stack.getMeasureAt(part);
+            }
+        }
+
+        if (measure != null) {
+            measures.add(measure);
+        }
+    }
+}
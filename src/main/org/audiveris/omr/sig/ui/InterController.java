@@ -628,15 +628,7 @@ public class InterController
 
                     // Re-process impacted steps
                     final UITaskList tempSeq = new UITaskList(new StackTask(stack));
-                    final Step latestStep = sheet.getStub().getLatestStep();
-                    final Step firstStep = Step.RHYTHMS;
-
-                    final EnumSet<Step> steps = EnumSet.range(firstStep, latestStep);
-
-                    for (Step step : steps) {
-                        logger.debug("Impact {}", step);
-                        step.impact(tempSeq, OpKind.DO);
-                    }
+                    impactSteps(tempSeq, Step.RHYTHMS, OpKind.DO);
                 } catch (Throwable ex) {
                     logger.warn("Exception in reprocessRhythm {}", ex.toString(), ex);
                 }
@@ -1146,6 +1138,56 @@ public class InterController
         }
     }
 
+    //-------------//
+    // impactSteps //
+    //-------------//
+    /**
+     * Re-process the impacted steps, from the provided first step to the latest step
+     * reached by the sheet.
+     * <p>
+     * Each step re-processes just the regions dirtied by the task sequence.
+     * The duration of each incremental step is reported.
+     *
+     * @param seq       the sequence of UI tasks
+     * @param firstStep the first impacted step, perhaps null
+     * @param opKind    which operation is done on seq
+     */
+    private void impactSteps (UITaskList seq,
+                              Step firstStep,
+                              OpKind opKind)
+    {
+        final Step latestStep = sheet.getStub().getLatestStep();
+
+        if ((firstStep == null) || (latestStep == null) || (firstStep.compareTo(latestStep) > 0)) {
+            return;
+        }
+
+        final boolean printTimes = constants.printImpactTimes.isSet();
+        final StringBuilder sb = printTimes ? new StringBuilder() : null;
+        final long start = System.currentTimeMillis();
+
+        for (Step step : EnumSet.range(firstStep, latestStep)) {
+            logger.debug("Impact {}", step);
+
+            final long stepStart = System.currentTimeMillis();
+            step.impact(seq, opKind);
+
+            if (printTimes) {
+                sb.append(' ').append(step).append(':')
+                        .append(System.currentTimeMillis() - stepStart).append("ms");
+            }
+        }
+
+        if (printTimes) {
+            logger.info(
+                    "Incremental {} on {} in {}ms,{}",
+                    opKind,
+                    DirtyRegions.of(seq),
+                    System.currentTimeMillis() - start,
+                    sb);
+        }
+    }
+
     //------------------//
     // populateRemovals //
     //------------------//
@@ -1186,6 +1228,10 @@ public class InterController
     @UIThread
     private void refreshUI ()
     {
+        // Some tasks (word value, sentence role, voices re-assigned by impacted steps) change
+        // the painting of inters without any index modification. Signal them to cached views.
+        sheet.getInterIndex().setModified();
+
         // Update editor display
         editor.refresh();
 
@@ -1253,6 +1299,10 @@ public class InterController
         private final Constant.Ratio gutterRatio = new Constant.Ratio(
                 0.33,
                 "Vertical margin as ratio of inter-staff gutter");
+
+        private final Constant.Boolean printImpactTimes = new Constant.Boolean(
+                true,
+                "Should we print out the duration of incremental re-processing?");
     }
 
     //-------------//
@@ -1407,18 +1457,9 @@ public class InterController
             }
 
             // Re-process impacted steps
-            final Step latestStep = sheet.getStub().getLatestStep();
             final Step firstStep = firstImpactedStep(seq);
             logger.debug("firstStep: {}", firstStep);
-
-            if ((firstStep != null) && (firstStep.compareTo(latestStep) <= 0)) {
-                final EnumSet<Step> steps = EnumSet.range(firstStep, latestStep);
-
-                for (Step step : steps) {
-                    logger.debug("Impact {}", step);
-                    step.impact(seq, opKind);
-                }
-            }
+            impactSteps(seq, firstStep, opKind);
         }
 
         @Override
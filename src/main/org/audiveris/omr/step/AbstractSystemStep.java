@@ -26,6 +26,7 @@ import org.audiveris.omr.OMR;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
@@ -174,6 +175,7 @@ public abstract class AbstractSystemStep<C>
     {
         try {
             final boolean parallel = Main.processSystemsInParallel();
+            final String stepName = Metrics.getStep();
             final Collection<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
             for (final SystemInfo system : sheet.getSystems()) {
@@ -186,11 +188,17 @@ public abstract class AbstractSystemStep<C>
                     {
                         // If run on a separate thread (case of parallel), we have to set/unset log
                         // If not, let's not unset log (it may be needed in following epilog)
+                        Metrics.Timer timer = null;
+
                         try {
                             if (parallel) {
                                 LogUtil.start(sheet.getStub());
                             }
 
+                            Metrics.setStep(stepName);
+                            Metrics.setSystem(system.getId());
+                            timer = Metrics.start("doSystem");
+
                             logger.debug(
                                     "{} doSystem #{}",
                                     AbstractSystemStep.this,
@@ -199,8 +207,16 @@ public abstract class AbstractSystemStep<C>
                             doSystem(system, context);
                         } catch (Exception ex) {
                             logger.warn(system.getLogPrefix() + ex, ex);
+                            Metrics.count("errors");
                         } finally {
+                            if (timer != null) {
+                                timer.stop();
+                            }
+
+                            Metrics.setSystem(null);
+
                             if (parallel) {
+                                Metrics.setStep(null);
                                 LogUtil.stopStub();
                             }
                         }
@@ -213,7 +229,7 @@ public abstract class AbstractSystemStep<C>
             // Process all systems
             if (parallel) {
                 // In parallel
-                OmrExecutors.getLowExecutor().invokeAll(tasks);
+                OmrExecutors.invokeAll(OmrExecutors.getLowExecutor(), tasks);
             } else {
                 // In sequence
                 for (Callable<Void> task : tasks) {
@@ -27,7 +27,6 @@ import org.audiveris.omr.sheet.Book;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SheetStub;
 import org.audiveris.omr.sheet.ui.SheetTab;
-import org.audiveris.omr.util.Memory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,9 +75,6 @@ public class LoadStep
             final int max = constants.maxPixelCount.getValue();
 
             if (count > max) {
-                Memory.gc();
-
-                ///logger.info("Occupied memory: {}", Memory.getValue());
                 final String msg = "Too large image: " + String.format("%,d", count)
                                    + " pixels (vs " + String.format("%,d", max) + " max)";
                 stub.decideOnRemoval(msg, false); // This may throw StepException
@@ -48,6 +48,7 @@ import org.audiveris.omr.sig.inter.TimeNumberInter;
 import org.audiveris.omr.sig.inter.TimePairInter;
 import org.audiveris.omr.sig.inter.TimeWholeInter;
 import org.audiveris.omr.sig.inter.TupletInter;
+import org.audiveris.omr.sig.ui.DirtyRegions;
 import org.audiveris.omr.sig.ui.InterTask;
 import org.audiveris.omr.sig.ui.StackTask;
 import org.audiveris.omr.sig.ui.UITask;
@@ -58,8 +59,10 @@ import org.audiveris.omr.text.TextRole;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -179,7 +182,7 @@ public class PageStep
             page.connectOrphanSlurs(true); // True for tie checking
 
             // Lyrics
-            refineLyrics(page);
+            refineLyrics(page.getSystems());
 
             // Merge / renumber measure stacks within the page
             new MeasureFixer().process(page);
@@ -259,6 +262,8 @@ public class PageStep
         logger.debug("map: {}", map);
 
         // Second, handle each page impact
+        final DirtyRegions regions = DirtyRegions.of(seq);
+
         for (Entry<Page, Impact> entry : map.entrySet()) {
             Page page = entry.getKey();
             Impact impact = entry.getValue();
@@ -276,7 +281,19 @@ public class PageStep
             }
 
             if (impact.onLyrics) {
-                refineLyrics(page);
+                // Syllables of a lyric line depend on the lines of the preceding and following
+                // systems as well, so process the dirty systems and their neighbors in page
+                final Set<SystemInfo> concerned = new HashSet<SystemInfo>();
+
+                for (SystemInfo system : regions.getSystems()) {
+                    concerned.add(system);
+                    concerned.add(system.getPrecedingInPage());
+                    concerned.add(system.getFollowingInPage());
+                }
+
+                final List<SystemInfo> systems = new ArrayList<SystemInfo>(page.getSystems());
+                systems.retainAll(concerned);
+                refineLyrics(systems);
             }
 
             if (impact.onVoices) {
@@ -298,13 +315,13 @@ public class PageStep
     // refineLyrics //
     //--------------//
     /**
-     * Refine syllables across systems in page
+     * Refine syllables across the provided systems
      *
-     * @param page provided page
+     * @param systems provided systems
      */
-    private void refineLyrics (Page page)
+    private void refineLyrics (List<SystemInfo> systems)
     {
-        for (SystemInfo system : page.getSystems()) {
+        for (SystemInfo system : systems) {
             for (Inter inter : system.getSig().inters(LyricLineInter.class)) {
                 LyricLineInter line = (LyricLineInter) inter;
                 line.refineLyricSyllables();
@@ -40,6 +40,7 @@ import org.audiveris.omr.sheet.ui.SheetTab;
 import org.audiveris.omr.sig.ui.UITask.OpKind;
 import org.audiveris.omr.sig.ui.UITaskList;
 import org.audiveris.omr.text.TextsStep;
+import org.audiveris.omr.util.Metrics;
 
 /**
  * Enum {@code Step} describes the steps of sheet processing pipeline.
@@ -181,7 +182,17 @@ public enum Step
     public void doit (Sheet sheet)
             throws StepException
     {
-        helper.doit(sheet);
+        final String previous = Metrics.getStep();
+        Metrics.setStep(name());
+
+        final Metrics.Timer timer = Metrics.start("doit");
+
+        try {
+            helper.doit(sheet);
+        } finally {
+            timer.stop();
+            Metrics.setStep(previous);
+        }
     }
 
     //----------------//
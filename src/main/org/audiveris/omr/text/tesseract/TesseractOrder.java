@@ -38,6 +38,7 @@ import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -45,7 +46,10 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriter;
@@ -55,6 +59,12 @@ import javax.imageio.stream.ImageOutputStream;
 /**
  * Class {@code TesseractOrder} carries a processing order submitted to Tesseract OCR
  * program.
+ * <p>
+ * Native scratch material (result pointers and image buffer) is taken from a small pool and reused
+ * from one order to the next, so that a page with many small text items does not allocate native
+ * memory for every word and char.
+ * Scratch material in excess of the pool capacity, as well as any image buffer larger than
+ * {@link #MAX_KEPT_PIXELS}, is freed as soon as its order completes.
  *
  * @author Hervé Bitteur
  */
@@ -70,6 +80,13 @@ public class TesseractOrder
     /** To avoid repetitive warnings if OCR binding failed. */
     private static boolean userWarned;
 
+    /** Maximum number of pixels for an image buffer to be kept in an idle scratch. */
+    private static final int MAX_KEPT_PIXELS = 2000 * 2000;
+
+    /** Idle native scratch material, ready for reuse. */
+    private static final BlockingQueue<Scratch> idleScratches = new ArrayBlockingQueue<Scratch>(
+            Runtime.getRuntime().availableProcessors());
+
     static {
         IIORegistry registry = IIORegistry.getDefaultInstance();
         registry.registerServiceProvider(
@@ -97,9 +114,15 @@ public class TesseractOrder
     /** The dedicated API. */
     private TessBaseAPI api;
 
+    /** Scratch material for this order. */
+    private final Scratch scratch;
+
     /** The image being processed. */
     private final PIX image;
 
+    /** True if image was allocated for this order only, false if borrowed from scratch. */
+    private final boolean ownedImage;
+
     //~ Constructors -------------------------------------------------------------------------------
     //
     //----------------//
@@ -133,14 +156,33 @@ public class TesseractOrder
         this.lang = lang;
         this.segMode = segMode;
 
-        // Build a PIX from the image provided
-        ByteBuffer buf = toTiffBuffer(bufferedImage);
-        buf.position(0);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
+        scratch = borrowScratch();
 
-        if (image == null) {
-            logger.warn("Invalid image {}", label);
-            throw new RuntimeException("Invalid image");
+        boolean ok = false;
+
+        try {
+            if (!keepImage && (bufferedImage.getType() == BufferedImage.TYPE_BYTE_GRAY)) {
+                // Copy the gray pixels directly into the reusable PIX
+                image = toPix(bufferedImage);
+                ownedImage = false;
+            } else {
+                // Build a PIX from the image provided, via a TIFF buffer
+                ByteBuffer buf = toTiffBuffer(bufferedImage);
+                buf.position(0);
+                image = pixReadMemTiff(buf, buf.capacity(), 0);
+                ownedImage = true;
+            }
+
+            if (image == null) {
+                logger.warn("Invalid image {}", label);
+                throw new RuntimeException("Invalid image");
+            }
+
+            ok = true;
+        } finally {
+            if (!ok) {
+                releaseScratch(scratch);
+            }
         }
     }
 
@@ -151,6 +193,8 @@ public class TesseractOrder
     //---------//
     /**
      * Actually allocate a Tesseract API and recognize the image.
+     * <p>
+     * This method must be called exactly once, since it gives back the scratch material.
      *
      * @return the sequence of lines found
      */
@@ -193,19 +237,18 @@ public class TesseractOrder
             }
 
             throw new RuntimeException(ex);
+        } finally {
+            releaseScratch(scratch);
         }
     }
 
     private Line2D Baseline (ResultIterator rit,
                              int level)
     {
-        IntPointer x1 = new IntPointer(0);
-        IntPointer y1 = new IntPointer(0);
-        IntPointer x2 = new IntPointer(0);
-        IntPointer y2 = new IntPointer(0);
+        final int[] c = scratch.coords;
 
-        if (rit.Baseline(level, x1, y1, x2, y2)) {
-            return new Line2D.Double(x1.get(), y1.get(), x2.get(), y2.get());
+        if (scratch.baseline(rit, level)) {
+            return new Line2D.Double(c[0], c[1], c[2], c[3]);
         } else {
             return null;
         }
@@ -214,22 +257,31 @@ public class TesseractOrder
     private Rectangle BoundingBox (PageIterator it,
                                    int level)
     {
-        IntPointer left = new IntPointer(0);
-        IntPointer top = new IntPointer(0);
-        IntPointer right = new IntPointer(0);
-        IntPointer bottom = new IntPointer(0);
-
-        if (it.BoundingBox(level, left, top, right, bottom)) {
-            return new Rectangle(
-                    left.get(),
-                    top.get(),
-                    right.get() - left.get(),
-                    bottom.get() - top.get());
+        final int[] c = scratch.coords;
+
+        if (scratch.boundingBox(it, level)) {
+            return new Rectangle(c[0], c[1], c[2] - c[0], c[3] - c[1]);
         } else {
             return null;
         }
     }
 
+    //---------------//
+    // borrowScratch //
+    //---------------//
+    /**
+     * Get scratch material for exclusive use by a new order, until it is given back
+     * via {@link #releaseScratch(Scratch)}.
+     *
+     * @return an idle scratch, or a new one
+     */
+    private static Scratch borrowScratch ()
+    {
+        final Scratch s = idleScratches.poll();
+
+        return (s != null) ? s : new Scratch();
+    }
+
     //--------//
     // finish //
     //--------//
@@ -241,7 +293,7 @@ public class TesseractOrder
      */
     private List<TextLine> finish (List<TextLine> lines)
     {
-        if (image != null) {
+        if ((image != null) && ownedImage) {
             pixDestroy(image);
         }
 
@@ -263,14 +315,14 @@ public class TesseractOrder
      */
     private FontInfo getFont (ResultIterator rit)
     {
-        BoolPointer is_bold = new BoolPointer(0);
-        BoolPointer is_italic = new BoolPointer(0);
-        BoolPointer is_underlined = new BoolPointer(0);
-        BoolPointer is_monospace = new BoolPointer(0);
-        BoolPointer is_serif = new BoolPointer(0);
-        BoolPointer is_smallcaps = new BoolPointer(0);
-        IntPointer pointSize = new IntPointer(0);
-        IntPointer font_id = new IntPointer(0);
+        final BoolPointer is_bold = scratch.is_bold;
+        final BoolPointer is_italic = scratch.is_italic;
+        final BoolPointer is_underlined = scratch.is_underlined;
+        final BoolPointer is_monospace = scratch.is_monospace;
+        final BoolPointer is_serif = scratch.is_serif;
+        final BoolPointer is_smallcaps = scratch.is_smallcaps;
+        final IntPointer pointSize = scratch.pointSize;
+        final IntPointer font_id = scratch.font_id;
 
         String fontName = null;
 
@@ -391,6 +443,65 @@ public class TesseractOrder
         }
     }
 
+    //----------------//
+    // releaseScratch //
+    //----------------//
+    /**
+     * Give back scratch material once an order is over.
+     * A too large image buffer is freed, and the whole scratch is freed if pool is full.
+     *
+     * @param s the scratch to release
+     */
+    private static void releaseScratch (Scratch s)
+    {
+        s.trim(MAX_KEPT_PIXELS);
+
+        if (!idleScratches.offer(s)) {
+            s.dispose();
+        }
+    }
+
+    //-------//
+    // toPix //
+    //-------//
+    /**
+     * Copy the pixels of the given gray image into the scratch PIX, with no intermediate
+     * encoding.
+     * <p>
+     * Leptonica packs 8-bit pixels into 32-bit words, the leftmost pixel in the most significant
+     * byte, regardless of platform endianness.
+     *
+     * @param img the input image, of TYPE_BYTE_GRAY
+     * @return the populated PIX, owned by the scratch
+     */
+    private PIX toPix (BufferedImage img)
+    {
+        final int width = img.getWidth();
+        final int height = img.getHeight();
+        final PIX pix = scratch.getImage(width, height);
+        final int wpl = pixGetWpl(pix);
+        final IntPointer data = pixGetData(pix);
+        final int[] words = scratch.getWords(wpl);
+        final byte[] line = scratch.getLine(4 * wpl);
+        final Raster raster = img.getRaster();
+
+        for (int y = 0; y < height; y++) {
+            raster.getDataElements(0, y, width, 1, line);
+
+            for (int w = 0; w < wpl; w++) {
+                final int i = 4 * w;
+                words[w] = ((line[i] & 0xFF) << 24) | ((line[i + 1] & 0xFF) << 16)
+                           | ((line[i + 2] & 0xFF) << 8) | (line[i + 3] & 0xFF);
+            }
+
+            data.position((long) y * wpl).put(words, 0, wpl);
+        }
+
+        data.position(0);
+
+        return pix;
+    }
+
     //--------------//
     // toTiffBuffer //
     //--------------//
@@ -488,4 +599,139 @@ public class TesseractOrder
             }
         }
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //---------//
+    // Scratch //
+    //---------//
+    /**
+     * Native material reused by successive orders, one order at a time.
+     */
+    private static class Scratch
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Native output of BoundingBox and Baseline calls. */
+        final IntPointer p1 = new IntPointer(1);
+
+        final IntPointer p2 = new IntPointer(1);
+
+        final IntPointer p3 = new IntPointer(1);
+
+        final IntPointer p4 = new IntPointer(1);
+
+        /** Java copy of last box or baseline: left, top, right, bottom or x1, y1, x2, y2. */
+        final int[] coords = new int[4];
+
+        /** Native output of WordFontAttributes call. */
+        final BoolPointer is_bold = new BoolPointer(1);
+
+        final BoolPointer is_italic = new BoolPointer(1);
+
+        final BoolPointer is_underlined = new BoolPointer(1);
+
+        final BoolPointer is_monospace = new BoolPointer(1);
+
+        final BoolPointer is_serif = new BoolPointer(1);
+
+        final BoolPointer is_smallcaps = new BoolPointer(1);
+
+        final IntPointer pointSize = new IntPointer(1);
+
+        final IntPointer font_id = new IntPointer(1);
+
+        /** Reusable 8-bit image, kept as long as image dimension does not change. */
+        private PIX pix;
+
+        /** Pixel bytes of one image row, padded to full words. */
+        private byte[] line = new byte[0];
+
+        /** Packed words of one image row. */
+        private int[] words = new int[0];
+
+        //~ Methods --------------------------------------------------------------------------------
+        boolean baseline (ResultIterator rit,
+                          int level)
+        {
+            return rit.Baseline(level, p1, p2, p3, p4) && copyCoords();
+        }
+
+        boolean boundingBox (PageIterator it,
+                             int level)
+        {
+            return it.BoundingBox(level, p1, p2, p3, p4) && copyCoords();
+        }
+
+        void dispose ()
+        {
+            trim(0);
+
+            final Pointer[] pointers = new Pointer[]{
+                p1, p2, p3, p4, is_bold, is_italic, is_underlined, is_monospace, is_serif,
+                is_smallcaps, pointSize, font_id
+            };
+
+            for (Pointer pointer : pointers) {
+                pointer.deallocate();
+            }
+        }
+
+        PIX getImage (int width,
+                      int height)
+        {
+            if ((pix != null) && ((pixGetWidth(pix) != width) || (pixGetHeight(pix) != height))) {
+                pixDestroy(pix);
+                pix = null;
+            }
+
+            if (pix == null) {
+                pix = pixCreate(width, height, 8);
+
+                if (pix == null) {
+                    throw new RuntimeException("Could not allocate PIX " + width + "x" + height);
+                }
+            }
+
+            return pix;
+        }
+
+        byte[] getLine (int length)
+        {
+            if (line.length < length) {
+                line = new byte[length];
+            }
+
+            // Padding pixels are white
+            Arrays.fill(line, 0, length, (byte) 0xFF);
+
+            return line;
+        }
+
+        int[] getWords (int length)
+        {
+            if (words.length < length) {
+                words = new int[length];
+            }
+
+            return words;
+        }
+
+        void trim (int maxPixels)
+        {
+            if ((pix != null) && (((long) pixGetWidth(pix) * pixGetHeight(pix)) > maxPixels)) {
+                pixDestroy(pix);
+                pix = null;
+            }
+        }
+
+        private boolean copyCoords ()
+        {
+            coords[0] = p1.get();
+            coords[1] = p2.get();
+            coords[2] = p3.get();
+            coords[3] = p4.get();
+
+            return true;
+        }
+    }
 }
@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.ui.action;
 
+import org.audiveris.omr.util.Jaxb;
+import org.audiveris.omr.util.JaxbContexts;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,9 +36,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlElement;
@@ -54,9 +55,6 @@ public class Actions
 
     private static final Logger logger = LoggerFactory.getLogger(Actions.class);
 
-    /** Context for JAXB unmarshalling. */
-    private static volatile JAXBContext jaxbContext;
-
     /** The collection of all actions loaded so far. */
     private static final Set<ActionDescriptor> allDescriptors = new LinkedHashSet<ActionDescriptor>();
 
@@ -186,12 +184,7 @@ public class Actions
     public static void loadActionDescriptors (InputStream in)
             throws JAXBException
     {
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(Actions.class);
-        }
-
-        Unmarshaller um = jaxbContext.createUnmarshaller();
-        Actions actions = (Actions) um.unmarshal(in);
+        Actions actions = (Actions) Jaxb.unmarshal(in, JaxbContexts.getContext(Actions.class));
 
         for (ActionDescriptor desc : actions.descriptors) {
             logger.debug("Descriptor unmarshalled {}", desc);
@@ -313,13 +313,16 @@ public class MusicFont
                                           int staffInterline)
     {
         final Scaling scaling = new Scaling(pointSize, staffInterline);
-        MusicFont font = scalingMap.get(scaling);
 
-        if (font == null) {
-            scalingMap.put(scaling, font = new MusicFont(pointSize, staffInterline));
-        }
+        synchronized (scalingMap) {
+            MusicFont font = scalingMap.get(scaling);
+
+            if (font == null) {
+                scalingMap.put(scaling, font = new MusicFont(pointSize, staffInterline));
+            }
 
-        return font;
+            return font;
+        }
     }
 
     //--------------//
@@ -0,0 +1,498 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                       T i l e C a c h e                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.ui.view;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code TileCache} renders a static layer of a view through cached raster tiles.
+ * <p>
+ * The layer is painted into tile images at the current zoom ratio, so that painters see the
+ * same transform as with direct rendering (absolute strokes, zoom-dependent details).
+ * A zoom change thus invalidates all cached tiles.
+ * All the tiles missing for a repaint are painted at once, in one layer paint, and then sliced.
+ * Subsequent repaints, typically when scrolling, simply draw the cached images instead of
+ * re-rendering the whole layer content (millions of runs, thousands of inters).
+ * <p>
+ * Tiles of all caches are kept in one pool, bounded by a global memory budget and evicted in
+ * least recently used order, so that the memory cost does not grow with the number of open
+ * views. Each cache belongs to a group (typically its sheet), whose tiles can be released at once
+ * via {@link #evict(Object)} when its views are no longer visible.
+ * A layer with no transparency, such as a binary image, can use an opaque compact image type
+ * (like {@link BufferedImage#TYPE_BYTE_BINARY}) rather than the default 32-bit ARGB tiles.
+ * <p>
+ * Tiles are used only for zoom ratios below 1, since beyond that ratio the visible area is small
+ * enough to be rendered directly, with better quality.
+ * <p>
+ * The cache must be invalidated when the layer content changes, either explicitly via
+ * {@link #invalidate()}, or implicitly via the content stamp provided to
+ * {@link #render(Graphics2D, long)}.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class TileCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(TileCache.class);
+
+    /** Cached tiles of all caches, in least recently used order. */
+    private static final Map<Key, BufferedImage> tiles = new LinkedHashMap<Key, BufferedImage>(
+            16,
+            0.75f,
+            true);
+
+    /** Memory used by cached tiles, in bytes. */
+    private static long totalBytes;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Group this cache belongs to. */
+    private final Object group;
+
+    /** Type of tile images. */
+    private final int imageType;
+
+    /** Stamp of content rendered in cached tiles. */
+    private long stamp;
+
+    /** Zoom ratio of cached tiles. */
+    private double ratio;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code TileCache} object, with ARGB tiles.
+     *
+     * @param group the group this cache belongs to
+     */
+    protected TileCache (Object group)
+    {
+        this(group, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * Creates a new {@code TileCache} object.
+     *
+     * @param group     the group this cache belongs to
+     * @param imageType type of tile images, an opaque type is filled with white before painting
+     */
+    protected TileCache (Object group,
+                         int imageType)
+    {
+        this.group = group;
+        this.imageType = imageType;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // evict //
+    //-------//
+    /**
+     * Discard the cached tiles of all caches in the provided group.
+     *
+     * @param group the group of caches, typically a sheet whose views are no longer visible
+     */
+    public static void evict (Object group)
+    {
+        synchronized (tiles) {
+            for (Iterator<Map.Entry<Key, BufferedImage>> it = tiles.entrySet().iterator();
+                    it.hasNext();) {
+                final Map.Entry<Key, BufferedImage> entry = it.next();
+
+                if (entry.getKey().cache.group == group) {
+                    totalBytes -= sizeOf(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    //------------//
+    // invalidate //
+    //------------//
+    /**
+     * Discard all cached tiles of this cache.
+     */
+    public void invalidate ()
+    {
+        synchronized (tiles) {
+            for (Iterator<Map.Entry<Key, BufferedImage>> it = tiles.entrySet().iterator();
+                    it.hasNext();) {
+                final Map.Entry<Key, BufferedImage> entry = it.next();
+
+                if (entry.getKey().cache == this) {
+                    totalBytes -= sizeOf(entry.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    //--------//
+    // render //
+    //--------//
+    /**
+     * Render the layer onto the clip area of the provided graphics environment.
+     *
+     * @param g     the graphics environment, with current zoom transform
+     * @param stamp current stamp of layer content, any change invalidates all cached tiles
+     */
+    public void render (Graphics2D g,
+                        long stamp)
+    {
+        if (stamp != this.stamp) {
+            invalidate();
+            this.stamp = stamp;
+        }
+
+        final AffineTransform at = g.getTransform();
+        final double ratio = at.getScaleX();
+        final Rectangle clip = g.getClipBounds();
+
+        if (!constants.useTiles.isSet()
+            || (clip == null)
+            || (ratio >= 1)
+            || (ratio <= 0)
+            || (at.getScaleY() != ratio)
+            || (at.getShearX() != 0)
+            || (at.getShearY() != 0)) {
+            paintLayer(g);
+
+            return;
+        }
+
+        if (ratio != this.ratio) {
+            invalidate();
+            this.ratio = ratio;
+        }
+
+        // Tile grid is defined in zoomed layer coordinates, regardless of view translation
+        final int size = constants.tileSize.getValue();
+        final int colMin = floorDiv((int) Math.floor(clip.x * ratio), size);
+        final int colMax = floorDiv((int) Math.ceil((clip.x + clip.width) * ratio) - 1, size);
+        final int rowMin = floorDiv((int) Math.floor(clip.y * ratio), size);
+        final int rowMax = floorDiv((int) Math.ceil((clip.y + clip.height) * ratio) - 1, size);
+        final int cols = (colMax - colMin) + 1;
+
+        // Visible tiles, kept here since the pool may evict them when over budget
+        final BufferedImage[] images = new BufferedImage[cols * ((rowMax - rowMin) + 1)];
+        final List<Key> missing = new ArrayList<Key>();
+
+        synchronized (tiles) {
+            for (int row = rowMin; row <= rowMax; row++) {
+                for (int col = colMin; col <= colMax; col++) {
+                    final Key key = new Key(this, col, row);
+                    final BufferedImage img = tiles.get(key); // Also refreshes the LRU order
+
+                    if (img != null) {
+                        images[((row - rowMin) * cols) + (col - colMin)] = img;
+                    } else {
+                        missing.add(key);
+                    }
+                }
+            }
+        }
+
+        // Paint all missing tiles at once
+        if (!missing.isEmpty()) {
+            final List<BufferedImage> built = buildTiles(missing, g);
+
+            synchronized (tiles) {
+                for (int i = 0; i < missing.size(); i++) {
+                    final Key key = missing.get(i);
+                    final BufferedImage img = built.get(i);
+                    final BufferedImage old = tiles.put(key, img);
+
+                    if (old != null) {
+                        totalBytes -= sizeOf(old);
+                    }
+
+                    totalBytes += sizeOf(img);
+                    images[((key.row - rowMin) * cols) + (key.col - colMin)] = img;
+                }
+
+                trim();
+            }
+        }
+
+        // Tiles are already zoomed, just draw them pixel for pixel
+        g.setTransform(AffineTransform.getTranslateInstance(at.getTranslateX(), at.getTranslateY()));
+
+        try {
+            for (int row = rowMin; row <= rowMax; row++) {
+                for (int col = colMin; col <= colMax; col++) {
+                    final BufferedImage img = images[((row - rowMin) * cols) + (col - colMin)];
+                    g.drawImage(img, col * size, row * size, null);
+                }
+            }
+        } finally {
+            g.setTransform(at);
+        }
+    }
+
+    //------------//
+    // paintLayer //
+    //------------//
+    /**
+     * Paint the layer content, as the view would do without any cache.
+     * The clip of provided graphics is set to the area to be painted.
+     *
+     * @param g the graphics environment
+     */
+    protected abstract void paintLayer (Graphics2D g);
+
+    //------------//
+    // buildTiles //
+    //------------//
+    /**
+     * Paint the layer content once, over the area covered by the provided tiles, and
+     * slice the result into new tile images.
+     *
+     * @param keys the missing tiles
+     * @param g    the view graphics environment, to copy color, stroke, font and hints from
+     * @return the tile images, in keys order
+     */
+    private List<BufferedImage> buildTiles (List<Key> keys,
+                                            Graphics2D g)
+    {
+        final int size = constants.tileSize.getValue();
+
+        // Covered area, in tile grid coordinates
+        int colMin = Integer.MAX_VALUE;
+        int colMax = Integer.MIN_VALUE;
+        int rowMin = Integer.MAX_VALUE;
+        int rowMax = Integer.MIN_VALUE;
+
+        for (Key key : keys) {
+            colMin = Math.min(colMin, key.col);
+            colMax = Math.max(colMax, key.col);
+            rowMin = Math.min(rowMin, key.row);
+            rowMax = Math.max(rowMax, key.row);
+        }
+
+        // Covered area, in layer coordinates
+        final Rectangle area = new Rectangle(
+                (int) Math.floor((colMin * size) / ratio),
+                (int) Math.floor((rowMin * size) / ratio),
+                (int) Math.ceil((((colMax - colMin) + 1) * size) / ratio) + 1,
+                (int) Math.ceil((((rowMax - rowMin) + 1) * size) / ratio) + 1);
+
+        // One layer paint for the whole area
+        final BufferedImage strip = new BufferedImage(
+                ((colMax - colMin) + 1) * size,
+                ((rowMax - rowMin) + 1) * size,
+                imageType);
+        final Graphics2D sg = strip.createGraphics();
+
+        try {
+            if (!strip.getColorModel().hasAlpha()) {
+                sg.setColor(Color.WHITE); // View background
+                sg.fillRect(0, 0, strip.getWidth(), strip.getHeight());
+            }
+
+            sg.setRenderingHints(g.getRenderingHints());
+            sg.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+            sg.setColor(g.getColor());
+            sg.setStroke(g.getStroke());
+            sg.setFont(g.getFont());
+            sg.translate(-colMin * size, -rowMin * size);
+            sg.scale(ratio, ratio); // Painters see the actual zoom ratio
+            sg.setClip(area);
+
+            paintLayer(sg);
+        } finally {
+            sg.dispose();
+        }
+
+        // Slice the strip into tiles (copied, so that the strip can be released)
+        final List<BufferedImage> images = new ArrayList<BufferedImage>(keys.size());
+
+        for (Key key : keys) {
+            final int x = (key.col - colMin) * size;
+            final int y = (key.row - rowMin) * size;
+            final BufferedImage img = new BufferedImage(size, size, imageType);
+            final Graphics2D tg = img.createGraphics();
+
+            try {
+                tg.drawImage(strip, 0, 0, size, size, x, y, x + size, y + size, null);
+            } finally {
+                tg.dispose();
+            }
+
+            images.add(img);
+        }
+
+        logger.debug("Built {} tiles at ratio {} in one paint", keys.size(), ratio);
+
+        return images;
+    }
+
+    //----------//
+    // floorDiv //
+    //----------//
+    private static int floorDiv (int x,
+                                 int y)
+    {
+        final int q = x / y;
+
+        return ((x % y) < 0) ? (q - 1) : q;
+    }
+
+    //--------//
+    // sizeOf //
+    //--------//
+    /**
+     * Report the memory used by the pixels of an image.
+     *
+     * @param img the image
+     * @return size in bytes
+     */
+    private static long sizeOf (BufferedImage img)
+    {
+        final DataBuffer buffer = img.getRaster().getDataBuffer();
+
+        return ((long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(
+                buffer.getDataType())) / 8;
+    }
+
+    //------//
+    // trim //
+    //------//
+    /**
+     * Evict the least recently used tiles, until the pool fits in memory budget.
+     * Caller must hold the pool lock.
+     */
+    private static void trim ()
+    {
+        final long budget = constants.maxMegabytes.getValue() * 1024L * 1024L;
+        final Iterator<BufferedImage> it = tiles.values().iterator();
+        int evicted = 0;
+
+        while ((totalBytes > budget) && it.hasNext()) {
+            totalBytes -= sizeOf(it.next());
+            it.remove();
+            evicted++;
+        }
+
+        if (evicted > 0) {
+            logger.debug("Evicted {} tiles, {} bytes left in pool", evicted, totalBytes);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useTiles = new Constant.Boolean(
+                true,
+                "Should we render static view layers through cached tiles at low zoom?");
+
+        private final Constant.Integer tileSize = new Constant.Integer(
+                "Pixels",
+                256,
+                "Side of a cached tile image");
+
+        private final Constant.Integer maxMegabytes = new Constant.Integer(
+                "MB",
+                48,
+                "Memory budget for cached tiles of all views");
+    }
+
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Identification of a tile, by owning cache and position in tile grid.
+     */
+    private static class Key
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final TileCache cache;
+
+        final int col;
+
+        final int row;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Key (TileCache cache,
+                    int col,
+                    int row)
+        {
+            this.cache = cache;
+            this.col = col;
+            this.row = row;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key that = (Key) obj;
+
+            return (cache == that.cache) && (col == that.col) && (row == that.row);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return (31 * ((31 * System.identityHashCode(cache)) + col)) + row;
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Tile{c" + col + " r" + row + "}";
+        }
+    }
+}
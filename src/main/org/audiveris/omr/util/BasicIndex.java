@@ -92,6 +92,9 @@ public class BasicIndex<E extends Entity>
     /** List of IDs for declared VIP entities. */
     private List<Integer> vipIds;
 
+    /** Count of modifications, meant for invalidation of rendering caches. */
+    private final AtomicInteger modCount = new AtomicInteger();
+
     /** (debug) for easy inspection via browser. */
     private Collection<E> values;
 
@@ -222,6 +225,15 @@ public class BasicIndex<E extends Entity>
         return lastId.get();
     }
 
+    //-------------//
+    // getModCount //
+    //-------------//
+    @Override
+    public int getModCount ()
+    {
+        return modCount.get();
+    }
+
     //---------//
     // getName //
     //---------//
@@ -249,6 +261,7 @@ public class BasicIndex<E extends Entity>
         }
 
         entities.put(id, entity);
+        modCount.incrementAndGet();
 
         if (isVipId(id)) {
             entity.setVip(true);
@@ -289,6 +302,7 @@ public class BasicIndex<E extends Entity>
         entity.setId(id);
 
         entities.put(id, entity);
+        modCount.incrementAndGet();
 
         if (isVipId(id)) {
             entity.setVip(true);
@@ -305,6 +319,7 @@ public class BasicIndex<E extends Entity>
     public void remove (E entity)
     {
         entities.remove(entity.getId());
+        modCount.incrementAndGet();
     }
 
     //-------//
@@ -315,6 +330,7 @@ public class BasicIndex<E extends Entity>
     {
         lastId.set(0);
         entities.clear();
+        modCount.incrementAndGet();
     }
 
     //------------------//
@@ -336,6 +352,18 @@ public class BasicIndex<E extends Entity>
         this.lastId.set(lastId);
     }
 
+    //-------------//
+    // setModified //
+    //-------------//
+    /**
+     * Signal a modification which does not change index content, such as a modification
+     * of entity relations.
+     */
+    public void setModified ()
+    {
+        modCount.incrementAndGet();
+    }
+
     //-----------//
     // setVipIds //
     //-----------//
@@ -105,6 +105,17 @@ public interface EntityIndex<E extends Entity>
      */
     int getLastId ();
 
+    /**
+     * Report the current count of modifications (entities inserted, registered or
+     * removed, or modification explicitly signalled).
+     * <p>
+     * Since this count can only increase, it is meant to check whether some display, based on
+     * index content, is still up-to-date.
+     *
+     * @return the modification count
+     */
+    int getModCount ();
+
     /**
      * Report the distinguished name of this index (for debug mainly).
      *
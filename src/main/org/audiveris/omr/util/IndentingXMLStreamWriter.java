@@ -91,9 +91,25 @@ public class IndentingXMLStreamWriter
      */
     public IndentingXMLStreamWriter (XMLStreamWriter writer,
                                      String indentStep)
+    {
+        this(writer, indentStep, 0);
+    }
+
+    /**
+     * Creates a new {@code IndentingXmlStreamWriter} object, meant for a fragment located
+     * at the provided depth in the final document.
+     *
+     * @param writer     the underlying writer
+     * @param indentStep the indentation string for one step. If null, no indentation is performed.
+     * @param depth      the initial depth
+     */
+    public IndentingXMLStreamWriter (XMLStreamWriter writer,
+                                     String indentStep,
+                                     int depth)
     {
         this.writer = writer;
         this.indentStep = indentStep;
+        this.depth = depth;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -218,6 +234,10 @@ public class IndentingXMLStreamWriter
             throws XMLStreamException
     {
         writer.writeDTD(dtd);
+
+        if (indentStep != null) {
+            doNewline();
+        }
     }
 
     @Override
@@ -79,12 +79,8 @@ public abstract class Jaxb
         OutputStream os = null;
 
         try {
-            Marshaller m = jaxbContext.createMarshaller();
             os = Files.newOutputStream(path, CREATE);
-
-            XMLStreamWriter writer = new IndentingXMLStreamWriter(
-                    XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8"));
-            m.marshal(object, writer);
+            marshal(object, os, jaxbContext);
         } finally {
             if (os != null) {
                 os.flush();
@@ -101,10 +97,17 @@ public abstract class Jaxb
                                 JAXBContext jaxbContext)
             throws JAXBException, XMLStreamException
     {
-        Marshaller m = jaxbContext.createMarshaller();
-        XMLStreamWriter writer = new IndentingXMLStreamWriter(
-                XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8"));
-        m.marshal(object, writer);
+        final long start = System.nanoTime();
+        final Marshaller m = JaxbContexts.borrowMarshaller(jaxbContext);
+
+        try {
+            XMLStreamWriter writer = new IndentingXMLStreamWriter(
+                    XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8"));
+            m.marshal(object, writer);
+        } finally {
+            JaxbContexts.release(jaxbContext, m);
+            JaxbContexts.recordMarshalTime(jaxbContext, System.nanoTime() - start);
+        }
     }
 
     //-----------//
@@ -117,10 +120,9 @@ public abstract class Jaxb
         InputStream is = null;
 
         try {
-            Unmarshaller um = jaxbContext.createUnmarshaller();
             is = Files.newInputStream(path, StandardOpenOption.READ);
 
-            return um.unmarshal(is);
+            return unmarshal(is, jaxbContext);
         } finally {
             if (is != null) {
                 is.close();
@@ -128,6 +130,32 @@ public abstract class Jaxb
         }
     }
 
+    //-----------//
+    // unmarshal //
+    //-----------//
+    /**
+     * Unmarshal an object from the provided input stream, using a pooled unmarshaller.
+     *
+     * @param is          the input stream (not closed by this method)
+     * @param jaxbContext the JAXB context to use
+     * @return the unmarshalled object
+     * @throws JAXBException if unmarshalling failed
+     */
+    public static Object unmarshal (InputStream is,
+                                    JAXBContext jaxbContext)
+            throws JAXBException
+    {
+        final long start = System.nanoTime();
+        final Unmarshaller um = JaxbContexts.borrowUnmarshaller(jaxbContext);
+
+        try {
+            return um.unmarshal(is);
+        } finally {
+            JaxbContexts.release(jaxbContext, um);
+            JaxbContexts.recordUnmarshalTime(jaxbContext, System.nanoTime() - start);
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //----------------------//
     // AtomicIntegerAdapter //
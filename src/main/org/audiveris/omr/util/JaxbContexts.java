@@ -0,0 +1,363 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    J a x b C o n t e x t s                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Class {@code JaxbContexts} is the central registry of JAXB contexts, with per-thread
+ * pools of marshallers and unmarshallers, and timing counters.
+ * <p>
+ * A JAXBContext is costly to build but thread-safe, so it is built lazily once per set of
+ * bound classes and then shared.
+ * Marshallers and unmarshallers are cheaper but not thread-safe, they are thus kept per thread
+ * and reused from one call to the next.
+ * A (un)marshaller is borrowed for the duration of one call and then released, so that a nested
+ * call (from within an adapter for example) gets an instance of its own.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class JaxbContexts
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(JaxbContexts.class);
+
+    /** Contexts, per list of bound classes. */
+    private static final ConcurrentMap<List<Class<?>>, JAXBContext> contexts = new ConcurrentHashMap<List<Class<?>>, JAXBContext>();
+
+    /** Statistics, per context. */
+    private static final ConcurrentMap<JAXBContext, Stats> stats = new ConcurrentHashMap<JAXBContext, Stats>();
+
+    /** Idle marshallers of current thread. */
+    private static final ThreadLocal<Map<JAXBContext, Marshaller>> marshallers = new ThreadLocal<Map<JAXBContext, Marshaller>>()
+    {
+        @Override
+        protected Map<JAXBContext, Marshaller> initialValue ()
+        {
+            return new IdentityHashMap<JAXBContext, Marshaller>();
+        }
+    };
+
+    /** Idle unmarshallers of current thread. */
+    private static final ThreadLocal<Map<JAXBContext, Unmarshaller>> unmarshallers = new ThreadLocal<Map<JAXBContext, Unmarshaller>>()
+    {
+        @Override
+        protected Map<JAXBContext, Unmarshaller> initialValue ()
+        {
+            return new IdentityHashMap<JAXBContext, Unmarshaller>();
+        }
+    };
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Not meant to be instantiated.
+     */
+    private JaxbContexts ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------------//
+    // borrowMarshaller //
+    //------------------//
+    /**
+     * Get a marshaller on the provided context, for exclusive use by the current thread
+     * until it is given back via {@link #release(JAXBContext, Marshaller)}.
+     *
+     * @param context the JAXB context
+     * @return a marshaller ready to use
+     * @throws JAXBException if marshaller could not be created
+     */
+    public static Marshaller borrowMarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        if (constants.poolMarshallers.isSet()) {
+            Marshaller m = marshallers.get().remove(context);
+
+            if (m != null) {
+                return m;
+            }
+        }
+
+        return context.createMarshaller();
+    }
+
+    //--------------------//
+    // borrowUnmarshaller //
+    //--------------------//
+    /**
+     * Get an unmarshaller on the provided context, for exclusive use by the current thread
+     * until it is given back via {@link #release(JAXBContext, Unmarshaller)}.
+     *
+     * @param context the JAXB context
+     * @return an unmarshaller ready to use
+     * @throws JAXBException if unmarshaller could not be created
+     */
+    public static Unmarshaller borrowUnmarshaller (JAXBContext context)
+            throws JAXBException
+    {
+        if (constants.poolMarshallers.isSet()) {
+            Unmarshaller um = unmarshallers.get().remove(context);
+
+            if (um != null) {
+                return um;
+            }
+        }
+
+        return context.createUnmarshaller();
+    }
+
+    //------------//
+    // getContext //
+    //------------//
+    /**
+     * Report the shared JAXB context for the provided classes, building it if needed.
+     *
+     * @param classes the classes to bind (their order matters for context identity)
+     * @return the shared context
+     * @throws JAXBException if context could not be built
+     */
+    public static JAXBContext getContext (Class<?>... classes)
+            throws JAXBException
+    {
+        final List<Class<?>> key = Arrays.<Class<?>>asList(classes);
+        JAXBContext context = contexts.get(key);
+
+        if (context == null) {
+            final long start = System.nanoTime();
+            context = JAXBContext.newInstance(classes);
+
+            JAXBContext previous = contexts.putIfAbsent(key, context);
+
+            if (previous != null) {
+                context = previous; // Another thread was faster
+            } else {
+                Stats s = new Stats(key);
+                s.creation = System.nanoTime() - start;
+                stats.put(context, s);
+                logger.debug("Created JAXB context for {}", key);
+            }
+        }
+
+        return context;
+    }
+
+    //-----------------//
+    // printStatistics //
+    //-----------------//
+    /**
+     * Print out the timing counters gathered for every context, if so desired.
+     */
+    public static void printStatistics ()
+    {
+        if (!constants.printStatistics.isSet() || stats.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder("JAXB contexts statistics (times in ms):");
+        sb.append(
+                String.format(
+                        "%n%8s %10s %10s %10s %10s %s",
+                        "creation",
+                        "marshal#",
+                        "marshal",
+                        "unmarshal#",
+                        "unmarshal",
+                        "classes"));
+
+        for (Stats s : new ArrayList<Stats>(stats.values())) {
+            sb.append(
+                    String.format(
+                            "%n%8d %10d %10d %10d %10d %s",
+                            s.creation / 1_000_000,
+                            s.marshalCount.get(),
+                            s.marshalTime.get() / 1_000_000,
+                            s.unmarshalCount.get(),
+                            s.unmarshalTime.get() / 1_000_000,
+                            names(s.classes)));
+        }
+
+        logger.info(sb.toString());
+    }
+
+    //-------------------//
+    // recordMarshalTime //
+    //-------------------//
+    /**
+     * Record the duration of a marshalling.
+     *
+     * @param context the context used
+     * @param nanos   duration in nanoseconds
+     */
+    public static void recordMarshalTime (JAXBContext context,
+                                          long nanos)
+    {
+        Stats s = stats.get(context);
+
+        if (s != null) {
+            s.marshalCount.incrementAndGet();
+            s.marshalTime.addAndGet(nanos);
+        }
+    }
+
+    //---------------------//
+    // recordUnmarshalTime //
+    //---------------------//
+    /**
+     * Record the duration of an unmarshalling.
+     *
+     * @param context the context used
+     * @param nanos   duration in nanoseconds
+     */
+    public static void recordUnmarshalTime (JAXBContext context,
+                                            long nanos)
+    {
+        Stats s = stats.get(context);
+
+        if (s != null) {
+            s.unmarshalCount.incrementAndGet();
+            s.unmarshalTime.addAndGet(nanos);
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Give back a marshaller previously borrowed.
+     *
+     * @param context    the JAXB context
+     * @param marshaller the marshaller to release
+     */
+    public static void release (JAXBContext context,
+                                Marshaller marshaller)
+    {
+        if (constants.poolMarshallers.isSet()) {
+            marshallers.get().put(context, marshaller);
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Give back an unmarshaller previously borrowed.
+     *
+     * @param context      the JAXB context
+     * @param unmarshaller the unmarshaller to release
+     */
+    public static void release (JAXBContext context,
+                                Unmarshaller unmarshaller)
+    {
+        if (constants.poolMarshallers.isSet()) {
+            unmarshallers.get().put(context, unmarshaller);
+        }
+    }
+
+    //-------//
+    // names //
+    //-------//
+    private static String names (List<Class<?>> classes)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (Class<?> classe : classes) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(classe.getSimpleName());
+        }
+
+        return sb.toString();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean poolMarshallers = new Constant.Boolean(
+                true,
+                "Should we reuse JAXB (un)marshallers per thread?");
+
+        private final Constant.Boolean printStatistics = new Constant.Boolean(
+                false,
+                "Should we print out JAXB timing statistics at end of batch?");
+    }
+
+    //-------//
+    // Stats //
+    //-------//
+    /**
+     * Timing counters for one context.
+     */
+    private static class Stats
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final List<Class<?>> classes;
+
+        /** Time spent building the context. */
+        long creation;
+
+        final AtomicInteger marshalCount = new AtomicInteger();
+
+        final AtomicLong marshalTime = new AtomicLong();
+
+        final AtomicInteger unmarshalCount = new AtomicInteger();
+
+        final AtomicLong unmarshalTime = new AtomicLong();
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Stats (List<Class<?>> classes)
+        {
+            this.classes = classes;
+        }
+    }
+}
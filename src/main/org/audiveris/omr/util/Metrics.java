@@ -0,0 +1,632 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                         M e t r i c s                                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class {@code Metrics} is the central registry of processing metrics: counters and
+ * histograms (timers being histograms of durations in milliseconds).
+ * <p>
+ * Each metric is keyed by book, sheet, system, step and phase.
+ * Book and sheet are taken from the log annotation of the current thread (see {@link LogUtil}),
+ * step and system from the metrics context of the current thread, the phase being provided by the
+ * caller.
+ * <p>
+ * Metrics are fed by step processing ({@code Step.doit}), system processing
+ * ({@code AbstractSystemStep.doSystem}) and by every {@link StopWatch} task.
+ * At end of a batch run, they can be dumped as JSON and CSV files into the log folder.
+ * <p>
+ * When disabled (the default), every feeding method returns immediately, and timers are a shared
+ * no-op instance.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class Metrics
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    /** Number of histogram buckets (powers of 2). */
+    private static final int BUCKETS = 32;
+
+    /** Timer returned when metrics are disabled. */
+    private static final Timer NO_OP = new Timer(null);
+
+    /** All counters. */
+    private static final ConcurrentMap<Key, AtomicLong> counters = new ConcurrentHashMap<Key, AtomicLong>();
+
+    /** All histograms. */
+    private static final ConcurrentMap<Key, Histogram> histograms = new ConcurrentHashMap<Key, Histogram>();
+
+    /** Step and system context, per thread. */
+    private static final ThreadLocal<String[]> context = new ThreadLocal<String[]>()
+    {
+        @Override
+        protected String[] initialValue ()
+        {
+            return new String[2]; // step, system
+        }
+    };
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Not meant to be instantiated.
+     */
+    private Metrics ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // count //
+    //-------//
+    /**
+     * Increment by 1 the counter for the provided phase.
+     *
+     * @param phase the phase name
+     */
+    public static void count (String phase)
+    {
+        count(phase, 1);
+    }
+
+    //-------//
+    // count //
+    //-------//
+    /**
+     * Increment the counter for the provided phase.
+     *
+     * @param phase the phase name
+     * @param delta the increment
+     */
+    public static void count (String phase,
+                              long delta)
+    {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final Key key = currentKey(phase);
+        AtomicLong counter = counters.get(key);
+
+        if (counter == null) {
+            AtomicLong previous = counters.putIfAbsent(key, counter = new AtomicLong());
+
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+
+        counter.addAndGet(delta);
+    }
+
+    //------//
+    // dump //
+    //------//
+    /**
+     * Dump all metrics gathered so far to JSON and CSV files in the log folder,
+     * if so desired.
+     */
+    public static void dump ()
+    {
+        if (!isEnabled() || (counters.isEmpty() && histograms.isEmpty())) {
+            return;
+        }
+
+        final String now = new SimpleDateFormat("yyyyMMdd'T'HHmmss").format(new Date());
+        final List<Map.Entry<Key, AtomicLong>> cList = sorted(counters);
+        final List<Map.Entry<Key, Histogram>> hList = sorted(histograms);
+
+        try {
+            Files.createDirectories(WellKnowns.LOG_FOLDER);
+
+            if (constants.dumpJson.isSet()) {
+                Path path = WellKnowns.LOG_FOLDER.resolve("metrics-" + now + ".json");
+                writeJson(path, cList, hList);
+                logger.info("Metrics written to {}", path.toAbsolutePath());
+            }
+
+            if (constants.dumpCsv.isSet()) {
+                Path path = WellKnowns.LOG_FOLDER.resolve("metrics-" + now + ".csv");
+                writeCsv(path, cList, hList);
+                logger.info("Metrics written to {}", path.toAbsolutePath());
+            }
+        } catch (IOException ex) {
+            logger.warn("Could not write metrics {}", ex.toString(), ex);
+        }
+    }
+
+    //---------//
+    // getStep //
+    //---------//
+    /**
+     * Report the step of the current thread context.
+     *
+     * @return current step name, perhaps null
+     */
+    public static String getStep ()
+    {
+        return context.get()[0];
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Tell whether metrics are being gathered.
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled ()
+    {
+        return constants.enabled.isSet();
+    }
+
+    //--------//
+    // record //
+    //--------//
+    /**
+     * Record a value into the histogram of the provided phase.
+     *
+     * @param phase the phase name
+     * @param value the (non-negative) value to record
+     */
+    public static void record (String phase,
+                               long value)
+    {
+        if (!isEnabled()) {
+            return;
+        }
+
+        record(currentKey(phase), value);
+    }
+
+    //-------//
+    // reset //
+    //-------//
+    /**
+     * Forget all metrics gathered so far.
+     */
+    public static void reset ()
+    {
+        counters.clear();
+        histograms.clear();
+    }
+
+    //---------//
+    // setStep //
+    //---------//
+    /**
+     * Set the step of the current thread context.
+     *
+     * @param step the step name, or null
+     */
+    public static void setStep (String step)
+    {
+        context.get()[0] = step;
+    }
+
+    //-----------//
+    // setSystem //
+    //-----------//
+    /**
+     * Set the system of the current thread context.
+     *
+     * @param system the system id, or null
+     */
+    public static void setSystem (Integer system)
+    {
+        context.get()[1] = (system != null) ? system.toString() : null;
+    }
+
+    //-------//
+    // start //
+    //-------//
+    /**
+     * Start a timer for the provided phase, to be stopped via {@link Timer#stop()}.
+     *
+     * @param phase the phase name
+     * @return the running timer (a no-op timer if metrics are disabled)
+     */
+    public static Timer start (String phase)
+    {
+        if (!isEnabled()) {
+            return NO_OP;
+        }
+
+        return new Timer(currentKey(phase));
+    }
+
+    //------------//
+    // currentKey //
+    //------------//
+    private static Key currentKey (String phase)
+    {
+        final String[] ctx = context.get();
+
+        return new Key(MDC.get(LogUtil.BOOK), MDC.get(LogUtil.SHEET), ctx[1], ctx[0], phase);
+    }
+
+    //------//
+    // json //
+    //------//
+    private static String json (String str)
+    {
+        if (str == null) {
+            return "null";
+        }
+
+        final StringBuilder sb = new StringBuilder("\"");
+
+        for (char c : str.toCharArray()) {
+            if ((c == '"') || (c == '\\')) {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    //--------//
+    // record //
+    //--------//
+    private static void record (Key key,
+                                long value)
+    {
+        Histogram histo = histograms.get(key);
+
+        if (histo == null) {
+            Histogram previous = histograms.putIfAbsent(key, histo = new Histogram());
+
+            if (previous != null) {
+                histo = previous;
+            }
+        }
+
+        histo.add(value);
+    }
+
+    //--------//
+    // sorted //
+    //--------//
+    private static <V> List<Map.Entry<Key, V>> sorted (Map<Key, V> map)
+    {
+        final List<Map.Entry<Key, V>> list = new ArrayList<Map.Entry<Key, V>>(map.entrySet());
+        Collections.sort(
+                list,
+                new Comparator<Map.Entry<Key, V>>()
+        {
+            @Override
+            public int compare (Map.Entry<Key, V> e1,
+                                Map.Entry<Key, V> e2)
+            {
+                return e1.getKey().toString().compareTo(e2.getKey().toString());
+            }
+        });
+
+        return list;
+    }
+
+    //----------//
+    // writeCsv //
+    //----------//
+    private static void writeCsv (Path path,
+                                  List<Map.Entry<Key, AtomicLong>> cList,
+                                  List<Map.Entry<Key, Histogram>> hList)
+            throws IOException
+    {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("kind;book;sheet;system;step;phase;count;total;min;max");
+            out.newLine();
+
+            for (Map.Entry<Key, AtomicLong> entry : cList) {
+                out.write("counter;" + entry.getKey().toCsv() + ";" + entry.getValue().get() + ";;;");
+                out.newLine();
+            }
+
+            for (Map.Entry<Key, Histogram> entry : hList) {
+                final Histogram h = entry.getValue();
+                out.write(
+                        "histogram;" + entry.getKey().toCsv() + ";" + h.count.get() + ";"
+                        + h.total.get() + ";" + h.min.get() + ";" + h.max.get());
+                out.newLine();
+            }
+        }
+    }
+
+    //-----------//
+    // writeJson //
+    //-----------//
+    private static void writeJson (Path path,
+                                   List<Map.Entry<Key, AtomicLong>> cList,
+                                   List<Map.Entry<Key, Histogram>> hList)
+            throws IOException
+    {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("{");
+            out.newLine();
+            out.write("  \"counters\": [");
+
+            for (int i = 0; i < cList.size(); i++) {
+                final Map.Entry<Key, AtomicLong> entry = cList.get(i);
+                out.write((i > 0) ? "," : "");
+                out.newLine();
+                out.write(
+                        "    {" + entry.getKey().toJson() + ", \"value\": " + entry.getValue().get()
+                        + "}");
+            }
+
+            out.newLine();
+            out.write("  ],");
+            out.newLine();
+            out.write("  \"histograms\": [");
+
+            for (int i = 0; i < hList.size(); i++) {
+                final Map.Entry<Key, Histogram> entry = hList.get(i);
+                final Histogram h = entry.getValue();
+                out.write((i > 0) ? "," : "");
+                out.newLine();
+                out.write(
+                        "    {" + entry.getKey().toJson() + ", \"count\": " + h.count.get()
+                        + ", \"total\": " + h.total.get() + ", \"min\": " + h.min.get()
+                        + ", \"max\": " + h.max.get() + ", \"buckets\": " + h.bucketsAsJson()
+                        + "}");
+            }
+
+            out.newLine();
+            out.write("  ]");
+            out.newLine();
+            out.write("}");
+            out.newLine();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Timer //
+    //-------//
+    /**
+     * A running timer, for one phase.
+     */
+    public static class Timer
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Metric key, null for the no-op timer. */
+        private final Key key;
+
+        /** Start time. */
+        private final long start;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private Timer (Key key)
+        {
+            this.key = key;
+            start = (key != null) ? System.currentTimeMillis() : 0;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Stop the timer and record its elapsed time in milliseconds.
+         */
+        public void stop ()
+        {
+            if (key != null) {
+                record(key, System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean enabled = new Constant.Boolean(
+                false,
+                "Should we gather processing metrics?");
+
+        private final Constant.Boolean dumpJson = new Constant.Boolean(
+                true,
+                "Should we dump metrics as JSON at end of batch?");
+
+        private final Constant.Boolean dumpCsv = new Constant.Boolean(
+                true,
+                "Should we dump metrics as CSV at end of batch?");
+    }
+
+    //-----------//
+    // Histogram //
+    //-----------//
+    /**
+     * Distribution of values, with power-of-2 buckets.
+     * Bucket i counts values v such that 2^(i-1) &lt;= v &lt; 2^i (bucket 0 for v = 0).
+     */
+    private static class Histogram
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final AtomicLong count = new AtomicLong();
+
+        final AtomicLong total = new AtomicLong();
+
+        final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+        final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        //~ Methods --------------------------------------------------------------------------------
+        void add (long value)
+        {
+            count.incrementAndGet();
+            total.addAndGet(value);
+
+            long m;
+
+            while (value < (m = min.get())) {
+                if (min.compareAndSet(m, value)) {
+                    break;
+                }
+            }
+
+            while (value > (m = max.get())) {
+                if (max.compareAndSet(m, value)) {
+                    break;
+                }
+            }
+
+            final int bucket = (value <= 0) ? 0 : (64 - Long.numberOfLeadingZeros(value));
+            buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        }
+
+        String bucketsAsJson ()
+        {
+            final StringBuilder sb = new StringBuilder("[");
+
+            for (int i = 0; i < BUCKETS; i++) {
+                sb.append((i > 0) ? ", " : "").append(buckets.get(i));
+            }
+
+            return sb.append("]").toString();
+        }
+    }
+
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Metric key.
+     */
+    private static class Key
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final String book;
+
+        final String sheet;
+
+        final String system;
+
+        final String step;
+
+        final String phase;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Key (String book,
+                    String sheet,
+                    String system,
+                    String step,
+                    String phase)
+        {
+            this.book = book;
+            this.sheet = sheet;
+            this.system = system;
+            this.step = step;
+            this.phase = phase;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key that = (Key) obj;
+
+            return Objects.equals(book, that.book) && Objects.equals(sheet, that.sheet)
+                   && Objects.equals(system, that.system) && Objects.equals(step, that.step)
+                   && Objects.equals(phase, that.phase);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return Objects.hash(book, sheet, system, step, phase);
+        }
+
+        @Override
+        public String toString ()
+        {
+            return book + "/" + sheet + "/" + system + "/" + step + "/" + phase;
+        }
+
+        String toCsv ()
+        {
+            return csv(book) + ";" + csv(sheet) + ";" + csv(system) + ";" + csv(step) + ";"
+                   + csv(phase);
+        }
+
+        String toJson ()
+        {
+            return "\"book\": " + json(book) + ", \"sheet\": " + json(sheet) + ", \"system\": "
+                   + json(system) + ", \"step\": " + json(step) + ", \"phase\": " + json(phase);
+        }
+
+        private static String csv (String str)
+        {
+            return (str != null) ? str.replace(';', ',') : "";
+        }
+    }
+}
@@ -29,13 +29,31 @@ import org.audiveris.omr.util.param.Param;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class {@code OmrExecutors} handles several pools of threads provided to Audiveris
@@ -43,7 +61,24 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>ioExecutor: a single thread for background I/O, with a bounded queue</li>
+ * <li>sharedPool: a work-stealing pool of #cpu threads, which replaces both low and high
+ * executors when {@code useSharedPool} constant is set</li>
  * </ul>
+ * <p>
+ * The number of CPUs is the number of processors reported by the JVM, limited by the CPU quota
+ * of the Linux control group if any (as set for a container), unless it is explicitly specified.
+ * <p>
+ * Nested parallelism (sheets, then systems, then image stripes) may block pool threads
+ * while they wait for their sub-tasks. The shared pool copes with this: a worker waiting in
+ * {@code invokeAll} on the shared pool helps process the pending tasks, and a worker waiting on
+ * another executor should use {@link #invokeAll(ExecutorService, Collection)} so that the pool
+ * can compensate for the blocked worker.
+ * Note that a helping worker may run another task inline, hence a task must not rely on thread
+ * local data (such as log context) set before a nested invokeAll.
+ * <p>
+ * Every pool counts its tasks, the time they wait in queue and the time they run,
+ * see {@link #getStatistics()}.
  *
  * @author Hervé Bitteur
  */
@@ -59,14 +94,17 @@ public class OmrExecutors
     public static final Param<Boolean> defaultParallelism = new Default();
 
     /** Number of processors available. */
-    private static final int cpuCount = Runtime.getRuntime().availableProcessors();
+    private static final int cpuCount = computeCpuCount();
 
     static {
         if (constants.printEnvironment.isSet()) {
             logger.info(
-                    "Environment. CPU count: {}, Use of parallelism: {}",
+                    "Environment. CPU count: {} (processors: {}), Use of parallelism: {},"
+                    + " Shared pool: {}",
                     cpuCount,
-                    defaultParallelism.getValue());
+                    Runtime.getRuntime().availableProcessors(),
+                    defaultParallelism.getValue(),
+                    constants.useSharedPool.isSet());
         }
     }
 
@@ -77,8 +115,17 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
-    /** To handle all the pools as a whole. */
-    private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
+    private static final Pool shared = new Shared();
+
+    private static final Pool ios = new Ios();
+
+    /** To handle all the pools as a whole. (I/O last, since other tasks may feed it) */
+    private static final Collection<Pool> allPools = Arrays.asList(
+            cachedLows,
+            lows,
+            highs,
+            shared,
+            ios);
 
     /** To prevent parallel creation of pools when closing. */
     private static volatile boolean creationAllowed = true;
@@ -111,11 +158,28 @@ public class OmrExecutors
     /**
      * Return the (single) pool of high priority threads
      *
-     * @return the high pool, allocated if needed
+     * @return the high pool (or the shared pool), allocated if needed
      */
     public static ExecutorService getHighExecutor ()
     {
-        return highs.getPool();
+        return constants.useSharedPool.isSet() ? shared.getPool() : highs.getPool();
+    }
+
+    //---------------//
+    // getIoExecutor //
+    //---------------//
+    /**
+     * Return the (single) pool meant for background I/O.
+     * <p>
+     * It runs one task at a time and queues at most {@code ioQueueSize} tasks.
+     * Beyond this limit, the submitting thread runs the task by itself, which throttles the
+     * producers down to the actual I/O throughput.
+     *
+     * @return the I/O pool, allocated if needed
+     */
+    public static ExecutorService getIoExecutor ()
+    {
+        return ios.getPool();
     }
 
     //----------------//
@@ -124,11 +188,11 @@ public class OmrExecutors
     /**
      * Return the (single) pool of low priority threads
      *
-     * @return the low pool, allocated if needed
+     * @return the low pool (or the shared pool), allocated if needed
      */
     public static ExecutorService getLowExecutor ()
     {
-        return lows.getPool();
+        return constants.useSharedPool.isSet() ? shared.getPool() : lows.getPool();
     }
 
     //-----------------//
@@ -144,6 +208,83 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //---------------//
+    // getStatistics //
+    //---------------//
+    /**
+     * Report the current status of every active pool: threads, active threads, queued tasks,
+     * as well as the counters on tasks latency.
+     *
+     * @return a printable status
+     */
+    public static String getStatistics ()
+    {
+        StringBuilder sb = new StringBuilder("Executors statistics (times in ms):");
+        sb.append(
+                String.format(
+                        "%n%-10s %7s %7s %7s %9s %9s %9s %9s",
+                        "pool",
+                        "threads",
+                        "active",
+                        "queued",
+                        "tasks",
+                        "meanWait",
+                        "maxWait",
+                        "meanRun"));
+
+        for (Pool pool : allPools) {
+            pool.printStatus(sb);
+        }
+
+        return sb.toString();
+    }
+
+    //-----------//
+    // invokeAll //
+    //-----------//
+    /**
+     * Execute the provided tasks on the provided executor, and wait for their completion.
+     * <p>
+     * If current thread is a worker of the shared pool, it is flagged as blocked while it waits,
+     * so that the shared pool can keep its parallelism level.
+     *
+     * @param <T>      type of task result
+     * @param executor the executor to use
+     * @param tasks    the tasks to run
+     * @return the futures, all completed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> List<Future<T>> invokeAll (ExecutorService executor,
+                                                 Collection<? extends Callable<T>> tasks)
+            throws InterruptedException
+    {
+        final Thread thread = Thread.currentThread();
+
+        if (!(thread instanceof ForkJoinWorkerThread)
+            || (((ForkJoinWorkerThread) thread).getPool() == executor)) {
+            // Plain blocking, or helping within the same fork-join pool
+            return executor.invokeAll(tasks);
+        }
+
+        final InvokeAllBlocker<T> blocker = new InvokeAllBlocker<T>(executor, tasks);
+        ForkJoinPool.managedBlock(blocker);
+
+        return blocker.futures;
+    }
+
+    //-----------------//
+    // printStatistics //
+    //-----------------//
+    /**
+     * Print out the pools statistics, if so desired.
+     */
+    public static void printStatistics ()
+    {
+        if (constants.printStatistics.isSet()) {
+            logger.info(getStatistics());
+        }
+    }
+
     //---------//
     // restart //
     //---------//
@@ -187,6 +328,92 @@ public class OmrExecutors
         return result;
     }
 
+    //-----------------//
+    // computeCpuCount //
+    //-----------------//
+    /**
+     * Determine the number of CPUs to use, taking any container CPU quota into account.
+     *
+     * @return the CPU count
+     */
+    private static int computeCpuCount ()
+    {
+        final int specified = constants.cpuCount.getValue();
+
+        if (specified > 0) {
+            return specified;
+        }
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int quota = getCpuQuota();
+
+        return ((quota > 0) && (quota < processors)) ? quota : processors;
+    }
+
+    //-------------//
+    // getCpuQuota //
+    //-------------//
+    /**
+     * Read the CPU quota of the current control group, if any.
+     * Both cgroup v2 (cpu.max) and cgroup v1 (cpu.cfs_quota_us and cpu.cfs_period_us) are
+     * supported.
+     *
+     * @return the quota, rounded up to a number of CPUs, or 0 if no quota could be read
+     */
+    private static int getCpuQuota ()
+    {
+        try {
+            final Path v2 = Paths.get("/sys/fs/cgroup/cpu.max");
+
+            if (Files.isReadable(v2)) {
+                final String[] tokens = readFirstLine(v2).split("\\s+");
+
+                if ((tokens.length == 2) && !"max".equals(tokens[0])) {
+                    return quotaCount(Long.parseLong(tokens[0]), Long.parseLong(tokens[1]));
+                }
+
+                return 0;
+            }
+
+            final Path v1Quota = Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_quota_us");
+            final Path v1Period = Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_period_us");
+
+            if (Files.isReadable(v1Quota) && Files.isReadable(v1Period)) {
+                return quotaCount(
+                        Long.parseLong(readFirstLine(v1Quota)),
+                        Long.parseLong(readFirstLine(v1Period)));
+            }
+        } catch (Exception ex) {
+            logger.debug("Could not read CPU quota {}", ex.toString());
+        }
+
+        return 0;
+    }
+
+    //------------//
+    // quotaCount //
+    //------------//
+    private static int quotaCount (long quota,
+                                   long period)
+    {
+        if ((quota <= 0) || (period <= 0)) {
+            return 0; // No limit
+        }
+
+        return (int) Math.max(1, (quota + period - 1) / period);
+    }
+
+    //---------------//
+    // readFirstLine //
+    //---------------//
+    private static String readFirstLine (Path path)
+            throws Exception
+    {
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+
+        return lines.isEmpty() ? "" : lines.get(0).trim();
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //------//
     // Pool //
@@ -198,6 +425,9 @@ public class OmrExecutors
         /** The underlying pool of threads. */
         protected ExecutorService pool;
 
+        /** Tasks counters. */
+        protected final Latency latency = new Latency();
+
         //~ Methods --------------------------------------------------------------------------------
         /**
          * Name the pool.
@@ -277,6 +507,45 @@ public class OmrExecutors
             return (pool != null) && !pool.isShutdown();
         }
 
+        /**
+         * Append the status of this pool, if active.
+         */
+        public synchronized void printStatus (StringBuilder sb)
+        {
+            if (!isActive()) {
+                return;
+            }
+
+            final int threads;
+            final int active;
+            final long queued;
+
+            if (pool instanceof ForkJoinPool) {
+                final ForkJoinPool fjp = (ForkJoinPool) pool;
+                threads = fjp.getPoolSize();
+                active = fjp.getActiveThreadCount();
+                queued = fjp.getQueuedSubmissionCount() + fjp.getQueuedTaskCount();
+            } else {
+                final ThreadPoolExecutor tpe = (ThreadPoolExecutor) pool;
+                threads = tpe.getPoolSize();
+                active = tpe.getActiveCount();
+                queued = tpe.getQueue().size();
+            }
+
+            final long tasks = latency.tasks.get();
+            sb.append(
+                    String.format(
+                            "%n%-10s %7d %7d %7d %9d %9.3f %9.3f %9.3f",
+                            getName(),
+                            threads,
+                            active,
+                            queued,
+                            tasks,
+                            (tasks == 0) ? 0.0 : (latency.waitNanos.get() / 1e6 / tasks),
+                            latency.maxWaitNanos.get() / 1e6,
+                            (tasks == 0) ? 0.0 : (latency.runNanos.get() / 1e6 / tasks)));
+        }
+
         /**
          * Needed to create the concrete pool.
          */
@@ -299,10 +568,28 @@ public class OmrExecutors
                 false, //true, // Disabled for the time being
                 "Should we use parallelism when we have several processors?");
 
+        private final Constant.Integer cpuCount = new Constant.Integer(
+                "cpus",
+                0,
+                "Number of CPUs to use (0 for processors count, limited by container quota)");
+
+        private final Constant.Boolean useSharedPool = new Constant.Boolean(
+                false,
+                "Should low and high executors be replaced by a shared work-stealing pool?");
+
+        private final Constant.Boolean printStatistics = new Constant.Boolean(
+                false,
+                "Should we print out executors statistics at end of batch?");
+
         private final Constant.Integer graceDelay = new Constant.Integer(
                 "seconds",
                 60,
                 "Time to wait for terminating tasks");
+
+        private final Constant.Integer ioQueueSize = new Constant.Integer(
+                "tasks",
+                4,
+                "Maximum number of I/O tasks waiting in queue, before submitter runs them");
     }
 
     //------------//
@@ -323,7 +610,14 @@ public class OmrExecutors
         @Override
         protected ExecutorService createPool ()
         {
-            return Executors.newCachedThreadPool(new Factory(getName(), Thread.MIN_PRIORITY, 0));
+            // Same as Executors.newCachedThreadPool()
+            return new MonitoredExecutor(
+                    0,
+                    Integer.MAX_VALUE,
+                    60L,
+                    new SynchronousQueue<Runnable>(),
+                    new Factory(getName(), Thread.MIN_PRIORITY, 0),
+                    latency);
         }
     }
 
@@ -442,9 +736,159 @@ public class OmrExecutors
         @Override
         protected ExecutorService createPool ()
         {
-            return Executors.newFixedThreadPool(
-                    defaultParallelism.getValue() ? (cpuCount + 1) : 1,
-                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+            // Same as Executors.newFixedThreadPool()
+            final int size = defaultParallelism.getValue() ? (cpuCount + 1) : 1;
+
+            return new MonitoredExecutor(
+                    size,
+                    size,
+                    0L,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0),
+                    latency);
+        }
+    }
+
+    //------------------//
+    // InvokeAllBlocker //
+    //------------------//
+    /** Wait for completion of tasks on another executor, as a managed blocking. */
+    private static class InvokeAllBlocker<T>
+            implements ForkJoinPool.ManagedBlocker
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final ExecutorService executor;
+
+        private final Collection<? extends Callable<T>> tasks;
+
+        private List<Future<T>> futures;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        InvokeAllBlocker (ExecutorService executor,
+                          Collection<? extends Callable<T>> tasks)
+        {
+            this.executor = executor;
+            this.tasks = tasks;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean block ()
+                throws InterruptedException
+        {
+            if (futures == null) {
+                futures = executor.invokeAll(tasks);
+            }
+
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable ()
+        {
+            return futures != null;
+        }
+    }
+
+    //-----//
+    // Ios //
+    //-----//
+    /** Single thread for background I/O, with a bounded queue. */
+    private static class Ios
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "io";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            final ThreadPoolExecutor executor = new MonitoredExecutor(
+                    1,
+                    1,
+                    0L,
+                    new LinkedBlockingQueue<Runnable>(constants.ioQueueSize.getValue()),
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0),
+                    latency);
+
+            // Back-pressure: with a full queue, the submitting thread runs the task itself.
+            // This applies even to a pool being shut down, so that no I/O task is ever discarded.
+            executor.setRejectedExecutionHandler(
+                    new RejectedExecutionHandler()
+            {
+                @Override
+                public void rejectedExecution (Runnable task,
+                                               ThreadPoolExecutor pool)
+                {
+                    task.run();
+                }
+            });
+
+            return executor;
+        }
+    }
+
+    //---------//
+    // Latency //
+    //---------//
+    /** Counters on tasks run by a pool. */
+    private static class Latency
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Number of tasks completed. */
+        final AtomicLong tasks = new AtomicLong();
+
+        /** Total time spent by tasks waiting in queue. */
+        final AtomicLong waitNanos = new AtomicLong();
+
+        /** Maximum time spent by a task waiting in queue. */
+        final AtomicLong maxWaitNanos = new AtomicLong();
+
+        /** Total time spent by tasks running. */
+        final AtomicLong runNanos = new AtomicLong();
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Wrap the provided task, so that its wait and run times get recorded.
+         *
+         * @param task the task submitted
+         * @return the wrapping task
+         */
+        <T> Callable<T> wrap (final Callable<T> task)
+        {
+            final long submitted = System.nanoTime();
+
+            return new Callable<T>()
+            {
+                @Override
+                public T call ()
+                        throws Exception
+                {
+                    final long start = System.nanoTime();
+                    final long wait = start - submitted;
+                    waitNanos.addAndGet(wait);
+
+                    for (long max = maxWaitNanos.get(); wait > max; max = maxWaitNanos.get()) {
+                        if (maxWaitNanos.compareAndSet(max, wait)) {
+                            break;
+                        }
+                    }
+
+                    try {
+                        return task.call();
+                    } finally {
+                        runNanos.addAndGet(System.nanoTime() - start);
+                        tasks.incrementAndGet();
+                    }
+                }
+            };
         }
     }
 
@@ -466,9 +910,158 @@ public class OmrExecutors
         @Override
         protected ExecutorService createPool ()
         {
-            return Executors.newFixedThreadPool(
-                    defaultParallelism.getValue() ? (cpuCount + 1) : 1,
-                    new Factory(getName(), Thread.MIN_PRIORITY, 0));
+            // Same as Executors.newFixedThreadPool()
+            final int size = defaultParallelism.getValue() ? (cpuCount + 1) : 1;
+
+            return new MonitoredExecutor(
+                    size,
+                    size,
+                    0L,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new Factory(getName(), Thread.MIN_PRIORITY, 0),
+                    latency);
+        }
+    }
+
+    //-------------------//
+    // MonitoredExecutor //
+    //-------------------//
+    /** A thread pool executor which records the latency of submitted tasks. */
+    private static class MonitoredExecutor
+            extends ThreadPoolExecutor
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Latency latency;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        MonitoredExecutor (int coreSize,
+                           int maxSize,
+                           long keepAliveSeconds,
+                           BlockingQueue<Runnable> queue,
+                           ThreadFactory factory,
+                           Latency latency)
+        {
+            super(coreSize, maxSize, keepAliveSeconds, TimeUnit.SECONDS, queue, factory);
+            this.latency = latency;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor (Callable<T> callable)
+        {
+            return super.newTaskFor(latency.wrap(callable));
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor (Runnable runnable,
+                                                    T value)
+        {
+            return super.newTaskFor(latency.wrap(Executors.callable(runnable, value)));
+        }
+    }
+
+    //-----------------------//
+    // MonitoredForkJoinPool //
+    //-----------------------//
+    /** A fork-join pool which records the latency of submitted tasks. */
+    private static class MonitoredForkJoinPool
+            extends ForkJoinPool
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Latency latency;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        MonitoredForkJoinPool (int parallelism,
+                               ForkJoinWorkerThreadFactory factory,
+                               Latency latency)
+        {
+            super(parallelism, factory, null, false);
+            this.latency = latency;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public <T> List<Future<T>> invokeAll (Collection<? extends Callable<T>> tasks)
+        {
+            final List<Callable<T>> wrapped = new ArrayList<Callable<T>>(tasks.size());
+
+            for (Callable<T> task : tasks) {
+                wrapped.add(latency.wrap(task));
+            }
+
+            return super.invokeAll(wrapped);
+        }
+
+        @Override
+        public <T> ForkJoinTask<T> submit (Callable<T> task)
+        {
+            return super.submit(latency.wrap(task));
+        }
+
+        @Override
+        public <T> ForkJoinTask<T> submit (Runnable task,
+                                           T result)
+        {
+            return super.submit(latency.wrap(Executors.callable(task, result)));
+        }
+    }
+
+    //--------//
+    // Shared //
+    //--------//
+    /** Work-stealing pool, shared by low and high tasks. */
+    private static class Shared
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "shared";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return new MonitoredForkJoinPool(
+                    defaultParallelism.getValue() ? cpuCount : 1,
+                    new WorkerFactory(getName()),
+                    latency);
+        }
+    }
+
+    //---------------//
+    // WorkerFactory //
+    //---------------//
+    /** Factory of named workers for a fork-join pool. */
+    private static class WorkerFactory
+            implements ForkJoinPool.ForkJoinWorkerThreadFactory
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final String threadPrefix;
+
+        private final AtomicInteger threadNumber = new AtomicInteger(0);
+
+        //~ Constructors ---------------------------------------------------------------------------
+        WorkerFactory (String threadPrefix)
+        {
+            this.threadPrefix = threadPrefix;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public ForkJoinWorkerThread newThread (ForkJoinPool pool)
+        {
+            final ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool)
+            {
+            };
+            t.setName(threadPrefix + "-thread-" + threadNumber.incrementAndGet());
+
+            return t;
         }
     }
 }
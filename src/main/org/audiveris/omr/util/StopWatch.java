@@ -116,6 +116,11 @@ public class StopWatch
         if (task != null) {
             task.elapsed = System.currentTimeMillis() - task.start;
             total += task.elapsed;
+
+            if (Metrics.isEnabled()) {
+                Metrics.record(name + "/" + task.label, task.elapsed);
+            }
+
             task = null;
         }
     }
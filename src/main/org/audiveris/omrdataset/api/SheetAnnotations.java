@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omrdataset.api;
 
+import org.audiveris.omr.util.JaxbContexts;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,9 +64,6 @@ public class SheetAnnotations
     private static final Logger logger = LoggerFactory.getLogger(
             SheetAnnotations.class);
 
-    /** Un/marshalling context for use with JAXB. */
-    private static volatile JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     @XmlAttribute(name = "version")
     private String version;
@@ -163,13 +162,20 @@ public class SheetAnnotations
             Files.createDirectories(path.getParent());
         }
 
-        OutputStream os = new BufferedOutputStream(
-                Files.newOutputStream(path, StandardOpenOption.CREATE));
-        Marshaller m = getJaxbContext().createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        m.marshal(this, os);
-        os.flush();
-        os.close();
+        final long start = System.nanoTime();
+        final JAXBContext jaxbContext = JaxbContexts.getContext(SheetAnnotations.class);
+        final Marshaller m = JaxbContexts.borrowMarshaller(jaxbContext);
+
+        try (OutputStream os = new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE))) {
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            m.marshal(this, os);
+            os.flush();
+        } finally {
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+            JaxbContexts.release(jaxbContext, m);
+            JaxbContexts.recordMarshalTime(jaxbContext, System.nanoTime() - start);
+        }
     }
 
     /**
@@ -242,14 +248,20 @@ public class SheetAnnotations
     {
         logger.debug("SheetAnnotations unmarshalling {}", path);
 
-        try {
-            InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
-            Unmarshaller um = getJaxbContext().createUnmarshaller();
-            SheetAnnotations sheetInfo = (SheetAnnotations) um.unmarshal(is);
-            logger.debug("Unmarshalled {}", sheetInfo);
-            is.close();
+        try (InputStream is = Files.newInputStream(path, StandardOpenOption.READ)) {
+            final long start = System.nanoTime();
+            final JAXBContext jaxbContext = JaxbContexts.getContext(SheetAnnotations.class);
+            final Unmarshaller um = JaxbContexts.borrowUnmarshaller(jaxbContext);
 
-            return sheetInfo;
+            try {
+                SheetAnnotations sheetInfo = (SheetAnnotations) um.unmarshal(is);
+                logger.debug("Unmarshalled {}", sheetInfo);
+
+                return sheetInfo;
+            } finally {
+                JaxbContexts.release(jaxbContext, um);
+                JaxbContexts.recordUnmarshalTime(jaxbContext, System.nanoTime() - start);
+            }
         } catch (JAXBException ex) {
             logger.warn("Error unmarshalling " + path + " " + ex, ex);
 
@@ -257,20 +269,6 @@ public class SheetAnnotations
         }
     }
 
-    //----------------//
-    // getJaxbContext //
-    //----------------//
-    private static JAXBContext getJaxbContext ()
-            throws JAXBException
-    {
-        // Lazy creation
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(SheetAnnotations.class);
-        }
-
-        return jaxbContext;
-    }
-
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // SheetInfo //
@@ -0,0 +1,206 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          G a u s s i a n G r a y F i l t e r T e s t                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code GaussianGrayFilterTest} checks the floating-point Gaussian convolution, run
+ * sequentially or in parallel stripes, against the former sequential implementation, and the
+ * fixed-point convolution against the floating-point one.
+ *
+ * @author Hervé Bitteur
+ */
+public class GaussianGrayFilterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    /**
+     * Fixed-point output may differ from floating-point output by 1 gray level, on a few
+     * pixels only.
+     */
+    @Test
+    public void testFixedPoint ()
+    {
+        final Random random = new Random(123);
+        final float[] radii = new float[]{1, 2, 3};
+        final int[][] sizes = RandomImages.sizes(new int[]{300, 200});
+
+        for (float radius : radii) {
+            final GaussianGrayFilter floating = new GaussianGrayFilter(radius);
+            floating.setFixedPoint(false);
+
+            final GaussianGrayFilter fixed = new GaussianGrayFilter(radius);
+            fixed.setFixedPoint(true);
+
+            for (int[] size : sizes) {
+                final int w = size[0];
+                final int h = size[1];
+                final ByteProcessor input = new ByteProcessor(w, h);
+                final byte[] src = (byte[]) input.getPixels();
+
+                for (int i = 0; i < src.length; i++) {
+                    src[i] = (byte) random.nextInt(256);
+                }
+
+                final ByteProcessor expected = new ByteProcessor(w, h);
+                floating.filter(input, expected);
+
+                final ByteProcessor result = new ByteProcessor(w, h);
+                fixed.filter(input, result);
+
+                final byte[] exp = (byte[]) expected.getPixels();
+                final byte[] res = (byte[]) result.getPixels();
+                int diffs = 0;
+
+                for (int i = 0; i < exp.length; i++) {
+                    final int delta = Math.abs((exp[i] & 0xFF) - (res[i] & 0xFF));
+                    final String msg = "radius:" + radius + " size:" + w + "x" + h + " at:" + i;
+                    assertTrue(msg + " delta:" + delta, delta <= 1);
+
+                    if (delta != 0) {
+                        diffs++;
+                    }
+                }
+
+                final String msg = "radius:" + radius + " size:" + w + "x" + h;
+                assertTrue(msg + " diffs:" + diffs, diffs <= (1 + (exp.length / 100)));
+            }
+        }
+    }
+
+    /**
+     * Floating-point output, in parallel stripes or sequential, must be identical to the
+     * output of former sequential implementation.
+     * Fixed-point output must not depend on stripes either.
+     */
+    @Test
+    public void testStripes ()
+    {
+        final Random random = new Random(456);
+        final int[][] sizes = RandomImages.sizes(new int[]{257, 333}); // Several stripes per pass
+        final boolean parallel = OmrExecutors.defaultParallelism.getValue();
+
+        try {
+            for (float radius = 1; radius <= 3; radius++) {
+                for (int[] size : sizes) {
+                    final int w = size[0];
+                    final int h = size[1];
+                    final ByteProcessor input = RandomImages.mostlyBlackAndWhite(random, w, h);
+                    final String msg = "radius:" + radius + " size:" + w + "x" + h;
+                    final byte[] expected = reference(input, radius);
+
+                    for (boolean fixedPoint : new boolean[]{false, true}) {
+                        final GaussianGrayFilter filter = new GaussianGrayFilter(radius);
+                        filter.setFixedPoint(fixedPoint);
+
+                        OmrExecutors.defaultParallelism.setSpecific(true);
+
+                        final ByteProcessor striped = new ByteProcessor(w, h);
+                        filter.filter(input, striped);
+
+                        OmrExecutors.defaultParallelism.setSpecific(false);
+
+                        final ByteProcessor sequential = new ByteProcessor(w, h);
+                        filter.filter(input, sequential);
+
+                        if (!fixedPoint) {
+                            assertArrayEquals(
+                                    "sequential " + msg,
+                                    expected,
+                                    (byte[]) sequential.getPixels());
+                        }
+
+                        assertArrayEquals(
+                                "parallel fixed:" + fixedPoint + " " + msg,
+                                (byte[]) sequential.getPixels(),
+                                (byte[]) striped.getPixels());
+                    }
+                }
+            }
+        } finally {
+            OmrExecutors.defaultParallelism.setSpecific(parallel);
+        }
+    }
+
+    //-----------//
+    // reference //
+    //-----------//
+    /**
+     * Former sequential implementation: floating-point convolve and transpose, twice.
+     */
+    private static byte[] reference (ByteProcessor input,
+                                     float radius)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final float[] matrix = GaussianGrayFilter.makeKernel(radius).getKernelData(null);
+        final byte[] inPixels = ((byte[]) input.getPixels()).clone();
+        final byte[] outPixels = new byte[inPixels.length];
+
+        referencePass(matrix, inPixels, outPixels, width, height);
+        referencePass(matrix, outPixels, inPixels, height, width);
+
+        return inPixels;
+    }
+
+    //---------------//
+    // referencePass //
+    //---------------//
+    private static void referencePass (float[] matrix,
+                                       byte[] inPixels,
+                                       byte[] outPixels,
+                                       int width,
+                                       int height)
+    {
+        final int cols2 = matrix.length / 2;
+
+        for (int y = 0; y < height; y++) {
+            int index = y;
+            final int ioffset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                float p = 0;
+
+                for (int col = -cols2; col <= cols2; col++) {
+                    final float f = matrix[cols2 + col];
+
+                    if (f != 0) {
+                        final int ix = Math.min(width - 1, Math.max(0, x + col));
+                        p += (f * (inPixels[ioffset + ix] & 0xff));
+                    }
+                }
+
+                outPixels[index] = (byte) Math.min(255, Math.max(0, (int) (p + 0.5)));
+                index += height;
+            }
+        }
+    }
+}
@@ -21,12 +21,19 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Class {@code MedianGrayFilterTest}
@@ -121,6 +128,70 @@ public class MedianGrayFilterTest
         }
     }
 
+    /**
+     * Check sliding implementation against brute force, on random images of various
+     * sizes (including images narrower or shorter than the filter window).
+     */
+    @Test
+    public void testProcess_random ()
+    {
+        System.out.println("\nprocess_random");
+
+        final Random random = new Random(123);
+        final int[][] sizes = new int[][]{{1, 1}, {2, 7}, {7, 2}, {5, 5}, {31, 17}, {64, 40}};
+
+        for (int radius = 1; radius <= 4; radius++) {
+            for (int[] size : sizes) {
+                final ByteProcessor input = RandomImages.mostlyBlackAndWhite(
+                        random,
+                        size[0],
+                        size[1]);
+                final ByteProcessor expected = bruteForce(input, radius);
+                final ByteProcessor result = new MedianGrayFilter(radius).filter(input);
+                assertArrayEquals(
+                        "radius:" + radius + " size:" + size[0] + "x" + size[1],
+                        (byte[]) expected.getPixels(),
+                        (byte[]) result.getPixels());
+            }
+        }
+    }
+
+    /**
+     * Check the parallel stripe processing (image taller than a stripe) against the
+     * sequential processing and against brute force.
+     */
+    @Test
+    public void testProcess_stripes ()
+    {
+        System.out.println("\nprocess_stripes");
+
+        final ByteProcessor input = RandomImages.mostlyBlackAndWhite(new Random(456), 257, 333);
+        final boolean parallel = OmrExecutors.defaultParallelism.getValue();
+
+        try {
+            for (int radius = 1; radius <= 3; radius++) {
+                OmrExecutors.defaultParallelism.setSpecific(true);
+
+                final ByteProcessor striped = new MedianGrayFilter(radius).filter(input);
+
+                OmrExecutors.defaultParallelism.setSpecific(false);
+
+                final ByteProcessor sequential = new MedianGrayFilter(radius).filter(input);
+                final ByteProcessor expected = bruteForce(input, radius);
+                assertArrayEquals(
+                        "sequential radius:" + radius,
+                        (byte[]) expected.getPixels(),
+                        (byte[]) sequential.getPixels());
+                assertArrayEquals(
+                        "parallel radius:" + radius,
+                        (byte[]) sequential.getPixels(),
+                        (byte[]) striped.getPixels());
+            }
+        } finally {
+            OmrExecutors.defaultParallelism.setSpecific(parallel);
+        }
+    }
+
     //    @Test
     public void testProcess_white_1 ()
     {
@@ -163,6 +234,47 @@ public class MedianGrayFilterTest
         return true;
     }
 
+    /**
+     * Reference implementation: full histogram for every pixel.
+     */
+    private ByteProcessor bruteForce (ByteProcessor input,
+                                      int radius)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final ByteProcessor output = new ByteProcessor(width, height);
+        final int[] histogram = new int[256];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int rad = Math.min(
+                        Math.min(radius, Math.min(x, y)),
+                        Math.min(width - 1 - x, height - 1 - y));
+                Arrays.fill(histogram, 0);
+
+                for (int i = x - rad; i <= (x + rad); i++) {
+                    for (int j = y - rad; j <= (y + rad); j++) {
+                        histogram[input.get(i, j)]++;
+                    }
+                }
+
+                final int side = (2 * rad) + 1;
+                final int medianCount = ((side * side) + 1) / 2;
+                int median = 255;
+                int sum = 0;
+
+                while (sum < medianCount) {
+                    sum += histogram[median];
+                    median--;
+                }
+
+                output.set(x, y, median + 1);
+            }
+        }
+
+        return output;
+    }
+
     private BufferedImage createBlackImage ()
     {
         final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
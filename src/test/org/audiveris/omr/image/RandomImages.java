@@ -0,0 +1,90 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    R a n d o m I m a g e s                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import java.util.Random;
+
+/**
+ * Class {@code RandomImages} provides the random gray images and image sizes shared by
+ * the image filter tests.
+ *
+ * @author Hervé Bitteur
+ */
+final class RandomImages
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Image sizes (width, height), including images thinner than a filter window. */
+    static final int[][] SIZES = new int[][]{{1, 1}, {3, 17}, {17, 3}, {40, 25}};
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private RandomImages ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------------//
+    // mostlyBlackAndWhite //
+    //---------------------//
+    /**
+     * Create a random gray image, mostly black and white, with some grays.
+     *
+     * @param random the random generator
+     * @param width  image width
+     * @param height image height
+     * @return the image
+     */
+    static ByteProcessor mostlyBlackAndWhite (Random random,
+                                              int width,
+                                              int height)
+    {
+        final ByteProcessor image = new ByteProcessor(width, height);
+        final byte[] pixels = (byte[]) image.getPixels();
+
+        for (int i = 0; i < pixels.length; i++) {
+            final int r = random.nextInt(10);
+            pixels[i] = (byte) ((r < 4) ? 0 : ((r < 8) ? 255 : random.nextInt(256)));
+        }
+
+        return image;
+    }
+
+    //-------//
+    // sizes //
+    //-------//
+    /**
+     * Report the common {@link #SIZES}, followed by the provided ones.
+     *
+     * @param others additional sizes (width, height)
+     * @return all sizes
+     */
+    static int[][] sizes (int[]... others)
+    {
+        final int[][] all = new int[SIZES.length + others.length][];
+        System.arraycopy(SIZES, 0, all, 0, SIZES.length);
+        System.arraycopy(others, 0, all, SIZES.length, others.length);
+
+        return all;
+    }
+}
@@ -0,0 +1,182 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         S e p a r a b l e M o r p h o l o g y T e s t                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code SeparableMorphologyTest} checks the fast engine against a brute force
+ * implementation of dilation and erosion, and against the generic implementation of
+ * dilation, erosion, closing and opening.
+ *
+ * @author Hervé Bitteur
+ */
+public class SeparableMorphologyTest
+        implements MorphoConstants
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    /**
+     * Check MorphoProcessor dilate, erode, close and open against the generic
+     * implementation, on the same images and structuring elements.
+     */
+    @Test
+    public void testAgainstGeneric ()
+    {
+        final Random random = new Random(654);
+        final int[] types = new int[]{CIRCLE, DIAMOND, SQARE, HLINE, VLINE};
+        final int[][] sizes = RandomImages.sizes(new int[]{120, 90});
+        final String[] ops = new String[]{"dilate", "erode", "close", "open"};
+
+        for (int type : types) {
+            for (float radius = 1; radius <= 6; radius += 1.5f) {
+                final StructureElement se = new StructureElement(type, 1, radius, OFFSET0);
+                final MorphoProcessor fast = new MorphoProcessor(se, true);
+                final MorphoProcessor generic = new MorphoProcessor(se, false);
+
+                for (int[] size : sizes) {
+                    final int w = size[0];
+                    final int h = size[1];
+                    final ByteProcessor input = RandomImages.mostlyBlackAndWhite(random, w, h);
+
+                    for (String op : ops) {
+                        final String msg = op + " type:" + type + " radius:" + radius + " size:"
+                                           + w + "x" + h;
+                        final ByteProcessor expected = (ByteProcessor) input.duplicate();
+                        apply(generic, op, expected);
+
+                        final ByteProcessor result = (ByteProcessor) input.duplicate();
+                        apply(fast, op, result);
+                        assertArrayEquals(
+                                msg,
+                                (byte[]) expected.getPixels(),
+                                (byte[]) result.getPixels());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRandom ()
+    {
+        final Random random = new Random(321);
+        final int[] types = new int[]{CIRCLE, DIAMOND, SQARE, HLINE, VLINE};
+        final int[][] sizes = RandomImages.sizes(new int[]{120, 90});
+
+        for (int type : types) {
+            for (float radius = 1; radius <= 6; radius += 1.5f) {
+                final StructureElement se = new StructureElement(type, 1, radius, OFFSET0);
+                final SeparableMorphology engine = SeparableMorphology.create(se.getVect());
+                assertNotNull(engine);
+
+                for (int[] size : sizes) {
+                    final int w = size[0];
+                    final int h = size[1];
+                    final byte[] src = new byte[w * h];
+
+                    for (int i = 0; i < src.length; i++) {
+                        src[i] = (byte) random.nextInt(256);
+                    }
+
+                    final String msg = "type:" + type + " radius:" + radius + " size:" + w + "x" + h;
+                    final byte[] dilated = new byte[src.length];
+                    engine.dilate(src, dilated, w, h);
+                    assertArrayEquals(msg, bruteForce(src, w, h, se.getVect(), true), dilated);
+
+                    final byte[] eroded = new byte[src.length];
+                    engine.erode(src, eroded, w, h);
+                    assertArrayEquals(msg, bruteForce(src, w, h, se.getVect(), false), eroded);
+                }
+            }
+        }
+    }
+
+    //-------//
+    // apply //
+    //-------//
+    private static void apply (MorphoProcessor mp,
+                               String op,
+                               ByteProcessor ip)
+    {
+        switch (op) {
+        case "dilate":
+            mp.dilate(ip);
+
+            break;
+
+        case "erode":
+            mp.erode(ip);
+
+            break;
+
+        case "close":
+            mp.close(ip);
+
+            break;
+
+        default:
+            mp.open(ip);
+        }
+    }
+
+    //------------//
+    // bruteForce //
+    //------------//
+    /**
+     * Reference implementation, pixels outside image being ignored.
+     */
+    private static byte[] bruteForce (byte[] src,
+                                      int w,
+                                      int h,
+                                      int[][] pg,
+                                      boolean dilate)
+    {
+        final byte[] dst = new byte[src.length];
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int val = dilate ? 0 : 255;
+
+                for (int[] v : pg) {
+                    final int yy = y + v[0];
+                    final int xx = x + v[1];
+
+                    if ((yy >= 0) && (yy < h) && (xx >= 0) && (xx < w)) {
+                        final int k = src[(yy * w) + xx] & 0xFF;
+                        val = dilate ? Math.max(val, k) : Math.min(val, k);
+                    }
+                }
+
+                dst[(y * w) + x] = (byte) val;
+            }
+        }
+
+        return dst;
+    }
+}
@@ -0,0 +1,114 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  M o m e n t S u m s T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moment;
+
+import org.audiveris.omr.moments.GeometricMoments;
+import org.audiveris.omr.moments.MomentSums;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for MomentSums, checked against point-based GeometricMoments.
+ *
+ * @author Hervé Bitteur
+ */
+public class MomentSumsTest
+{
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code MomentSumsTest} object.
+     */
+    public MomentSumsTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Sums of disjoint parts, each with its own reference point, must give the moments of
+     * the whole.
+     */
+    @Test
+    public void testInclude ()
+    {
+        System.out.println("\n+++ testInclude");
+
+        final List<int[]> points = new ArrayList<int[]>();
+        final MomentSums total = new MomentSums(1200, 800);
+
+        // Part #1: horizontal segments
+        MomentSums part = new MomentSums(1500, 900);
+
+        for (int i = 0; i < 20; i++) {
+            int x = 1500 + ((i * 7) % 11);
+            int y = 900 + i;
+            int length = 3 + ((i * 5) % 17);
+            part.includeRow(x, y, length);
+
+            for (int j = 0; j < length; j++) {
+                points.add(new int[]{x + j, y});
+            }
+        }
+
+        total.include(part);
+
+        // Part #2: vertical segments
+        part = new MomentSums(1560, 880);
+
+        for (int i = 0; i < 15; i++) {
+            int x = 1560 + i;
+            int y = 880 + ((i * 3) % 7);
+            int length = 5 + ((i * 11) % 23);
+            part.includeColumn(x, y, length);
+
+            for (int j = 0; j < length; j++) {
+                points.add(new int[]{x, y + j});
+            }
+        }
+
+        total.include(part);
+
+        final int mass = points.size();
+        final int[] xx = new int[mass];
+        final int[] yy = new int[mass];
+
+        for (int i = 0; i < mass; i++) {
+            xx[i] = points.get(i)[0];
+            yy[i] = points.get(i)[1];
+        }
+
+        assertEquals(mass, total.getMass());
+
+        double[] expected = new GeometricMoments(xx, yy, mass, 20).getValues();
+        double[] actual = new GeometricMoments(total, 20).getValues();
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(
+                    GeometricMoments.getLabel(i),
+                    expected[i],
+                    actual[i],
+                    1E-9 * Math.max(1, Math.abs(expected[i])));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             R u n A R T E x t r a c t o r T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moment;
+
+import org.audiveris.omr.moments.ARTMoments;
+import org.audiveris.omr.moments.BasicARTExtractor;
+import org.audiveris.omr.moments.BasicARTMoments;
+import org.audiveris.omr.moments.RunARTExtractor;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit test for RunARTExtractor, checked against BasicARTExtractor.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunARTExtractorTest
+{
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunARTExtractorTest} object.
+     */
+    public RunARTExtractorTest ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Small image: each pixel gets a LUT cell of its own, results must be identical.
+     */
+    @Test
+    public void testSmallImage ()
+    {
+        System.out.println("\n+++ testSmallImage");
+
+        boolean[][] img = ellipses(30, 20);
+        check(img, true, 1E-5);
+        check(img, false, 5E-3); // Transposition is not exact in basic extractor either
+    }
+
+    /**
+     * Large image: runs are integrated, results must be within tolerance.
+     */
+    @Test
+    public void testLargeImage ()
+    {
+        System.out.println("\n+++ testLargeImage");
+
+        boolean[][] img = ellipses(150, 100);
+        check(img, true, 5E-3);
+        check(img, false, 5E-3);
+    }
+
+    //-------//
+    // check //
+    //-------//
+    private void check (boolean[][] img,
+                        boolean horizontal,
+                        double tolerance)
+    {
+        final int height = img.length;
+        final int width = img[0].length;
+
+        // Points
+        List<int[]> points = new ArrayList<int[]>();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (img[y][x]) {
+                    points.add(new int[]{x, y});
+                }
+            }
+        }
+
+        final int mass = points.size();
+        final int[] xx = new int[mass];
+        final int[] yy = new int[mass];
+
+        for (int i = 0; i < mass; i++) {
+            xx[i] = points.get(i)[0];
+            yy[i] = points.get(i)[1];
+        }
+
+        // Runs
+        List<int[]> runs = new ArrayList<int[]>();
+        final int pSize = horizontal ? height : width;
+        final int cSize = horizontal ? width : height;
+
+        for (int p = 0; p < pSize; p++) {
+            int start = -1;
+
+            for (int c = 0; c <= cSize; c++) {
+                boolean fore = (c < cSize) && (horizontal ? img[p][c] : img[c][p]);
+
+                if (fore) {
+                    if (start == -1) {
+                        start = c;
+                    }
+                } else if (start != -1) {
+                    runs.add(new int[]{p, start, c - start});
+                    start = -1;
+                }
+            }
+        }
+
+        final int count = runs.size();
+        final int[] ps = new int[count];
+        final int[] starts = new int[count];
+        final int[] lengths = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            ps[i] = runs.get(i)[0];
+            starts[i] = runs.get(i)[1];
+            lengths[i] = runs.get(i)[2];
+        }
+
+        ARTMoments expected = new BasicARTMoments();
+        BasicARTExtractor basic = new BasicARTExtractor();
+        basic.setDescriptor(expected);
+        basic.extract(xx, yy, mass);
+
+        ARTMoments actual = new BasicARTMoments();
+        RunARTExtractor extractor = new RunARTExtractor();
+        extractor.setDescriptor(actual);
+        extractor.extractRuns(ps, starts, lengths, count);
+
+        for (int p = 0; p < ARTMoments.ANGULAR; p++) {
+            for (int r = 0; r < ARTMoments.RADIAL; r++) {
+                assertEquals(
+                        "p:" + p + " r:" + r,
+                        expected.getMoment(p, r),
+                        actual.getMoment(p, r),
+                        tolerance);
+            }
+        }
+    }
+
+    //----------//
+    // ellipses //
+    //----------//
+    /**
+     * Build an image made of a few overlapping ellipses.
+     */
+    private boolean[][] ellipses (int width,
+                                  int height)
+    {
+        final double[][] defs = new double[][]{
+            {0.3, 0.4, 0.25, 0.3}, {0.6, 0.5, 0.35, 0.15}, {0.8, 0.7, 0.1, 0.3}
+        };
+        boolean[][] img = new boolean[height][width];
+
+        for (double[] def : defs) {
+            final double cx = def[0] * width;
+            final double cy = def[1] * height;
+            final double rx = def[2] * width;
+            final double ry = def[3] * height;
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    double dx = (x - cx) / rx;
+                    double dy = (y - cy) / ry;
+
+                    if (((dx * dx) + (dy * dy)) < 1) {
+                        img[y][x] = true;
+                    }
+                }
+            }
+        }
+
+        return img;
+    }
+}
@@ -322,6 +322,40 @@ public class RunTableTest
         assertEquals(5, instance.getTotalRunCount());
     }
 
+    /**
+     * Test of moveOffHeap method, of class RunTable.
+     */
+    @Test
+    public void testMoveOffHeap ()
+    {
+        System.out.println("\n+++ moveOffHeap");
+
+        for (boolean mapped : new boolean[]{false, true}) {
+            RunTable expected = createHorizontalInstance();
+            RunTable instance = createHorizontalInstance();
+            instance.moveOffHeap(mapped);
+            assertTrue(instance.isOffHeap());
+
+            // Reading
+            assertEquals(expected, instance);
+            assertEquals(expected.contentHashCode(), instance.contentHashCode());
+            assertEquals(expected.dumpOf(), instance.dumpOf());
+            assertEquals(expected.getTotalRunCount(), instance.getTotalRunCount());
+            assertEquals(expected.getWeight(), instance.getWeight());
+            assertEquals(expected.getSequence(3), instance.getSequence(3));
+            assertTrue(instance.isSequenceEmpty(2));
+            assertEquals(expected.getRunAt(6, 0).toString(), instance.getRunAt(6, 0).toString());
+            assertTrue(instance.isOffHeap());
+
+            // Modification
+            expected.removeRun(3, new Run(4, 1));
+            instance.removeRun(3, new Run(4, 1));
+            assertFalse(instance.isOffHeap());
+            assertEquals(expected, instance);
+            assertEquals(expected.dumpOf(), instance.dumpOf());
+        }
+    }
+
     /**
      * Test of purge method, of class RunTable.
      */
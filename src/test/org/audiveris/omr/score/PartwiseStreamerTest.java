@@ -0,0 +1,274 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                            P a r t w i s e S t r e a m e r T e s t                             //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+/**
+ * Class {@code PartwiseStreamerTest} checks that streamed MusicXML export is equivalent to
+ * the marshalling of the whole ScorePartwise tree.
+ * <p>
+ * Both a single-page sample and a multi-page multi-part sample are exported, plain and
+ * compressed, with and without signature.
+ * Outputs are compared as XML documents, regardless of indentation and comments.
+ *
+ * @author Hervé Bitteur
+ */
+public class PartwiseStreamerTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Name of score within compressed output. */
+    private static final String SCORE_NAME = "score";
+
+    /** Transcribed single-page book. */
+    private static Book singlePage;
+
+    /** Transcribed multi-page book, with several parts. */
+    private static Book multiPage;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @BeforeClass
+    public static void setUpClass ()
+    {
+        OmrExecutors.restart();
+        OMR.engine = BookManager.getInstance();
+
+        singlePage = transcribe(Paths.get("data", "examples", "chula.png"));
+        multiPage = transcribe(Paths.get("data", "examples", "Dichterliebe01.pdf"));
+    }
+
+    @AfterClass
+    public static void tearDownClass ()
+    {
+        for (Book book : new Book[]{singlePage, multiPage}) {
+            if (book != null) {
+                book.close();
+            }
+        }
+    }
+
+    /**
+     * Measures of several pages are spooled per part, then copied part after part.
+     */
+    @Test
+    public void testMultiPage ()
+            throws Exception
+    {
+        boolean spooled = false;
+
+        for (Score score : multiPage.getScores()) {
+            if ((score.getPages().size() > 1)
+                && (PartwiseBuilder.build(score).getPart().size() > 1)) {
+                spooled = true;
+            }
+
+            checkScore(score);
+        }
+
+        assertTrue("No multi-page multi-part score", spooled);
+    }
+
+    /**
+     * Streamed output must match marshalled tree on a single page.
+     */
+    @Test
+    public void testSinglePage ()
+            throws Exception
+    {
+        for (Score score : singlePage.getScores()) {
+            checkScore(score);
+        }
+    }
+
+    //------------//
+    // checkScore //
+    //------------//
+    /**
+     * Compare streamed and marshalled outputs of a score, plain and compressed, with and
+     * without signature.
+     */
+    private static void checkScore (Score score)
+            throws Exception
+    {
+        for (boolean compressed : new boolean[]{false, true}) {
+            for (boolean signed : new boolean[]{false, true}) {
+                final Document expected = parse(export(score, signed, compressed, false));
+                final Document actual = parse(export(score, signed, compressed, true));
+
+                assertEquals(
+                        expected.getDoctype().getPublicId(),
+                        actual.getDoctype().getPublicId());
+                assertEquals(toString(expected), toString(actual));
+            }
+        }
+    }
+
+    //--------//
+    // export //
+    //--------//
+    /**
+     * Export a score, and report the MusicXML bytes (unzipped if compressed).
+     */
+    private static byte[] export (Score score,
+                                  boolean signed,
+                                  boolean compressed,
+                                  boolean streaming)
+            throws Exception
+    {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new ScoreExporter(score).export(os, signed, SCORE_NAME, compressed, streaming);
+
+        return compressed ? unzip(os.toByteArray(), SCORE_NAME + OMR.SCORE_EXTENSION)
+                : os.toByteArray();
+    }
+
+    //-------//
+    // parse //
+    //-------//
+    /**
+     * Parse MusicXML bytes, without loading DTD, and discard comments and indentation.
+     */
+    private static Document parse (byte[] bytes)
+            throws Exception
+    {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        factory.setIgnoringComments(true);
+
+        final Document doc = factory.newDocumentBuilder().parse(new ByteArrayInputStream(bytes));
+        strip(doc.getDocumentElement());
+
+        return doc;
+    }
+
+    //-------//
+    // strip //
+    //-------//
+    /**
+     * Remove whitespace-only text nodes, recursively.
+     */
+    private static void strip (Node node)
+    {
+        Node child = node.getFirstChild();
+
+        while (child != null) {
+            final Node next = child.getNextSibling();
+
+            if ((child.getNodeType() == Node.TEXT_NODE) && child.getNodeValue().trim().isEmpty()) {
+                node.removeChild(child);
+            } else {
+                strip(child);
+            }
+
+            child = next;
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    private static String toString (Document doc)
+            throws Exception
+    {
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+
+        final StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(doc.getDocumentElement()), new StreamResult(writer));
+
+        return writer.toString();
+    }
+
+    //------------//
+    // transcribe //
+    //------------//
+    private static Book transcribe (Path path)
+    {
+        final Book book = OMR.engine.loadInput(path);
+        book.createStubs(null);
+        assertTrue(book.transcribe());
+        assertFalse(book.getScores().isEmpty());
+
+        return book;
+    }
+
+    //-------//
+    // unzip //
+    //-------//
+    /**
+     * Report the content of a compressed entry.
+     */
+    private static byte[] unzip (byte[] bytes,
+                                 String name)
+            throws IOException
+    {
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            for (ZipEntry entry; (entry = zis.getNextEntry()) != null;) {
+                if (entry.getName().equals(name)) {
+                    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    final byte[] buffer = new byte[8192];
+
+                    for (int n; (n = zis.read(buffer)) > 0;) {
+                        os.write(buffer, 0, n);
+                    }
+
+                    return os.toByteArray();
+                }
+            }
+        }
+
+        fail("No " + name + " entry in compressed output");
+
+        return null;
+    }
+}
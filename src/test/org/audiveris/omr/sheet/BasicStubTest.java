@@ -0,0 +1,262 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   B a s i c S t u b T e s t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.util.OmrExecutors;
+import org.audiveris.omr.util.ZipFileSystem;
+
+import org.junit.After;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class {@code BasicStubTest} checks the background storing of swapped sheet material:
+ * captured entries are written by the I/O executor (or by the caller when I/O queue is full),
+ * and can then be read back from book file.
+ *
+ * @author Hervé Bitteur
+ */
+public class BasicStubTest
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Lock on book file. */
+    private final Lock lock = new ReentrantLock();
+
+    /** Temporary folder. */
+    private Path folder;
+
+    /** Book file. */
+    private Path bookPath;
+
+    /** Minimal book, just able to locate and lock its book file. */
+    private Book book;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Before
+    public void setUp ()
+            throws IOException
+    {
+        folder = Files.createTempDirectory("stub");
+        bookPath = folder.resolve("test.omr");
+        ZipFileSystem.create(bookPath).getFileSystem().close();
+        book = createBook();
+    }
+
+    @After
+    public void tearDown ()
+            throws IOException
+    {
+        Files.deleteIfExists(bookPath);
+        Files.deleteIfExists(folder);
+    }
+
+    /**
+     * Capture, write in background, then reload.
+     */
+    @Test
+    public void testBackgroundStore ()
+            throws Exception
+    {
+        final BasicStub stub = new BasicStub(book, 1);
+        final Map<String, byte[]> entries = createEntries(1, "background");
+        stub.setModified(true);
+
+        stub.storeEntries(OmrExecutors.getIoExecutor(), entries);
+        stub.awaitSwap();
+
+        assertFalse(stub.isModified());
+        assertArrayEquals(entries.get(BasicSheet.getSheetFileName(1)), stub.readSheetBytes());
+    }
+
+    /**
+     * With I/O thread busy and I/O queue full, the caller writes by itself.
+     */
+    @Test
+    public void testCallerRuns ()
+            throws Exception
+    {
+        final ExecutorService io = OmrExecutors.getIoExecutor();
+        final Thread caller = Thread.currentThread();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean ranByCaller = new AtomicBoolean();
+
+        try {
+            // Block the I/O thread
+            io.execute(
+                    new Runnable()
+            {
+                @Override
+                public void run ()
+                {
+                    started.countDown();
+
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            });
+            started.await();
+
+            // Fill the I/O queue, until a task gets run by the caller
+            for (int i = 0; (i < 1000) && !ranByCaller.get(); i++) {
+                io.execute(
+                        new Runnable()
+                {
+                    @Override
+                    public void run ()
+                    {
+                        if (Thread.currentThread() == caller) {
+                            ranByCaller.set(true);
+                        }
+                    }
+                });
+            }
+
+            assertTrue(ranByCaller.get());
+
+            // Queue is still full, so entries are written before storeEntries returns
+            final BasicStub stub = new BasicStub(book, 2);
+            final Map<String, byte[]> entries = createEntries(2, "caller");
+            stub.setModified(true);
+
+            stub.storeEntries(io, entries);
+
+            assertFalse(stub.isModified());
+            assertArrayEquals(entries.get(BasicSheet.getSheetFileName(2)), stub.readSheetBytes());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * A failed store is reported, and the stub remains modified.
+     */
+    @Test
+    public void testFailedStore ()
+            throws Exception
+    {
+        final BasicStub stub = new BasicStub(book, 3);
+        stub.setModified(true);
+
+        // No book file to write into
+        Files.delete(bookPath);
+
+        stub.storeEntries(OmrExecutors.getIoExecutor(), createEntries(3, "failed"));
+        stub.awaitSwap();
+
+        assertTrue(stub.isModified());
+    }
+
+    //------------//
+    // createBook //
+    //------------//
+    /**
+     * Create a book that just provides its path and lock, other methods do nothing.
+     */
+    private Book createBook ()
+    {
+        return (Book) Proxy.newProxyInstance(
+                Book.class.getClassLoader(),
+                new Class<?>[]{Book.class},
+                new InvocationHandler()
+        {
+            @Override
+            public Object invoke (Object proxy,
+                                  Method method,
+                                  Object[] args)
+                    throws Throwable
+            {
+                switch (method.getName()) {
+                case "getBookPath":
+                    return bookPath;
+
+                case "getLock":
+                    return lock;
+
+                case "getRadix":
+                case "toString":
+                    return "test";
+
+                case "openSheetFolder":
+                    return ZipFileSystem.open(bookPath).resolve(Sheet.INTERNALS_RADIX + args[0]);
+
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+
+                case "equals":
+                    return proxy == args[0];
+
+                default:
+                    final Class<?> type = method.getReturnType();
+
+                    if (type.isPrimitive() && (type != void.class)) {
+                        return Array.get(Array.newInstance(type, 1), 0); // Default value
+                    }
+
+                    return null;
+                }
+            }
+        });
+    }
+
+    //---------------//
+    // createEntries //
+    //---------------//
+    /**
+     * Create the captured entries of a sheet.
+     */
+    private static Map<String, byte[]> createEntries (int number,
+                                                      String content)
+    {
+        final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+        entries.put("BINARY.xml", ("<run-table>" + content + "</run-table>").getBytes(
+                StandardCharsets.UTF_8));
+        entries.put(
+                BasicSheet.getSheetFileName(number),
+                ("<sheet number=\"" + number + "\">" + content + "</sheet>").getBytes(
+                        StandardCharsets.UTF_8));
+
+        return entries;
+    }
+}
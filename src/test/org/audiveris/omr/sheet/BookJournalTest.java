@@ -0,0 +1,118 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 B o o k J o u r n a l T e s t                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.FileUtil;
+
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code BookJournalTest} checks that an interrupted batch resumes from the sheet
+ * data actually stored in book file.
+ *
+ * @author Hervé Bitteur
+ */
+public class BookJournalTest
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Temporary folder. */
+    private Path folder;
+
+    /** Input image file. */
+    private Path imagePath;
+
+    /** Book file. */
+    private Path bookPath;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Before
+    public void setUp ()
+            throws IOException
+    {
+        folder = Files.createTempDirectory("journal");
+        imagePath = folder.resolve("test.png");
+        bookPath = folder.resolve("test.omr");
+        ImageIO.write(
+                new BufferedImage(20, 10, BufferedImage.TYPE_BYTE_GRAY),
+                "png",
+                imagePath.toFile());
+    }
+
+    @After
+    public void tearDown ()
+            throws IOException
+    {
+        FileUtil.deleteDirectory(folder);
+    }
+
+    /**
+     * A run is interrupted after a forced store of book (as done when batch is cancelled).
+     * On resumption, the stored step is kept, only the step performed after store is rolled back.
+     */
+    @Test
+    public void testResumeAfterForcedStore ()
+            throws Exception
+    {
+        final Book book = new BasicBook(imagePath);
+        book.createStubs(null);
+
+        final BasicStub stub = (BasicStub) book.getStubs().get(0);
+        book.store(bookPath, false); // Initial book file, with no step done
+
+        BookJournal journal = BookJournal.open(book);
+        book.setJournal(journal);
+
+        // A step is completed, then the whole book is stored
+        stub.getSheet();
+        stub.done(Step.LOAD);
+        stub.setModified(true);
+        book.store(bookPath, false);
+        assertFalse(stub.isModified());
+
+        // Another step is completed, but not stored, when run gets interrupted
+        stub.done(Step.BINARY);
+        book.setJournal(null);
+        journal.close();
+
+        // Resumption
+        assertTrue(BookJournal.canResume(book));
+        journal = BookJournal.open(book);
+        journal.delete();
+
+        assertEquals(Step.LOAD, stub.getLatestStep());
+        assertTrue(stub.isDone(Step.LOAD));
+    }
+}
@@ -0,0 +1,228 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  S y s t e m I n f o T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2018. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.sig.InterIndex;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.SigValue;
+import org.audiveris.omr.sig.inter.BraceInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Exclusion;
+import org.audiveris.omr.sig.relation.Relation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code SystemInfoTest} checks that a lazily reloaded system ends up with the same
+ * SIG as an eagerly reloaded one, and gets completed when one of its inters is reached.
+ *
+ * @author Hervé Bitteur
+ */
+public class SystemInfoTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Eager reload: SIG is populated right away.
+     */
+    @Test
+    public void testEagerReload ()
+            throws Exception
+    {
+        final List<Inter> inters = new ArrayList<Inter>();
+        final SystemInfo system = reload(false, inters);
+
+        for (Inter inter : inters) {
+            assertTrue(system.getSig().containsVertex(inter));
+        }
+
+        assertFalse(system.getSig().edgeSet().isEmpty());
+    }
+
+    /**
+     * Lazy reload: an inter reached directly (as via an IDREF) completes its system,
+     * which then exhibits the same SIG as an eager reload.
+     */
+    @Test
+    public void testLazyReload ()
+            throws Exception
+    {
+        final List<Inter> inters = new ArrayList<Inter>();
+        final SystemInfo system = reload(true, inters);
+
+        final Inter inter = inters.get(0);
+        final SIGraph sig = inter.getSig();
+        assertNotNull(sig);
+        assertSame(system.getSig(), sig);
+        assertTrue(sig.containsVertex(inter));
+
+        assertEquals(describe(reload(false, new ArrayList<Inter>())), describe(system));
+    }
+
+    //-------------//
+    // createSheet //
+    //-------------//
+    /**
+     * Create a sheet that just provides its systems, system manager, inter index and
+     * ID generator, other methods do nothing.
+     */
+    private static Sheet createSheet (final List<SystemInfo> systems)
+    {
+        final AtomicInteger idGenerator = new AtomicInteger();
+        final InterIndex index = new InterIndex();
+        final SystemManager[] manager = new SystemManager[1];
+
+        final Sheet sheet = (Sheet) Proxy.newProxyInstance(
+                Sheet.class.getClassLoader(),
+                new Class<?>[]{Sheet.class},
+                new InvocationHandler()
+        {
+            @Override
+            public Object invoke (Object proxy,
+                                  Method method,
+                                  Object[] args)
+                    throws Throwable
+            {
+                switch (method.getName()) {
+                case "getInterIndex":
+                    return index;
+
+                case "getPersistentIdGenerator":
+                    return idGenerator;
+
+                case "getSystemManager":
+                    return manager[0];
+
+                case "getSystems":
+                    return systems;
+
+                case "toString":
+                    return "sheet";
+
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+
+                case "equals":
+                    return proxy == args[0];
+
+                default:
+                    final Class<?> type = method.getReturnType();
+
+                    if (type.isPrimitive() && (type != void.class)) {
+                        return Array.get(Array.newInstance(type, 1), 0); // Default value
+                    }
+
+                    return null;
+                }
+            }
+        });
+
+        manager[0] = new SystemManager(sheet);
+        index.initTransients(sheet);
+
+        return sheet;
+    }
+
+    //----------//
+    // describe //
+    //----------//
+    /**
+     * Describe the SIG content of a system, in a form independent of inter instances.
+     */
+    private static List<String> describe (SystemInfo system)
+    {
+        final SIGraph sig = system.getSig();
+        final List<String> items = new ArrayList<String>();
+
+        for (Inter inter : sig.vertexSet()) {
+            items.add(inter.getId() + ":" + inter.getShape() + ":" + (inter.getSig() == sig));
+        }
+
+        for (Relation rel : sig.edgeSet()) {
+            items.add(
+                    sig.getEdgeSource(rel).getId() + "-" + sig.getEdgeTarget(rel).getId() + ":"
+                    + rel.getClass().getSimpleName());
+        }
+
+        Collections.sort(items);
+
+        return items;
+    }
+
+    //--------//
+    // reload //
+    //--------//
+    /**
+     * Build a small system SIG, then reload its content into a brand new system.
+     *
+     * @param lazy   true for lazy reload
+     * @param inters (output) the inters of the SIG
+     * @return the reloaded system
+     */
+    private static SystemInfo reload (boolean lazy,
+                                      List<Inter> inters)
+            throws Exception
+    {
+        // Source
+        final List<SystemInfo> sources = new ArrayList<SystemInfo>();
+        final SystemInfo source = new SystemInfo(1, createSheet(sources), new ArrayList<Staff>());
+        sources.add(source);
+
+        final SIGraph sourceSig = source.getSig();
+        final Inter b1 = new BraceInter(null, 0.8);
+        final Inter b2 = new BraceInter(null, 0.6);
+        sourceSig.addVertex(b1);
+        sourceSig.addVertex(b2);
+        sourceSig.insertExclusion(b1, b2, Exclusion.Cause.OVERLAP);
+        inters.add(b1);
+        inters.add(b2);
+
+        // Target, as JAXB would unmarshal it
+        final SigValue.Adapter adapter = new SigValue.Adapter();
+        final SIGraph sig = adapter.unmarshal(adapter.marshal(sourceSig));
+        final List<SystemInfo> systems = new ArrayList<SystemInfo>();
+        final SystemInfo system = new SystemInfo(1, createSheet(systems), new ArrayList<Staff>());
+        systems.add(system);
+
+        final Field field = SystemInfo.class.getDeclaredField("sig");
+        field.setAccessible(true);
+        field.set(system, sig);
+
+        system.afterReload(lazy);
+
+        return system;
+    }
+}